@@ -0,0 +1,64 @@
+package com.griefprevention.commands;
+
+import me.ryanhamshire.GriefPrevention.DataStore;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.TextMode;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Audits the cached claimed area of every claim owner against a full recompute.
+ */
+public class ClaimAreaAuditCommand extends CommandHandler
+{
+
+    public ClaimAreaAuditCommand(@NotNull GriefPrevention plugin)
+    {
+        super(plugin, "claimareaaudit");
+    }
+
+    @Override
+    public boolean onCommand(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String label,
+            @NotNull String[] args)
+    {
+        List<DataStore.ClaimedAreaMismatch> mismatches = plugin.dataStore.auditClaimedAreas();
+        if (mismatches.isEmpty())
+        {
+            sender.sendMessage(TextMode.Success + "All cached claimed areas match their claims.");
+            return true;
+        }
+
+        for (DataStore.ClaimedAreaMismatch mismatch : mismatches)
+        {
+            OfflinePlayer owner = plugin.getServer().getOfflinePlayer(mismatch.ownerID());
+            String ownerName = owner.getName() != null ? owner.getName() : mismatch.ownerID().toString();
+            sender.sendMessage(TextMode.Warn + String.format(
+                    "%s: cached %,d, actual %,d",
+                    ownerName,
+                    mismatch.cachedArea(),
+                    mismatch.actualArea()));
+        }
+
+        sender.sendMessage(TextMode.Err + String.format("%,d owner(s) have incorrect cached claimed areas.", mismatches.size()));
+        return true;
+    }
+
+    @Override
+    public @Nullable List<String> onTabComplete(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String alias,
+            @NotNull String[] args)
+    {
+        return List.of();
+    }
+
+}
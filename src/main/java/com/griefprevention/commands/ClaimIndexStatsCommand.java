@@ -0,0 +1,88 @@
+package com.griefprevention.commands;
+
+import me.ryanhamshire.GriefPrevention.ChunkClaimCache;
+import me.ryanhamshire.GriefPrevention.ClaimChunkIndex;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.TextMode;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Reports the size and estimated memory footprint of the chunk to claim index, and how well environmental lookups
+ * are served by the chunk claim cache.
+ */
+public class ClaimIndexStatsCommand extends CommandHandler
+{
+
+    public ClaimIndexStatsCommand(@NotNull GriefPrevention plugin)
+    {
+        super(plugin, "claimindexstats");
+    }
+
+    @Override
+    public boolean onCommand(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String label,
+            @NotNull String[] args)
+    {
+        ChunkClaimCache.Stats cacheStats = plugin.dataStore.getChunkClaimCacheStats();
+        sender.sendMessage(TextMode.Info + String.format(
+                "Environment lookups: %,d cached, %,d uncached (%.1f%% hit rate), %,d in unclaimed chunks",
+                cacheStats.hits(),
+                cacheStats.misses(),
+                cacheStats.hitRate() * 100,
+                cacheStats.unclaimed()));
+
+        List<ClaimChunkIndex.Usage> usages = plugin.dataStore.getChunkIndexUsage();
+        if (usages.isEmpty())
+        {
+            sender.sendMessage(TextMode.Info + "The claim index is empty.");
+            return true;
+        }
+
+        long totalChunks = 0;
+        long totalBytes = 0;
+        for (ClaimChunkIndex.Usage usage : usages)
+        {
+            World world = plugin.getServer().getWorld(usage.worldId());
+            String worldName = world != null ? world.getName() : usage.worldId().toString();
+            sender.sendMessage(TextMode.Info + String.format(
+                    "%s: %,d chunks, %,d regions, %,d claim references, %,d slots, ~%s",
+                    worldName,
+                    usage.chunks(),
+                    usage.regions(),
+                    usage.claimReferences(),
+                    usage.capacity(),
+                    formatBytes(usage.estimatedBytes())));
+            totalChunks += usage.chunks();
+            totalBytes += usage.estimatedBytes();
+        }
+
+        sender.sendMessage(TextMode.Success + String.format("Total: %,d chunks, ~%s", totalChunks, formatBytes(totalBytes)));
+        return true;
+    }
+
+    private static @NotNull String formatBytes(long bytes)
+    {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KiB", bytes / 1024.0);
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    @Override
+    public @Nullable List<String> onTabComplete(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String alias,
+            @NotNull String[] args)
+    {
+        return List.of();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.griefprevention.commands;
+
+import com.griefprevention.util.WriteBehindQueue;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.TextMode;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Reports the depth and flush latency of the storage write queue.
+ */
+public class StorageQueueStatsCommand extends CommandHandler
+{
+
+    public StorageQueueStatsCommand(@NotNull GriefPrevention plugin)
+    {
+        super(plugin, "storagequeuestats");
+    }
+
+    @Override
+    public boolean onCommand(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String label,
+            @NotNull String[] args)
+    {
+        WriteBehindQueue.Stats stats = plugin.dataStore.getWriteQueueStats();
+        sender.sendMessage(TextMode.Info + String.format(
+                "Queued: %,d waiting, %,d total, %,d coalesced, %,d over capacity",
+                stats.depth(),
+                stats.queuedWrites(),
+                stats.coalescedWrites(),
+                stats.overflowedWrites()));
+        sender.sendMessage(TextMode.Info + String.format(
+                "Written: %,d in %,d batches",
+                stats.completedWrites(),
+                stats.batches()));
+        sender.sendMessage(TextMode.Info + String.format(
+                "Batch time: last %.2f ms, average %.2f ms, max %.2f ms",
+                stats.lastFlushNanos() / 1_000_000.0,
+                stats.averageFlushNanos() / 1_000_000.0,
+                stats.maxFlushNanos() / 1_000_000.0));
+        return true;
+    }
+
+    @Override
+    public @Nullable List<String> onTabComplete(
+            @NotNull CommandSender sender,
+            @NotNull Command command,
+            @NotNull String alias,
+            @NotNull String[] args)
+    {
+        return List.of();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.griefprevention.protection;
 
+import com.griefprevention.util.EventListeners;
 import me.ryanhamshire.GriefPrevention.Claim;
 import me.ryanhamshire.GriefPrevention.ClaimPermission;
 import me.ryanhamshire.GriefPrevention.ClaimsMode;
@@ -92,7 +93,8 @@ public final class ProtectionHelper
         Supplier<String> cancel = claim.checkPermission(player, permission, trigger);
 
         // Apply additional specific rules.
-        if (cancel != null && trigger instanceof BlockBreakEvent breakEvent)
+        if (cancel != null && trigger instanceof BlockBreakEvent breakEvent
+                && EventListeners.hasListeners(PreventBlockBreakEvent.getHandlerList()))
         {
             PreventBlockBreakEvent preventionEvent = new PreventBlockBreakEvent(breakEvent);
             Bukkit.getPluginManager().callEvent(preventionEvent);
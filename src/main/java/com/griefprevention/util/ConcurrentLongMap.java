@@ -0,0 +1,223 @@
+package com.griefprevention.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A {@code long}-keyed open-addressing hash map whose reads never lock or allocate.
+ *
+ * <p>Writes are serialized on the map itself. Keys are never moved or overwritten within a table: a removed
+ * entry keeps its key and drops its value, and the table is rebuilt and republished once removed entries pile
+ * up. Together with release/acquire ordering on the slots, this lets readers probe concurrently with a writer
+ * and always see either the old or the new value for a key.</p>
+ *
+ * @param <V> the type of value
+ */
+public final class ConcurrentLongMap<V>
+{
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private volatile @NotNull Table table = new Table(MINIMUM_CAPACITY);
+    // Zero marks an empty slot, so the zero key is stored separately.
+    private volatile @Nullable V zeroValue;
+    private int size;
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key the key
+     * @return the value or {@code null} if there is no mapping
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(long key)
+    {
+        if (key == 0) return this.zeroValue;
+
+        Table table = this.table;
+        long[] keys = table.keys;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask)
+        {
+            long slotKey = (long) KEYS.getAcquire(keys, i);
+            if (slotKey == key) return (V) VALUES.getAcquire(table.values, i);
+            if (slotKey == 0) return null;
+        }
+    }
+
+    /**
+     * Map a key to a value.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put(long key, @NotNull V value)
+    {
+        if (key == 0)
+        {
+            if (this.zeroValue == null) this.size++;
+            this.zeroValue = value;
+            return;
+        }
+
+        Table table = this.table;
+        int slot = table.find(key);
+        if (table.keys[slot] == key)
+        {
+            if (table.values[slot] == null) this.size++;
+            VALUES.setRelease(table.values, slot, value);
+            return;
+        }
+
+        // Claiming a fresh slot; make room first if the table is getting crowded.
+        if (table.used + 1 > table.threshold)
+        {
+            table = this.rebuild(this.size + 1);
+            slot = table.find(key);
+        }
+
+        // The value must be visible before the key that leads readers to it.
+        VALUES.setRelease(table.values, slot, value);
+        KEYS.setRelease(table.keys, slot, key);
+        table.used++;
+        this.size++;
+    }
+
+    /**
+     * Remove the mapping for a key, if any.
+     *
+     * @param key the key
+     */
+    public synchronized void remove(long key)
+    {
+        if (key == 0)
+        {
+            if (this.zeroValue != null) this.size--;
+            this.zeroValue = null;
+            return;
+        }
+
+        Table table = this.table;
+        int slot = table.find(key);
+        if (table.keys[slot] != key || table.values[slot] == null) return;
+
+        VALUES.setRelease(table.values, slot, null);
+        this.size--;
+    }
+
+    /**
+     * Get the number of mappings.
+     *
+     * @return the number of mappings
+     */
+    public synchronized int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Get the number of slots in the backing table.
+     *
+     * @return the table capacity
+     */
+    public synchronized int capacity()
+    {
+        return this.table.keys.length;
+    }
+
+    /**
+     * Perform an action for every mapping. Mappings changed during iteration may or may not be visited.
+     *
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NotNull Visitor<? super V> action)
+    {
+        V zero = this.zeroValue;
+        if (zero != null) action.visit(0, zero);
+
+        Table table = this.table;
+        for (int i = 0; i < table.keys.length; i++)
+        {
+            long key = (long) KEYS.getAcquire(table.keys, i);
+            if (key == 0) continue;
+            V value = (V) VALUES.getAcquire(table.values, i);
+            if (value != null) action.visit(key, value);
+        }
+    }
+
+    private @NotNull Table rebuild(int expectedSize)
+    {
+        // Size for a load factor of at most one half so that a run of inserts doesn't immediately rebuild again.
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+
+        Table oldTable = this.table;
+        Table newTable = new Table(capacity);
+        for (int i = 0; i < oldTable.keys.length; i++)
+        {
+            long key = oldTable.keys[i];
+            Object value = oldTable.values[i];
+            if (key == 0 || value == null) continue;
+
+            int slot = newTable.find(key);
+            newTable.keys[slot] = key;
+            newTable.values[slot] = value;
+            newTable.used++;
+        }
+
+        // Publishing through the volatile field makes the fully populated table visible to readers.
+        this.table = newTable;
+        return newTable;
+    }
+
+    private static int mix(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * A visitor for map entries.
+     *
+     * @param <V> the type of value
+     */
+    @FunctionalInterface
+    public interface Visitor<V>
+    {
+        void visit(long key, @NotNull V value);
+    }
+
+    private static final class Table
+    {
+        private final long[] keys;
+        private final Object[] values;
+        private final int threshold;
+        // Slots with a key, whether or not they still hold a value.
+        private int used;
+
+        private Table(int capacity)
+        {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.threshold = capacity / 4 * 3;
+        }
+
+        private int find(long key)
+        {
+            int mask = this.keys.length - 1;
+            int slot = mix(key) & mask;
+            while (this.keys[slot] != key && this.keys[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+}
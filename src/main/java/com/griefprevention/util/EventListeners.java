@@ -0,0 +1,30 @@
+package com.griefprevention.util;
+
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Checks for listeners before firing events in hot paths.
+ *
+ * <p>Firing an event nobody listens to cannot change its outcome, but constructing and dispatching it still costs an
+ * allocation and a trip through the plugin manager. A {@link HandlerList} keeps a baked array of its listeners which
+ * is discarded whenever a listener is registered or unregistered, so reading it always reflects the current state
+ * without any bookkeeping of our own.</p>
+ */
+public final class EventListeners
+{
+
+    private EventListeners() {}
+
+    /**
+     * Check whether any listener is registered for an event.
+     *
+     * @param handlers the {@link HandlerList} of the event
+     * @return {@code true} if the event should be fired
+     */
+    public static boolean hasListeners(@NotNull HandlerList handlers)
+    {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.griefprevention.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer for many producers and a single consumer.
+ *
+ * <p>Each slot carries a sequence number telling producers whether it is free for the current lap and telling the
+ * consumer whether its element has been published. Producers claim a slot with a single compare-and-set and never
+ * wait; when the buffer is full, {@link #offer(Object)} fails immediately and the caller decides what to do with the
+ * element.</p>
+ *
+ * @param <E> the type of element
+ */
+public final class RingBuffer<E>
+{
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    // Next position to claim for writing.
+    private final AtomicLong tail = new AtomicLong();
+    // Next position to read. Only ever written by the consumer.
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Construct a new buffer.
+     *
+     * @param capacity the minimum number of elements the buffer can hold, rounded up to a power of two of at least 2
+     */
+    public RingBuffer(int capacity)
+    {
+        if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+        // A published slot's sequence must differ from the next lap's position, so there are always at least two.
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element unless the buffer is full. Safe to call from any thread.
+     *
+     * @param element the element
+     * @return true if the element was added
+     */
+    public boolean offer(@NotNull E element)
+    {
+        long position = this.tail.get();
+        while (true)
+        {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+
+            if (difference == 0)
+            {
+                if (this.tail.compareAndSet(position, position + 1))
+                {
+                    this.elements.lazySet(index, element);
+                    // Publish the element to the consumer.
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            }
+            else if (difference < 0)
+            {
+                // The slot still holds an element from the previous lap.
+                return false;
+            }
+            else
+            {
+                // Another producer claimed this position first.
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the oldest element. Must only be called by the single consumer thread.
+     *
+     * @return the element or null if the buffer is empty
+     */
+    public @Nullable E poll()
+    {
+        long position = this.head.get();
+        int index = (int) (position & this.mask);
+        if (this.sequences.get(index) != position + 1) return null;
+
+        E element = this.elements.get(index);
+        this.elements.lazySet(index, null);
+        // Hand the slot back to producers for the next lap.
+        this.sequences.set(index, position + this.mask + 1);
+        this.head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Get the approximate number of elements in the buffer.
+     *
+     * @return the number of elements
+     */
+    public int size()
+    {
+        long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, this.mask + 1));
+    }
+
+    /**
+     * Get the number of elements the buffer can hold.
+     *
+     * @return the capacity
+     */
+    public int capacity()
+    {
+        return this.mask + 1;
+    }
+
+}
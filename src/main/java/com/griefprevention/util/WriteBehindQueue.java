@@ -0,0 +1,366 @@
+package com.griefprevention.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A write-behind queue that performs writes in batches on a single dedicated thread.
+ *
+ * <p>Writes are keyed by the record they persist. Queueing a write for a key that is still waiting replaces the
+ * waiting write, so a record changed many times in quick succession is only written once, with its latest state.
+ * Writes for the same key are always performed in the order they were queued.</p>
+ *
+ * <p>The queue is bounded by the number of distinct waiting keys. When full, callers wait a limited time for room
+ * before queueing anyway, so a writer that needs a lock held by a waiting caller can never deadlock the two.</p>
+ *
+ * @param <K> the type of key identifying a record
+ */
+public final class WriteBehindQueue<K> implements AutoCloseable
+{
+
+    private final @NotNull String name;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long maxBlockNanos;
+    private final @NotNull Consumer<List<Runnable>> batchWriter;
+    private final @NotNull Consumer<Throwable> failureHandler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final Condition idle = this.lock.newCondition();
+    private final LinkedHashMap<K, Runnable> pending = new LinkedHashMap<>();
+    private Thread thread;
+    private boolean writing;
+    private boolean flushRequested;
+    private boolean closed;
+    private boolean terminated;
+
+    // Statistics, guarded by the lock.
+    private long queuedWrites;
+    private long coalescedWrites;
+    private long overflowedWrites;
+    private long completedWrites;
+    private long batches;
+    private long lastFlushNanos;
+    private long maxFlushNanos;
+    private long totalFlushNanos;
+
+    /**
+     * Construct a new queue. The writer thread is started when the first write is queued.
+     *
+     * @param name the name of the writer thread
+     * @param capacity the number of distinct keys that may wait before callers are slowed down
+     * @param batchSize the maximum number of writes handed to the batch writer at once
+     * @param maxDelay the longest time to wait for a batch to fill up before writing it
+     * @param maxBlock the longest time a caller waits for room in a full queue
+     * @param timeUnit the unit of the delays
+     * @param batchWriter the writer performing a batch of writes
+     * @param failureHandler the handler for anything thrown by the batch writer
+     */
+    public WriteBehindQueue(
+            @NotNull String name,
+            int capacity,
+            int batchSize,
+            long maxDelay,
+            long maxBlock,
+            @NotNull TimeUnit timeUnit,
+            @NotNull Consumer<List<Runnable>> batchWriter,
+            @NotNull Consumer<Throwable> failureHandler)
+    {
+        this.name = name;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = timeUnit.toNanos(maxDelay);
+        this.maxBlockNanos = timeUnit.toNanos(maxBlock);
+        this.batchWriter = batchWriter;
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Queue a write, replacing any write for the same key that has not started yet.
+     *
+     * <p>Once the queue is closed, writes are performed immediately on the calling thread.</p>
+     *
+     * @param key the key of the record being written
+     * @param write the write
+     */
+    public void enqueue(@NotNull K key, @NotNull Runnable write)
+    {
+        this.lock.lock();
+        try
+        {
+            if (!this.closed)
+            {
+                this.queuedWrites++;
+                if (this.pending.replace(key, write) != null)
+                {
+                    this.coalescedWrites++;
+                    return;
+                }
+
+                long remaining = this.maxBlockNanos;
+                while (this.pending.size() >= this.capacity && remaining > 0 && !this.closed)
+                {
+                    remaining = this.notFull.awaitNanos(remaining);
+                }
+
+                if (!this.closed)
+                {
+                    if (this.pending.size() >= this.capacity) this.overflowedWrites++;
+                    this.pending.put(key, write);
+                    this.startThread();
+                    this.notEmpty.signal();
+                    return;
+                }
+            }
+
+            // Closed: let the writer thread finish so that this write can't overtake one it still holds.
+            while (!this.terminated && Thread.currentThread() != this.thread)
+            {
+                this.idle.awaitUninterruptibly();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Never drop the write; queue it even though the queue is full.
+            Thread.currentThread().interrupt();
+            this.pending.put(key, write);
+            this.startThread();
+            this.notEmpty.signal();
+            return;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        this.writeBatch(List.of(write));
+    }
+
+    /**
+     * Wait until every write queued so far has been performed. Returns immediately if called by a write.
+     */
+    public void flush()
+    {
+        this.lock.lock();
+        try
+        {
+            this.flushRequested = true;
+            this.notEmpty.signal();
+            while ((!this.pending.isEmpty() || this.writing) && !this.terminated && Thread.currentThread() != this.thread)
+            {
+                this.idle.awaitUninterruptibly();
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Perform all waiting writes and stop the writer thread. Writes queued afterwards are performed immediately.
+     */
+    @Override
+    public void close()
+    {
+        Thread writer;
+        this.lock.lock();
+        try
+        {
+            this.closed = true;
+            writer = this.thread;
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        if (writer != null)
+        {
+            boolean interrupted = false;
+            while (writer.isAlive())
+            {
+                try
+                {
+                    writer.join();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+
+        this.lock.lock();
+        try
+        {
+            this.terminated = true;
+            this.idle.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get a snapshot of the queue's statistics.
+     *
+     * @return the statistics
+     */
+    public @NotNull Stats getStats()
+    {
+        this.lock.lock();
+        try
+        {
+            return new Stats(
+                    this.pending.size(),
+                    this.queuedWrites,
+                    this.coalescedWrites,
+                    this.overflowedWrites,
+                    this.completedWrites,
+                    this.batches,
+                    this.lastFlushNanos,
+                    this.maxFlushNanos,
+                    this.batches > 0 ? this.totalFlushNanos / this.batches : 0);
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private void startThread()
+    {
+        if (this.thread != null) return;
+
+        this.thread = new Thread(this::run, this.name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run()
+    {
+        while (true)
+        {
+            List<Runnable> batch = this.takeBatch();
+            if (batch == null) return;
+
+            long start = System.nanoTime();
+            this.writeBatch(batch);
+            long elapsed = System.nanoTime() - start;
+
+            this.lock.lock();
+            try
+            {
+                this.writing = false;
+                this.completedWrites += batch.size();
+                this.batches++;
+                this.lastFlushNanos = elapsed;
+                this.maxFlushNanos = Math.max(this.maxFlushNanos, elapsed);
+                this.totalFlushNanos += elapsed;
+                if (this.pending.isEmpty()) this.idle.signalAll();
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private List<Runnable> takeBatch()
+    {
+        this.lock.lock();
+        try
+        {
+            while (this.pending.isEmpty())
+            {
+                if (this.closed) return null;
+                this.flushRequested = false;
+                this.notEmpty.awaitUninterruptibly();
+            }
+
+            // Give a partial batch a moment to fill up, unless someone is waiting on it.
+            long remaining = this.maxDelayNanos;
+            while (this.pending.size() < this.batchSize && remaining > 0 && !this.closed && !this.flushRequested)
+            {
+                try
+                {
+                    remaining = this.notEmpty.awaitNanos(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    break;
+                }
+            }
+
+            List<Runnable> batch = new ArrayList<>(Math.min(this.pending.size(), this.batchSize));
+            Iterator<Map.Entry<K, Runnable>> iterator = this.pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < this.batchSize)
+            {
+                batch.add(iterator.next().getValue());
+                iterator.remove();
+            }
+
+            this.writing = true;
+            this.notFull.signalAll();
+            return batch;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private void writeBatch(@NotNull List<Runnable> batch)
+    {
+        try
+        {
+            this.batchWriter.accept(batch);
+        }
+        catch (Throwable t)
+        {
+            this.failureHandler.accept(t);
+        }
+    }
+
+    /**
+     * A snapshot of the queue's statistics.
+     *
+     * @param depth the number of writes waiting
+     * @param queuedWrites the number of writes ever queued
+     * @param coalescedWrites the number of writes that replaced a waiting write for the same key
+     * @param overflowedWrites the number of writes queued while the queue was full
+     * @param completedWrites the number of writes performed by the writer thread
+     * @param batches the number of batches performed by the writer thread
+     * @param lastFlushNanos the time taken by the latest batch
+     * @param maxFlushNanos the time taken by the slowest batch
+     * @param averageFlushNanos the average time taken by a batch
+     */
+    public record Stats(
+            int depth,
+            long queuedWrites,
+            long coalescedWrites,
+            long overflowedWrites,
+            long completedWrites,
+            long batches,
+            long lastFlushNanos,
+            long maxFlushNanos,
+            long averageFlushNanos) {}
+
+}
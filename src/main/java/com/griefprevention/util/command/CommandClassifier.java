@@ -0,0 +1,48 @@
+package com.griefprevention.util.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Checks a command against several sets of {@link MonitoredCommands} at once.
+ *
+ * <p>Immutable and safe to use from any thread.</p>
+ */
+public final class CommandClassifier
+{
+
+    private final CommandTrie trie = new CommandTrie();
+
+    /**
+     * Construct a new classifier.
+     *
+     * @param categories up to 32 sets of commands; the set at index {@code i} is reported as bit {@code 1 << i}
+     */
+    public CommandClassifier(@NotNull List<MonitoredCommands> categories)
+    {
+        if (categories.size() > Integer.SIZE)
+            throw new IllegalArgumentException("At most " + Integer.SIZE + " categories are supported");
+
+        for (int i = 0; i < categories.size(); i++)
+        {
+            int bit = 1 << i;
+            for (String command : categories.get(i).getMonitoredCommands())
+            {
+                this.trie.add(command, bit);
+            }
+        }
+    }
+
+    /**
+     * Find every set which monitors a command.
+     *
+     * @param command the command as entered, including the leading slash
+     * @return a mask with the bit of each matching set
+     */
+    public int classify(@NotNull String command)
+    {
+        return this.trie.match(command);
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.griefprevention.util.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A character trie of lowercase commands. Each command carries a bit mask, and a lookup combines the masks of every
+ * command that is a whole-word prefix of the input, in one pass over the input and without allocating.
+ *
+ * <p>Not thread safe while commands are being added. Once built it is never modified, so it may be shared freely
+ * after safe publication.</p>
+ */
+final class CommandTrie
+{
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final CommandTrie[] NO_CHILDREN = new CommandTrie[0];
+
+    private char[] labels = NO_LABELS;
+    private CommandTrie[] children = NO_CHILDREN;
+    private int mask;
+
+    /**
+     * Add a command.
+     *
+     * @param command the command, including any leading slash and required arguments
+     * @param mask the bits to report when the command matches
+     */
+    void add(@NotNull String command, int mask)
+    {
+        CommandTrie node = this;
+        for (int i = 0; i < command.length(); i++)
+        {
+            char character = Character.toLowerCase(command.charAt(i));
+            int index = Arrays.binarySearch(node.labels, character);
+            if (index < 0)
+            {
+                index = -index - 1;
+                node.labels = insert(node.labels, index, character);
+                CommandTrie[] children = new CommandTrie[node.children.length + 1];
+                System.arraycopy(node.children, 0, children, 0, index);
+                children[index] = new CommandTrie();
+                System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+                node.children = children;
+            }
+            node = node.children[index];
+        }
+        node.mask |= mask;
+    }
+
+    /**
+     * Match a command, ignoring case. A stored command matches if the input is the same or continues with a space.
+     *
+     * @param command the command as entered
+     * @return the combined masks of all matching stored commands, or {@code 0} if none match
+     */
+    int match(@NotNull String command)
+    {
+        int result = 0;
+        CommandTrie node = this;
+        for (int i = 0; ; i++)
+        {
+            if (i == command.length()) return result | node.mask;
+            char character = command.charAt(i);
+            if (character == ' ') result |= node.mask;
+
+            int index = Arrays.binarySearch(node.labels, Character.toLowerCase(character));
+            if (index < 0) return result;
+            node = node.children[index];
+        }
+    }
+
+    private static char[] insert(char[] array, int index, char value)
+    {
+        char[] result = new char[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+}
@@ -53,7 +53,7 @@ public class MonitoredCommands
     }
 
     private final Set<String> monitoredCommands = new HashSet<>();
-    private int maxSpaces = -1;
+    private final CommandTrie trie = new CommandTrie();
 
     public MonitoredCommands(@NotNull Collection<String> commands)
     {
@@ -61,17 +61,32 @@ public class MonitoredCommands
         {
             addMonitored(command);
         }
+
+        for (String command : monitoredCommands)
+        {
+            trie.add(command, 1);
+        }
     }
 
     public boolean isMonitoredCommand(@NotNull MonitorableCommand command)
     {
-        int max = Math.min(maxSpaces, command.getArgumentCount());
-        for (int spaceCount = 0; spaceCount <= max; ++spaceCount)
-        {
-            if (monitoredCommands.contains(command.getCommand(spaceCount))) return true;
-        }
+        return isMonitoredCommand(command.getCommand());
+    }
 
-        return false;
+    /**
+     * Check if a command or any of its leading words is monitored, ignoring case.
+     *
+     * @param command the command as entered, including the leading slash
+     * @return true if the command is monitored
+     */
+    public boolean isMonitoredCommand(@NotNull String command)
+    {
+        return trie.match(command) != 0;
+    }
+
+    @NotNull Set<String> getMonitoredCommands()
+    {
+        return monitoredCommands;
     }
 
     private void addMonitored(@NotNull String command)
@@ -116,13 +131,7 @@ public class MonitoredCommands
             addCommand(command, suffix, activePlugin);
 
         // If the command is a specific alias, that command is the one being targeted, not others.
-        if (commandName.indexOf(':') != -1)
-        {
-            // Only update max spaces if this is a real command.
-            if (present)
-                maxSpaces = Math.max(maxSpaces, (int) suffix.chars().filter(ch -> ch == ' ').count());
-            return;
-        }
+        if (commandName.indexOf(':') != -1) return;
 
         // Also check plugins for copies of the commands.
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins())
@@ -131,14 +140,8 @@ public class MonitoredCommands
 
             Command pluginCommand = commandMap.getCommand(plugin.getName().toLowerCase() + ':' + commandName);
             if (pluginCommand != null)
-            {
                 addCommand(pluginCommand, suffix, plugin);
-                present = true;
-            }
         }
-
-        if (present)
-            maxSpaces = Math.max(maxSpaces, (int) suffix.chars().filter(ch -> ch == ' ').count());
     }
 
     private void addCommand(@NotNull Command command, @NotNull String suffix, @Nullable Plugin plugin)
@@ -226,7 +229,6 @@ public class MonitoredCommands
 
     private void addFromBukkit(@NotNull String commandName, @NotNull String suffix)
     {
-        maxSpaces = Math.max(maxSpaces, (int) suffix.chars().filter(ch -> ch == ' ').count());
         monitoredCommands.add('/' + commandName + suffix);
 
         boolean specificAlias = commandName.indexOf(':') != -1;
@@ -58,9 +58,37 @@ public abstract class BlockBoundaryVisualization extends BoundaryVisualization
     @Override
     protected void apply(@NotNull Player player, @NotNull PlayerData playerData) {
         super.apply(player, playerData);
+        drawElements(player, elements);
+    }
+
+    /**
+     * Display {@link BlockElement BlockElements} for a {@link Player}.
+     *
+     * <p>By default each element displays itself. Implementations able to send many elements at once may override
+     * this to batch them.</p>
+     *
+     * @param player the visualization target
+     * @param elements the elements to display
+     */
+    protected void drawElements(@NotNull Player player, @NotNull Collection<BlockElement> elements)
+    {
         elements.forEach(element -> element.draw(player, world));
     }
 
+    /**
+     * Stop the display of {@link BlockElement BlockElements} for a {@link Player}.
+     *
+     * <p>By default each element erases itself. Implementations able to send many elements at once may override
+     * this to batch them.</p>
+     *
+     * @param player the visualization target
+     * @param elements the elements to erase
+     */
+    protected void eraseElements(@NotNull Player player, @NotNull Collection<BlockElement> elements)
+    {
+        elements.forEach(element -> element.erase(player, world));
+    }
+
     @Override
     protected void draw(@NotNull Player player, @NotNull Boundary boundary)
     {
@@ -158,14 +186,14 @@ public abstract class BlockBoundaryVisualization extends BoundaryVisualization
             return;
         }
 
-        // Elements do not track the boundary they're attached to - all elements are reverted individually instead.
-        this.elements.forEach(element -> element.erase(player, world));
+        // Elements do not track the boundary they're attached to - all elements are reverted together instead.
+        eraseElements(player, this.elements);
     }
 
     @Override
     protected void erase(@NotNull Player player, @NotNull Boundary boundary)
     {
-        this.elements.forEach(element -> element.erase(player, world));
+        eraseElements(player, this.elements);
     }
 
 }
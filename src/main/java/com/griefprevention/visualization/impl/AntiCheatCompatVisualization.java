@@ -26,6 +26,13 @@ public class AntiCheatCompatVisualization extends FakeBlockVisualization
         super(world, visualizeFrom, height);
     }
 
+    @Override
+    protected boolean isSnapshotSafe()
+    {
+        // Collision shapes can only be read from the live world.
+        return false;
+    }
+
     @Override
     protected boolean isTransparent(@NotNull Block block)
     {
@@ -26,6 +26,26 @@ final class FakeBlockElement extends BlockElement
         this.visualizedBlock = visualizedBlock;
     }
 
+    /**
+     * Get the real {@link BlockData} at the element's coordinate.
+     *
+     * @return the real block
+     */
+    @NotNull BlockData getRealBlock()
+    {
+        return realBlock;
+    }
+
+    /**
+     * Get the {@link BlockData} displayed in place of the real block.
+     *
+     * @return the visualized block
+     */
+    @NotNull BlockData getVisualizedBlock()
+    {
+        return visualizedBlock;
+    }
+
     @Override
     protected void draw(@NotNull Player player, @NotNull World world)
     {
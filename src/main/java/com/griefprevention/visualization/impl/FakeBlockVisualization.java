@@ -2,8 +2,13 @@ package com.griefprevention.visualization.impl;
 
 import com.griefprevention.util.IntVector;
 import com.griefprevention.visualization.BlockBoundaryVisualization;
+import com.griefprevention.visualization.BlockElement;
 import com.griefprevention.visualization.Boundary;
 import com.griefprevention.visualization.BoundaryVisualization;
+import io.papermc.paper.math.Position;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.PlayerData;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Material;
 import org.bukkit.Tag;
 import org.bukkit.World;
@@ -11,18 +16,33 @@ import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Lightable;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * A {@link BoundaryVisualization} implementation that displays clientside blocks along
  * {@link com.griefprevention.visualization.Boundary Boundaries}.
+ *
+ * <p>Finding where each element is visible means scanning up or down its column, which adds up for large or crowded
+ * visualizations. Unless an implementation needs the live world to decide transparency, the chunks containing the
+ * elements are captured as {@link ChunkSnapshot ChunkSnapshots} and the columns are scanned off the player's thread.
+ * Elements are sent and reverted as multi-block changes, which the server splits into one packet per chunk
+ * section.</p>
  */
 public class FakeBlockVisualization extends BlockBoundaryVisualization
 {
 
     protected final boolean waterTransparent;
+    // Columns waiting to be resolved from chunk snapshots once all boundaries are drawn.
+    private final List<Column> columns = new ArrayList<>();
 
     /**
      * Construct a new {@code FakeBlockVisualization}.
@@ -77,6 +97,9 @@ public class FakeBlockVisualization extends BlockBoundaryVisualization
      */
     private @NotNull Consumer<@NotNull IntVector> addBlockElement(@NotNull BlockData fakeData)
     {
+        // Defer to resolution from snapshots when applied.
+        if (isSnapshotSafe()) return vector -> columns.add(new Column(vector, fakeData));
+
         return vector -> {
             // Obtain visible location from starting point.
             Block visibleLocation = getVisibleLocation(vector);
@@ -85,13 +108,158 @@ public class FakeBlockVisualization extends BlockBoundaryVisualization
         };
     }
 
+    @Override
+    protected void apply(@NotNull Player player, @NotNull PlayerData playerData)
+    {
+        super.apply(player, playerData);
+
+        if (columns.isEmpty()) return;
+
+        // Snapshot the chunks on this thread, which owns them. Columns never leave their chunk, so each needs only one.
+        List<Column> pending = List.copyOf(columns);
+        columns.clear();
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        for (Column column : pending)
+        {
+            int chunkX = column.coordinate().x() >> 4;
+            int chunkZ = column.coordinate().z() >> 4;
+            snapshots.computeIfAbsent(
+                    chunkKey(chunkX, chunkZ),
+                    key -> world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+        }
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+        BlockData outsideWorld = Material.VOID_AIR.createBlockData();
+
+        GriefPrevention.scheduler.getImpl().runAsync(() ->
+        {
+            List<FakeBlockElement> resolved = new ArrayList<>(pending.size());
+            try
+            {
+                for (Column column : pending)
+                {
+                    ChunkSnapshot snapshot = snapshots.get(chunkKey(column.coordinate().x() >> 4, column.coordinate().z() >> 4));
+                    resolved.add(resolve(snapshot, column, minHeight, maxHeight, outsideWorld));
+                }
+            }
+            catch (Exception exception)
+            {
+                GriefPrevention.instance.getLogger().log(Level.WARNING, "Exception visualizing claim", exception);
+                return;
+            }
+
+            // Back on the player's thread, which is all that is needed to send the changes.
+            GriefPrevention.scheduler.getImpl().runAtEntity(
+                    player,
+                    task ->
+                    {
+                        // The visualization may have been replaced or reverted in the meantime.
+                        if (playerData.getVisibleBoundaries() != this || !canVisualize(player)) return;
+
+                        elements.addAll(resolved);
+                        drawElements(player, elements);
+                    });
+        });
+    }
+
+    /**
+     * Find the element that should be visible to players for a column using a {@link ChunkSnapshot}. This matches
+     * {@link #getVisibleLocation(IntVector)} and is safe to call from any thread.
+     *
+     * @param snapshot the snapshot of the chunk containing the column
+     * @param column the column
+     * @param minHeight the minimum height of the world
+     * @param maxHeight the maximum height of the world
+     * @param outsideWorld the data of blocks outside the world's height limits
+     * @return the resulting element
+     */
+    @NotNull FakeBlockElement resolve(
+            @NotNull ChunkSnapshot snapshot,
+            @NotNull Column column,
+            int minHeight,
+            int maxHeight,
+            @NotNull BlockData outsideWorld)
+    {
+        int x = column.coordinate().x() & 15;
+        int y = column.coordinate().y();
+        int z = column.coordinate().z() & 15;
+        int direction = isTransparent(getType(snapshot, x, y, z, minHeight, maxHeight)) ? -1 : 1;
+
+        while (y >= minHeight &&
+                y < maxHeight - 1 &&
+                (!isTransparent(getType(snapshot, x, y + 1, z, minHeight, maxHeight))
+                        || isTransparent(getType(snapshot, x, y, z, minHeight, maxHeight))))
+        {
+            y += direction;
+        }
+
+        BlockData realBlock = y >= minHeight && y < maxHeight ? snapshot.getBlockData(x, y, z) : outsideWorld;
+        return new FakeBlockElement(
+                new IntVector(column.coordinate().x(), y, column.coordinate().z()),
+                realBlock,
+                column.fakeData());
+    }
+
+    private static @NotNull Material getType(@NotNull ChunkSnapshot snapshot, int x, int y, int z, int minHeight, int maxHeight)
+    {
+        return y >= minHeight && y < maxHeight ? snapshot.getBlockType(x, y, z) : Material.VOID_AIR;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ)
+    {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Override
+    protected void drawElements(@NotNull Player player, @NotNull Collection<BlockElement> elements)
+    {
+        sendBlockChanges(player, elements, true);
+    }
+
+    @Override
+    protected void eraseElements(@NotNull Player player, @NotNull Collection<BlockElement> elements)
+    {
+        sendBlockChanges(player, elements, false);
+    }
+
+    /**
+     * Send the fake or real blocks of elements to a {@link Player} as a single multi-block change.
+     *
+     * @param player the visualization target
+     * @param elements the elements
+     * @param visualize true to send the fake blocks, false to send the real blocks
+     */
+    private void sendBlockChanges(@NotNull Player player, @NotNull Collection<BlockElement> elements, boolean visualize)
+    {
+        Map<Position, BlockData> changes = new HashMap<>();
+        for (BlockElement element : elements)
+        {
+            if (!(element instanceof FakeBlockElement fakeElement))
+            {
+                if (visualize) element.draw(player, world);
+                else element.erase(player, world);
+                continue;
+            }
+
+            IntVector coordinate = element.getCoordinate();
+            // Like FakeBlockElement#draw, only display in loaded chunks.
+            if (visualize && !coordinate.isChunkLoaded(world)) continue;
+
+            changes.put(
+                    Position.block(coordinate.x(), coordinate.y(), coordinate.z()),
+                    visualize ? fakeElement.getVisualizedBlock() : fakeElement.getRealBlock());
+        }
+
+        if (!changes.isEmpty()) player.sendMultiBlockChange(changes);
+    }
+
     /**
      * Find a location that should be visible to players. This causes the visualization to "cling" to the ground.
      *
      * @param vector the {@link IntVector} of the display location
      * @return the located {@link Block}
      */
-    private Block getVisibleLocation(@NotNull IntVector vector)
+    @NotNull Block getVisibleLocation(@NotNull IntVector vector)
     {
         Block block = vector.toBlock(world);
         BlockFace direction = (isTransparent(block)) ? BlockFace.DOWN : BlockFace.UP;
@@ -106,6 +274,18 @@ public class FakeBlockVisualization extends BlockBoundaryVisualization
         return block;
     }
 
+    /**
+     * Check whether transparency can be decided from a block's {@link Material} alone, allowing elements to be
+     * resolved from {@link ChunkSnapshot ChunkSnapshots} off the player's thread. Implementations which override
+     * {@link #isTransparent(Block)} to inspect the live world must return false.
+     *
+     * @return true if elements may be resolved from snapshots
+     */
+    protected boolean isSnapshotSafe()
+    {
+        return true;
+    }
+
     /**
      * Helper method for determining if a {@link Block} is transparent from the top down.
      *
@@ -114,8 +294,17 @@ public class FakeBlockVisualization extends BlockBoundaryVisualization
      */
     protected boolean isTransparent(@NotNull Block block)
     {
-        Material blockMaterial = block.getType();
+        return isTransparent(block.getType());
+    }
 
+    /**
+     * Helper method for determining if a {@link Material} is transparent from the top down.
+     *
+     * @param blockMaterial the {@code Material}
+     * @return true if transparent
+     */
+    protected boolean isTransparent(@NotNull Material blockMaterial)
+    {
         // Custom per-material definitions.
         switch (blockMaterial)
         {
@@ -133,7 +322,15 @@ public class FakeBlockVisualization extends BlockBoundaryVisualization
                 || Tag.WALL_SIGNS.isTagged(blockMaterial))
             return true;
 
-        return block.getType().isTransparent();
+        return blockMaterial.isTransparent();
     }
 
+    /**
+     * A column whose visible location has not been found yet.
+     *
+     * @param coordinate the starting coordinate
+     * @param fakeData the fake {@link BlockData} to display
+     */
+    record Column(@NotNull IntVector coordinate, @NotNull BlockData fakeData) {}
+
 }
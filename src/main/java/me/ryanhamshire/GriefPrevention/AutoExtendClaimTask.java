@@ -16,13 +16,14 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 //automatically extends a claim downward based on block types detected
+//chunk snapshots are taken on the region thread, then searched in parallel in the background
 public class AutoExtendClaimTask implements Runnable
 {
 
@@ -70,15 +71,15 @@ public class AutoExtendClaimTask implements Runnable
             }
         }
 
-        final Location location = claim.getLesserBoundaryCorner();
-        GriefPrevention.scheduler.getImpl().runAtLocation(location,
+        // Search the snapshots in the background; only applying the result needs the region thread.
+        GriefPrevention.scheduler.getImpl().runAsync(
                 new AutoExtendClaimTask(claim, snapshots, world.getEnvironment(), lowestLootableTile));
     }
 
     private final Claim claim;
-    private final ArrayList<ChunkSnapshot> chunks;
+    private final List<ChunkSnapshot> chunks;
     private final Environment worldType;
-    private final Map<Biome, Set<Material>> biomePlayerMaterials = new HashMap<>();
+    private final int worldMinY;
     private final int minY;
     private final int lowestExistingY;
     // Definitions of biomes where sand covers surfaces instead of grass.
@@ -88,9 +89,9 @@ public class AutoExtendClaimTask implements Runnable
             NamespacedKey.minecraft("desert")
     );
 
-    private AutoExtendClaimTask(
+    AutoExtendClaimTask(
             @NotNull Claim claim,
-            @NotNull ArrayList<@NotNull ChunkSnapshot> chunks,
+            @NotNull List<@NotNull ChunkSnapshot> chunks,
             @NotNull Environment worldType,
             int lowestExistingY)
     {
@@ -98,9 +99,8 @@ public class AutoExtendClaimTask implements Runnable
         this.chunks = chunks;
         this.worldType = worldType;
         this.lowestExistingY = Math.min(lowestExistingY, claim.getLesserBoundaryCorner().getBlockY());
-        this.minY = Math.max(
-                Objects.requireNonNull(claim.getLesserBoundaryCorner().getWorld()).getMinHeight(),
-                GriefPrevention.instance.config_claims_maxDepth);
+        this.worldMinY = Objects.requireNonNull(claim.getLesserBoundaryCorner().getWorld()).getMinHeight();
+        this.minY = Math.max(this.worldMinY, GriefPrevention.instance.config_claims_maxDepth);
     }
 
     @Override
@@ -114,59 +114,57 @@ public class AutoExtendClaimTask implements Runnable
         }
     }
 
-    private int getLowestBuiltY()
+    int getLowestBuiltY()
     {
-        int y = this.lowestExistingY;
+        if (yTooSmall(this.lowestExistingY)) return this.minY;
 
-        if (yTooSmall(y)) return this.minY;
+        PlayerBlocks playerBlocks = new PlayerBlocks(this.worldType);
 
-        for (ChunkSnapshot chunk : this.chunks)
-        {
-            y = findLowerBuiltY(chunk, y);
-
-            // If already at minimum Y, stop searching.
-            if (yTooSmall(y)) return this.minY;
-        }
+        // Chunks are searched in parallel. Each only needs to look below the lowest player block found so far,
+        // so the first chunk to find one shortens the search for all the others.
+        AtomicInteger lowest = new AtomicInteger(this.lowestExistingY);
+        this.chunks.parallelStream().forEach(chunk ->
+                lowest.accumulateAndGet(this.findLowestBuiltY(chunk, playerBlocks, lowest), Math::min));
 
-        return y;
+        return Math.max(this.minY, lowest.get());
     }
 
-    private int findLowerBuiltY(ChunkSnapshot chunkSnapshot, int y)
+    /**
+     * Find the lowest level of a chunk containing a player block, searching upwards from the minimum Y.
+     *
+     * @param chunkSnapshot the chunk
+     * @param playerBlocks the blocks considered player-placed
+     * @param lowest the lowest level found in any chunk so far, which ends the search once reached
+     * @return the lowest level with a player block, or {@link Integer#MAX_VALUE} if there is none below the limit
+     */
+    private int findLowestBuiltY(
+            @NotNull ChunkSnapshot chunkSnapshot,
+            @NotNull PlayerBlocks playerBlocks,
+            @NotNull AtomicInteger lowest)
     {
-        // Specifically not using yTooSmall here to allow protecting bottom layer.
-        nextY: for (int newY = y - 1; newY >= this.minY; newY--)
+        int y = this.minY;
+        while (y < lowest.get())
         {
+            // Sections containing only air cannot contain player blocks.
+            int section = (y - this.worldMinY) >> 4;
+            if (chunkSnapshot.isSectionEmpty(section))
+            {
+                y = this.worldMinY + ((section + 1) << 4);
+                continue;
+            }
+
             for (int x = 0; x < 16; x++)
             {
                 for (int z = 0; z < 16; z++)
                 {
-                    // If the block is natural, ignore it and continue searching the same Y level.
-                    if (!isPlayerBlock(chunkSnapshot, x, newY, z)) continue;
-
-                    // If the block is player-placed and we're at the minimum Y allowed, we're done searching.
-                    if (yTooSmall(y)) return this.minY;
-
-                    // Because we found a player block, repeatedly check the next block in the column.
-                    while (isPlayerBlock(chunkSnapshot, x, --newY, z))
-                    {
-                        // If we've hit minimum Y we're done searching.
-                        if (yTooSmall(y)) return this.minY;
-                    }
-
-                    // Undo increment for unsuccessful player block check.
-                    newY++;
-
-                    // Move built level down to current level.
-                    y = newY;
-
-                    // Because the level is now protected, continue downwards.
-                    continue nextY;
+                    if (playerBlocks.isPlayerBlock(chunkSnapshot, x, y, z)) return y;
                 }
             }
+
+            y++;
         }
 
-        // Return provided value or last located player block level.
-        return y;
+        return Integer.MAX_VALUE;
     }
 
     private boolean yTooSmall(int y)
@@ -174,25 +172,52 @@ public class AutoExtendClaimTask implements Runnable
         return y <= this.minY;
     }
 
-    private boolean isPlayerBlock(ChunkSnapshot chunkSnapshot, int x, int y, int z)
+    /**
+     * Lookup tables of the blocks considered player-placed in a world, indexed by {@link Material#ordinal()}.
+     *
+     * <p>Only a handful of blocks depend on the biome, so the biome is only read for those.</p>
+     */
+    private static final class PlayerBlocks
     {
-        Material blockType = chunkSnapshot.getBlockType(x, y, z);
-        Biome biome = chunkSnapshot.getBiome(x, y, z);
 
-        return this.getBiomePlayerBlocks(biome).contains(blockType);
+        private final boolean[] grassSoil;
+        private final boolean[] sandSoil;
+
+        private PlayerBlocks(@NotNull Environment environment)
+        {
+            this.grassSoil = toTable(getPlayerBlocks(environment, false));
+            this.sandSoil = toTable(getPlayerBlocks(environment, true));
+        }
+
+        private static boolean @NotNull [] toTable(@NotNull Set<Material> playerBlocks)
+        {
+            playerBlocks.removeAll(BlockEventHandler.TRASH_BLOCKS);
+            boolean[] table = new boolean[Material.values().length];
+            for (Material material : playerBlocks)
+            {
+                table[material.ordinal()] = true;
+            }
+            return table;
+        }
+
+        private boolean isPlayerBlock(@NotNull ChunkSnapshot chunkSnapshot, int x, int y, int z)
+        {
+            int material = chunkSnapshot.getBlockType(x, y, z).ordinal();
+            boolean grassSoilPlayerBlock = this.grassSoil[material];
+            if (grassSoilPlayerBlock == this.sandSoil[material]) return grassSoilPlayerBlock;
+
+            Biome biome = chunkSnapshot.getBiome(x, y, z);
+            return SAND_SOIL_BIOMES.contains(biome.getKey()) ? this.sandSoil[material] : grassSoilPlayerBlock;
+        }
+
     }
 
-    private Set<Material> getBiomePlayerBlocks(Biome biome)
+    static Set<Material> getPlayerBlocks(Environment environment, Biome biome)
     {
-        return biomePlayerMaterials.computeIfAbsent(biome, newBiome ->
-                {
-                    Set<Material> playerBlocks = AutoExtendClaimTask.getPlayerBlocks(this.worldType, newBiome);
-                    playerBlocks.removeAll(BlockEventHandler.TRASH_BLOCKS);
-                    return playerBlocks;
-                });
+        return getPlayerBlocks(environment, SAND_SOIL_BIOMES.contains(biome.getKey()));
     }
 
-    static Set<Material> getPlayerBlocks(Environment environment, Biome biome)
+    private static Set<Material> getPlayerBlocks(Environment environment, boolean sandSoil)
     {
         Set<Material> playerBlocks = new HashSet<>();
         playerBlocks.addAll(Tag.ANVIL.getValues());
@@ -394,7 +419,7 @@ public class AutoExtendClaimTask implements Runnable
         }
     
         //these are unnatural in sandy biomes, but not elsewhere
-        if (SAND_SOIL_BIOMES.contains(biome.getKey()) || environment != Environment.NORMAL)
+        if (sandSoil || environment != Environment.NORMAL)
         {
             playerBlocks.addAll(Tag.LEAVES.getValues());
         }
@@ -0,0 +1,728 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+//manages data stored in a single append-only log file
+//every save appends a checksummed record, later records replace earlier ones with the same key, and the log is
+//periodically rewritten with only the latest records
+public class BinaryLogDataStore extends DataStore
+{
+
+    final static String logFilePath = dataLayerFolderPath + File.separator + "data.gplog";
+
+    private static final int MAGIC = 0x47504C47;  //"GPLG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    //payload length, checksum of type and payload, type
+    private static final int RECORD_HEADER_BYTES = 9;
+
+    private static final byte CLAIM = 1;
+    private static final byte CLAIM_DELETED = 2;
+    private static final byte PLAYER = 3;
+    private static final byte GROUP = 4;
+    private static final byte NEXT_CLAIM_ID = 5;
+    private static final byte SCHEMA_VERSION = 6;
+
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+    //compact once superseded records take up more than this and more than the live records
+    private static final long COMPACTION_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    private final File logFile;
+
+    //guards the channel, the index and the size counters
+    private final Object logLock = new Object();
+    private FileChannel channel;
+    private long logSize;
+    private long deadBytes;
+    private boolean unsynced;
+    //where the latest record for each key is, rebuilt from the log on startup
+    private final Map<String, Entry> index = new HashMap<>();
+
+    private int storedSchemaVersion = 0;
+
+    BinaryLogDataStore() throws Exception
+    {
+        this(new File(logFilePath));
+        this.initialize();
+    }
+
+    //a data store backed by the given log which hasn't read it yet
+    BinaryLogDataStore(File logFile)
+    {
+        this.logFile = logFile;
+    }
+
+    @Override
+    void initialize() throws Exception
+    {
+        long start = System.nanoTime();
+        LoadResult result = this.loadLog(Bukkit.getServer().getWorlds());
+
+        for (String error : result.errors())
+        {
+            GriefPrevention.AddLogEntry(error, CustomLogEntryTypes.Exception);
+        }
+        if (result.discardedBytes() > 0)
+        {
+            GriefPrevention.AddLogEntry("Discarded " + result.discardedBytes() + " bytes of incomplete or corrupt data at the end of " + this.logFile.getName() + ".");
+        }
+        GriefPrevention.AddLogEntry(String.format(
+                "Read %d records from %s in %d ms.",
+                result.records(),
+                this.logFile.getName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+        this.compactIfNeeded();
+
+        super.initialize();
+    }
+
+    //reads the log into memory, discarding a torn record at the end.  refuses to load a log damaged anywhere else
+    LoadResult loadLog(List<World> validWorlds) throws IOException
+    {
+        boolean newLog = !this.logFile.exists() || this.logFile.length() == 0;
+        File folder = this.logFile.getAbsoluteFile().getParentFile();
+        if (folder != null) folder.mkdirs();
+
+        Map<Long, StoredClaim> storedClaims = new TreeMap<>();
+        int records = 0;
+        long discardedBytes = 0;
+
+        synchronized (this.logLock)
+        {
+            this.channel = FileChannel.open(this.logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (newLog)
+            {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                writeFully(this.channel, header, 0);
+                this.channel.force(false);
+                this.logSize = FILE_HEADER_BYTES;
+            }
+            else
+            {
+                long size = this.channel.size();
+                //read through a buffer rather than mapping the whole file, which can't map more than 2 GiB at once.
+                //the stream isn't closed because closing it would close the channel
+                DataInputStream log = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel.position(0)), READ_BUFFER_BYTES));
+                if (size < FILE_HEADER_BYTES || log.readInt() != MAGIC)
+                    throw new IOException(this.logFile.getName() + " is not a GriefPrevention data log.");
+                int version = log.readInt();
+                if (version != FORMAT_VERSION)
+                    throw new IOException(this.logFile.getName() + " uses unsupported format version " + version + ".");
+
+                long position = FILE_HEADER_BYTES;
+                CRC32 crc = new CRC32();
+                while (position + RECORD_HEADER_BYTES <= size)
+                {
+                    int length = log.readInt();
+                    int checksum = log.readInt();
+                    if (length < 0) throw this.refuseCorruptLog(position);
+                    //a record running past the end of the file is a torn write
+                    if (position + RECORD_HEADER_BYTES + (long) length > size) break;
+
+                    byte type = log.readByte();
+                    byte[] payload = new byte[length];
+                    log.readFully(payload);
+                    crc.reset();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum)
+                    {
+                        //only the last record can have been torn by a crash, anything earlier was damaged some other way
+                        if (position + RECORD_HEADER_BYTES + length < size) throw this.refuseCorruptLog(position);
+                        break;
+                    }
+
+                    this.applyRecord(type, payload, new Entry(position, RECORD_HEADER_BYTES + length), storedClaims);
+                    records++;
+
+                    position += RECORD_HEADER_BYTES + length;
+                }
+
+                //drop a torn write at the end, most likely from a crash mid-append
+                discardedBytes = size - position;
+                if (discardedBytes > 0)
+                {
+                    this.channel.truncate(position);
+                    this.channel.force(false);
+                }
+                this.logSize = position;
+            }
+        }
+
+        if (newLog)
+        {
+            this.setSchemaVersion(latestSchemaVersion);
+        }
+
+        //add top level claims, then link children to parents, in claim ID order
+        List<String> errors = new ArrayList<>();
+        List<Map.Entry<Claim, Long>> orphans = new ArrayList<>();
+        for (StoredClaim storedClaim : storedClaims.values())
+        {
+            Claim claim;
+            try
+            {
+                claim = this.toClaim(storedClaim, validWorlds);
+            }
+            catch (Exception e)
+            {
+                if (e.getMessage() != null && e.getMessage().contains("World not found"))
+                {
+                    errors.add("Failed to load a claim (ID:" + storedClaim.id() + ") because its world isn't loaded (yet?).  If this is not expected, delete this claim.");
+                }
+                else
+                {
+                    StringWriter trace = new StringWriter();
+                    e.printStackTrace(new PrintWriter(trace));
+                    errors.add("Claim " + storedClaim.id() + " " + trace);
+                }
+                continue;
+            }
+
+            if (storedClaim.parentID() == -1)
+            {
+                this.addClaim(claim, false);
+            }
+            else
+            {
+                orphans.add(Map.entry(claim, storedClaim.parentID()));
+            }
+        }
+
+        for (Map.Entry<Claim, Long> orphan : orphans)
+        {
+            Claim parent = this.getClaim(orphan.getValue());
+            if (parent != null)
+            {
+                orphan.getKey().parent = parent;
+                this.addClaim(orphan.getKey(), false);
+            }
+        }
+
+        return new LoadResult(records, discardedBytes, errors);
+    }
+
+    //keeps a copy of a damaged log for recovery and closes it, so nothing is loaded from or written to it
+    private IOException refuseCorruptLog(long position) throws IOException
+    {
+        this.channel.close();
+        this.channel = null;
+        File copy = new File(this.logFile.getPath() + ".corrupt-" + System.currentTimeMillis());
+        Files.copy(this.logFile.toPath(), copy.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        return new IOException(this.logFile.getName() + " is corrupt at byte " + position + ".  A copy was saved as " + copy.getName() + ".  Restore a backup or remove the damaged data before restarting.");
+    }
+
+    private void applyRecord(byte type, byte[] payload, Entry entry, Map<Long, StoredClaim> storedClaims) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        switch (type)
+        {
+            case CLAIM ->
+            {
+                StoredClaim storedClaim = StoredClaim.read(in);
+                storedClaims.put(storedClaim.id(), storedClaim);
+                this.indexRecord("claim:" + storedClaim.id(), entry, false);
+            }
+            case CLAIM_DELETED ->
+            {
+                long claimID = in.readLong();
+                storedClaims.remove(claimID);
+                this.indexRecord("claim:" + claimID, entry, true);
+            }
+            case PLAYER -> this.indexRecord("player:" + in.readUTF(), entry, false);
+            case GROUP ->
+            {
+                String groupName = in.readUTF();
+                this.permissionToBonusBlocksMap.put(groupName, in.readInt());
+                this.indexRecord("group:" + groupName, entry, false);
+            }
+            case NEXT_CLAIM_ID ->
+            {
+                this.nextClaimID = in.readLong();
+                this.indexRecord("nextClaimID", entry, false);
+            }
+            case SCHEMA_VERSION ->
+            {
+                this.storedSchemaVersion = in.readInt();
+                this.indexRecord("schemaVersion", entry, false);
+            }
+            //written by a newer version, keep it but don't interpret it
+            default -> this.indexRecord("unknown:" + entry.offset(), entry, false);
+        }
+    }
+
+    //points a key at its latest record, counting whatever it replaces as dead space
+    private void indexRecord(String key, Entry entry, boolean tombstone)
+    {
+        Entry previous = tombstone ? this.index.remove(key) : this.index.put(key, entry);
+        if (previous != null) this.deadBytes += previous.size();
+        if (tombstone) this.deadBytes += entry.size();
+    }
+
+    private Claim toClaim(StoredClaim storedClaim, List<World> validWorlds) throws Exception
+    {
+        Location lesserBoundaryCorner = this.locationFromString(storedClaim.lesserCorner(), validWorlds);
+        Location greaterBoundaryCorner = this.locationFromString(storedClaim.greaterCorner(), validWorlds);
+
+        UUID ownerID = null;
+        if (!storedClaim.owner().isEmpty())
+        {
+            ownerID = UUID.fromString(storedClaim.owner());
+        }
+
+        Claim claim = new Claim(lesserBoundaryCorner, greaterBoundaryCorner, ownerID, storedClaim.builders(), storedClaim.containers(), storedClaim.accessors(), storedClaim.managers(), storedClaim.inheritNothing(), storedClaim.id());
+        claim.modifiedDate = new Date(storedClaim.modifiedDate());
+        return claim;
+    }
+
+    @Override
+    synchronized void writeClaimToStorage(Claim claim)
+    {
+        //snapshot the claim now, the write happens later on the storage writer
+        byte[] payload = this.encode(out -> StoredClaim.of(claim, this).write(out));
+        this.queueWrite("claim:" + claim.id, () -> this.append(CLAIM, payload, "claim:" + claim.id, false));
+    }
+
+    @Override
+    synchronized void deleteClaimFromSecondaryStorage(Claim claim)
+    {
+        //queued under the same key as writes, so a pending write for this claim is discarded rather than run after
+        long claimID = claim.id;
+        byte[] payload = this.encode(out -> out.writeLong(claimID));
+        this.queueWrite("claim:" + claimID, () -> this.append(CLAIM_DELETED, payload, "claim:" + claimID, true));
+    }
+
+    @Override
+    PlayerData getPlayerDataFromStorage(UUID playerID)
+    {
+        PlayerData playerData = new PlayerData();
+        playerData.playerID = playerID;
+
+        try
+        {
+            byte[] payload = this.read("player:" + playerID);
+            if (payload != null)
+            {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                in.readUTF();
+                playerData.setAccruedClaimBlocks(in.readInt());
+                playerData.setBonusClaimBlocks(in.readInt());
+            }
+        }
+        catch (IOException e)
+        {
+            StringWriter errors = new StringWriter();
+            e.printStackTrace(new PrintWriter(errors));
+            GriefPrevention.AddLogEntry(playerID + " " + errors.toString(), CustomLogEntryTypes.Exception);
+        }
+
+        return playerData;
+    }
+
+    //saves changes to player data.  MUST be called after you're done making changes, otherwise a reload will lose them
+    @Override
+    void overrideSavePlayerData(UUID playerID, PlayerData playerData)
+    {
+        //never save data for the "administrative" account.  null for claim owner ID indicates administrative account
+        if (playerID == null) return;
+
+        int accruedBlocks = playerData.getAccruedClaimBlocks();
+        int bonusBlocks = playerData.getBonusClaimBlocks();
+        byte[] payload = this.encode(out ->
+        {
+            out.writeUTF(playerID.toString());
+            out.writeInt(accruedBlocks);
+            out.writeInt(bonusBlocks);
+        });
+        this.append(PLAYER, payload, "player:" + playerID, false);
+    }
+
+    @Override
+    synchronized void saveGroupBonusBlocks(String groupName, int amount)
+    {
+        byte[] payload = this.encode(out ->
+        {
+            out.writeUTF(groupName);
+            out.writeInt(amount);
+        });
+        this.queueWrite("group:" + groupName, () -> this.append(GROUP, payload, "group:" + groupName, false));
+    }
+
+    @Override
+    synchronized void incrementNextClaimID()
+    {
+        this.setNextClaimID(this.nextClaimID + 1);
+    }
+
+    @Override
+    synchronized void setNextClaimID(long nextID)
+    {
+        this.nextClaimID = nextID;
+        byte[] payload = this.encode(out -> out.writeLong(nextID));
+        this.queueWrite("nextClaimID", () -> this.append(NEXT_CLAIM_ID, payload, "nextClaimID", false));
+    }
+
+    @Override
+    int getSchemaVersionFromStorage()
+    {
+        return this.storedSchemaVersion;
+    }
+
+    @Override
+    void updateSchemaVersionInStorage(int versionToSet)
+    {
+        this.storedSchemaVersion = versionToSet;
+        byte[] payload = this.encode(out -> out.writeInt(versionToSet));
+        this.queueWrite("schemaVersion", () -> this.append(SCHEMA_VERSION, payload, "schemaVersion", false));
+    }
+
+    //syncs a whole batch of appends to disk at once, then compacts if enough of the log is superseded
+    @Override
+    void writeBatch(@NotNull List<Runnable> batch)
+    {
+        super.writeBatch(batch);
+
+        synchronized (this.logLock)
+        {
+            this.sync();
+            this.compactIfNeeded();
+        }
+    }
+
+    @Override
+    void close()
+    {
+        this.closeWriteQueue();
+
+        synchronized (this.logLock)
+        {
+            if (this.channel == null) return;
+
+            this.sync();
+            this.compactIfNeeded();
+            try
+            {
+                this.channel.close();
+            }
+            catch (IOException ignored) {}
+            this.channel = null;
+        }
+    }
+
+    private void append(byte type, byte[] payload, String key, boolean tombstone)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(type)
+                .put(payload)
+                .flip();
+
+        synchronized (this.logLock)
+        {
+            if (this.channel == null) throw new IllegalStateException("Unable to write " + key + " because " + this.logFile.getName() + " is closed");
+
+            try
+            {
+                long offset = this.logSize;
+                writeFully(this.channel, record, offset);
+                this.logSize += record.capacity();
+                this.unsynced = true;
+                this.indexRecord(key, new Entry(offset, record.capacity()), tombstone);
+            }
+            catch (IOException e)
+            {
+                //the log size isn't advanced, so the next append overwrites any partial record
+                throw new UncheckedIOException("Unable to write " + key + " to " + this.logFile.getName(), e);
+            }
+        }
+    }
+
+    private byte[] read(String key) throws IOException
+    {
+        synchronized (this.logLock)
+        {
+            Entry entry = this.index.get(key);
+            if (entry == null) return null;
+
+            ByteBuffer record = ByteBuffer.allocate(entry.size());
+            while (record.hasRemaining())
+            {
+                if (this.channel.read(record, entry.offset() + record.position()) < 0) throw new IOException("Unexpected end of log");
+            }
+
+            byte[] payload = new byte[entry.size() - RECORD_HEADER_BYTES];
+            record.position(RECORD_HEADER_BYTES);
+            record.get(payload);
+            return payload;
+        }
+    }
+
+    private void sync()
+    {
+        if (!this.unsynced) return;
+
+        try
+        {
+            this.channel.force(false);
+            this.unsynced = false;
+        }
+        catch (IOException e)
+        {
+            //the appends made it into the file, but may not survive a crash
+            this.recordFailedWrites(1);
+            GriefPrevention.AddLogEntry("Unable to sync " + this.logFile.getName() + ": " + e.getMessage(), CustomLogEntryTypes.Exception);
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        synchronized (this.logLock)
+        {
+            long liveBytes = this.logSize - FILE_HEADER_BYTES - this.deadBytes;
+            if (this.deadBytes < COMPACTION_THRESHOLD_BYTES || this.deadBytes < liveBytes) return;
+
+            try
+            {
+                this.compact();
+            }
+            catch (IOException e)
+            {
+                GriefPrevention.AddLogEntry("Unable to compact " + this.logFile.getName() + ": " + e.getMessage(), CustomLogEntryTypes.Exception);
+            }
+        }
+    }
+
+    //rewrites the log with only the latest record for each key, then swaps it in place of the old log
+    void compact() throws IOException
+    {
+        synchronized (this.logLock)
+        {
+            File compacted = new File(this.logFile.getPath() + ".compact");
+            Map<String, Entry> newIndex = new HashMap<>();
+            long position = FILE_HEADER_BYTES;
+
+            try (FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+            {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+                writeFully(out, header, 0);
+
+                //copy records in their original order, so replaying the new log gives the same result
+                List<Map.Entry<String, Entry>> live = new ArrayList<>(this.index.entrySet());
+                live.sort(Map.Entry.comparingByValue((a, b) -> Long.compare(a.offset(), b.offset())));
+                for (Map.Entry<String, Entry> record : live)
+                {
+                    Entry entry = record.getValue();
+                    long copied = 0;
+                    while (copied < entry.size())
+                    {
+                        copied += this.channel.transferTo(entry.offset() + copied, entry.size() - copied, out.position(position + copied));
+                    }
+                    newIndex.put(record.getKey(), new Entry(position, entry.size()));
+                    position += entry.size();
+                }
+                out.force(true);
+            }
+
+            this.channel.close();
+            Files.move(compacted.toPath(), this.logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.channel = FileChannel.open(this.logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            this.index.clear();
+            this.index.putAll(newIndex);
+            this.logSize = position;
+            this.deadBytes = 0;
+            this.unsynced = false;
+        }
+    }
+
+    //the size of the log and how much of it is superseded
+    long[] getLogUsage()
+    {
+        synchronized (this.logLock)
+        {
+            return new long[] { this.logSize, this.deadBytes };
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private byte[] encode(RecordWriter writer)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writer.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        }
+        catch (IOException e)
+        {
+            //writing to memory doesn't fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter
+    {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record Entry(long offset, int size) {}
+
+    //the outcome of reading the log on startup
+    record LoadResult(int records, long discardedBytes, List<String> errors) {}
+
+    //a claim as stored in the log
+    private record StoredClaim(
+            long id,
+            long parentID,
+            String owner,
+            String lesserCorner,
+            String greaterCorner,
+            List<String> builders,
+            List<String> containers,
+            List<String> accessors,
+            List<String> managers,
+            boolean inheritNothing,
+            long modifiedDate)
+    {
+
+        static StoredClaim of(Claim claim, DataStore dataStore)
+        {
+            ArrayList<String> builders = new ArrayList<>();
+            ArrayList<String> containers = new ArrayList<>();
+            ArrayList<String> accessors = new ArrayList<>();
+            ArrayList<String> managers = new ArrayList<>();
+            claim.getPermissions(builders, containers, accessors, managers);
+
+            return new StoredClaim(
+                    claim.id,
+                    claim.parent == null ? -1 : claim.parent.id,
+                    claim.ownerID == null ? "" : claim.ownerID.toString(),
+                    dataStore.locationToString(claim.lesserBoundaryCorner),
+                    dataStore.locationToString(claim.greaterBoundaryCorner),
+                    builders,
+                    containers,
+                    accessors,
+                    managers,
+                    claim.getSubclaimRestrictions(),
+                    claim.modifiedDate == null ? System.currentTimeMillis() : claim.modifiedDate.getTime());
+        }
+
+        static StoredClaim read(DataInputStream in) throws IOException
+        {
+            return new StoredClaim(
+                    in.readLong(),
+                    in.readLong(),
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readUTF(),
+                    readList(in),
+                    readList(in),
+                    readList(in),
+                    readList(in),
+                    in.readBoolean(),
+                    in.readLong());
+        }
+
+        void write(DataOutputStream out) throws IOException
+        {
+            out.writeLong(this.id);
+            out.writeLong(this.parentID);
+            out.writeUTF(this.owner);
+            out.writeUTF(this.lesserCorner);
+            out.writeUTF(this.greaterCorner);
+            writeList(out, this.builders);
+            writeList(out, this.containers);
+            writeList(out, this.accessors);
+            writeList(out, this.managers);
+            out.writeBoolean(this.inheritNothing);
+            out.writeLong(this.modifiedDate);
+        }
+
+        private static List<String> readList(DataInputStream in) throws IOException
+        {
+            int size = in.readInt();
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+            {
+                list.add(in.readUTF());
+            }
+            return list;
+        }
+
+        private static void writeList(DataOutputStream out, List<String> list) throws IOException
+        {
+            out.writeInt(list.size());
+            for (String value : list)
+            {
+                out.writeUTF(value);
+            }
+        }
+
+    }
+
+}
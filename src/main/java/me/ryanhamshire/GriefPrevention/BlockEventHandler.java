@@ -18,6 +18,7 @@
 
 package me.ryanhamshire.GriefPrevention;
 
+import com.griefprevention.util.ConcurrentLongMap;
 import com.griefprevention.visualization.BoundaryVisualization;
 import com.griefprevention.visualization.VisualizationType;
 import me.ryanhamshire.GriefPrevention.util.BoundingBox;
@@ -33,7 +34,6 @@ import org.bukkit.World.Environment;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
-import org.bukkit.block.PistonMoveReaction;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Lightable;
 import org.bukkit.block.data.type.Chest;
@@ -112,6 +112,10 @@ public class BlockEventHandler implements Listener
     //convenience reference to singleton datastore
     private final DataStore dataStore;
 
+    //pistons whose last movement stayed inside their claim, keyed by packed position
+    private static final int MAX_PISTON_VERDICTS = 4096;
+    private volatile ConcurrentLongMap<PistonVerdict> pistonVerdicts = new ConcurrentLongMap<>();
+
     //constructor
     public BlockEventHandler(DataStore dataStore)
     {
@@ -277,7 +281,7 @@ public class BlockEventHandler implements Listener
         {
             // Allow players with container trust to place books in lecterns
             PlayerData playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(block.getLocation(), true, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), true, playerData.lastClaim);
             if (block.getType() == Material.LECTERN && placeEvent.getBlockReplacedState().getType() == Material.LECTERN)
             {
                 if (claim != null)
@@ -299,7 +303,7 @@ public class BlockEventHandler implements Listener
 
         //if the block is being placed within or under an existing claim
         PlayerData playerData = this.dataStore.getPlayerData(player.getUniqueId());
-        Claim claim = this.dataStore.getClaimAt(block.getLocation(), true, playerData.lastClaim);
+        Claim claim = this.dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), true, playerData.lastClaim);
 
         //If block is a chest, don't allow a DoubleChest to form across a claim boundary
         denyConnectingDoubleChestsAcrossClaimBoundary(claim, block, player);
@@ -365,13 +369,19 @@ public class BlockEventHandler implements Listener
                         return;
                     }
 
-                    //as long as the automatic claim overlaps another existing claim, shrink it
+                    //shrink the automatic claim until it no longer overlaps another existing claim
                     //note that since the player had permission to place the chest, at the very least, the automatic claim will include the chest
+                    DataStore.SquareClaimFit fit = this.dataStore.findLargestFreeSquare(
+                            block.getWorld(),
+                            block.getX(), block.getZ(),
+                            radius,
+                            GriefPrevention.instance.config_claims_automaticClaimsForNewPlayersRadiusMin,
+                            playerData.getRemainingClaimBlocks());
                     CreateClaimResult result = null;
-                    while (radius >= GriefPrevention.instance.config_claims_automaticClaimsForNewPlayersRadiusMin)
+                    if (fit.fits())
                     {
-                        int area = (radius * 2 + 1) * (radius * 2 + 1);
-                        if (playerData.getRemainingClaimBlocks() >= area)
+                        //a claim may still be refused for other reasons, like a cancelled ClaimCreatedEvent, so keep shrinking it
+                        for (radius = fit.radius(); radius >= GriefPrevention.instance.config_claims_automaticClaimsForNewPlayersRadiusMin; radius--)
                         {
                             result = this.dataStore.createClaim(
                                     block.getWorld(),
@@ -384,8 +394,12 @@ public class BlockEventHandler implements Listener
 
                             if (result.succeeded) break;
                         }
-
-                        radius--;
+                    }
+                    else if (fit.conflict() != null)
+                    {
+                        result = new CreateClaimResult();
+                        result.succeeded = false;
+                        result.claim = fit.conflict();
                     }
 
                     if (result != null && result.claim != null)
@@ -413,7 +427,7 @@ public class BlockEventHandler implements Listener
             }
 
             //check to see if this chest is in a claim, and warn when it isn't
-            if (GriefPrevention.instance.config_claims_preventTheft && this.dataStore.getClaimAt(block.getLocation(), false, playerData.lastClaim) == null)
+            if (GriefPrevention.instance.config_claims_preventTheft && this.dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), false, playerData.lastClaim) == null)
             {
                 GriefPrevention.sendMessage(player, TextMode.Warn, Messages.UnprotectedChestWarning);
             }
@@ -501,7 +515,7 @@ public class BlockEventHandler implements Listener
                 Block relative = block.getRelative(face);
                 if (!(relative.getBlockData() instanceof Chest)) continue;
 
-                Claim relativeClaim = this.dataStore.getClaimAt(relative.getLocation(), true, claim);
+                Claim relativeClaim = this.dataStore.getClaimAt(relative.getWorld(), relative.getX(), relative.getY(), relative.getZ(), true, claim);
                 UUID relativeClaimOwner = relativeClaim == null ? null : relativeClaim.getOwnerID();
 
                 // Chests outside claims should connect (both null)
@@ -550,7 +564,20 @@ public class BlockEventHandler implements Listener
 
         BlockFace direction = event.getDirection();
         Block pistonBlock = event.getBlock();
-        Claim pistonClaim = this.dataStore.getClaimAt(pistonBlock.getLocation(), false,
+        World world = pistonBlock.getWorld();
+        long pistonKey = PistonMovement.pack(pistonBlock.getX(), pistonBlock.getY(), pistonBlock.getZ());
+        // Read before looking up claims so that a change while deciding invalidates the verdict.
+        long boundaryVersion = Claim.getBoundaryVersion();
+        PistonMovement movement = blocks.isEmpty() ? null : new PistonMovement(blocks, direction);
+
+        // Piston clocks and flying machines fire constantly; skip everything if nothing moves out of the last claim.
+        PistonVerdict verdict = this.pistonVerdicts.get(pistonKey);
+        if (movement != null && verdict != null && verdict.boundaryVersion() == boundaryVersion
+                && verdict.mode() == pistonMode && verdict.worldID().equals(world.getUID())
+                && movement.isWithin(verdict.claim().getBounds()))
+            return;
+
+        Claim pistonClaim = this.dataStore.getClaimAt(world, pistonBlock.getX(), pistonBlock.getY(), pistonBlock.getZ(), false,
                 pistonMode != PistonMode.CLAIMS_ONLY, null);
 
         // A claim is required, but the piston is not inside a claim.
@@ -561,13 +588,13 @@ public class BlockEventHandler implements Listener
         }
 
         // If no blocks are moving, quickly check if another claim's boundaries are violated.
-        if (blocks.isEmpty())
+        if (movement == null)
         {
             // No block and retraction is always safe.
             if (isRetract) return;
 
             Block invadedBlock = pistonBlock.getRelative(direction);
-            Claim invadedClaim = this.dataStore.getClaimAt(invadedBlock.getLocation(), false,
+            Claim invadedClaim = this.dataStore.getClaimAt(invadedBlock.getWorld(), invadedBlock.getX(), invadedBlock.getY(), invadedBlock.getZ(), false,
                     pistonMode != PistonMode.CLAIMS_ONLY, pistonClaim);
             if (invadedClaim != null && (pistonClaim == null || !Objects.equals(pistonClaim.getOwnerID(), invadedClaim.getOwnerID())))
             {
@@ -577,15 +604,14 @@ public class BlockEventHandler implements Listener
             return;
         }
 
-        // Create bounding box for moved blocks.
-        BoundingBox movedBlocks = BoundingBox.ofBlocks(blocks);
-        // Expand to include invaded zone.
-        movedBlocks.resize(direction, 1);
-
         if (pistonClaim != null)
         {
             // If blocks are all inside the same claim as the piston, allow.
-            if (new BoundingBox(pistonClaim).contains(movedBlocks)) return;
+            if (movement.isWithin(pistonClaim.getBounds()))
+            {
+                this.rememberPistonVerdict(pistonKey, new PistonVerdict(world.getUID(), pistonMode, boundaryVersion, pistonClaim));
+                return;
+            }
 
             /*
              * In claims-only mode, all moved blocks must be inside of the owning claim.
@@ -601,7 +627,7 @@ public class BlockEventHandler implements Listener
         }
 
         // Check if blocks are in line vertically.
-        if (movedBlocks.getLength() == 1 && movedBlocks.getWidth() == 1)
+        if (movement.isVerticalLine())
         {
             // Pulling up is always safe. The claim may not contain the area pulled from, but claims cannot stack.
             if (isRetract && direction == BlockFace.UP) return;
@@ -610,24 +636,86 @@ public class BlockEventHandler implements Listener
             if (!isRetract && direction == BlockFace.DOWN) return;
         }
 
-        BiPredicate<Claim, BoundingBox> intersectionHandler;
-        if (pistonMode == PistonMode.EVERYWHERE_SIMPLE)
-        {
-            // Fast mode: Bounding box intersection always causes a conflict, even if blocks do not conflict.
-            intersectionHandler = denyOtherOwnerIntersection(pistonClaim);
-        }
-        else
+        // Fast mode: Bounding box intersection always causes a conflict, even if blocks do not conflict.
+        // Precise mode: Bounding box intersection may not yield a conflict. Individual blocks must be considered.
+        boolean precise = pistonMode != PistonMode.EVERYWHERE_SIMPLE;
+        if (!this.pistonConflictsWithClaims(world, movement, pistonClaim, precise)) return;
+
+        // In precise mode, if pushing a block will change ownership, "explode" the piston for performance reasons.
+        if (precise)
         {
-            // Precise mode: Bounding box intersection may not yield a conflict. Individual blocks must be considered.
-            intersectionHandler = precisePistonIntersection(pistonBlock, pistonClaim, blocks, event);
+            if (GriefPrevention.instance.config_pistonExplosionSound)
+            {
+                world.createExplosion(pistonBlock.getLocation(), 0);
+            }
+            world.dropItem(
+                    pistonBlock.getLocation(),
+                    new ItemStack(event.isSticky() ? Material.STICKY_PISTON : Material.PISTON));
+            pistonBlock.setType(Material.AIR);
         }
 
-        if (boxConflictsWithClaims(pistonBlock.getWorld(), movedBlocks, pistonClaim, intersectionHandler))
+        event.setCancelled(true);
+    }
+
+    /**
+     * Check if claims other than the piston's own would be affected by a piston movement. Claims owned by the piston
+     * claim's owner never conflict.
+     *
+     * <p>Candidate claims are read straight from the chunk index and tested against the packed positions, so this
+     * does not allocate. A claim spanning several chunks may be tested more than once, which does not change the
+     * outcome.</p>
+     *
+     * @param world the world
+     * @param movement the piston movement
+     * @param pistonClaim the claim the piston is in, if any
+     * @param precise whether individual blocks must be inside a claim rather than just their bounding box overlapping
+     * @return true if a claim conflicts with the movement
+     */
+    private boolean pistonConflictsWithClaims(
+            @NotNull World world,
+            @NotNull PistonMovement movement,
+            @Nullable Claim pistonClaim,
+            boolean precise)
+    {
+        for (int chunkX = movement.getMinChunkX(); chunkX <= movement.getMaxChunkX(); chunkX++)
         {
-            event.setCancelled(true);
+            for (int chunkZ = movement.getMinChunkZ(); chunkZ <= movement.getMaxChunkZ(); chunkZ++)
+            {
+                for (Claim claim : this.dataStore.chunkIndex.get(world, chunkX, chunkZ))
+                {
+                    if (claim == pistonClaim || !claim.inDataStore) continue;
+
+                    // Ensure claim intersects with the affected area, and in precise mode that it contains an affected block.
+                    Claim.Bounds bounds = claim.getBounds();
+                    if (!movement.intersects(bounds) || precise && !movement.anyWithin(bounds)) continue;
+
+                    // If owners are different, there is a conflict.
+                    if (pistonClaim == null || !Objects.equals(pistonClaim.getOwnerID(), claim.getOwnerID()))
+                        return true;
+                }
+            }
         }
+
+        return false;
+    }
+
+    private void rememberPistonVerdict(long pistonKey, @NotNull PistonVerdict verdict)
+    {
+        // Verdicts are only valid until any claim changes, so rather than tracking which are stale just start over.
+        if (this.pistonVerdicts.size() >= MAX_PISTON_VERDICTS) this.pistonVerdicts = new ConcurrentLongMap<>();
+        this.pistonVerdicts.put(pistonKey, verdict);
     }
 
+    /**
+     * A piston whose movement last stayed entirely inside the claim it is in.
+     *
+     * @param worldID the world the piston is in
+     * @param mode the piston mode the verdict was reached in
+     * @param boundaryVersion the {@link Claim#getBoundaryVersion() boundary version} read before the verdict
+     * @param claim the claim the piston is in
+     */
+    private record PistonVerdict(@NotNull UUID worldID, @NotNull PistonMode mode, long boundaryVersion, @NotNull Claim claim) {}
+
     /**
      * Check if claims conflict with a given BoundingBox.
      *
@@ -680,70 +768,6 @@ public class BlockEventHandler implements Listener
         };
     }
 
-    /**
-     * Precise mode: Individual blocks are considered when determining if a conflict occurs.
-     *
-     * @param pistonBlock the piston block
-     * @param pistonClaim the claim that the piston is in
-     * @param blocks the affected blocks
-     * @param event the event
-     * @return a {@link BiPredicate} accepting a {@link Claim} and {@link BoundingBox}
-     */
-    private @NotNull BiPredicate<@NotNull Claim, @NotNull BoundingBox> precisePistonIntersection(
-            @NotNull Block pistonBlock,
-            @Nullable Claim pistonClaim,
-            @NotNull Collection<@NotNull Block> blocks,
-            @NotNull BlockPistonEvent event)
-    {
-        // Set up list of affected blocks.
-        HashSet<Block> checkBlocks = new HashSet<>(blocks);
-
-        // Add all blocks that will be occupied after the shift.
-        for (Block block : blocks)
-        {
-            if (block.getPistonMoveReaction() != PistonMoveReaction.BREAK)
-            {
-                checkBlocks.add(block.getRelative(event.getDirection()));
-            }
-        }
-
-        return (claim, claimBoundingBox) ->
-        {
-            // Ensure that the claim contains an affected block.
-            if (containsNone(claimBoundingBox, checkBlocks)) return false;
-
-            // If pushing this block will change ownership, "explode" the piston for performance reasons.
-            if (pistonClaim == null || !Objects.equals(pistonClaim.getOwnerID(), claim.getOwnerID()))
-            {
-                if (GriefPrevention.instance.config_pistonExplosionSound)
-                {
-                    pistonBlock.getWorld().createExplosion(pistonBlock.getLocation(), 0);
-                }
-                pistonBlock.getWorld().dropItem(
-                        pistonBlock.getLocation(),
-                        new ItemStack(event.isSticky() ? Material.STICKY_PISTON : Material.PISTON));
-                pistonBlock.setType(Material.AIR);
-                return true;
-            }
-
-            // Otherwise, proceed to next claim.
-            return false;
-        };
-    }
-
-    private boolean containsNone(@NotNull BoundingBox boundingBox, @NotNull Collection<@NotNull Block> blocks)
-    {
-        for (Block block : blocks)
-        {
-            if (boundingBox.contains(block))
-            {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     //blocks are ignited ONLY by flint and steel (not by being near lava, open flames, etc), unless configured otherwise
     @EventHandler(priority = EventPriority.LOWEST)
     public void onBlockIgnite(BlockIgniteEvent igniteEvent)
@@ -751,7 +775,7 @@ public class BlockEventHandler implements Listener
         //don't track in worlds where claims are not enabled
         if (!GriefPrevention.instance.claimsEnabledForWorld(igniteEvent.getBlock().getWorld())) return;
 
-        if (igniteEvent.getCause() == IgniteCause.LIGHTNING && GriefPrevention.instance.dataStore.getClaimAt(igniteEvent.getIgnitingEntity().getLocation(), false, null) != null)
+        if (igniteEvent.getCause() == IgniteCause.LIGHTNING && this.getEnvironmentClaimAt(igniteEvent.getIgnitingEntity().getLocation(), false) != null)
         {
             igniteEvent.setCancelled(true); //BlockIgniteEvent is called before LightningStrikeEvent. See #532. However, see #1125 for further discussion on detecting trident-caused lightning.
         }
@@ -762,8 +786,8 @@ public class BlockEventHandler implements Listener
             ProjectileSource shooter = ((Fireball) igniteEvent.getIgnitingEntity()).getShooter();
             if (shooter instanceof BlockProjectileSource)
             {
-                Claim claim = GriefPrevention.instance.dataStore.getClaimAt(igniteEvent.getBlock().getLocation(), false, null);
-                if (claim != null && GriefPrevention.instance.dataStore.getClaimAt(((BlockProjectileSource) shooter).getBlock().getLocation(), false, claim) == claim)
+                Claim claim = this.getEnvironmentClaimAt(igniteEvent.getBlock(), false);
+                if (claim != null && this.getEnvironmentClaimAt(((BlockProjectileSource) shooter).getBlock(), false) == claim)
                 {
                     return;
                 }
@@ -862,7 +886,7 @@ public class BlockEventHandler implements Listener
         else
         {
             // If no player is present (dispenser, natural growth, etc.), use owner comparison.
-            sourceClaim = this.dataStore.getClaimAt(source.getLocation(), false, false, lastBlockFertilizeClaim);
+            sourceClaim = this.dataStore.getClaimAt(source.getWorld(), source.getX(), source.getY(), source.getZ(), false, false, lastBlockFertilizeClaim);
             conflictCheck = denyOtherOwnerIntersection(sourceClaim);
         }
 
@@ -893,7 +917,6 @@ public class BlockEventHandler implements Listener
                 sourceClaim -> source.breakNaturally());
     }
 
-    private Claim lastBlockSpreadClaim = null;
     @EventHandler(priority = EventPriority.LOWEST)
     public void onBlockSpread(@NotNull BlockSpreadEvent spreadEvent)
     {
@@ -916,17 +939,16 @@ public class BlockEventHandler implements Listener
             return;
         }
 
-        Claim spreadTo = this.dataStore.getClaimAt(spreadEvent.getBlock().getLocation(), false, true, lastBlockSpreadClaim);
+        Block toBlock = spreadEvent.getBlock();
+        Claim spreadTo = this.getEnvironmentClaimAt(toBlock, true);
 
         // Spreading in unclaimed area is allowed.
         if (spreadTo == null) {
             return;
         }
 
-        // Cache claim to reduce the strain of repeated attempts.
-        lastBlockSpreadClaim = spreadTo;
-
-        Claim spreadFrom = this.dataStore.getClaimAt(spreadEvent.getSource().getLocation(), false, true, spreadTo);
+        Block fromBlock = spreadEvent.getSource();
+        Claim spreadFrom = this.getEnvironmentClaimAt(fromBlock, true);
 
         // Disallow spreading from other users' claims.
         if (spreadFrom == null || !Objects.equals(spreadTo.getOwnerID(), spreadFrom.getOwnerID()))
@@ -944,6 +966,26 @@ public class BlockEventHandler implements Listener
         }
     }
 
+    /**
+     * Get the claim at a block for an event caused by the environment, such as fluid flow or fire spread.
+     *
+     * <p>These events are extremely frequent and cluster in a few chunks, usually without any claims, so lookups go
+     * through the {@link ChunkClaimCache} rather than directly to the {@link DataStore}.</p>
+     *
+     * @param block the block
+     * @param ignoreSubclaims whether or not subclaims should be returned over claims
+     * @return the claim containing the block or null if no claim exists there
+     */
+    private @Nullable Claim getEnvironmentClaimAt(@NotNull Block block, boolean ignoreSubclaims)
+    {
+        return this.dataStore.chunkClaimCache.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), ignoreSubclaims);
+    }
+
+    private @Nullable Claim getEnvironmentClaimAt(@NotNull Location location, boolean ignoreSubclaims)
+    {
+        return this.dataStore.chunkClaimCache.getClaimAt(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), ignoreSubclaims);
+    }
+
     private void extinguishFiniteFire(@NotNull Block fire)
     {
         if (fire.getType() != Material.FIRE) return;
@@ -992,7 +1034,8 @@ public class BlockEventHandler implements Listener
             return;
         }
 
-        Claim burnClaim = this.dataStore.getClaimAt(burnEvent.getBlock().getLocation(), false, null);
+        Block burnBlock = burnEvent.getBlock();
+        Claim burnClaim = this.getEnvironmentClaimAt(burnBlock, false);
         if (burnClaim != null)
         {
             // Only burn claimed blocks if configured to do so.
@@ -1003,10 +1046,11 @@ public class BlockEventHandler implements Listener
             }
 
             // In the event of spontaneous combustion, allow burning.
-            if (burnEvent.getIgnitingBlock() == null) return;
+            Block ignitingBlock = burnEvent.getIgnitingBlock();
+            if (ignitingBlock == null) return;
 
             // If source is external, i.e. wall on the claim border lit on fire from outside, do not allow.
-            Claim burningClaim = this.dataStore.getClaimAt(burnEvent.getIgnitingBlock().getLocation(), false, burnClaim);
+            Claim burningClaim = this.getEnvironmentClaimAt(ignitingBlock, false);
             if (burningClaim == null || !Objects.equals(burnClaim.getOwnerID(), burningClaim.getOwnerID()))
             {
                 burnEvent.setCancelled(true);
@@ -1015,9 +1059,6 @@ public class BlockEventHandler implements Listener
     }
 
     //ensures fluids don't flow into land claims from outside
-    private Claim lastSpreadFromClaim = null;
-    private Claim lastSpreadToClaim = null;
-
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
     public void onBlockFromTo(BlockFromToEvent spreadEvent)
     {
@@ -1028,17 +1069,11 @@ public class BlockEventHandler implements Listener
         if (!GriefPrevention.instance.claimsEnabledForWorld(spreadEvent.getBlock().getWorld())) return;
 
         //where from and where to?
-        Location fromLocation = spreadEvent.getBlock().getLocation();
-        Location toLocation = spreadEvent.getToBlock().getLocation();
-        boolean isInCreativeRulesWorld = GriefPrevention.instance.creativeRulesApply(toLocation);
-        Claim fromClaim = this.dataStore.getClaimAt(fromLocation, false, lastSpreadFromClaim);
-        Claim toClaim = this.dataStore.getClaimAt(toLocation, false, lastSpreadToClaim);
-
-        //due to the nature of what causes this event (fluid flow/spread),
-        //we'll probably run similar checks for the same pair of claims again,
-        //so we cache them to use in claim lookup later
-        this.lastSpreadFromClaim = fromClaim;
-        this.lastSpreadToClaim = toClaim;
+        Block fromBlock = spreadEvent.getBlock();
+        Block toBlock = spreadEvent.getToBlock();
+        boolean isInCreativeRulesWorld = GriefPrevention.instance.creativeRulesApply(toBlock.getWorld());
+        Claim fromClaim = this.getEnvironmentClaimAt(fromBlock, false);
+        Claim toClaim = this.getEnvironmentClaimAt(toBlock, false);
 
         if (!isFluidFlowAllowed(fromClaim, toClaim, isInCreativeRulesWorld))
         {
@@ -1118,7 +1153,7 @@ public class BlockEventHandler implements Listener
             Material type = block.getType();
             if (type == Material.COBBLESTONE || type == Material.OBSIDIAN || type == Material.LAVA || type == Material.WATER)
             {
-                Claim claim = GriefPrevention.instance.dataStore.getClaimAt(location, false, null);
+                Claim claim = this.getEnvironmentClaimAt(block, false);
                 if (claim == null)
                 {
                     event.setCancelled(true);
@@ -1140,7 +1175,7 @@ public class BlockEventHandler implements Listener
         if (block == null || (block.getType() != Material.CHORUS_FLOWER  && block.getType() != Material.DECORATED_POT))
             return;
 
-        Claim claim = dataStore.getClaimAt(block.getLocation(), false, null);
+        Claim claim = dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), false, null);
         if (claim == null)
             return;
 
@@ -1181,8 +1216,8 @@ public class BlockEventHandler implements Listener
 
         //to where?
         Block toBlock = fromBlock.getRelative(dispenser.getFacing());
-        Claim fromClaim = this.dataStore.getClaimAt(fromBlock.getLocation(), false, null);
-        Claim toClaim = this.dataStore.getClaimAt(toBlock.getLocation(), false, fromClaim);
+        Claim fromClaim = this.dataStore.getClaimAt(fromBlock.getWorld(), fromBlock.getX(), fromBlock.getY(), fromBlock.getZ(), false, null);
+        Claim toClaim = this.dataStore.getClaimAt(toBlock.getWorld(), toBlock.getX(), toBlock.getY(), toBlock.getZ(), false, fromClaim);
 
         //into wilderness is NOT OK in creative mode worlds
         Material materialDispensed = dispenseEvent.getItem().getType();
@@ -0,0 +1,153 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small cache of recently visited chunks for claim lookups caused by the environment rather than by players.
+ *
+ * <p>Fluid flow, fire and block spread fire huge numbers of events, almost all of them in chunks without any claims,
+ * and consecutive events usually land in the same few chunks. Each entry remembers a chunk's candidate claims from
+ * the {@link ClaimChunkIndex}, so a chunk known to have no claims is answered without any further lookup, along with
+ * the last claim found in that chunk, which is checked first on the next lookup.</p>
+ *
+ * <p>Entries are immutable and tagged with the index version they were read at. Creating, resizing or deleting a
+ * top-level claim changes the version, which discards every entry. The remembered claim is always checked for
+ * containment before it is returned, so subdivision changes never produce a stale answer either.</p>
+ */
+public final class ChunkClaimCache
+{
+
+    // Direct-mapped; each slot holds the last chunk hashed to it.
+    private static final int SLOT_BITS = 10;
+
+    private final ClaimChunkIndex index;
+    private final Entry[] entries = new Entry[1 << SLOT_BITS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unclaimed = new LongAdder();
+
+    ChunkClaimCache(@NotNull ClaimChunkIndex index)
+    {
+        this.index = index;
+    }
+
+    /**
+     * Get the claim at a position. Equivalent to
+     * {@link DataStore#getClaimAt(World, int, int, int, boolean, boolean, Claim)} without ignoring height.
+     *
+     * @param world the world
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @param ignoreSubclaims whether or not subclaims should be returned over claims
+     * @return the claim containing the position or null if no claim exists there
+     */
+    @Nullable Claim getClaimAt(@NotNull World world, int x, int y, int z, boolean ignoreSubclaims)
+    {
+        // Read the version before the index so that a concurrent write is never cached as current.
+        long version = this.index.getVersion();
+        UUID worldID = world.getUID();
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long chunkKey = ClaimChunkIndex.getChunkKey(chunkX, chunkZ);
+        int slot = slot(chunkKey);
+
+        Entry entry = this.entries[slot];
+        if (entry != null && entry.version == version && entry.chunkKey == chunkKey && entry.worldID.equals(worldID))
+        {
+            this.hits.increment();
+        }
+        else
+        {
+            this.misses.increment();
+            entry = new Entry(worldID, chunkKey, version, this.index.get(world, chunkX, chunkZ), null);
+            this.entries[slot] = entry;
+        }
+
+        if (entry.claims.length == 0)
+        {
+            this.unclaimed.increment();
+            return null;
+        }
+
+        // A remembered subdivision can't answer a lookup ignoring subdivisions, which must find its parent instead.
+        Claim last = entry.lastClaim;
+        if (last != null && last.inDataStore && (!ignoreSubclaims || last.parent == null)
+                && last.contains(world, x, y, z, false, !ignoreSubclaims))
+            return last;
+
+        Claim claim = DataStore.getClaimAt(entry.claims, world, x, y, z, false, ignoreSubclaims);
+        if (claim != null)
+            this.entries[slot] = new Entry(worldID, chunkKey, version, entry.claims, claim);
+        return claim;
+    }
+
+    /**
+     * Get the number of lookups made so far and how they were answered.
+     *
+     * @return the cache statistics
+     */
+    public @NotNull Stats getStats()
+    {
+        return new Stats(this.hits.sum(), this.misses.sum(), this.unclaimed.sum());
+    }
+
+    private static int slot(long chunkKey)
+    {
+        return (int) ((chunkKey * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - SLOT_BITS));
+    }
+
+    private record Entry(
+            @NotNull UUID worldID,
+            long chunkKey,
+            long version,
+            @NotNull Claim[] claims,
+            @Nullable Claim lastClaim) {}
+
+    /**
+     * Lookup statistics for the cache.
+     *
+     * @param hits the number of lookups whose chunk was already cached
+     * @param misses the number of lookups which had to read the chunk index
+     * @param unclaimed the number of lookups answered as unclaimed because their chunk has no claims
+     */
+    public record Stats(long hits, long misses, long unclaimed)
+    {
+
+        /**
+         * Get the fraction of lookups whose chunk was already cached.
+         *
+         * @return the hit rate between 0 and 1, or 0 if nothing has been looked up
+         */
+        public double hitRate()
+        {
+            long lookups = this.hits + this.misses;
+            return lookups == 0 ? 0 : (double) this.hits / lookups;
+        }
+
+    }
+
+}
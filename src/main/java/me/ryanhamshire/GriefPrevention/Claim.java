@@ -18,10 +18,9 @@
 
 package me.ryanhamshire.GriefPrevention;
 
+import com.griefprevention.util.EventListeners;
 import io.papermc.lib.PaperLib;
-import me.ryanhamshire.GriefPrevention.util.BoundingBox;
 import me.ryanhamshire.GriefPrevention.events.ClaimPermissionCheckEvent;
-import me.ryanhamshire.GriefPrevention.util.BoundingBox;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -45,14 +44,16 @@ import java.util.Collection;
 import java.util.function.Consumer;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 //represents a player claim
@@ -62,9 +63,14 @@ public class Claim
 {
     //two locations, which together define the boundaries of the claim
     //note that the upper Y value is always ignored, because claims ALWAYS extend up to the sky
+    //use setBoundaryCorners() or refreshBounds() after changing them so that the primitive bounds stay in sync
     Location lesserBoundaryCorner;
     Location greaterBoundaryCorner;
 
+    //primitive copy of the boundaries, replaced as a whole whenever they change so that containment checks
+    //never allocate and never see a half-updated claim
+    private volatile Bounds bounds;
+
     //modification date.  this comes from the file timestamp during load, and is updated with runtime changes
     public Date modifiedDate;
 
@@ -75,11 +81,22 @@ public class Claim
     //use getOwnerName() to get a friendly name (will be "an administrator" for admin claims)
     public UUID ownerID;
 
+    //permissions for this claim, see ClaimPermission class, including who (beyond the claim owner) may grant permissions
+    //replaced as a whole whenever it changes; claims without any trust share the same empty instance
+    private volatile ClaimTrust trust = ClaimTrust.EMPTY;
+
     //list of players who (beyond the claim owner) have permission to grant permissions in this claim
-    public ArrayList<String> managers = new ArrayList<>();
+    //kept for addons as a copy of the managers, refreshed when they change; changes to it are written through
+    //it can no longer be replaced with another list.  use isManager(), getManagers() and setPermission() instead
+    @Deprecated
+    public final ArrayList<String> managers = new ManagerList();
+
+    //changes whenever anything affecting who is trusted here changes, so remembered trust decisions are discarded
+    private volatile long trustEpoch = ClaimPermissionCache.nextEpoch();
 
-    //permissions for this claim, see ClaimPermission class
-    private HashMap<String, ClaimPermission> playerIDToClaimPermissionMap = new HashMap<>();
+    //bumped whenever any claim's boundaries change or a claim enters or leaves the data store,
+    //so decisions based on where claims are can be discarded
+    private static final AtomicLong BOUNDARY_VERSION = new AtomicLong();
 
     //whether or not this claim is in the data store
     //if a claim instance isn't in the data store, it isn't "active" - players can't interract with it
@@ -98,7 +115,8 @@ public class Claim
 
     //children (subdivisions)
     //note subdivisions themselves never have children
-    public ArrayList<Claim> children = new ArrayList<>();
+    //the data store replaces this list rather than modifying it once the claim is in use, so lookups may iterate it without locking
+    public volatile ArrayList<Claim> children = new ArrayList<>();
 
     //following a siege, buttons/levers are unlocked temporarily.  this represents that state
     public boolean doorsOpen = false;
@@ -152,6 +170,7 @@ public class Claim
             this.lesserBoundaryCorner.setZ(z2);
         }
         this.lesserBoundaryCorner.setY(Math.min(this.lesserBoundaryCorner.getBlockY(), this.greaterBoundaryCorner.getBlockY()));
+        this.refreshBounds();
 
         //owner
         this.ownerID = ownerID;
@@ -176,9 +195,10 @@ public class Claim
         {
             if (managerID != null && !managerID.isEmpty())
             {
-                this.managers.add(managerID);
+                this.trust = this.trust.withManager(managerID, true);
             }
         }
+        this.refreshManagers();
 
         this.inheritNothing = inheritNothing;
     }
@@ -193,10 +213,11 @@ public class Claim
         this.modifiedDate = claim.modifiedDate;
         this.lesserBoundaryCorner = claim.greaterBoundaryCorner.clone();
         this.greaterBoundaryCorner = claim.greaterBoundaryCorner.clone();
+        this.refreshBounds();
         this.id = claim.id;
         this.ownerID = claim.ownerID;
-        this.managers = new ArrayList<>(claim.managers);
-        this.playerIDToClaimPermissionMap = new HashMap<>(claim.playerIDToClaimPermissionMap);
+        this.trust = claim.trust;
+        this.refreshManagers();
         this.inDataStore = false; //since it's a copy of a claim, not in datastore!
         this.areExplosivesAllowed = claim.areExplosivesAllowed;
         this.parent = claim.parent;
@@ -205,23 +226,67 @@ public class Claim
         this.doorsOpen = claim.doorsOpen;
     }
 
+    //replaces both corners at once
+    void setBoundaryCorners(Location lesserBoundaryCorner, Location greaterBoundaryCorner)
+    {
+        this.lesserBoundaryCorner = lesserBoundaryCorner;
+        this.greaterBoundaryCorner = greaterBoundaryCorner;
+        this.refreshBounds();
+    }
+
+    //recaptures the primitive bounds after the corners were modified in place
+    void refreshBounds()
+    {
+        World world = this.lesserBoundaryCorner.getWorld();
+        this.bounds = new Bounds(
+                world,
+                this.lesserBoundaryCorner.getBlockX(),
+                this.lesserBoundaryCorner.getBlockY(),
+                this.lesserBoundaryCorner.getBlockZ(),
+                this.greaterBoundaryCorner.getBlockX(),
+                //claims always extend to the sky
+                world != null ? world.getMaxHeight() : this.greaterBoundaryCorner.getBlockY(),
+                this.greaterBoundaryCorner.getBlockZ());
+        bumpBoundaryVersion();
+    }
+
+    //read before making a decision based on claim boundaries, and compare later to tell whether it still holds
+    static long getBoundaryVersion()
+    {
+        return BOUNDARY_VERSION.get();
+    }
+
+    static void bumpBoundaryVersion()
+    {
+        BOUNDARY_VERSION.incrementAndGet();
+    }
+
+    //primitive boundaries, for lookups which must not allocate
+    Bounds getBounds()
+    {
+        return this.bounds;
+    }
+
     //measurements.  all measurements are in blocks
     public int getArea()
     {
-        int claimWidth = this.greaterBoundaryCorner.getBlockX() - this.lesserBoundaryCorner.getBlockX() + 1;
-        int claimHeight = this.greaterBoundaryCorner.getBlockZ() - this.lesserBoundaryCorner.getBlockZ() + 1;
+        Bounds bounds = this.bounds;
+        int claimWidth = bounds.maxX() - bounds.minX() + 1;
+        int claimHeight = bounds.maxZ() - bounds.minZ() + 1;
 
         return claimWidth * claimHeight;
     }
 
     public int getWidth()
     {
-        return this.greaterBoundaryCorner.getBlockX() - this.lesserBoundaryCorner.getBlockX() + 1;
+        Bounds bounds = this.bounds;
+        return bounds.maxX() - bounds.minX() + 1;
     }
 
     public int getHeight()
     {
-        return this.greaterBoundaryCorner.getBlockZ() - this.lesserBoundaryCorner.getBlockZ() + 1;
+        Bounds bounds = this.bounds;
+        return bounds.maxZ() - bounds.minZ() + 1;
     }
 
     public boolean getSubclaimRestrictions()
@@ -232,6 +297,18 @@ public class Claim
     public void setSubclaimRestrictions(boolean inheritNothing)
     {
         this.inheritNothing = inheritNothing;
+        this.bumpTrustEpoch();
+    }
+
+    //discards remembered trust decisions for this claim and its subdivisions
+    //call after changing anything which affects who is trusted here, like trust lists or the owner
+    void bumpTrustEpoch()
+    {
+        this.trustEpoch = ClaimPermissionCache.nextEpoch();
+        for (Claim child : this.children)
+        {
+            child.trustEpoch = ClaimPermissionCache.nextEpoch();
+        }
     }
 
     //distance check for claims, distance in this case is a band around the outside of the claim rather then euclidean distance
@@ -284,10 +361,18 @@ public class Claim
     //build permission check
     public @Nullable String allowBuild(@NotNull Player player, @NotNull Material material)
     {
-        Supplier<String> supplier = checkPermission(player, ClaimPermission.Build, new CompatBuildBreakEvent(material, false));
+        Supplier<String> supplier = checkPermission(player, ClaimPermission.Build, compatBuildBreakEvent(material, false));
         return supplier != null ? supplier.get() : null;
     }
 
+    //the compatibility event is only ever seen by ClaimPermissionCheckEvent listeners, so skip it if there are none
+    private static @Nullable CompatBuildBreakEvent compatBuildBreakEvent(Material material, boolean isBreak)
+    {
+        if (!EventListeners.hasListeners(ClaimPermissionCheckEvent.getHandlerList())) return null;
+
+        return new CompatBuildBreakEvent(material, isBreak);
+    }
+
     public static class CompatBuildBreakEvent extends Event
     {
         private final Material material;
@@ -321,9 +406,9 @@ public class Claim
     {
         if (uuid.equals(this.getOwnerID())) return true;
 
-        if (level == ClaimPermission.Manage) return this.managers.contains(uuid.toString());
+        if (level == ClaimPermission.Manage) return this.trust.isManager(uuid);
 
-        return level.isGrantedBy(this.playerIDToClaimPermissionMap.get(uuid.toString()));
+        return level.isGrantedBy(this.trust.getPermission(uuid));
     }
 
     public boolean hasExplicitPermission(@NotNull Player player, @NotNull ClaimPermission level)
@@ -331,29 +416,17 @@ public class Claim
         // Check explicit ClaimPermission for UUID
         if (this.hasExplicitPermission(player.getUniqueId(), level)) return true;
 
-        // Special case managers - a separate list is used.
-        if (level == ClaimPermission.Manage)
-        {
-            for (String node : this.managers)
-            {
-                // Ensure valid permission format for permissions - [permission.node]
-                if (node.length() < 3 || node.charAt(0) != '[' || node.charAt(node.length() - 1) != ']') continue;
-                // Check if player has node
-                if (player.hasPermission(node.substring(1, node.length() - 1))) return true;
-            }
-            return false;
-        }
-
         // Check permission-based ClaimPermission
-        for (Map.Entry<String, ClaimPermission> stringToPermission : this.playerIDToClaimPermissionMap.entrySet())
+        ClaimTrust trust = this.trust;
+        for (int i = 0; i < trust.otherCount(); i++)
         {
-            String node = stringToPermission.getKey();
+            String node = trust.getOther(i);
             // Ensure valid permission format for permissions - [permission.node]
             if (node.length() < 3 || node.charAt(0) != '[' || node.charAt(node.length() - 1) != ']') continue;
 
-            // Check if level is high enough and player has node
-            if (level.isGrantedBy(stringToPermission.getValue())
-                    && player.hasPermission(node.substring(1, node.length() - 1)))
+            // Check if level is high enough (managers are flagged separately) and player has node
+            boolean granted = level == ClaimPermission.Manage ? trust.isOtherManager(i) : level.isGrantedBy(trust.getOtherPermission(i));
+            if (granted && player.hasPermission(node.substring(1, node.length() - 1)))
                 return true;
         }
 
@@ -391,7 +464,7 @@ public class Claim
             @Nullable Event event,
             @Nullable Supplier<String> denialOverride)
     {
-        return callPermissionCheck(new ClaimPermissionCheckEvent(player, this, permission, event), denialOverride);
+        return callPermissionCheck(player, player.getUniqueId(), permission, event, denialOverride);
     }
 
     /**
@@ -407,28 +480,39 @@ public class Claim
             @NotNull ClaimPermission permission,
             @Nullable Event event)
     {
-        return callPermissionCheck(new ClaimPermissionCheckEvent(uuid, this, permission, event), null);
+        return callPermissionCheck(Bukkit.getPlayer(uuid), uuid, permission, event, null);
     }
 
     /**
-     * Helper method for calling a ClaimPermissionCheckEvent.
+     * Helper method for calling a ClaimPermissionCheckEvent. The event is only constructed if anything listens to it.
      *
-     * @param event the ClaimPermissionCheckEvent to call
+     * @param player the Player being checked for permissions, if online
+     * @param uuid the UUID being checked for permissions
+     * @param permission the ClaimPermission level required
+     * @param triggeringEvent the Event triggering the permission check
      * @param denialOverride a message overriding the default denial for clarity
      * @return the denial reason or null if permission is granted
      */
     private @Nullable Supplier<String> callPermissionCheck(
-            @NotNull ClaimPermissionCheckEvent event,
+            @Nullable Player player,
+            @NotNull UUID uuid,
+            @NotNull ClaimPermission permission,
+            @Nullable Event triggeringEvent,
             @Nullable Supplier<String> denialOverride)
     {
         // Set denial message (if any) using default behavior.
-        Supplier<String> defaultDenial = getDefaultDenial(event.getCheckedPlayer(), event.getCheckedUUID(),
-                event.getRequiredPermission(), event.getTriggeringEvent());
+        Supplier<String> defaultDenial = getDefaultDenial(player, uuid, permission, triggeringEvent);
         // If permission is denied and a clarifying override is provided, use override.
         if (defaultDenial != null && denialOverride != null) {
             defaultDenial = denialOverride;
         }
 
+        // Without listeners nothing can change the outcome.
+        if (!EventListeners.hasListeners(ClaimPermissionCheckEvent.getHandlerList())) return defaultDenial;
+
+        ClaimPermissionCheckEvent event = player != null
+                ? new ClaimPermissionCheckEvent(player, this, permission, triggeringEvent)
+                : new ClaimPermissionCheckEvent(uuid, this, permission, triggeringEvent);
         event.setDenialReason(defaultDenial);
 
         Bukkit.getPluginManager().callEvent(event);
@@ -451,38 +535,9 @@ public class Claim
             @NotNull ClaimPermission permission,
             @Nullable Event event)
     {
-        if (player != null)
-        {
-            // Admin claims need adminclaims permission only.
-            if (this.isAdminClaim())
-            {
-                if (player.hasPermission("griefprevention.adminclaims")) return null;
-            }
-
-            // Anyone with deleteclaims permission can edit non-admin claims at any time.
-            else if (permission == ClaimPermission.Edit && player.hasPermission("griefprevention.deleteclaims"))
-                return null;
-        }
-
-        // Claim owner and admins in ignoreclaims mode have access.
-        if (uuid.equals(this.getOwnerID())
-                || GriefPrevention.instance.dataStore.getPlayerData(uuid).ignoreClaims
-                && hasBypassPermission(player, permission))
+        if (player != null ? this.isTrustedCached(player, permission) : this.isTrusted(null, uuid, permission))
             return null;
 
-        // Look for explicit individual permission.
-        if (player != null)
-        {
-            if (this.hasExplicitPermission(player, permission)) return null;
-        }
-        else
-        {
-            if (this.hasExplicitPermission(uuid, permission)) return null;
-        }
-
-        // Check for public permission.
-        if (permission.isGrantedBy(this.playerIDToClaimPermissionMap.get("public"))) return null;
-
         // Special building-only rules.
         if (permission == ClaimPermission.Build)
         {
@@ -520,6 +575,72 @@ public class Claim
         };
     }
 
+    /**
+     * Check whether a player is trusted in this claim, reusing a recent decision if nothing relevant has changed.
+     *
+     * @param player the Player being checked for permissions
+     * @param permission the ClaimPermission required
+     * @return whether the player is trusted
+     */
+    private boolean isTrustedCached(@NotNull Player player, @NotNull ClaimPermission permission)
+    {
+        ClaimPermissionCache cache = GriefPrevention.instance.dataStore.permissionCache;
+        UUID uuid = player.getUniqueId();
+
+        // Read the epochs first, so a change while deciding invalidates the decision.
+        long claimEpoch = this.trustEpoch;
+        long playerEpoch = cache.getPlayerEpoch(uuid);
+        Boolean trusted = cache.get(this, uuid, permission, claimEpoch, playerEpoch);
+        if (trusted != null) return trusted;
+
+        boolean decision = this.isTrusted(player, uuid, permission);
+        cache.put(this, uuid, permission, claimEpoch, playerEpoch, decision);
+        return decision;
+    }
+
+    /**
+     * Check whether a player is trusted in this claim itself, ignoring inherited trust and situational rules.
+     *
+     * @param player the Player being checked for permissions
+     * @param uuid the UUID being checked for permissions
+     * @param permission the ClaimPermission required
+     * @return whether the player is trusted
+     */
+    private boolean isTrusted(@Nullable Player player, @NotNull UUID uuid, @NotNull ClaimPermission permission)
+    {
+        if (player != null)
+        {
+            // Admin claims need adminclaims permission only.
+            if (this.isAdminClaim())
+            {
+                if (player.hasPermission("griefprevention.adminclaims")) return true;
+            }
+
+            // Anyone with deleteclaims permission can edit non-admin claims at any time.
+            else if (permission == ClaimPermission.Edit && player.hasPermission("griefprevention.deleteclaims"))
+                return true;
+        }
+
+        // Claim owner and admins in ignoreclaims mode have access.
+        if (uuid.equals(this.getOwnerID())
+                || GriefPrevention.instance.dataStore.getPlayerData(uuid).ignoreClaims
+                && hasBypassPermission(player, permission))
+            return true;
+
+        // Look for explicit individual permission.
+        if (player != null)
+        {
+            if (this.hasExplicitPermission(player, permission)) return true;
+        }
+        else
+        {
+            if (this.hasExplicitPermission(uuid, permission)) return true;
+        }
+
+        // Check for public permission.
+        return permission.isGrantedBy(this.trust.getPermission("public"));
+    }
+
     /**
      * Check if the {@link Player} has bypass permissions for a {@link ClaimPermission}. Owner-exclusive edit actions
      * require {@code griefprevention.deleteclaims}. All other actions require {@code griefprevention.ignoreclaims}.
@@ -546,7 +667,7 @@ public class Claim
     @Deprecated
     public @Nullable String allowBreak(@NotNull Player player, @NotNull Material material)
     {
-        Supplier<String> supplier = checkPermission(player, ClaimPermission.Build, new CompatBuildBreakEvent(material, true));
+        Supplier<String> supplier = checkPermission(player, ClaimPermission.Build, compatBuildBreakEvent(material, true));
         return supplier != null ? supplier.get() : null;
     }
 
@@ -591,7 +712,168 @@ public class Claim
     {
         if (playerID == null || playerID.isEmpty()) return null;
 
-        return this.playerIDToClaimPermissionMap.get(playerID.toLowerCase());
+        return this.trust.getPermission(playerID);
+    }
+
+    //whether a player or permission node may grant permissions in this claim
+    public boolean isManager(@Nullable String playerID)
+    {
+        if (playerID == null || playerID.isEmpty()) return false;
+
+        return this.trust.isManager(playerID);
+    }
+
+    //gets everyone who (beyond the claim owner) may grant permissions in this claim
+    public @NotNull List<String> getManagers()
+    {
+        List<String> managers = new ArrayList<>();
+        this.trust.forEach((identifier, level, manager) ->
+        {
+            if (manager) managers.add(identifier);
+        });
+        return managers;
+    }
+
+    //backs the deprecated managers list.  reads use the copy, writes go to the trust and then refresh the copy
+    //the trust keeps no order, so positions only hold until the next change
+    private final class ManagerList extends ArrayList<String>
+    {
+        //replaces the copy with the current managers, without writing anything through
+        private void refresh()
+        {
+            super.clear();
+            trust.forEach((identifier, level, manager) ->
+            {
+                if (manager) super.add(identifier);
+            });
+        }
+
+        @Override
+        public boolean add(String managerID)
+        {
+            setPermission(managerID, ClaimPermission.Manage);
+            return true;
+        }
+
+        @Override
+        public void add(int index, String managerID)
+        {
+            this.add(managerID);
+        }
+
+        @Override
+        public boolean addAll(@NotNull Collection<? extends String> managerIDs)
+        {
+            for (String managerID : managerIDs)
+            {
+                this.add(managerID);
+            }
+            return !managerIDs.isEmpty();
+        }
+
+        @Override
+        public boolean addAll(int index, @NotNull Collection<? extends String> managerIDs)
+        {
+            return this.addAll(managerIDs);
+        }
+
+        @Override
+        public String set(int index, String managerID)
+        {
+            String previous = this.remove(index);
+            this.add(managerID);
+            return previous;
+        }
+
+        @Override
+        public String remove(int index)
+        {
+            String managerID = this.get(index);
+            removeManager(managerID);
+            return managerID;
+        }
+
+        @Override
+        public boolean remove(Object managerID)
+        {
+            if (!this.contains(managerID)) return false;
+            removeManager((String) managerID);
+            return true;
+        }
+
+        @Override
+        public boolean removeAll(@NotNull Collection<?> managerIDs)
+        {
+            return this.removeIf(managerIDs::contains);
+        }
+
+        @Override
+        public boolean retainAll(@NotNull Collection<?> managerIDs)
+        {
+            return this.removeIf(managerID -> !managerIDs.contains(managerID));
+        }
+
+        @Override
+        public boolean removeIf(@NotNull Predicate<? super String> filter)
+        {
+            boolean removed = false;
+            for (String managerID : new ArrayList<>(this))
+            {
+                if (filter.test(managerID))
+                {
+                    removeManager(managerID);
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        @Override
+        public void replaceAll(@NotNull UnaryOperator<String> operator)
+        {
+            List<String> replaced = new ArrayList<>(this.size());
+            for (String managerID : new ArrayList<>(this))
+            {
+                replaced.add(operator.apply(managerID));
+                removeManager(managerID);
+            }
+            this.addAll(replaced);
+        }
+
+        @Override
+        public void clear()
+        {
+            this.removeIf(managerID -> true);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex)
+        {
+            for (String managerID : new ArrayList<>(this.subList(fromIndex, toIndex)))
+            {
+                removeManager(managerID);
+            }
+        }
+
+        //sub lists write to the copy directly, so they can only be read
+        @Override
+        public @NotNull List<String> subList(int fromIndex, int toIndex)
+        {
+            return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+        }
+    }
+
+    private void refreshManagers()
+    {
+        ((ManagerList) this.managers).refresh();
+    }
+
+    //stops a player or permission node from granting permissions here without changing their permission level
+    private void removeManager(@NotNull String managerID)
+    {
+        this.trust = this.trust.withManager(managerID, false);
+        this.refreshManagers();
+        this.bumpTrustEpoch();
     }
 
     //grants a permission for a player or the public
@@ -602,62 +884,80 @@ public class Claim
         if (playerID == null || playerID.isEmpty()) return;
 
         if (permissionLevel == null)
+        {
             dropPermission(playerID);
-        else if (permissionLevel == ClaimPermission.Manage)
-            this.managers.add(playerID.toLowerCase());
-        else
-            this.playerIDToClaimPermissionMap.put(playerID.toLowerCase(), permissionLevel);
+            return;
+        }
+
+        //managers are flagged separately from the permission level they may also have
+        switch (permissionLevel)
+        {
+            case Build, Inventory, Access -> this.trust = this.trust.withPermission(playerID, permissionLevel);
+            case Manage ->
+            {
+                this.trust = this.trust.withManager(playerID, true);
+                this.refreshManagers();
+            }
+            default -> throw new IllegalArgumentException("Cannot grant " + permissionLevel + " permission!");
+        }
+
+        this.bumpTrustEpoch();
     }
 
     //revokes a permission for a player or the public
     public void dropPermission(@NotNull String playerID)
     {
         playerID = playerID.toLowerCase();
-        this.playerIDToClaimPermissionMap.remove(playerID);
-        this.managers.remove(playerID);
+        this.trust = this.trust.withPermission(playerID, null).withManager(playerID, false);
+        this.refreshManagers();
 
         for (Claim child : this.children)
         {
             child.dropPermission(playerID);
         }
+
+        this.bumpTrustEpoch();
     }
 
     //clears all permissions (except owner of course)
     public void clearPermissions()
     {
-        this.playerIDToClaimPermissionMap.clear();
-        this.managers.clear();
+        this.trust = ClaimTrust.EMPTY;
+        this.refreshManagers();
 
         for (Claim child : this.children)
         {
             child.clearPermissions();
         }
+
+        this.bumpTrustEpoch();
     }
 
     //gets ALL permissions
     //useful for  making copies of permissions during a claim resize and listing all permissions in a claim
     public void getPermissions(ArrayList<String> builders, ArrayList<String> containers, ArrayList<String> accessors, ArrayList<String> managers)
     {
-        //loop through all the entries in the hash map
-        for (Map.Entry<String, ClaimPermission> entry : this.playerIDToClaimPermissionMap.entrySet())
+        //build up a list for each permission level; managers may also have a permission level
+        this.trust.forEach((identifier, level, manager) ->
         {
-            //build up a list for each permission level
-            if (entry.getValue() == ClaimPermission.Build)
+            if (level == ClaimPermission.Build)
             {
-                builders.add(entry.getKey());
+                builders.add(identifier);
             }
-            else if (entry.getValue() == ClaimPermission.Inventory)
+            else if (level == ClaimPermission.Inventory)
             {
-                containers.add(entry.getKey());
+                containers.add(identifier);
             }
-            else
+            else if (level == ClaimPermission.Access)
             {
-                accessors.add(entry.getKey());
+                accessors.add(identifier);
             }
-        }
 
-        //managers are handled a little differently
-        managers.addAll(this.managers);
+            if (manager)
+            {
+                managers.add(identifier);
+            }
+        });
     }
 
     //returns a copy of the location representing lower x, y, z limits
@@ -699,20 +999,34 @@ public class Claim
     //excludeSubdivisions = true means that locations inside subdivisions of the claim will return FALSE
     public boolean contains(Location location, boolean ignoreHeight, boolean excludeSubdivisions)
     {
-        //not in the same world implies false
-        if (!Objects.equals(location.getWorld(), this.lesserBoundaryCorner.getWorld())) return false;
+        return this.contains(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), ignoreHeight, excludeSubdivisions);
+    }
 
-        BoundingBox boundingBox = new BoundingBox(this);
-        int x = location.getBlockX();
-        int z = location.getBlockZ();
+    /**
+     * Check whether a block position is in the claim. This does not allocate.
+     *
+     * @param world the world of the position
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @param ignoreHeight whether positions under the claim count as inside it
+     * @param excludeSubdivisions whether positions inside subdivisions of the claim count as outside it
+     * @return true if the position is in the claim
+     */
+    public boolean contains(@Nullable World world, int x, int y, int z, boolean ignoreHeight, boolean excludeSubdivisions)
+    {
+        Bounds bounds = this.bounds;
+
+        //not in the same world implies false
+        if (!Objects.equals(world, bounds.world())) return false;
 
-        // If we're ignoring height, use 2D containment check.
-        if (ignoreHeight && !boundingBox.contains2d(x, z))
+        // Horizontal bounds always apply.
+        if (x < bounds.minX() || x > bounds.maxX() || z < bounds.minZ() || z > bounds.maxZ())
         {
             return false;
         }
-        // Otherwise use full containment check.
-        else if (!ignoreHeight && !boundingBox.contains(x, location.getBlockY(), z))
+        // Unless we're ignoring height, check vertical bounds too.
+        else if (!ignoreHeight && (y < bounds.minY() || y > bounds.maxY()))
         {
             return false;
         }
@@ -723,7 +1037,7 @@ public class Claim
         //a subdivision can reach outside of its parent's boundaries.  so this check is important!
         if (this.parent != null)
         {
-            return this.parent.contains(location, ignoreHeight, false);
+            return this.parent.contains(world, x, y, z, ignoreHeight, false);
         }
 
         //code to exclude subdivisions in this check
@@ -733,7 +1047,7 @@ public class Claim
             for (Claim child : this.children)
             {
                 //if we find such a subdivision, return false
-                if (child.contains(location, ignoreHeight, true))
+                if (child.contains(world, x, y, z, ignoreHeight, true))
                 {
                     return false;
                 }
@@ -748,9 +1062,13 @@ public class Claim
     //used internally to prevent overlaps when creating claims
     boolean overlaps(Claim otherClaim)
     {
-        if (!Objects.equals(this.lesserBoundaryCorner.getWorld(), otherClaim.getLesserBoundaryCorner().getWorld())) return false;
+        Bounds bounds = this.bounds;
+        Bounds other = otherClaim.bounds;
+        if (!Objects.equals(bounds.world(), other.world())) return false;
 
-        return new BoundingBox(this).intersects(new BoundingBox(otherClaim));
+        return bounds.minX() <= other.maxX() && bounds.maxX() >= other.minX()
+                && bounds.minY() <= other.maxY() && bounds.maxY() >= other.minY()
+                && bounds.minZ() <= other.maxZ() && bounds.maxZ() >= other.minZ();
     }
 
     public Collection<Entity> getEntities() {
@@ -860,4 +1178,10 @@ public class Claim
     {
         return DataStore.getChunkHashes(this);
     }
+
+    /**
+     * An immutable snapshot of a claim's boundaries. The maximum Y is the world's build limit, since claims always
+     * extend to the sky.
+     */
+    record Bounds(@Nullable World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {}
 }
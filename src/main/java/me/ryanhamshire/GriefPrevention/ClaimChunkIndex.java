@@ -0,0 +1,350 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import com.griefprevention.util.ConcurrentLongMap;
+import me.ryanhamshire.GriefPrevention.util.BoundingBox;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-world spatial index of top-level claims that may be read without locking or allocating.
+ *
+ * <p>Claims are bucketed in two grids: one cell per chunk for point lookups, and one cell per 512x512 block
+ * region so that queries over large areas don't need to visit every chunk in them.</p>
+ *
+ * <p>Each cell maps to an immutable array of the claims overlapping it. Writers never modify a published
+ * array; they build a replacement and swap it in, so a reader always sees either the old or the new contents
+ * of a cell, never a partial update. Every completed write also bumps a version number that callers may use
+ * to discard anything they derived from an earlier state of the index.</p>
+ */
+public final class ClaimChunkIndex
+{
+
+    private static final Claim[] NO_CLAIMS = new Claim[0];
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int REGION_SHIFT = 9;
+    // Queries spanning more chunks than this are answered from the region grid.
+    private static final int MAX_CHUNK_QUERY_CELLS = 64;
+
+    // Rough JVM layout assumptions for memory reporting: 16-byte array headers, compressed references,
+    // 8-byte object alignment.
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    ClaimChunkIndex() {}
+
+    /**
+     * Get the key for a chunk. This is the same value as {@link DataStore#getChunkHash(long, long)}.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the chunk key
+     */
+    static long getChunkKey(int chunkX, int chunkZ)
+    {
+        return (long) chunkZ ^ ((long) chunkX << 32);
+    }
+
+    /**
+     * Get the claims overlapping a chunk. The returned array must not be modified.
+     *
+     * @param world the world
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the claims in the chunk, never {@code null}
+     */
+    @NotNull Claim[] get(@Nullable World world, int chunkX, int chunkZ)
+    {
+        if (world == null) return NO_CLAIMS;
+
+        WorldIndex index = this.worlds.get(world.getUID());
+        if (index == null) return NO_CLAIMS;
+
+        Claim[] claims = index.chunks.get(getChunkKey(chunkX, chunkZ));
+        return claims != null ? claims : NO_CLAIMS;
+    }
+
+    /**
+     * Get the claims overlapping a chunk in any world.
+     *
+     * @param chunkHash the chunk hash from {@link DataStore#getChunkHash(long, long)}
+     * @return the claims in the chunk
+     */
+    @NotNull List<Claim> getInAllWorlds(long chunkHash)
+    {
+        List<Claim> claims = new ArrayList<>();
+        for (WorldIndex index : this.worlds.values())
+        {
+            Claim[] chunkClaims = index.chunks.get(chunkHash);
+            if (chunkClaims != null) claims.addAll(Arrays.asList(chunkClaims));
+        }
+        return claims;
+    }
+
+    /**
+     * Get the claims whose horizontal bounds intersect an area. Vertical bounds are not checked.
+     *
+     * @param world the world
+     * @param minX the minimum block X coordinate
+     * @param minZ the minimum block Z coordinate
+     * @param maxX the maximum block X coordinate
+     * @param maxZ the maximum block Z coordinate
+     * @return the intersecting claims
+     */
+    @NotNull Set<Claim> getIntersecting(@NotNull World world, int minX, int minZ, int maxX, int maxZ)
+    {
+        Set<Claim> claims = new HashSet<>();
+        WorldIndex index = this.worlds.get(world.getUID());
+        if (index == null) return claims;
+
+        long chunkCells = ((long) (maxX >> CHUNK_SHIFT) - (minX >> CHUNK_SHIFT) + 1)
+                * ((long) (maxZ >> CHUNK_SHIFT) - (minZ >> CHUNK_SHIFT) + 1);
+        boolean useChunks = chunkCells <= MAX_CHUNK_QUERY_CELLS;
+        ConcurrentLongMap<Claim[]> cells = useChunks ? index.chunks : index.regions;
+        int shift = useChunks ? CHUNK_SHIFT : REGION_SHIFT;
+
+        for (int cellX = minX >> shift; cellX <= maxX >> shift; cellX++)
+        {
+            for (int cellZ = minZ >> shift; cellZ <= maxZ >> shift; cellZ++)
+            {
+                Claim[] cellClaims = cells.get(getChunkKey(cellX, cellZ));
+                if (cellClaims == null) continue;
+
+                for (Claim claim : cellClaims)
+                {
+                    if (intersects(claim, minX, minZ, maxX, maxZ)) claims.add(claim);
+                }
+            }
+        }
+
+        return claims;
+    }
+
+    /**
+     * Get the current version of the index. The version increases every time a write completes.
+     *
+     * @return the current version
+     */
+    long getVersion()
+    {
+        return this.version.get();
+    }
+
+    /**
+     * Add a claim to the cells covering an area of its world. Cells already containing the claim are left as-is.
+     *
+     * @param claim the claim
+     * @param bounds the area to index the claim in
+     */
+    synchronized void add(@NotNull Claim claim, @NotNull BoundingBox bounds)
+    {
+        World world = Objects.requireNonNull(claim.getBounds().world());
+        WorldIndex index = this.worlds.computeIfAbsent(world.getUID(), uuid -> new WorldIndex());
+
+        addToCells(index.chunks, CHUNK_SHIFT, claim, bounds);
+        addToCells(index.regions, REGION_SHIFT, claim, bounds);
+
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Remove a claim from the cells covering an area of its world.
+     *
+     * @param claim the claim
+     * @param bounds the area to remove the claim from
+     * @param retained an area the claim must stay indexed in, or {@code null} to remove it entirely
+     */
+    synchronized void remove(@NotNull Claim claim, @NotNull BoundingBox bounds, @Nullable BoundingBox retained)
+    {
+        World world = claim.getBounds().world();
+        WorldIndex index = world != null ? this.worlds.get(world.getUID()) : null;
+        if (index == null) return;
+
+        removeFromCells(index.chunks, CHUNK_SHIFT, claim, bounds, retained);
+        removeFromCells(index.regions, REGION_SHIFT, claim, bounds, retained);
+
+        this.version.incrementAndGet();
+    }
+
+    private static void addToCells(
+            @NotNull ConcurrentLongMap<Claim[]> cells,
+            int shift,
+            @NotNull Claim claim,
+            @NotNull BoundingBox bounds)
+    {
+        for (int cellX = bounds.getMinX() >> shift; cellX <= bounds.getMaxX() >> shift; cellX++)
+        {
+            for (int cellZ = bounds.getMinZ() >> shift; cellZ <= bounds.getMaxZ() >> shift; cellZ++)
+            {
+                long key = getChunkKey(cellX, cellZ);
+                Claim[] existing = cells.get(key);
+                if (existing == null)
+                {
+                    cells.put(key, new Claim[] { claim });
+                    continue;
+                }
+
+                if (indexOf(existing, claim) >= 0) continue;
+
+                Claim[] updated = Arrays.copyOf(existing, existing.length + 1);
+                updated[existing.length] = claim;
+                cells.put(key, updated);
+            }
+        }
+    }
+
+    private static void removeFromCells(
+            @NotNull ConcurrentLongMap<Claim[]> cells,
+            int shift,
+            @NotNull Claim claim,
+            @NotNull BoundingBox bounds,
+            @Nullable BoundingBox retained)
+    {
+        for (int cellX = bounds.getMinX() >> shift; cellX <= bounds.getMaxX() >> shift; cellX++)
+        {
+            for (int cellZ = bounds.getMinZ() >> shift; cellZ <= bounds.getMaxZ() >> shift; cellZ++)
+            {
+                if (retained != null
+                        && cellX >= retained.getMinX() >> shift && cellX <= retained.getMaxX() >> shift
+                        && cellZ >= retained.getMinZ() >> shift && cellZ <= retained.getMaxZ() >> shift)
+                    continue;
+
+                long key = getChunkKey(cellX, cellZ);
+                Claim[] existing = cells.get(key);
+                if (existing == null) continue;
+
+                int index = indexOf(existing, claim);
+                if (index < 0) continue;
+
+                // If nothing's left, remove this cell's entry entirely.
+                if (existing.length == 1)
+                {
+                    cells.remove(key);
+                    continue;
+                }
+
+                Claim[] updated = new Claim[existing.length - 1];
+                System.arraycopy(existing, 0, updated, 0, index);
+                System.arraycopy(existing, index + 1, updated, index, updated.length - index);
+                cells.put(key, updated);
+            }
+        }
+    }
+
+    /**
+     * Measure the index for each world.
+     *
+     * @return the memory usage of each world's index
+     */
+    @NotNull List<Usage> getUsage()
+    {
+        List<Usage> usages = new ArrayList<>();
+        for (Map.Entry<UUID, WorldIndex> entry : this.worlds.entrySet())
+        {
+            WorldIndex index = entry.getValue();
+            long[] bucketStats = new long[2];
+            index.chunks.forEach((key, claims) ->
+            {
+                bucketStats[0] += claims.length;
+                bucketStats[1] += align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * claims.length);
+            });
+            index.regions.forEach((key, claims) ->
+                    bucketStats[1] += align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * claims.length));
+
+            int capacity = index.chunks.capacity();
+            long tableBytes = tableBytes(capacity) + tableBytes(index.regions.capacity());
+            usages.add(new Usage(
+                    entry.getKey(),
+                    index.chunks.size(),
+                    index.regions.size(),
+                    capacity,
+                    bucketStats[0],
+                    tableBytes + bucketStats[1]));
+        }
+        return usages;
+    }
+
+    private static long tableBytes(int capacity)
+    {
+        return align(ARRAY_HEADER_BYTES + (long) Long.BYTES * capacity)
+                + align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * capacity);
+    }
+
+    private static long align(long bytes)
+    {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static boolean intersects(@NotNull Claim claim, int minX, int minZ, int maxX, int maxZ)
+    {
+        Claim.Bounds bounds = claim.getBounds();
+        return bounds.minX() <= maxX && bounds.maxX() >= minX && bounds.minZ() <= maxZ && bounds.maxZ() >= minZ;
+    }
+
+    private static int indexOf(@NotNull Claim[] claims, @NotNull Claim claim)
+    {
+        for (int i = 0; i < claims.length; i++)
+        {
+            if (claims[i] == claim) return i;
+        }
+        return -1;
+    }
+
+    private static final class WorldIndex
+    {
+        private final ConcurrentLongMap<Claim[]> chunks = new ConcurrentLongMap<>();
+        private final ConcurrentLongMap<Claim[]> regions = new ConcurrentLongMap<>();
+    }
+
+    /**
+     * A summary of the memory used by the index for a single world.
+     *
+     * @param worldId the world's unique identifier
+     * @param chunks the number of chunks containing claims
+     * @param regions the number of regions containing claims
+     * @param capacity the number of slots in the chunk table
+     * @param claimReferences the total number of claim references across all chunks
+     * @param estimatedBytes the estimated heap used by the tables and their buckets
+     */
+    public record Usage(
+            @NotNull UUID worldId,
+            int chunks,
+            int regions,
+            int capacity,
+            long claimReferences,
+            long estimatedBytes) {}
+
+}
@@ -0,0 +1,153 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers recent decisions on whether a player is trusted in a claim.
+ *
+ * <p>A decision is only reused while neither the claim's trust epoch nor the player's epoch has changed since it was
+ * made. Claims bump their epoch whenever their trust changes, and players are bumped when they join or toggle
+ * ignoring claims. Permission nodes can also change without any notification, so decisions expire after a short
+ * time regardless.</p>
+ *
+ * <p>Callers must read both epochs before evaluating trust, so a change made during the evaluation invalidates the
+ * stored decision rather than being lost.</p>
+ */
+final class ClaimPermissionCache
+{
+
+    private static final AtomicLong EPOCHS = new AtomicLong();
+    static final int MAXIMUM_SIZE = 16_384;
+    private static final long TIME_TO_LIVE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<Key, Decision> decisions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> playerEpochs = new ConcurrentHashMap<>();
+
+    /**
+     * Get a new epoch, different from every epoch handed out before.
+     *
+     * @return the epoch
+     */
+    static long nextEpoch()
+    {
+        return EPOCHS.incrementAndGet();
+    }
+
+    /**
+     * Get the current epoch of a player.
+     *
+     * @param playerID the player's UUID
+     * @return the epoch
+     */
+    long getPlayerEpoch(@NotNull UUID playerID)
+    {
+        Long epoch = this.playerEpochs.get(playerID);
+        return epoch == null ? 0 : epoch;
+    }
+
+    /**
+     * Discard all decisions made for a player.
+     *
+     * @param playerID the player's UUID
+     */
+    void bumpPlayerEpoch(@NotNull UUID playerID)
+    {
+        this.playerEpochs.put(playerID, nextEpoch());
+    }
+
+    /**
+     * Stop tracking a player who left. Their decisions can no longer be used, because the epoch they were made with
+     * is forgotten and the player gets a new one on joining.
+     *
+     * @param playerID the player's UUID
+     */
+    void forgetPlayer(@NotNull UUID playerID)
+    {
+        this.playerEpochs.remove(playerID);
+    }
+
+    /**
+     * Look up a decision.
+     *
+     * @param claim the claim
+     * @param playerID the player's UUID
+     * @param permission the required permission
+     * @param claimEpoch the claim's current trust epoch
+     * @param playerEpoch the player's current epoch
+     * @return whether the player is trusted, or {@code null} if there is no usable decision
+     */
+    @Nullable Boolean get(
+            @NotNull Claim claim,
+            @NotNull UUID playerID,
+            @NotNull ClaimPermission permission,
+            long claimEpoch,
+            long playerEpoch)
+    {
+        Decision decision = this.decisions.get(new Key(claim, playerID, permission));
+        if (decision == null
+                || decision.claimEpoch() != claimEpoch
+                || decision.playerEpoch() != playerEpoch
+                || System.nanoTime() - decision.madeAt() > TIME_TO_LIVE_NANOS)
+            return null;
+
+        return decision.trusted();
+    }
+
+    /**
+     * Remember a decision.
+     *
+     * @param claim the claim
+     * @param playerID the player's UUID
+     * @param permission the required permission
+     * @param claimEpoch the claim's trust epoch, read before the decision was made
+     * @param playerEpoch the player's epoch, read before the decision was made
+     * @param trusted whether the player is trusted
+     */
+    void put(
+            @NotNull Claim claim,
+            @NotNull UUID playerID,
+            @NotNull ClaimPermission permission,
+            long claimEpoch,
+            long playerEpoch,
+            boolean trusted)
+    {
+        // Crude bound, but decisions are cheap to remake and the busy ones come back within a tick.
+        if (this.decisions.size() >= MAXIMUM_SIZE) this.decisions.clear();
+
+        this.decisions.put(new Key(claim, playerID, permission), new Decision(claimEpoch, playerEpoch, System.nanoTime(), trusted));
+    }
+
+    int size()
+    {
+        return this.decisions.size();
+    }
+
+    private record Key(@NotNull Claim claim, @NotNull UUID playerID, @NotNull ClaimPermission permission) {}
+
+    private record Decision(long claimEpoch, long playerEpoch, long madeAt, boolean trusted) {}
+
+}
@@ -0,0 +1,308 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * The trust list of a claim, stored compactly.
+ *
+ * <p>Players are kept as sorted pairs of {@code long}s, so checking a player never converts their {@link UUID} to a
+ * {@link String}. Everything else, like {@code public} and {@code [permission.node]} entries, is kept in a small
+ * separate list. Each identifier has a single entry combining its permission level and whether it is a manager.</p>
+ *
+ * <p>Instances are immutable and changes produce a new instance, so a trust list can be read from any thread and
+ * shared by copies of a claim. Claims without any trust share {@link #EMPTY}.</p>
+ */
+final class ClaimTrust
+{
+
+    static final ClaimTrust EMPTY = new ClaimTrust(new long[0], new byte[0], new String[0], new byte[0]);
+
+    // Entry bits: the index of the permission level in LEVELS, and the manager flag.
+    private static final ClaimPermission[] LEVELS = { null, ClaimPermission.Build, ClaimPermission.Inventory, ClaimPermission.Access };
+    private static final int LEVEL_MASK = 0b011;
+    private static final int MANAGER = 0b100;
+
+    // Most and least significant halves of each player's UUID, ordered by UUID.
+    private final long[] players;
+    private final byte[] playerEntries;
+    // Lowercase identifiers which aren't UUIDs.
+    private final String[] others;
+    private final byte[] otherEntries;
+
+    private ClaimTrust(long[] players, byte[] playerEntries, String[] others, byte[] otherEntries)
+    {
+        this.players = players;
+        this.playerEntries = playerEntries;
+        this.others = others;
+        this.otherEntries = otherEntries;
+    }
+
+    boolean isEmpty()
+    {
+        return this.playerEntries.length == 0 && this.otherEntries.length == 0;
+    }
+
+    @Nullable ClaimPermission getPermission(@NotNull UUID playerID)
+    {
+        int index = this.indexOf(playerID.getMostSignificantBits(), playerID.getLeastSignificantBits());
+        return index < 0 ? null : LEVELS[this.playerEntries[index] & LEVEL_MASK];
+    }
+
+    boolean isManager(@NotNull UUID playerID)
+    {
+        int index = this.indexOf(playerID.getMostSignificantBits(), playerID.getLeastSignificantBits());
+        return index >= 0 && (this.playerEntries[index] & MANAGER) != 0;
+    }
+
+    @Nullable ClaimPermission getPermission(@NotNull String identifier)
+    {
+        return LEVELS[this.getEntry(identifier) & LEVEL_MASK];
+    }
+
+    boolean isManager(@NotNull String identifier)
+    {
+        return (this.getEntry(identifier) & MANAGER) != 0;
+    }
+
+    /**
+     * Set the permission level of an identifier, keeping whether it is a manager.
+     *
+     * @param identifier the identifier
+     * @param level {@link ClaimPermission#Build}, {@link ClaimPermission#Inventory}, {@link ClaimPermission#Access}
+     *              or {@code null} to remove the level
+     * @return the changed trust list
+     */
+    @NotNull ClaimTrust withPermission(@NotNull String identifier, @Nullable ClaimPermission level)
+    {
+        int levelBits = level == null ? 0 : Arrays.asList(LEVELS).indexOf(level);
+        if (levelBits < 0) throw new IllegalArgumentException("Cannot store " + level + " as a permission level");
+        return this.withEntry(identifier, (this.getEntry(identifier) & ~LEVEL_MASK) | levelBits);
+    }
+
+    /**
+     * Set whether an identifier is a manager, keeping its permission level.
+     *
+     * @param identifier the identifier
+     * @param manager whether it is a manager
+     * @return the changed trust list
+     */
+    @NotNull ClaimTrust withManager(@NotNull String identifier, boolean manager)
+    {
+        int entry = this.getEntry(identifier);
+        return this.withEntry(identifier, manager ? entry | MANAGER : entry & ~MANAGER);
+    }
+
+    /**
+     * Visit every identifier with its permission level and whether it is a manager.
+     *
+     * @param visitor the visitor
+     */
+    void forEach(@NotNull Visitor visitor)
+    {
+        for (int i = 0; i < this.playerEntries.length; i++)
+        {
+            byte entry = this.playerEntries[i];
+            String identifier = new UUID(this.players[i * 2], this.players[i * 2 + 1]).toString();
+            visitor.visit(identifier, LEVELS[entry & LEVEL_MASK], (entry & MANAGER) != 0);
+        }
+        for (int i = 0; i < this.otherEntries.length; i++)
+        {
+            visitor.visit(this.others[i], this.getOtherPermission(i), this.isOtherManager(i));
+        }
+    }
+
+    // Identifiers which aren't players, like public and [permission.node] entries, are few enough to scan by index.
+
+    int otherCount()
+    {
+        return this.otherEntries.length;
+    }
+
+    @NotNull String getOther(int index)
+    {
+        return this.others[index];
+    }
+
+    @Nullable ClaimPermission getOtherPermission(int index)
+    {
+        return LEVELS[this.otherEntries[index] & LEVEL_MASK];
+    }
+
+    boolean isOtherManager(int index)
+    {
+        return (this.otherEntries[index] & MANAGER) != 0;
+    }
+
+    private int getEntry(@NotNull String identifier)
+    {
+        identifier = identifier.toLowerCase();
+        UUID playerID = parseUUID(identifier);
+        if (playerID != null)
+        {
+            int index = this.indexOf(playerID.getMostSignificantBits(), playerID.getLeastSignificantBits());
+            return index < 0 ? 0 : this.playerEntries[index];
+        }
+
+        for (int i = 0; i < this.others.length; i++)
+        {
+            if (this.others[i].equals(identifier)) return this.otherEntries[i];
+        }
+        return 0;
+    }
+
+    private @NotNull ClaimTrust withEntry(@NotNull String identifier, int entry)
+    {
+        identifier = identifier.toLowerCase();
+        UUID playerID = parseUUID(identifier);
+        if (playerID != null)
+        {
+            long most = playerID.getMostSignificantBits();
+            long least = playerID.getLeastSignificantBits();
+            int index = this.indexOf(most, least);
+
+            long[] players;
+            byte[] playerEntries;
+            if (index >= 0 && entry != 0)
+            {
+                players = this.players;
+                playerEntries = this.playerEntries.clone();
+                playerEntries[index] = (byte) entry;
+            }
+            else if (index >= 0)
+            {
+                players = new long[this.players.length - 2];
+                System.arraycopy(this.players, 0, players, 0, index * 2);
+                System.arraycopy(this.players, index * 2 + 2, players, index * 2, players.length - index * 2);
+                playerEntries = new byte[this.playerEntries.length - 1];
+                System.arraycopy(this.playerEntries, 0, playerEntries, 0, index);
+                System.arraycopy(this.playerEntries, index + 1, playerEntries, index, playerEntries.length - index);
+            }
+            else if (entry != 0)
+            {
+                int insertAt = -index - 1;
+                players = new long[this.players.length + 2];
+                System.arraycopy(this.players, 0, players, 0, insertAt * 2);
+                players[insertAt * 2] = most;
+                players[insertAt * 2 + 1] = least;
+                System.arraycopy(this.players, insertAt * 2, players, insertAt * 2 + 2, this.players.length - insertAt * 2);
+                playerEntries = new byte[this.playerEntries.length + 1];
+                System.arraycopy(this.playerEntries, 0, playerEntries, 0, insertAt);
+                playerEntries[insertAt] = (byte) entry;
+                System.arraycopy(this.playerEntries, insertAt, playerEntries, insertAt + 1, this.playerEntries.length - insertAt);
+            }
+            else return this;
+
+            return create(players, playerEntries, this.others, this.otherEntries);
+        }
+
+        int index = -1;
+        for (int i = 0; i < this.others.length; i++)
+        {
+            if (this.others[i].equals(identifier)) index = i;
+        }
+
+        String[] others;
+        byte[] otherEntries;
+        if (index >= 0 && entry != 0)
+        {
+            others = this.others;
+            otherEntries = this.otherEntries.clone();
+            otherEntries[index] = (byte) entry;
+        }
+        else if (index >= 0)
+        {
+            others = new String[this.others.length - 1];
+            System.arraycopy(this.others, 0, others, 0, index);
+            System.arraycopy(this.others, index + 1, others, index, others.length - index);
+            otherEntries = new byte[this.otherEntries.length - 1];
+            System.arraycopy(this.otherEntries, 0, otherEntries, 0, index);
+            System.arraycopy(this.otherEntries, index + 1, otherEntries, index, otherEntries.length - index);
+        }
+        else if (entry != 0)
+        {
+            others = Arrays.copyOf(this.others, this.others.length + 1);
+            others[this.others.length] = identifier;
+            otherEntries = Arrays.copyOf(this.otherEntries, this.otherEntries.length + 1);
+            otherEntries[this.otherEntries.length] = (byte) entry;
+        }
+        else return this;
+
+        return create(this.players, this.playerEntries, others, otherEntries);
+    }
+
+    private static @NotNull ClaimTrust create(long[] players, byte[] playerEntries, String[] others, byte[] otherEntries)
+    {
+        if (playerEntries.length == 0 && otherEntries.length == 0) return EMPTY;
+        return new ClaimTrust(players, playerEntries, others, otherEntries);
+    }
+
+    // Binary search over UUIDs, in the same order as UUID#compareTo.
+    private int indexOf(long most, long least)
+    {
+        int low = 0;
+        int high = this.playerEntries.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = Long.compare(this.players[middle * 2], most);
+            if (comparison == 0) comparison = Long.compare(this.players[middle * 2 + 1], least);
+
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return middle;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Parse a UUID, only accepting the canonical lowercase form so that it converts back to the same identifier.
+     *
+     * @param identifier the identifier
+     * @return the UUID or {@code null} if the identifier isn't one
+     */
+    static @Nullable UUID parseUUID(@NotNull String identifier)
+    {
+        if (identifier.length() != 36) return null;
+
+        for (int i = 0; i < 36; i++)
+        {
+            char character = identifier.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23)
+            {
+                if (character != '-') return null;
+            }
+            else if ((character < '0' || character > '9') && (character < 'a' || character > 'f')) return null;
+        }
+
+        return UUID.fromString(identifier);
+    }
+
+    @FunctionalInterface
+    interface Visitor
+    {
+        void visit(@NotNull String identifier, @Nullable ClaimPermission level, boolean manager);
+    }
+
+}
@@ -43,7 +43,7 @@ class CleanupUnusedClaimPreTask implements Runnable
         PlayerData ownerData = GriefPrevention.instance.dataStore.getPlayerDataFromStorage(ownerID);
         OfflinePlayer ownerInfo = Bukkit.getServer().getOfflinePlayer(ownerID);
 
-        GriefPrevention.AddLogEntry("Looking for expired claims.  Checking data for " + ownerID.toString(), CustomLogEntryTypes.Debug, true);
+        GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Looking for expired claims.  Checking data for {}", ownerID);
 
         //expiration code uses last logout timestamp to decide whether to expire claims
         //don't expire claims for online players
@@ -54,7 +54,7 @@ class CleanupUnusedClaimPreTask implements Runnable
         }
         if (ownerInfo.getLastPlayed() <= 0)
         {
-            GriefPrevention.AddLogEntry("Player is new or not in the server's cached userdata. Ignoring. getLastPlayed = " + ownerInfo.getLastPlayed(), CustomLogEntryTypes.Debug, true);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Player is new or not in the server's cached userdata. Ignoring. getLastPlayed = {}", ownerInfo.getLastPlayed());
             return;
         }
 
@@ -68,9 +68,9 @@ class CleanupUnusedClaimPreTask implements Runnable
 
         Claim claimToExpire = null;
 
-        for (Claim claim : GriefPrevention.instance.dataStore.getClaims())
+        for (Claim claim : GriefPrevention.instance.dataStore.getClaimsOwnedBy(ownerID))
         {
-            if (ownerID.equals(claim.ownerID))
+            if (claim.inDataStore)
             {
                 claimToExpire = claim;
                 break;
@@ -79,7 +79,7 @@ class CleanupUnusedClaimPreTask implements Runnable
 
         if (claimToExpire == null)
         {
-            GriefPrevention.AddLogEntry("Unable to find a claim to expire for " + ownerID.toString(), CustomLogEntryTypes.Debug, false);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Unable to find a claim to expire for {}", ownerID);
             return;
         }
 
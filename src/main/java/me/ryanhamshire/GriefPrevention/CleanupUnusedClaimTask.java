@@ -83,8 +83,11 @@ class CleanupUnusedClaimTask implements Runnable
                 //delete them
                 GriefPrevention.instance.dataStore.deleteClaimsForPlayer(claim.ownerID, true);
                 GriefPrevention.AddLogEntry(" All of " + claim.getOwnerName() + "'s claims have expired.", CustomLogEntryTypes.AdminActivity);
-                GriefPrevention.AddLogEntry("earliestPermissibleLastLogin#getTime: " + earliestPermissibleLastLogin.getTime(), CustomLogEntryTypes.Debug, true);
-                GriefPrevention.AddLogEntry("ownerInfo#getLastPlayed: " + ownerInfo.getLastPlayed(), CustomLogEntryTypes.Debug, true);
+                if (GriefPrevention.isLogEnabled(CustomLogEntryTypes.Debug))
+                {
+                    GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "earliestPermissibleLastLogin#getTime: {}", earliestPermissibleLastLogin.getTime());
+                }
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "ownerInfo#getLastPlayed: {}", ownerInfo.getLastPlayed());
             }
         }
     }
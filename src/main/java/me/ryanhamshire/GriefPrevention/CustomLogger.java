@@ -18,63 +18,167 @@
 
 package me.ryanhamshire.GriefPrevention;
 
-import com.google.common.io.Files;
+import com.griefprevention.util.RingBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Writes the abridged logs.
+ *
+ * <p>Entries are handed to a dedicated writer thread through a bounded {@link RingBuffer}, so logging never takes a
+ * lock or touches the disk on the calling thread. Formatting codes are stripped and timestamps are formatted by the
+ * writer, which appends entries to one file per day. Files larger than the configured size are rolled over, and rolled
+ * files may be compressed. If the writer falls behind and the buffer fills up, new entries are dropped rather than
+ * blocking the caller; drops are counted and reported in the log itself.</p>
+ */
 class CustomLogger
 {
-    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm");
-    private final SimpleDateFormat filenameFormat = new SimpleDateFormat("yyyy_MM_dd");
-    private final String logFolderPath = DataStore.dataLayerFolderPath + File.separator + "Logs";
-    private final int secondsBetweenWrites = 300;
+    static final int DEFAULT_CAPACITY = 8192;
+
+    private static final DateTimeFormatter timestampFormat = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter filenameFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+    private static final long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    // Encoded entries are written to the file in chunks of about this size.
+    private static final int chunkSize = 8192;
+
+    private final File logFolder;
+    private final long maxFileBytes;
+    private final boolean compressRolledFiles;
+    private final Logger logger;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final RingBuffer<Entry> queuedEntries;
+    private final int wakeThreshold;
+    private final AtomicLong droppedEntries = new AtomicLong();
+
+    private volatile Thread writer;
+    private volatile boolean closed;
 
-    //stringbuilder is not thread safe, stringbuffer is
-    private final StringBuffer queuedEntries = new StringBuffer();
+    // Writer thread state.
+    private final StringBuilder pendingText = new StringBuilder();
+    private LocalDate pendingDate;
+    private LocalDate fileDate;
+    private FileChannel channel;
+    private long reportedDrops;
 
     CustomLogger()
     {
-        //ensure log folder exists
-        File logFolder = new File(this.logFolderPath);
-        logFolder.mkdirs();
+        this(
+                new File(DataStore.dataLayerFolderPath + File.separator + "Logs"),
+                GriefPrevention.instance.config_logs_maxFileSizeMB * 1024L * 1024L,
+                GriefPrevention.instance.config_logs_compressRolledFiles,
+                DEFAULT_CAPACITY,
+                GriefPrevention.instance.getLogger());
 
         //delete any outdated log files immediately
         this.DeleteExpiredLogs();
 
-        //unless disabled, schedule recurring tasks
-        int daysToKeepLogs = GriefPrevention.instance.config_logs_daysToKeep;
-        if (daysToKeepLogs > 0)
+        //unless disabled, start writing
+        if (GriefPrevention.instance.config_logs_daysToKeep > 0)
         {
-//            final long ticksPerSecond = 20L;
-            final long ticksPerDay = 60 * 60 * 24;
-            GriefPrevention.scheduler.getImpl().runTimerAsync(new EntryWriter(), this.secondsBetweenWrites, this.secondsBetweenWrites, TimeUnit.SECONDS);
-            GriefPrevention.scheduler.getImpl().runTimerAsync(new ExpiredLogRemover(), 1L, 24L, TimeUnit.HOURS);
+            this.start();
         }
     }
 
-    private static final Pattern inlineFormatterPattern = Pattern.compile("§.");
+    /**
+     * Construct a new logger. Entries are only written once the writer thread is {@link #start() started}.
+     *
+     * @param logFolder the folder containing the log files
+     * @param maxFileBytes the size after which a day's file is rolled over, or 0 for no limit
+     * @param compressRolledFiles whether rolled files and files of previous days are compressed
+     * @param capacity the number of entries that may wait for the writer before entries are dropped
+     * @param logger the logger for problems writing the log
+     */
+    CustomLogger(
+            @NotNull File logFolder,
+            long maxFileBytes,
+            boolean compressRolledFiles,
+            int capacity,
+            @NotNull Logger logger)
+    {
+        this.logFolder = logFolder;
+        this.maxFileBytes = maxFileBytes;
+        this.compressRolledFiles = compressRolledFiles;
+        this.logger = logger;
+        this.queuedEntries = new RingBuffer<>(capacity);
+        this.wakeThreshold = Math.max(1, this.queuedEntries.capacity() / 2);
+
+        //ensure log folder exists
+        this.logFolder.mkdirs();
+    }
+
+    void start()
+    {
+        Thread thread = new Thread(this::run, "GriefPrevention Log Writer");
+        thread.setDaemon(true);
+        this.writer = thread;
+        thread.start();
+    }
 
     void AddEntry(String entry, CustomLogEntryTypes entryType)
     {
-        //if disabled, do nothing
-        int daysToKeepLogs = GriefPrevention.instance.config_logs_daysToKeep;
-        if (daysToKeepLogs == 0) return;
+        //if disabled, shut down or not an enabled entry type, do nothing
+        if (!this.isEnabled(entryType)) return;
+
+        //otherwise hand the entry to the writer, or count it as lost if the writer can't keep up
+        if (!this.queuedEntries.offer(new Entry(System.currentTimeMillis(), entry)))
+        {
+            this.droppedEntries.incrementAndGet();
+            return;
+        }
+
+        //wake the writer early if entries are piling up
+        Thread thread = this.writer;
+        if (thread != null && this.queuedEntries.size() >= this.wakeThreshold) LockSupport.unpark(thread);
+    }
 
-        //if entry type is not enabled, do nothing
-        if (!this.isEnabledType(entryType)) return;
+    boolean isEnabled(CustomLogEntryTypes entryType)
+    {
+        return GriefPrevention.instance.config_logs_daysToKeep != 0 && !this.closed && this.isEnabledType(entryType);
+    }
 
-        //otherwise write to the in-memory buffer, after removing formatters
-        Matcher matcher = inlineFormatterPattern.matcher(entry);
-        entry = matcher.replaceAll("");
-        String timestamp = this.timestampFormat.format(new Date());
-        this.queuedEntries.append(timestamp).append(' ').append(entry).append('\n');
+    /**
+     * Replace each {@code {}} in a template with the next argument. Surplus placeholders are left as they are.
+     *
+     * @param template the template
+     * @param arguments the arguments
+     * @return the formatted entry
+     */
+    static @NotNull String format(@NotNull String template, @Nullable Object... arguments)
+    {
+        StringBuilder builder = new StringBuilder(template.length() + 16 * arguments.length);
+        int start = 0;
+        for (Object argument : arguments)
+        {
+            int placeholder = template.indexOf("{}", start);
+            if (placeholder < 0) break;
+            builder.append(template, start, placeholder).append(argument);
+            start = placeholder + 2;
+        }
+        return builder.append(template, start, template.length()).toString();
     }
 
     private boolean isEnabledType(CustomLogEntryTypes entryType)
@@ -93,28 +197,235 @@ class CustomLogger
         return true;
     }
 
+    /**
+     * Get the number of entries dropped because the writer could not keep up.
+     *
+     * @return the number of dropped entries
+     */
+    long getDroppedEntries()
+    {
+        return this.droppedEntries.get();
+    }
+
+    /**
+     * Write all waiting entries and stop the writer thread. Entries added afterwards are dropped.
+     */
+    void close()
+    {
+        this.closed = true;
+        Thread thread = this.writer;
+        if (thread == null)
+        {
+            this.closeFile();
+            return;
+        }
+
+        LockSupport.unpark(thread);
+        try
+        {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run()
+    {
+        try
+        {
+            while (!this.closed)
+            {
+                this.WriteEntries();
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+
+            //pick up anything added before the logger was closed
+            this.WriteEntries();
+        }
+        finally
+        {
+            this.closeFile();
+        }
+    }
+
+    /**
+     * Drain the buffer onto disk. Must only be called by the writer thread, or by tests in place of it.
+     */
     void WriteEntries()
     {
         try
         {
-            //if nothing to write, stop here
-            if (this.queuedEntries.length() == 0) return;
+            Entry entry;
+            while ((entry = this.queuedEntries.poll()) != null)
+            {
+                LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.time()), this.zone);
+                LocalDate date = time.toLocalDate();
+                if (!date.equals(this.pendingDate))
+                {
+                    this.flush();
+                    this.pendingDate = date;
+                }
 
-            //determine filename based on date
-            String filename = this.filenameFormat.format(new Date()) + ".log";
-            String filepath = this.logFolderPath + File.separator + filename;
-            File logFile = new File(filepath);
+                timestampFormat.formatTo(time, this.pendingText);
+                this.pendingText.append(' ');
+                appendWithoutFormatting(this.pendingText, entry.text());
+                this.pendingText.append('\n');
 
-            //dump content
-            Files.append(this.queuedEntries.toString(), logFile, Charset.forName("UTF-8"));
+                if (this.pendingText.length() >= chunkSize) this.flush();
+            }
 
-            //in case of a failure to write the above due to exception,
-            //the unwritten entries will remain the buffer for the next write to retry
-            this.queuedEntries.setLength(0);
+            this.reportDrops();
+            this.flush();
         }
         catch (Exception e)
         {
-            e.printStackTrace();
+            //the entries in the failed chunk are lost, but later entries are still attempted
+            this.pendingText.setLength(0);
+            this.closeFile();
+            this.logger.log(Level.WARNING, "Unable to write abridged log", e);
+        }
+    }
+
+    private void reportDrops()
+    {
+        long dropped = this.droppedEntries.get();
+        if (dropped == this.reportedDrops) return;
+
+        String message = "Dropped " + (dropped - this.reportedDrops) + " log entries because the log writer could not keep up.";
+        this.reportedDrops = dropped;
+        this.logger.warning(message);
+
+        LocalDateTime now = LocalDateTime.now(this.zone);
+        if (!now.toLocalDate().equals(this.pendingDate))
+        {
+            this.flush();
+            this.pendingDate = now.toLocalDate();
+        }
+        timestampFormat.formatTo(now, this.pendingText);
+        this.pendingText.append(' ').append(message).append('\n');
+    }
+
+    private void flush()
+    {
+        if (this.pendingText.isEmpty()) return;
+
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(this.pendingText.toString());
+        this.pendingText.setLength(0);
+        try
+        {
+            FileChannel channel = this.getChannel(this.pendingDate, bytes.remaining());
+            while (bytes.hasRemaining())
+            {
+                channel.write(bytes);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private @NotNull FileChannel getChannel(@NotNull LocalDate date, int length) throws IOException
+    {
+        if (this.channel != null && !date.equals(this.fileDate))
+        {
+            //a new day has started; retire the previous day's file
+            LocalDate previousDate = this.fileDate;
+            this.closeFile();
+            if (this.compressRolledFiles) compress(this.getLogFile(previousDate));
+            this.DeleteExpiredLogs();
+        }
+
+        if (this.channel != null && this.maxFileBytes > 0 && this.channel.size() > 0
+                && this.channel.size() + length > this.maxFileBytes)
+        {
+            this.closeFile();
+            this.rollOver(date);
+        }
+
+        if (this.channel == null)
+        {
+            this.channel = FileChannel.open(
+                    this.getLogFile(date),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            this.fileDate = date;
+        }
+
+        return this.channel;
+    }
+
+    private void rollOver(@NotNull LocalDate date) throws IOException
+    {
+        //move the full file aside as the next free numbered file for the day
+        String prefix = filenameFormat.format(date) + "-";
+        Path rolled;
+        int number = 1;
+        do
+        {
+            rolled = this.logFolder.toPath().resolve(prefix + number++ + ".log");
+        }
+        while (Files.exists(rolled) || Files.exists(gzipPath(rolled)));
+
+        Files.move(this.getLogFile(date), rolled);
+        if (this.compressRolledFiles) compress(rolled);
+    }
+
+    private @NotNull Path getLogFile(@NotNull LocalDate date)
+    {
+        return this.logFolder.toPath().resolve(filenameFormat.format(date) + ".log");
+    }
+
+    private void closeFile()
+    {
+        if (this.channel == null) return;
+
+        try
+        {
+            this.channel.close();
+        }
+        catch (IOException e)
+        {
+            this.logger.log(Level.WARNING, "Unable to close abridged log", e);
+        }
+        this.channel = null;
+        this.fileDate = null;
+    }
+
+    private static void compress(@NotNull Path file) throws IOException
+    {
+        if (!Files.exists(file)) return;
+
+        Path compressed = gzipPath(file);
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed)))
+        {
+            in.transferTo(out);
+        }
+        Files.delete(file);
+    }
+
+    private static @NotNull Path gzipPath(@NotNull Path file)
+    {
+        return file.resolveSibling(file.getFileName() + ".gz");
+    }
+
+    private static void appendWithoutFormatting(@NotNull StringBuilder builder, @NotNull String text)
+    {
+        int length = text.length();
+        for (int i = 0; i < length; i++)
+        {
+            char character = text.charAt(i);
+            //skip formatting codes along with the character following them
+            if (character == '§')
+            {
+                i++;
+                continue;
+            }
+            builder.append(character);
         }
     }
 
@@ -123,8 +434,8 @@ class CustomLogger
         try
         {
             //get list of log files
-            File logFolder = new File(this.logFolderPath);
-            File[] files = logFolder.listFiles();
+            File[] files = this.logFolder.listFiles();
+            if (files == null) return;
 
             //delete any created before x days ago
             int daysToKeepLogs = GriefPrevention.instance.config_logs_daysToKeep;
@@ -134,8 +445,9 @@ class CustomLogger
             {
                 if (file.isDirectory()) continue;  //skip any folders
 
-                String filename = file.getName().replace(".log", "");
-                String[] dateParts = filename.split("_");  //format is yyyy_MM_dd
+                //format is yyyy_MM_dd, optionally followed by a rollover number and compression
+                String filename = file.getName().split("[.-]", 2)[0];
+                String[] dateParts = filename.split("_");
                 if (dateParts.length != 3) continue;
 
                 try
@@ -154,7 +466,7 @@ class CustomLogger
                 catch (NumberFormatException e)
                 {
                     //throw this away - effectively ignoring any files without the correct filename format
-                    GriefPrevention.AddLogEntry("Ignoring an unexpected file in the abridged logs folder: " + file.getName(), CustomLogEntryTypes.Debug, true);
+                    GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Ignoring an unexpected file in the abridged logs folder: {}", file.getName());
                 }
             }
         }
@@ -164,22 +476,5 @@ class CustomLogger
         }
     }
 
-    //transfers the internal buffer to a log file
-    private class EntryWriter implements Runnable
-    {
-        @Override
-        public void run()
-        {
-            WriteEntries();
-        }
-    }
-
-    private class ExpiredLogRemover implements Runnable
-    {
-        @Override
-        public void run()
-        {
-            DeleteExpiredLogs();
-        }
-    }
+    private record Entry(long time, @NotNull String text) {}
 }
@@ -19,6 +19,7 @@
 package me.ryanhamshire.GriefPrevention;
 
 import com.google.common.io.Files;
+import com.griefprevention.util.WriteBehindQueue;
 import com.griefprevention.visualization.BoundaryVisualization;
 import com.griefprevention.visualization.VisualizationType;
 import me.ryanhamshire.GriefPrevention.events.ClaimCreatedEvent;
@@ -33,10 +34,14 @@ import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
+import org.bukkit.WorldBorder;
+import org.bukkit.block.Block;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -48,15 +53,17 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -67,14 +74,47 @@ public abstract class DataStore
     //in-memory cache for player data
     protected ConcurrentHashMap<UUID, PlayerData> playerNameToPlayerDataMap = new ConcurrentHashMap<>();
 
+    //player data with a save still queued, so that a cache miss picks it up instead of reading stale storage
+    private final Map<UUID, PlayerData> unsavedPlayerData = new ConcurrentHashMap<>();
+
+    //player data being read ahead of use, so that concurrent reads of the same player share one load
+    private final Map<UUID, CompletableFuture<PlayerData>> playerDataLoads = new ConcurrentHashMap<>();
+
     //in-memory cache for group (permission-based) data
     protected ConcurrentHashMap<String, Integer> permissionToBonusBlocksMap = new ConcurrentHashMap<>();
 
+    //recent decisions on whether players are trusted in claims
+    final ClaimPermissionCache permissionCache = new ClaimPermissionCache();
+
     //in-memory cache for claim data
     ArrayList<Claim> claims = new ArrayList<>();
     // claim id to claim cache
     public final Map<Long, Claim> claimIDMap = new ConcurrentHashMap<>();
-    ConcurrentHashMap<Long, ArrayList<Claim>> chunksToClaimsMap = new ConcurrentHashMap<>();
+    // chunk to top-level claim cache, readable without holding the data store lock
+    final ClaimChunkIndex chunkIndex = new ClaimChunkIndex();
+    // recently visited chunks for environmental lookups such as fluid flow and fire spread
+    final ChunkClaimCache chunkClaimCache = new ChunkClaimCache(this.chunkIndex);
+    // owner to top-level claim cache with the claims' total area, copy on write so it is also readable without
+    // holding the data store lock
+    private final Map<UUID, OwnedClaims> ownerClaimMap = new ConcurrentHashMap<>();
+
+    // pending writes to secondary storage, keyed by record so repeated saves of the same claim or player coalesce
+    private final WriteBehindQueue<String> writeQueue = new WriteBehindQueue<>(
+            "GriefPrevention Storage Writer",
+            4096,
+            256,
+            50,
+            50,
+            TimeUnit.MILLISECONDS,
+            this::writeBatch,
+            failure ->
+            {
+                this.recordFailedWrites(1);
+                GriefPrevention.AddLogEntry("Unexpected exception writing data: " + failure, CustomLogEntryTypes.Exception);
+            });
+
+    // writes that never reached secondary storage, so that whoever waits on the queue can tell whether they landed
+    private final AtomicLong failedWrites = new AtomicLong();
 
     //in-memory cache for messages
     private String[] messages;
@@ -415,7 +455,10 @@ public abstract class DataStore
         }
 
         //transfer
+        removeFromOwnerClaimMap(claim);
         claim.ownerID = event.getNewOwner();
+        claim.bumpTrustEpoch();
+        addToOwnerClaimMap(claim);
         this.saveClaim(claim);
 
         //adjust blocks and other records
@@ -424,7 +467,7 @@ public abstract class DataStore
             ownerData.getClaims().remove(claim);
         }
 
-        if (newOwnerData != null)
+        if (newOwnerData != null && !newOwnerData.getClaims().contains(claim))
         {
             newOwnerData.getClaims().add(claim);
         }
@@ -438,9 +481,13 @@ public abstract class DataStore
         {
             if (!newClaim.parent.children.contains(newClaim))
             {
-                newClaim.parent.children.add(newClaim);
+                //copy on write so lookups iterating the old list are unaffected
+                ArrayList<Claim> children = new ArrayList<>(newClaim.parent.children);
+                children.add(newClaim);
+                newClaim.parent.children = children;
             }
             newClaim.inDataStore = true;
+            Claim.bumpBoundaryVersion();
             if (writeToStorage)
             {
                 this.saveClaim(newClaim);
@@ -456,14 +503,17 @@ public abstract class DataStore
             this.claimIDMap.put(child.id, child);
         }
         addToChunkClaimMap(newClaim);
+        addToOwnerClaimMap(newClaim);
 
         newClaim.inDataStore = true;
+        Claim.bumpBoundaryVersion();
 
         //except for administrative claims (which have no owner), update the owner's playerData with the new claim
+        //if the owner's claim list wasn't loaded yet, loading it from the owner cache already picks up the new claim
         if (!newClaim.isAdminClaim() && writeToStorage)
         {
             PlayerData ownerData = this.getPlayerData(newClaim.ownerID);
-            ownerData.getClaims().add(newClaim);
+            if (!ownerData.getClaims().contains(newClaim)) ownerData.getClaims().add(newClaim);
         }
 
         //make sure the claim is saved to disk
@@ -478,44 +528,59 @@ public abstract class DataStore
         // Subclaims should not be added to chunk claim map.
         if (claim.parent != null) return;
 
-        ArrayList<Long> chunkHashes = claim.getChunkHashes();
-        for (Long chunkHash : chunkHashes)
+        this.chunkIndex.add(claim, new BoundingBox(claim));
+    }
+
+    private void removeFromChunkClaimMap(Claim claim)
+    {
+        this.chunkIndex.remove(claim, new BoundingBox(claim), null);
+    }
+
+    private void addToOwnerClaimMap(Claim claim)
+    {
+        // Only top-level claims count as owned; admin claims have no owner.
+        if (claim.parent != null || claim.ownerID == null) return;
+
+        this.ownerClaimMap.compute(claim.ownerID, (ownerID, existing) ->
         {
-            ArrayList<Claim> claimsInChunk = this.chunksToClaimsMap.get(chunkHash);
-            if (claimsInChunk == null)
-            {
-                this.chunksToClaimsMap.put(chunkHash, claimsInChunk = new ArrayList<>());
-            }
+            if (existing == null) return new OwnedClaims(List.of(claim), claim.getArea());
+            if (existing.claims().contains(claim)) return existing;
 
-            claimsInChunk.add(claim);
-        }
+            List<Claim> updated = new ArrayList<>(existing.claims().size() + 1);
+            updated.addAll(existing.claims());
+            updated.add(claim);
+            return new OwnedClaims(Collections.unmodifiableList(updated), existing.area() + claim.getArea());
+        });
     }
 
-    private void removeFromChunkClaimMap(Claim claim)
+    private void removeFromOwnerClaimMap(Claim claim)
     {
-        ArrayList<Long> chunkHashes = claim.getChunkHashes();
-        for (Long chunkHash : chunkHashes)
+        if (claim.ownerID == null) return;
+
+        this.ownerClaimMap.computeIfPresent(claim.ownerID, (ownerID, existing) ->
         {
-            ArrayList<Claim> claimsInChunk = this.chunksToClaimsMap.get(chunkHash);
-            if (claimsInChunk != null)
-            {
-                for (Iterator<Claim> it = claimsInChunk.iterator(); it.hasNext(); )
-                {
-                    Claim c = it.next();
-                    if (c.id.equals(claim.id))
-                    {
-                        it.remove();
-                        break;
-                    }
-                }
-                if (claimsInChunk.isEmpty())
-                { // if nothing's left, remove this chunk's cache
-                    this.chunksToClaimsMap.remove(chunkHash);
-                }
-            }
-        }
+            if (!existing.claims().contains(claim)) return existing;
+            if (existing.claims().size() == 1) return null;
+
+            List<Claim> updated = new ArrayList<>(existing.claims());
+            updated.remove(claim);
+            return new OwnedClaims(Collections.unmodifiableList(updated), existing.area() - claim.getArea());
+        });
     }
 
+    private void adjustOwnerClaimedArea(Claim claim, int areaChange)
+    {
+        if (claim.parent != null || claim.ownerID == null || areaChange == 0) return;
+
+        this.ownerClaimMap.computeIfPresent(claim.ownerID, (ownerID, existing) ->
+        {
+            if (!existing.claims().contains(claim)) return existing;
+            return new OwnedClaims(existing.claims(), existing.area() + areaChange);
+        });
+    }
+
+    private record OwnedClaims(@NotNull @Unmodifiable List<Claim> claims, int area) {}
+
     //turns a location into a string, useful in data storage
     private final String locationStringDelimiter = ";";
 
@@ -593,9 +658,108 @@ public abstract class DataStore
 
     abstract void writeClaimToStorage(Claim claim);
 
+    /**
+     * Queue a write to secondary storage, replacing any queued write for the same record that has not started yet.
+     * Anything the write needs from live objects should be captured before queueing it.
+     *
+     * @param key the key of the record being written
+     * @param write the write
+     */
+    void queueWrite(@NotNull String key, @NotNull Runnable write)
+    {
+        this.writeQueue.enqueue(key, write);
+    }
+
+    /**
+     * Perform a batch of queued writes on the storage writer thread. A failing write must not prevent the rest of the
+     * batch from being written.
+     *
+     * @param batch the writes
+     */
+    void writeBatch(@NotNull List<Runnable> batch)
+    {
+        for (Runnable write : batch)
+        {
+            try
+            {
+                write.run();
+            }
+            catch (RuntimeException e)
+            {
+                this.recordFailedWrites(1);
+                GriefPrevention.AddLogEntry("Unexpected exception writing data: " + e, CustomLogEntryTypes.Exception);
+            }
+        }
+    }
+
+    /**
+     * Record writes that failed to reach secondary storage.
+     *
+     * @param count the number of failed writes
+     */
+    void recordFailedWrites(int count)
+    {
+        this.failedWrites.addAndGet(count);
+    }
+
+    /**
+     * Get the number of writes that have failed to reach secondary storage. Comparing the count before and after
+     * {@link #flushWrites()} tells whether the writes queued in between all landed.
+     *
+     * @return the number of failed writes
+     */
+    long getFailedWrites()
+    {
+        return this.failedWrites.get();
+    }
+
+    /**
+     * Wait for all queued writes to reach secondary storage. Must not be called while holding the data store lock,
+     * as queued writes may need it.
+     *
+     * @throws IllegalStateException if the calling thread holds the data store lock
+     */
+    public void flushWrites()
+    {
+        this.checkNotLocked();
+        this.writeQueue.flush();
+    }
+
+    /**
+     * Write everything still queued and stop the storage writer. Writes after this are performed immediately.
+     * Must not be called while holding the data store lock, as queued writes may need it.
+     *
+     * @throws IllegalStateException if the calling thread holds the data store lock
+     */
+    void closeWriteQueue()
+    {
+        this.checkNotLocked();
+        this.writeQueue.close();
+    }
+
+    //waiting on the storage writer while holding the lock would deadlock as soon as a queued write needs the lock
+    private void checkNotLocked()
+    {
+        if (Thread.holdsLock(this))
+            throw new IllegalStateException("Cannot wait for queued writes while holding the data store lock");
+    }
+
+    /**
+     * Get the statistics of the storage write queue.
+     *
+     * @return the statistics
+     */
+    public @NotNull WriteBehindQueue.Stats getWriteQueueStats()
+    {
+        return this.writeQueue.getStats();
+    }
+
     //increments the claim ID and updates secondary storage to be sure it's saved
     abstract void incrementNextClaimID();
 
+    //sets the next claim ID and updates secondary storage.  used while migrating data between data stores
+    abstract void setNextClaimID(long nextID);
+
     //retrieves player data from memory or secondary storage, as necessary
     //if the player has never been on the server before, this will return a fresh player data with default values
     synchronized public PlayerData getPlayerData(UUID playerID)
@@ -603,6 +767,13 @@ public abstract class DataStore
         //first, look in memory
         PlayerData playerData = this.playerNameToPlayerDataMap.get(playerID);
 
+        //if not there but still waiting to be saved, that copy is newer than anything in secondary storage
+        if (playerData == null)
+        {
+            playerData = this.unsavedPlayerData.get(playerID);
+            if (playerData != null) this.playerNameToPlayerDataMap.put(playerID, playerData);
+        }
+
         //if not there, build a fresh instance with some blanks for what may be in secondary storage
         if (playerData == null)
         {
@@ -618,6 +789,48 @@ public abstract class DataStore
 
     abstract PlayerData getPlayerDataFromStorage(UUID playerID);
 
+    /**
+     * Read everything about a player that would otherwise be read from storage on first use, so that handling the
+     * player afterwards doesn't wait on storage. This covers the claim block counts and the ignore list. The player's
+     * claims and claimed area are already held in memory.
+     *
+     * <p>The data is read on the calling thread, which should never be the main or a region thread. If the player's
+     * data is already being read by another thread, the returned future completes once that read is done.</p>
+     *
+     * @param playerID the player's UUID
+     * @return a future completed with the cached player data once it is fully loaded
+     */
+    public @NotNull CompletableFuture<PlayerData> prefetchPlayerData(@NotNull UUID playerID)
+    {
+        PlayerData playerData = this.getPlayerData(playerID);
+        if (playerData.isLoadedFromStorage()) return CompletableFuture.completedFuture(playerData);
+
+        CompletableFuture<PlayerData> load = new CompletableFuture<>();
+        CompletableFuture<PlayerData> existing = this.playerDataLoads.putIfAbsent(playerID, load);
+        if (existing != null) return existing;
+
+        try
+        {
+            playerData.loadDataFromSecondaryStorage();
+            if (!playerData.ignoresLoaded)
+            {
+                IgnoreLoaderThread.loadIgnores(playerID, playerData.ignoredPlayers);
+                playerData.ignoresLoaded = true;
+            }
+            load.complete(playerData);
+        }
+        catch (Throwable t)
+        {
+            load.completeExceptionally(t);
+        }
+        finally
+        {
+            this.playerDataLoads.remove(playerID, load);
+        }
+
+        return load;
+    }
+
     //deletes a claim or subdivision
     synchronized public void deleteClaim(Claim claim)
     {
@@ -644,12 +857,16 @@ public abstract class DataStore
         //subdivisions must also be removed from the parent claim child list
         if (claim.parent != null)
         {
+            //copy on write so lookups iterating the old list are unaffected
             Claim parentClaim = claim.parent;
-            parentClaim.children.remove(claim);
+            ArrayList<Claim> children = new ArrayList<>(parentClaim.children);
+            children.remove(claim);
+            parentClaim.children = children;
         }
 
         //mark as deleted so any references elsewhere can be ignored
         claim.inDataStore = false;
+        Claim.bumpBoundaryVersion();
 
         //remove from memory
         for (int i = 0; i < this.claims.size(); i++)
@@ -668,6 +885,7 @@ public abstract class DataStore
         }
 
         removeFromChunkClaimMap(claim);
+        removeFromOwnerClaimMap(claim);
 
         //remove from secondary storage
         this.deleteClaimFromSecondaryStorage(claim);
@@ -699,7 +917,7 @@ public abstract class DataStore
     //gets the claim at a specific location
     //ignoreHeight = TRUE means that a location UNDER an existing claim will return the claim
     //cachedClaim can be NULL, but will help performance if you have a reasonable guess about which claim the location is in
-    synchronized public Claim getClaimAt(Location location, boolean ignoreHeight, Claim cachedClaim)
+    public Claim getClaimAt(Location location, boolean ignoreHeight, Claim cachedClaim)
     {
         return getClaimAt(location, ignoreHeight, false, cachedClaim);
     }
@@ -710,36 +928,138 @@ public abstract class DataStore
      * <p>The cached claim may be null, but will increase performance if you have a reasonable idea
      * of which claim is correct.
      *
+     * <p>This does not lock the data store; it reads the chunk index, which is updated atomically per chunk.
+     *
      * @param location the location
      * @param ignoreHeight whether or not to check containment vertically
      * @param ignoreSubclaims whether or not subclaims should be returned over claims
      * @param cachedClaim the cached claim, if any
      * @return the claim containing the location or null if no claim exists there
      */
-    synchronized public Claim getClaimAt(Location location, boolean ignoreHeight, boolean ignoreSubclaims, Claim cachedClaim)
+    public Claim getClaimAt(Location location, boolean ignoreHeight, boolean ignoreSubclaims, Claim cachedClaim)
+    {
+        return getClaimAt(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), ignoreHeight, ignoreSubclaims, cachedClaim);
+    }
+
+    /**
+     * Get the claim at a block position. Unlike the {@link Location} variants, this does not allocate.
+     *
+     * @param world the world
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @param ignoreHeight whether or not to check containment vertically
+     * @param cachedClaim the cached claim, if any
+     * @return the claim containing the position or null if no claim exists there
+     * @see #getClaimAt(World, int, int, int, boolean, boolean, Claim)
+     */
+    public Claim getClaimAt(World world, int x, int y, int z, boolean ignoreHeight, Claim cachedClaim)
+    {
+        return getClaimAt(world, x, y, z, ignoreHeight, false, cachedClaim);
+    }
+
+    /**
+     * Get the claim at a block position. Unlike the {@link Location} variants, this does not allocate.
+     *
+     * <p>The cached claim may be null, but will increase performance if you have a reasonable idea
+     * of which claim is correct.
+     *
+     * <p>This does not lock the data store; it reads the chunk index, which is updated atomically per chunk.
+     *
+     * @param world the world
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @param ignoreHeight whether or not to check containment vertically
+     * @param ignoreSubclaims whether or not subclaims should be returned over claims
+     * @param cachedClaim the cached claim, if any
+     * @return the claim containing the position or null if no claim exists there
+     */
+    public Claim getClaimAt(World world, int x, int y, int z, boolean ignoreHeight, boolean ignoreSubclaims, Claim cachedClaim)
     {
         //check cachedClaim guess first.  if it's in the datastore and the location is inside it, we're done
-        if (cachedClaim != null && cachedClaim.inDataStore && cachedClaim.contains(location, ignoreHeight, !ignoreSubclaims))
+        if (cachedClaim != null && cachedClaim.inDataStore && cachedClaim.contains(world, x, y, z, ignoreHeight, !ignoreSubclaims))
             return cachedClaim;
 
-        //find a top level claim
-        Long chunkID = getChunkHash(location);
-        ArrayList<Claim> claimsInChunk = this.chunksToClaimsMap.get(chunkID);
-        if (claimsInChunk == null) return null;
+        return getClaimAt(this.chunkIndex.get(world, x >> 4, z >> 4), world, x, y, z, ignoreHeight, ignoreSubclaims);
+    }
 
-        for (Claim claim : claimsInChunk)
+    /**
+     * Get the claims at many block positions in one pass, such as the blocks affected by an explosion.
+     *
+     * <p>The candidate claims are read from the chunk index once for the whole area spanned by the blocks, and every
+     * block is then tested against them using primitive coordinates. Like the single lookups, this does not lock the
+     * data store.
+     *
+     * @param world the world containing the blocks
+     * @param blocks the blocks
+     * @param ignoreHeight whether or not to check containment vertically
+     * @return the claim containing each block, or null where no claim exists, in the same order as the blocks
+     */
+    public @Nullable Claim @NotNull [] getClaimsAt(@NotNull World world, @NotNull List<Block> blocks, boolean ignoreHeight)
+    {
+        Claim[] result = new Claim[blocks.size()];
+        if (result.length == 0) return result;
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Block block : blocks)
+        {
+            minX = Math.min(minX, block.getX());
+            minZ = Math.min(minZ, block.getZ());
+            maxX = Math.max(maxX, block.getX());
+            maxZ = Math.max(maxZ, block.getZ());
+        }
+
+        //most explosions happen away from claims, in which case every block is unclaimed
+        Set<Claim> intersecting = this.chunkIndex.getIntersecting(world, minX, minZ, maxX, maxZ);
+        if (intersecting.isEmpty()) return result;
+        Claim[] candidates = intersecting.toArray(new Claim[0]);
+
+        Claim previous = null;
+        for (int i = 0; i < result.length; i++)
         {
-            if (claim.inDataStore && claim.contains(location, ignoreHeight, false))
+            Block block = blocks.get(i);
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+
+            //neighboring blocks are usually in the same claim
+            if (previous != null && previous.inDataStore && previous.contains(world, x, y, z, ignoreHeight, true))
+            {
+                result[i] = previous;
+                continue;
+            }
+
+            result[i] = getClaimAt(candidates, world, x, y, z, ignoreHeight, false);
+            if (result[i] != null) previous = result[i];
+        }
+
+        return result;
+    }
+
+    static @Nullable Claim getClaimAt(
+            @NotNull Claim[] candidates,
+            @NotNull World world,
+            int x,
+            int y,
+            int z,
+            boolean ignoreHeight,
+            boolean ignoreSubclaims)
+    {
+        //find a top level claim
+        for (Claim claim : candidates)
+        {
+            if (claim.inDataStore && claim.contains(world, x, y, z, ignoreHeight, false))
             {
                 // If ignoring subclaims, claim is a match.
                 if (ignoreSubclaims) return claim;
 
                 //when we find a top level claim, if the location is in one of its subdivisions,
                 //return the SUBDIVISION, not the top level claim
-                for (int j = 0; j < claim.children.size(); j++)
+                //children are replaced rather than modified, so iterating a single read of the list is safe
+                for (Claim subdivision : claim.children)
                 {
-                    Claim subdivision = claim.children.get(j);
-                    if (subdivision.inDataStore && subdivision.contains(location, ignoreHeight, false))
+                    if (subdivision.inDataStore && subdivision.contains(world, x, y, z, ignoreHeight, false))
                         return subdivision;
                 }
 
@@ -752,7 +1072,7 @@ public abstract class DataStore
     }
 
     //finds a claim by ID
-    public synchronized Claim getClaim(long id)
+    public Claim getClaim(long id)
     {
         return this.claimIDMap.get(id);
     }
@@ -765,45 +1085,114 @@ public abstract class DataStore
         return Collections.unmodifiableCollection(this.claims);
     }
 
-    public Collection<Claim> getClaims(int chunkx, int chunkz)
+    /**
+     * Get the top-level claims owned by a player. This does not lock the data store.
+     *
+     * @param ownerID the owner's unique identifier
+     * @return the claims owned by the player
+     */
+    public @NotNull @Unmodifiable List<Claim> getClaimsOwnedBy(@NotNull UUID ownerID)
+    {
+        OwnedClaims owned = this.ownerClaimMap.get(ownerID);
+        return owned != null ? owned.claims() : List.of();
+    }
+
+    /**
+     * Get the total area of the top-level claims owned by a player. This does not lock the data store.
+     *
+     * @param ownerID the owner's unique identifier
+     * @return the total claimed area
+     */
+    public int getClaimedArea(@NotNull UUID ownerID)
     {
-        ArrayList<Claim> chunkClaims = this.chunksToClaimsMap.get(getChunkHash(chunkx, chunkz));
-        if (chunkClaims != null)
+        OwnedClaims owned = this.ownerClaimMap.get(ownerID);
+        return owned != null ? owned.area() : 0;
+    }
+
+    /**
+     * Recompute every owner's claimed area from the full claim list and compare it to the cached totals.
+     *
+     * @return the owners whose cached totals don't match
+     */
+    synchronized public @NotNull List<ClaimedAreaMismatch> auditClaimedAreas()
+    {
+        Map<UUID, Integer> actualAreas = new HashMap<>();
+        for (Claim claim : this.claims)
         {
-            return Collections.unmodifiableCollection(chunkClaims);
+            if (claim.ownerID == null || !claim.inDataStore) continue;
+            actualAreas.merge(claim.ownerID, claim.getArea(), Integer::sum);
         }
-        else
+
+        Set<UUID> owners = new HashSet<>(actualAreas.keySet());
+        owners.addAll(this.ownerClaimMap.keySet());
+
+        List<ClaimedAreaMismatch> mismatches = new ArrayList<>();
+        for (UUID ownerID : owners)
         {
-            return Collections.unmodifiableCollection(new ArrayList<>());
+            int cached = this.getClaimedArea(ownerID);
+            int actual = actualAreas.getOrDefault(ownerID, 0);
+            if (cached != actual) mismatches.add(new ClaimedAreaMismatch(ownerID, cached, actual));
         }
+        return mismatches;
     }
 
-    public @NotNull Set<Claim> getChunkClaims(@NotNull World world, @NotNull BoundingBox boundingBox)
-    {
-        Set<Claim> claims = new HashSet<>();
-        int chunkXMax = boundingBox.getMaxX() >> 4;
-        int chunkZMax = boundingBox.getMaxZ() >> 4;
+    /**
+     * A difference between an owner's cached claimed area and the area of the claims they actually own.
+     *
+     * @param ownerID the owner's unique identifier
+     * @param cachedArea the cached total area
+     * @param actualArea the recomputed total area
+     */
+    public record ClaimedAreaMismatch(@NotNull UUID ownerID, int cachedArea, int actualArea) {}
 
-        for (int chunkX = boundingBox.getMinX() >> 4; chunkX <= chunkXMax; ++chunkX)
-        {
-            for (int chunkZ = boundingBox.getMinZ() >> 4; chunkZ <= chunkZMax; ++chunkZ)
-            {
-                ArrayList<Claim> chunkClaims = this.chunksToClaimsMap.get(getChunkHash(chunkX, chunkZ));
-                if (chunkClaims == null) continue;
+    /**
+     * Get the unique identifiers of all players owning at least one top-level claim.
+     *
+     * @return the claim owners
+     */
+    public @NotNull Set<UUID> getClaimOwners()
+    {
+        return Collections.unmodifiableSet(this.ownerClaimMap.keySet());
+    }
 
-                for (Claim claim : chunkClaims)
-                {
-                    if (claim.inDataStore && world.equals(claim.getLesserBoundaryCorner().getWorld()))
-                    {
-                        claims.add(claim);
-                    }
-                }
-            }
-        }
+    public Collection<Claim> getClaims(int chunkx, int chunkz)
+    {
+        return Collections.unmodifiableList(this.chunkIndex.getInAllWorlds(getChunkHash(chunkx, chunkz)));
+    }
 
+    public @NotNull Set<Claim> getChunkClaims(@NotNull World world, @NotNull BoundingBox boundingBox)
+    {
+        // Widen the area to whole chunks to match the cells claims were historically bucketed in.
+        Set<Claim> claims = this.chunkIndex.getIntersecting(
+                world,
+                boundingBox.getMinX() & ~15,
+                boundingBox.getMinZ() & ~15,
+                boundingBox.getMaxX() | 15,
+                boundingBox.getMaxZ() | 15);
+        claims.removeIf(claim -> !claim.inDataStore);
         return claims;
     }
 
+    /**
+     * Measure the memory used by the chunk to claim index.
+     *
+     * @return the usage of each world's index
+     */
+    public @NotNull List<ClaimChunkIndex.Usage> getChunkIndexUsage()
+    {
+        return this.chunkIndex.getUsage();
+    }
+
+    /**
+     * Get the lookup statistics of the cache used for environmental claim lookups.
+     *
+     * @return the cache statistics
+     */
+    public @NotNull ChunkClaimCache.Stats getChunkClaimCacheStats()
+    {
+        return this.chunkClaimCache.getStats();
+    }
+
     //gets an almost-unique, persistent identifier for a chunk
     public static Long getChunkHash(long chunkx, long chunkz)
     {
@@ -838,6 +1227,87 @@ public abstract class DataStore
         return hashes;
     }
 
+    /**
+     * Find the largest square top-level claim centered on a block that would not overlap any existing claim.
+     *
+     * <p>This answers in a single query against the claim index what would otherwise take a {@link #createClaim}
+     * attempt per radius. Claims extend to the top of the world, so only horizontal bounds can conflict. Like the
+     * other lookups, this does not lock the data store; the claim must still be created with {@link #createClaim},
+     * which checks again for overlaps.</p>
+     *
+     * @param world the world
+     * @param x the block X coordinate of the center
+     * @param z the block Z coordinate of the center
+     * @param maxRadius the preferred radius
+     * @param minRadius the smallest acceptable radius
+     * @param availableBlocks the claim blocks available to pay for the claim's area
+     * @return the largest radius that fits, or the reason none does
+     */
+    public @NotNull SquareClaimFit findLargestFreeSquare(
+            @NotNull World world,
+            int x,
+            int z,
+            int maxRadius,
+            int minRadius,
+            int availableBlocks)
+    {
+        int radius = maxRadius;
+        while (radius >= minRadius && (long) (radius * 2 + 1) * (radius * 2 + 1) > availableBlocks) radius--;
+        if (radius < minRadius) return new SquareClaimFit(-1, null);
+
+        //a square overlaps a claim once its radius reaches the claim's distance from the center on either axis
+        Claim closest = null;
+        int closestDistance = Integer.MAX_VALUE;
+        for (Claim claim : this.chunkIndex.getIntersecting(world, x - radius, z - radius, x + radius, z + radius))
+        {
+            if (!claim.inDataStore) continue;
+
+            Claim.Bounds bounds = claim.getBounds();
+            int distanceX = Math.max(0, Math.max(bounds.minX() - x, x - bounds.maxX()));
+            int distanceZ = Math.max(0, Math.max(bounds.minZ() - z, z - bounds.maxZ()));
+            int distance = Math.max(distanceX, distanceZ);
+            if (distance < closestDistance)
+            {
+                closest = claim;
+                closestDistance = distance;
+            }
+        }
+        if (closestDistance <= minRadius) return new SquareClaimFit(-1, closest);
+        radius = Math.min(radius, closestDistance - 1);
+
+        //claims can't be made outside the world border
+        WorldBorder border = world.getWorldBorder();
+        while (radius >= minRadius
+                && (!border.isInside(new Location(world, x - radius, 0, z - radius))
+                || !border.isInside(new Location(world, x + radius, 0, z + radius))))
+        {
+            radius--;
+        }
+
+        return new SquareClaimFit(radius >= minRadius ? radius : -1, null);
+    }
+
+    /**
+     * The result of {@link #findLargestFreeSquare}.
+     *
+     * @param radius the largest radius that fits, or {@code -1} if none does
+     * @param conflict the claim preventing even the smallest radius, if that is why none fits
+     */
+    public record SquareClaimFit(int radius, @Nullable Claim conflict)
+    {
+
+        /**
+         * Check whether a claim fits.
+         *
+         * @return true if a radius was found
+         */
+        public boolean fits()
+        {
+            return this.radius >= 0;
+        }
+
+    }
+
     /*
      * Creates a claim and flags it as being new....throwing a create claim event;
      */
@@ -942,14 +1412,15 @@ public abstract class DataStore
         newClaim.parent = parent;
 
         //ensure this new claim won't overlap any existing claims
-        ArrayList<Claim> claimsToCheck;
+        Collection<Claim> claimsToCheck;
         if (newClaim.parent != null)
         {
             claimsToCheck = newClaim.parent.children;
         }
         else
         {
-            claimsToCheck = this.claims;
+            //only claims sharing part of the area can overlap, so ask the spatial index rather than checking every claim
+            claimsToCheck = this.chunkIndex.getIntersecting(world, smallx, smallz, bigx, bigz);
         }
 
         for (Claim otherClaim : claimsToCheck)
@@ -990,20 +1461,32 @@ public abstract class DataStore
         return result;
     }
 
-    //saves changes to player data to secondary storage.  MUST be called after you're done making changes, otherwise a reload will lose them
+    //saves changes to player data to secondary storage and waits until they're written, along with every other queued write
+    //must not be called while holding the data store lock, see flushWrites()
     public void savePlayerDataSync(UUID playerID, PlayerData playerData)
     {
-        //ensure player data is already read from file before trying to save
-        playerData.getAccruedClaimBlocks();
-        playerData.getClaims();
-
-        this.asyncSavePlayerData(playerID, playerData);
+        this.savePlayerData(playerID, playerData);
+        this.flushWrites();
     }
 
     //saves changes to player data to secondary storage.  MUST be called after you're done making changes, otherwise a reload will lose them
     public void savePlayerData(UUID playerID, PlayerData playerData)
     {
-        new SavePlayerDataThread(playerID, playerData).start();
+        if (playerID != null) this.unsavedPlayerData.put(playerID, playerData);
+        this.queueWrite("player:" + playerID, () ->
+        {
+            try
+            {
+                //ensure player data is already read from file before trying to save
+                playerData.getAccruedClaimBlocks();
+                playerData.getClaims();
+                this.asyncSavePlayerData(playerID, playerData);
+            }
+            finally
+            {
+                if (playerID != null) this.unsavedPlayerData.remove(playerID, playerData);
+            }
+        });
     }
 
     public void asyncSavePlayerData(UUID playerID, PlayerData playerData)
@@ -1106,6 +1589,7 @@ public abstract class DataStore
         Stream.concat(Stream.of(claim), claim.children.stream()).forEach(localClaim -> {
             localClaim.lesserBoundaryCorner.setY(depth);
             localClaim.greaterBoundaryCorner.setY(Math.max(localClaim.greaterBoundaryCorner.getBlockY(), depth));
+            localClaim.refreshBounds();
             this.saveClaim(localClaim);
         });
     }
@@ -1115,10 +1599,17 @@ public abstract class DataStore
     {
         //make a list of the player's claims
         ArrayList<Claim> claimsToDelete = new ArrayList<>();
-        for (Claim claim : this.claims)
+        if (playerID != null)
+        {
+            claimsToDelete.addAll(this.getClaimsOwnedBy(playerID));
+        }
+        else
         {
-            if ((playerID == claim.ownerID || (playerID != null && playerID.equals(claim.ownerID))))
-                claimsToDelete.add(claim);
+            //admin claims aren't in the owner cache
+            for (Claim claim : this.claims)
+            {
+                if (claim.ownerID == null) claimsToDelete.add(claim);
+            }
         }
 
         //delete them one by one
@@ -1138,15 +1629,19 @@ public abstract class DataStore
         //if succeeded
         if (result.succeeded)
         {
-            removeFromChunkClaimMap(claim); // remove the old boundary from the chunk cache
+            // Index the new boundary before moving the claim and only then drop the old one, so that
+            // lookups running concurrently always find the claim in either its old or new chunks.
+            BoundingBox oldBounds = new BoundingBox(claim);
+            int oldArea = claim.getArea();
+            if (claim.parent == null) this.chunkIndex.add(claim, new BoundingBox(result.claim));
             // copy the boundary from the claim created in the dry run of createClaim() to our existing claim
-            claim.lesserBoundaryCorner = result.claim.lesserBoundaryCorner;
-            claim.greaterBoundaryCorner = result.claim.greaterBoundaryCorner;
+            claim.setBoundaryCorners(result.claim.lesserBoundaryCorner, result.claim.greaterBoundaryCorner);
             // Sanitize claim depth, expanding parent down to the lowest subdivision and subdivisions down to parent.
             // Also saves affected claims.
             setNewDepth(claim, claim.getLesserBoundaryCorner().getBlockY());
             result.claim = claim;
-            addToChunkClaimMap(claim); // add the new boundary to the chunk cache
+            if (claim.parent == null) this.chunkIndex.remove(claim, oldBounds, new BoundingBox(claim)); // remove the old boundary from the index
+            adjustOwnerClaimedArea(claim, claim.getArea() - oldArea);
         }
 
         return result;
@@ -1216,8 +1711,7 @@ public abstract class DataStore
         Claim oldClaim = playerData.claimResizing;
         Claim newClaim = new Claim(oldClaim);
         World world = newClaim.getLesserBoundaryCorner().getWorld();
-        newClaim.lesserBoundaryCorner = new Location(world, newx1, newy1, newz1);
-        newClaim.greaterBoundaryCorner = new Location(world, newx2, newy2, newz2);
+        newClaim.setBoundaryCorners(new Location(world, newx1, newy1, newz1), new Location(world, newx2, newy2, newz2));
 
         //call event here to check if it has been cancelled
         ClaimResizeEvent event = new ClaimModifiedEvent(oldClaim, newClaim, player); // Swap to ClaimResizeEvent when ClaimModifiedEvent is removed
@@ -1428,28 +1922,9 @@ public abstract class DataStore
         return resultNames;
     }
 
+    //writes everything still queued and releases storage resources
     abstract void close();
 
-    private class SavePlayerDataThread extends Thread
-    {
-        private final UUID playerID;
-        private final PlayerData playerData;
-
-        SavePlayerDataThread(UUID playerID, PlayerData playerData)
-        {
-            this.playerID = playerID;
-            this.playerData = playerData;
-        }
-
-        public void run()
-        {
-            //ensure player data is already read from file before trying to save
-            playerData.getAccruedClaimBlocks();
-            playerData.getClaims();
-            asyncSavePlayerData(this.playerID, this.playerData);
-        }
-    }
-
     //gets all the claims "near" a location
     Set<Claim> getNearbyClaims(Location location)
     {
@@ -0,0 +1,217 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small pool of reusable database connections.
+ *
+ * <p>Connections are only validated when they have been idle for a while, rather than before every use, and are
+ * replaced if validation fails.</p>
+ */
+final class DatabaseConnectionPool implements AutoCloseable
+{
+
+    private static final long VALIDATE_AFTER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 3;
+
+    private final @NotNull ConnectionFactory factory;
+    private final Semaphore permits;
+    private final long borrowTimeoutMillis;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    /**
+     * Construct a new pool. Connections are opened as needed.
+     *
+     * @param factory the factory opening new connections
+     * @param maximumSize the maximum number of connections open at once
+     * @param borrowTimeoutMillis the longest time to wait for a connection when all are in use
+     */
+    DatabaseConnectionPool(@NotNull ConnectionFactory factory, int maximumSize, long borrowTimeoutMillis)
+    {
+        this.factory = factory;
+        this.permits = new Semaphore(Math.max(1, maximumSize), true);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Check out a connection. It is returned to the pool when the lease is closed.
+     *
+     * @return the lease
+     * @throws SQLException if no connection is available in time or a new one can't be opened
+     */
+    @NotNull Lease borrow() throws SQLException
+    {
+        try
+        {
+            if (!this.permits.tryAcquire(this.borrowTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timed out waiting for a database connection");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try
+        {
+            return new Lease(this.take());
+        }
+        catch (SQLException | RuntimeException e)
+        {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    private @NotNull Connection take() throws SQLException
+    {
+        while (true)
+        {
+            IdleConnection candidate;
+            synchronized (this)
+            {
+                if (this.closed) throw new SQLException("The connection pool is closed");
+                candidate = this.idle.pollLast();
+            }
+
+            if (candidate == null) return this.factory.open();
+
+            if (System.nanoTime() - candidate.idleSince() < VALIDATE_AFTER_IDLE_NANOS
+                    || candidate.connection().isValid(VALIDATION_TIMEOUT_SECONDS))
+                return candidate.connection();
+
+            closeQuietly(candidate.connection());
+        }
+    }
+
+    private void release(@NotNull Connection connection, boolean broken)
+    {
+        try
+        {
+            boolean reusable = !broken && !connection.isClosed();
+            if (reusable && !connection.getAutoCommit())
+            {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            synchronized (this)
+            {
+                if (reusable && !this.closed)
+                {
+                    this.idle.addLast(new IdleConnection(connection, System.nanoTime()));
+                    return;
+                }
+            }
+            closeQuietly(connection);
+        }
+        catch (SQLException e)
+        {
+            closeQuietly(connection);
+        }
+        finally
+        {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Close all idle connections. Connections currently checked out are closed when returned.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (this)
+        {
+            this.closed = true;
+            for (IdleConnection connection : this.idle)
+            {
+                closeQuietly(connection.connection());
+            }
+            this.idle.clear();
+        }
+    }
+
+    private static void closeQuietly(@NotNull Connection connection)
+    {
+        try
+        {
+            connection.close();
+        }
+        catch (SQLException ignored) {}
+    }
+
+    /**
+     * A factory for new database connections.
+     */
+    @FunctionalInterface
+    interface ConnectionFactory
+    {
+        @NotNull Connection open() throws SQLException;
+    }
+
+    /**
+     * A connection checked out of the pool.
+     */
+    final class Lease implements AutoCloseable
+    {
+        private final @NotNull Connection connection;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(@NotNull Connection connection)
+        {
+            this.connection = connection;
+        }
+
+        @NotNull Connection connection()
+        {
+            return this.connection;
+        }
+
+        /**
+         * Mark the connection as unusable, so that it is closed instead of being returned to the pool.
+         */
+        void invalidate()
+        {
+            this.broken = true;
+        }
+
+        @Override
+        public void close()
+        {
+            if (this.released) return;
+            this.released = true;
+            release(this.connection, this.broken);
+        }
+    }
+
+    private record IdleConnection(@NotNull Connection connection, long idleSince) {}
+
+}
@@ -22,10 +22,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -34,11 +36,13 @@ import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 //manages data stored in the file system
 public class DatabaseDataStore extends DataStore
@@ -58,8 +62,6 @@ public class DatabaseDataStore extends DataStore
             "INSERT INTO griefprevention_playerdata (name, lastlogin, accruedblocks, bonusblocks) VALUES (?, ?, ?, ?)";
     private static final String SQL_SET_NEXT_CLAIM_ID =
             "INSERT INTO griefprevention_nextclaimid VALUES (?)";
-    private static final String SQL_DELETE_GROUP_DATA =
-            "DELETE FROM griefprevention_playerdata WHERE name = ?";
     private static final String SQL_INSERT_SCHEMA_VERSION =
             "INSERT INTO griefprevention_schemaversion VALUES (?)";
     private static final String SQL_DELETE_NEXT_CLAIM_ID =
@@ -68,18 +70,49 @@ public class DatabaseDataStore extends DataStore
             "DELETE FROM griefprevention_schemaversion";
     private static final String SQL_SELECT_SCHEMA_VERSION =
             "SELECT * FROM griefprevention_schemaversion";
+    private static final String SQL_INSERT_DATABASE_VERSION =
+            "INSERT INTO griefprevention_databaseversion VALUES (?)";
+    private static final String SQL_DELETE_DATABASE_VERSION =
+            "DELETE FROM griefprevention_databaseversion";
+    private static final String SQL_SELECT_DATABASE_VERSION =
+            "SELECT * FROM griefprevention_databaseversion";
+
+    static final String[] CLAIM_COLUMNS = { "id", "owner", "lessercorner", "greatercorner", "builders", "containers", "accessors", "managers", "inheritnothing", "parentid" };
+    static final String[] PLAYER_COLUMNS = { "name", "lastlogin", "accruedblocks", "bonusblocks" };
+
+    //the latest version of the upgrades only this data store needs, kept apart from the schema version shared by all data stores
+    //1 adds unique keys on claim IDs and player names so that rows can be upserted
+    private static final int latestDatabaseVersion = 1;
 
-    private Connection databaseConnection = null;
+    static final int DEFAULT_POOL_SIZE = 3;
+
+    private volatile Connection databaseConnection = null;
 
     private final String databaseUrl;
     private final String userName;
     private final String password;
 
+    //connections for queued writes and for player data loads, which may happen off the main thread
+    private final DatabaseConnectionPool connectionPool;
+
+    //upsert statements, or null where the table lacks the unique key they need and rows are deleted and reinserted
+    private volatile String claimUpsertSql;
+    private volatile String playerUpsertSql;
+
+    //rows collected from the queued writes of the batch currently being written by this thread
+    private final ThreadLocal<WriteBatch> currentBatch = new ThreadLocal<>();
+
     DatabaseDataStore(String url, String userName, String password) throws Exception
+    {
+        this(url, userName, password, DEFAULT_POOL_SIZE);
+    }
+
+    DatabaseDataStore(String url, String userName, String password, int poolSize) throws Exception
     {
         this.databaseUrl = url;
         this.userName = userName;
         this.password = password;
+        this.connectionPool = new DatabaseConnectionPool(this::openConnection, poolSize, 30_000);
 
         this.initialize();
     }
@@ -104,6 +137,7 @@ public class DatabaseDataStore extends DataStore
             statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_claimdata (id INTEGER, owner VARCHAR(50), lessercorner VARCHAR(100), greatercorner VARCHAR(100), builders TEXT, containers TEXT, accessors TEXT, managers TEXT, inheritnothing BOOLEAN, parentid INTEGER)");
             statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_playerdata (name VARCHAR(50), lastlogin DATETIME, accruedblocks INTEGER, bonusblocks INTEGER)");
             statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_schemaversion (version INTEGER)");
+            statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_databaseversion (version INTEGER)");
 
             // By making this run only for MySQL, we technically support SQLite too, as this is the only invalid
             // SQL we use that SQLite does not support. Seeing as its only use is to update VERY old, existing, MySQL
@@ -258,6 +292,18 @@ public class DatabaseDataStore extends DataStore
             statement.execute("ALTER TABLE griefprevention_claimdata ADD inheritNothing BOOLEAN DEFAULT 0 AFTER managers");
         }
 
+        //run this data store's own upgrades before claims are loaded, so that what is loaded is what stays stored
+        int databaseVersion = this.getDatabaseVersion();
+        if (databaseVersion < 1)
+        {
+            this.addUniqueKeys();
+        }
+        if (databaseVersion < latestDatabaseVersion)
+        {
+            this.setDatabaseVersion(latestDatabaseVersion);
+        }
+        this.prepareUpserts();
+
         //load claims data into memory
 
         results = statement.executeQuery("SELECT * FROM griefprevention_claimdata");
@@ -407,25 +453,13 @@ public class DatabaseDataStore extends DataStore
     @Override
     synchronized void writeClaimToStorage(Claim claim)  //see datastore.cs.  this will ALWAYS be a top level claim
     {
-        try
-        {
-            this.refreshDataConnection();
-
-            //wipe out any existing data about this claim
-            this.deleteClaimFromSecondaryStorage(claim);
-
-            //write claim data to the database
-            this.writeClaimData(claim);
-        }
-        catch (SQLException e)
-        {
-            GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
-            GriefPrevention.AddLogEntry(e.getMessage());
-        }
+        //snapshot the claim now, the write happens later on the storage writer
+        ClaimRow row = this.getClaimRow(claim);
+        this.queueWrite("claim:" + claim.id, () -> this.submit(batch -> batch.claims.add(row)));
     }
 
-    //actually writes claim data to the database
-    synchronized private void writeClaimData(Claim claim) throws SQLException
+    //captures the values stored for a claim
+    private ClaimRow getClaimRow(Claim claim)
     {
         String lesserCornerString = this.locationToString(claim.getLesserBoundaryCorner());
         String greaterCornerString = this.locationToString(claim.getGreaterBoundaryCorner());
@@ -439,50 +473,26 @@ public class DatabaseDataStore extends DataStore
 
         claim.getPermissions(builders, containers, accessors, managers);
 
-        String buildersString = this.storageStringBuilder(builders);
-        String containersString = this.storageStringBuilder(containers);
-        String accessorsString = this.storageStringBuilder(accessors);
-        String managersString = this.storageStringBuilder(managers);
-        boolean inheritNothing = claim.getSubclaimRestrictions();
-        long parentId = claim.parent == null ? -1 : claim.parent.id;
-
-        try (PreparedStatement insertStmt = this.databaseConnection.prepareStatement(SQL_INSERT_CLAIM))
-        {
-
-            insertStmt.setLong(1, claim.id);
-            insertStmt.setString(2, owner);
-            insertStmt.setString(3, lesserCornerString);
-            insertStmt.setString(4, greaterCornerString);
-            insertStmt.setString(5, buildersString);
-            insertStmt.setString(6, containersString);
-            insertStmt.setString(7, accessorsString);
-            insertStmt.setString(8, managersString);
-            insertStmt.setBoolean(9, inheritNothing);
-            insertStmt.setLong(10, parentId);
-            insertStmt.executeUpdate();
-        }
-        catch (SQLException e)
-        {
-            GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
-            GriefPrevention.AddLogEntry(e.getMessage());
-        }
+        return new ClaimRow(
+                claim.id,
+                owner,
+                lesserCornerString,
+                greaterCornerString,
+                this.storageStringBuilder(builders),
+                this.storageStringBuilder(containers),
+                this.storageStringBuilder(accessors),
+                this.storageStringBuilder(managers),
+                claim.getSubclaimRestrictions(),
+                claim.parent == null ? -1 : claim.parent.id);
     }
 
     //deletes a claim from the database
     @Override
     synchronized void deleteClaimFromSecondaryStorage(Claim claim)
     {
-        try (PreparedStatement deleteStmnt = this.databaseConnection.prepareStatement(SQL_DELETE_CLAIM))
-        {
-            deleteStmnt.setLong(1, claim.id);
-            deleteStmnt.executeUpdate();
-        }
-        catch (SQLException e)
-        {
-            GriefPrevention.AddLogEntry("Unable to delete data for claim " + claim.id + ".  Details:");
-            GriefPrevention.AddLogEntry(e.getMessage());
-            e.printStackTrace();
-        }
+        //queued under the same key as writes, so a pending write for this claim is discarded rather than run after
+        long claimID = claim.id;
+        this.queueWrite("claim:" + claimID, () -> this.submit(batch -> batch.deletedClaims.add(claimID)));
     }
 
     @Override
@@ -491,16 +501,25 @@ public class DatabaseDataStore extends DataStore
         PlayerData playerData = new PlayerData();
         playerData.playerID = playerID;
 
-        try (PreparedStatement selectStmnt = this.databaseConnection.prepareStatement(SQL_SELECT_PLAYER_DATA))
+        try (DatabaseConnectionPool.Lease lease = this.connectionPool.borrow())
         {
-            selectStmnt.setString(1, playerID.toString());
-            ResultSet results = selectStmnt.executeQuery();
+            try (PreparedStatement selectStmnt = lease.connection().prepareStatement(SQL_SELECT_PLAYER_DATA))
+            {
+                selectStmnt.setString(1, playerID.toString());
+                ResultSet results = selectStmnt.executeQuery();
 
-            //if data for this player exists, use it
-            if (results.next())
+                //if data for this player exists, use it
+                if (results.next())
+                {
+                    playerData.setAccruedClaimBlocks(results.getInt("accruedblocks"));
+                    playerData.setBonusClaimBlocks(results.getInt("bonusblocks"));
+                }
+            }
+            catch (SQLException e)
             {
-                playerData.setAccruedClaimBlocks(results.getInt("accruedblocks"));
-                playerData.setBonusClaimBlocks(results.getInt("bonusblocks"));
+                //the connection may have been lost, so don't hand it out again
+                lease.invalidate();
+                throw e;
             }
         }
         catch (SQLException e)
@@ -525,28 +544,12 @@ public class DatabaseDataStore extends DataStore
 
     private void savePlayerData(String playerID, PlayerData playerData)
     {
-        try (PreparedStatement deleteStmnt = this.databaseConnection.prepareStatement(SQL_DELETE_PLAYER_DATA);
-             PreparedStatement insertStmnt = this.databaseConnection.prepareStatement(SQL_INSERT_PLAYER_DATA))
-        {
-            OfflinePlayer player = Bukkit.getOfflinePlayer(UUID.fromString(playerID));
-
-            SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String dateString = sqlFormat.format(new Date(player.getLastPlayed()));
-            deleteStmnt.setString(1, playerID);
-            deleteStmnt.executeUpdate();
+        OfflinePlayer player = Bukkit.getOfflinePlayer(UUID.fromString(playerID));
 
-            insertStmnt.setString(1, playerID);
-            insertStmnt.setString(2, dateString);
-            insertStmnt.setInt(3, playerData.getAccruedClaimBlocks());
-            insertStmnt.setInt(4, playerData.getBonusClaimBlocks());
-            insertStmnt.executeUpdate();
-        }
-        catch (SQLException e)
-        {
-            StringWriter errors = new StringWriter();
-            e.printStackTrace(new PrintWriter(errors));
-            GriefPrevention.AddLogEntry(playerID + " " + errors.toString(), CustomLogEntryTypes.Exception);
-        }
+        SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String dateString = sqlFormat.format(new Date(player.getLastPlayed()));
+        PlayerRow row = new PlayerRow(playerID, dateString, playerData.getAccruedClaimBlocks(), playerData.getBonusClaimBlocks());
+        this.submit(batch -> batch.players.add(row));
     }
 
     @Override
@@ -556,6 +559,7 @@ public class DatabaseDataStore extends DataStore
     }
 
     //sets the next claim ID.  used by incrementNextClaimID() above, and also while migrating data from a flat file data store
+    @Override
     synchronized void setNextClaimID(long nextID)
     {
         this.nextClaimID = nextID;
@@ -569,6 +573,7 @@ public class DatabaseDataStore extends DataStore
         }
         catch (SQLException e)
         {
+            this.recordFailedWrites(1);
             GriefPrevention.AddLogEntry("Unable to set next claim ID to " + nextID + ".  Details:");
             GriefPrevention.AddLogEntry(e.getMessage());
         }
@@ -579,29 +584,353 @@ public class DatabaseDataStore extends DataStore
     synchronized void saveGroupBonusBlocks(String groupName, int currentValue)
     {
         //group bonus blocks are stored in the player data table, with player name = $groupName
-        try (PreparedStatement deleteStmnt = this.databaseConnection.prepareStatement(SQL_DELETE_GROUP_DATA);
-             PreparedStatement insertStmnt = this.databaseConnection.prepareStatement(SQL_INSERT_PLAYER_DATA))
-        {
-            SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String dateString = sqlFormat.format(new Date());
-            deleteStmnt.setString(1, '$' + groupName);
-            deleteStmnt.executeUpdate();
-
-            insertStmnt.setString(1, '$' + groupName);
-            insertStmnt.setString(2, dateString);
-            insertStmnt.setInt(3, 0);
-            insertStmnt.setInt(4, currentValue);
-            insertStmnt.executeUpdate();
+        SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String dateString = sqlFormat.format(new Date());
+        PlayerRow row = new PlayerRow('$' + groupName, dateString, 0, currentValue);
+        this.queueWrite("player:$" + groupName, () -> this.submit(batch -> batch.players.add(row)));
+    }
+
+    //collects the rows of a batch of queued writes, then writes them all in one transaction
+    @Override
+    void writeBatch(@NotNull List<Runnable> batch)
+    {
+        WriteBatch writes = new WriteBatch();
+        this.currentBatch.set(writes);
+        try
+        {
+            super.writeBatch(batch);
+        }
+        finally
+        {
+            this.currentBatch.remove();
+        }
+
+        this.executeBatch(writes);
+    }
+
+    //adds rows to the batch being collected, or writes them immediately if this isn't a queued write
+    private void submit(Consumer<WriteBatch> rows)
+    {
+        WriteBatch batch = this.currentBatch.get();
+        if (batch != null)
+        {
+            rows.accept(batch);
+            return;
+        }
+
+        WriteBatch single = new WriteBatch();
+        rows.accept(single);
+        this.executeBatch(single);
+    }
+
+    private void executeBatch(WriteBatch writes)
+    {
+        if (writes.isEmpty()) return;
+
+        try (DatabaseConnectionPool.Lease lease = this.connectionPool.borrow())
+        {
+            Connection connection = lease.connection();
+            try
+            {
+                connection.setAutoCommit(false);
+                this.executeWrites(connection, writes);
+                connection.commit();
+                return;
+            }
+            catch (SQLException e)
+            {
+                //the connection may have been lost, so don't hand it out again
+                lease.invalidate();
+                GriefPrevention.AddLogEntry("Unable to write a batch of " + writes.size() + " rows, retrying individually.  Details:");
+                GriefPrevention.AddLogEntry(e.getMessage());
+
+                try
+                {
+                    connection.rollback();
+                }
+                catch (SQLException e2)
+                {
+                    //closing the connection discards the transaction anyway
+                    GriefPrevention.AddLogEntry("Unable to roll back the failed batch.  Details:");
+                    GriefPrevention.AddLogEntry(e2.getMessage());
+                }
+            }
         }
         catch (SQLException e)
         {
-            GriefPrevention.AddLogEntry("Unable to save data for group " + groupName + ".  Details:");
+            this.recordFailedWrites(writes.size());
+            GriefPrevention.AddLogEntry("Unable to write " + writes.size() + " rows to the database.  Details:");
             GriefPrevention.AddLogEntry(e.getMessage());
+            return;
+        }
+
+        //write rows one by one, so that a single bad row doesn't lose the rest
+        //each row borrows its own connection, so a connection invalidated by a failed row is never used again
+        for (WriteBatch single : writes.split())
+        {
+            try (DatabaseConnectionPool.Lease lease = this.connectionPool.borrow())
+            {
+                try
+                {
+                    this.executeWrites(lease.connection(), single);
+                }
+                catch (SQLException e)
+                {
+                    lease.invalidate();
+                    throw e;
+                }
+            }
+            catch (SQLException e)
+            {
+                this.recordFailedWrites(1);
+                GriefPrevention.AddLogEntry("Unable to write " + single.describe() + ".  Details:");
+                GriefPrevention.AddLogEntry(e.getMessage());
+            }
         }
     }
 
+    private void executeWrites(Connection connection, WriteBatch writes) throws SQLException
+    {
+        if (!writes.deletedClaims.isEmpty())
+        {
+            try (PreparedStatement deleteStmnt = connection.prepareStatement(SQL_DELETE_CLAIM))
+            {
+                for (long claimID : writes.deletedClaims)
+                {
+                    deleteStmnt.setLong(1, claimID);
+                    deleteStmnt.addBatch();
+                }
+                deleteStmnt.executeBatch();
+            }
+        }
+
+        if (!writes.claims.isEmpty())
+        {
+            String upsertSql = this.claimUpsertSql;
+            if (upsertSql == null)
+            {
+                //no unique key, wipe out any existing data about these claims first
+                try (PreparedStatement deleteStmnt = connection.prepareStatement(SQL_DELETE_CLAIM))
+                {
+                    for (ClaimRow row : writes.claims)
+                    {
+                        deleteStmnt.setLong(1, row.id());
+                        deleteStmnt.addBatch();
+                    }
+                    deleteStmnt.executeBatch();
+                }
+            }
+
+            try (PreparedStatement insertStmt = connection.prepareStatement(upsertSql != null ? upsertSql : SQL_INSERT_CLAIM))
+            {
+                for (ClaimRow row : writes.claims)
+                {
+                    insertStmt.setLong(1, row.id());
+                    insertStmt.setString(2, row.owner());
+                    insertStmt.setString(3, row.lesserCorner());
+                    insertStmt.setString(4, row.greaterCorner());
+                    insertStmt.setString(5, row.builders());
+                    insertStmt.setString(6, row.containers());
+                    insertStmt.setString(7, row.accessors());
+                    insertStmt.setString(8, row.managers());
+                    insertStmt.setBoolean(9, row.inheritNothing());
+                    insertStmt.setLong(10, row.parentId());
+                    insertStmt.addBatch();
+                }
+                insertStmt.executeBatch();
+            }
+        }
+
+        if (!writes.players.isEmpty())
+        {
+            String upsertSql = this.playerUpsertSql;
+            if (upsertSql == null)
+            {
+                try (PreparedStatement deleteStmnt = connection.prepareStatement(SQL_DELETE_PLAYER_DATA))
+                {
+                    for (PlayerRow row : writes.players)
+                    {
+                        deleteStmnt.setString(1, row.name());
+                        deleteStmnt.addBatch();
+                    }
+                    deleteStmnt.executeBatch();
+                }
+            }
+
+            try (PreparedStatement insertStmnt = connection.prepareStatement(upsertSql != null ? upsertSql : SQL_INSERT_PLAYER_DATA))
+            {
+                for (PlayerRow row : writes.players)
+                {
+                    insertStmnt.setString(1, row.name());
+                    insertStmnt.setString(2, row.lastLogin());
+                    insertStmnt.setInt(3, row.accruedBlocks());
+                    insertStmnt.setInt(4, row.bonusBlocks());
+                    insertStmnt.addBatch();
+                }
+                insertStmnt.executeBatch();
+            }
+        }
+    }
+
+    //upserts need a unique key on the row identifier, which older tables were created without
+    private void prepareUpserts() throws SQLException
+    {
+        SqlDialect dialect = SqlDialect.forUrl(this.databaseUrl);
+        if (dialect == null)
+        {
+            GriefPrevention.AddLogEntry("Upserts are not supported for this database, rows will be deleted and reinserted instead.");
+            return;
+        }
+
+        if (hasUniqueIndex(this.databaseConnection, "griefprevention_claimdata", "id"))
+        {
+            this.claimUpsertSql = dialect.upsert("griefprevention_claimdata", "id", CLAIM_COLUMNS);
+        }
+        if (hasUniqueIndex(this.databaseConnection, "griefprevention_playerdata", "name"))
+        {
+            this.playerUpsertSql = dialect.upsert("griefprevention_playerdata", "name", PLAYER_COLUMNS);
+        }
+    }
+
+    //adds the unique keys upserts need, removing duplicate rows left over from older versions first
+    private void addUniqueKeys()
+    {
+        if (SqlDialect.forUrl(this.databaseUrl) == null) return;
+
+        this.addUniqueKey("griefprevention_claimdata", "id", CLAIM_COLUMNS);
+        this.addUniqueKey("griefprevention_playerdata", "name", PLAYER_COLUMNS);
+    }
+
+    private void addUniqueKey(String table, String column, String[] columns)
+    {
+        try
+        {
+            int removed = addUniqueKey(this.databaseConnection, table, column, columns);
+            if (removed > 0)
+            {
+                GriefPrevention.AddLogEntry("Removed " + removed + " duplicate rows from " + table + ".");
+            }
+        }
+        catch (SQLException e)
+        {
+            GriefPrevention.AddLogEntry("Unable to add a unique index on " + table + "." + column + ", rows will be deleted and reinserted instead.  Details:");
+            GriefPrevention.AddLogEntry(e.getMessage());
+        }
+    }
+
+    //adds a unique index on the column unless one exists, returning how many duplicate rows were removed first
+    static int addUniqueKey(Connection connection, String table, String column, String[] columns) throws SQLException
+    {
+        if (hasUniqueIndex(connection, table, column)) return 0;
+
+        int removed = removeDuplicateRows(connection, table, column, columns);
+        try (Statement statement = connection.createStatement())
+        {
+            statement.execute("CREATE UNIQUE INDEX " + table + "_" + column + " ON " + table + " (" + column + ")");
+        }
+        return removed;
+    }
+
+    //keeps only the first row read for each duplicated key, which is the one player data reads return
+    //this runs before claims are loaded, so the kept claim rows are also the ones that get loaded
+    private static int removeDuplicateRows(Connection connection, String table, String column, String[] columns) throws SQLException
+    {
+        List<Object> keys = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet duplicates = statement.executeQuery("SELECT " + column + " FROM " + table + " WHERE " + column + " IS NOT NULL GROUP BY " + column + " HAVING COUNT(*) > 1"))
+        {
+            while (duplicates.next())
+            {
+                keys.add(duplicates.getObject(1));
+            }
+        }
+        if (keys.isEmpty()) return 0;
+
+        String columnList = String.join(", ", columns);
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        int removed = 0;
+        connection.setAutoCommit(false);
+        try (PreparedStatement selectStmnt = connection.prepareStatement("SELECT " + columnList + " FROM " + table + " WHERE " + column + " = ?");
+             PreparedStatement deleteStmnt = connection.prepareStatement("DELETE FROM " + table + " WHERE " + column + " = ?");
+             PreparedStatement insertStmnt = connection.prepareStatement("INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"))
+        {
+            for (Object key : keys)
+            {
+                Object[] kept = null;
+                int rows = 0;
+                selectStmnt.setObject(1, key);
+                try (ResultSet results = selectStmnt.executeQuery())
+                {
+                    while (results.next())
+                    {
+                        if (kept == null)
+                        {
+                            kept = new Object[columns.length];
+                            for (int i = 0; i < columns.length; i++)
+                            {
+                                kept[i] = results.getObject(i + 1);
+                            }
+                        }
+                        rows++;
+                    }
+                }
+                if (kept == null) continue;
+
+                deleteStmnt.setObject(1, key);
+                deleteStmnt.executeUpdate();
+                for (int i = 0; i < columns.length; i++)
+                {
+                    insertStmnt.setObject(i + 1, kept[i]);
+                }
+                insertStmnt.executeUpdate();
+                removed += rows - 1;
+            }
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            connection.rollback();
+            throw e;
+        }
+        finally
+        {
+            connection.setAutoCommit(true);
+        }
+        return removed;
+    }
+
+    static boolean hasUniqueIndex(Connection connection, String table, String column) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        //some databases store unquoted identifiers upper case
+        for (String tableName : new String[] { table, table.toUpperCase() })
+        {
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, tableName, true, false))
+            {
+                while (indexes.next())
+                {
+                    if (column.equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
-    synchronized void close()
+    void close()
+    {
+        //finish queued writes before the connections go away
+        this.closeWriteQueue();
+        this.connectionPool.close();
+
+        synchronized (this)
+        {
+            this.closeConnection();
+        }
+    }
+
+    private void closeConnection()
     {
         if (this.databaseConnection != null)
         {
@@ -628,18 +957,23 @@ public class DatabaseDataStore extends DataStore
                 this.databaseConnection.close();
             }
 
-            //set username/pass properties
-            Properties connectionProps = new Properties();
-            connectionProps.put("user", this.userName);
-            connectionProps.put("password", this.password);
-            connectionProps.put("autoReconnect", "true");
-            connectionProps.put("maxReconnects", String.valueOf(Integer.MAX_VALUE));
-
-            //establish connection
-            this.databaseConnection = DriverManager.getConnection(this.databaseUrl, connectionProps);
+            this.databaseConnection = this.openConnection();
         }
     }
 
+    private @NotNull Connection openConnection() throws SQLException
+    {
+        //set username/pass properties
+        Properties connectionProps = new Properties();
+        connectionProps.put("user", this.userName);
+        connectionProps.put("password", this.password);
+        connectionProps.put("autoReconnect", "true");
+        connectionProps.put("maxReconnects", String.valueOf(Integer.MAX_VALUE));
+
+        //establish connection
+        return DriverManager.getConnection(this.databaseUrl, connectionProps);
+    }
+
     @Override
     protected int getSchemaVersionFromStorage()
     {
@@ -686,6 +1020,39 @@ public class DatabaseDataStore extends DataStore
         }
     }
 
+    private int getDatabaseVersion()
+    {
+        try (PreparedStatement selectStmnt = this.databaseConnection.prepareStatement(SQL_SELECT_DATABASE_VERSION);
+             ResultSet results = selectStmnt.executeQuery())
+        {
+            //nothing yet means none of this data store's upgrades have run
+            return results.next() ? results.getInt("version") : 0;
+        }
+        catch (SQLException e)
+        {
+            GriefPrevention.AddLogEntry("Unable to retrieve database version.  Details:");
+            GriefPrevention.AddLogEntry(e.getMessage());
+            return 0;
+        }
+    }
+
+    private void setDatabaseVersion(int versionToSet)
+    {
+        try (PreparedStatement deleteStmnt = this.databaseConnection.prepareStatement(SQL_DELETE_DATABASE_VERSION);
+             PreparedStatement insertStmnt = this.databaseConnection.prepareStatement(SQL_INSERT_DATABASE_VERSION))
+        {
+            deleteStmnt.execute();
+
+            insertStmnt.setInt(1, versionToSet);
+            insertStmnt.executeUpdate();
+        }
+        catch (SQLException e)
+        {
+            GriefPrevention.AddLogEntry("Unable to set database version to " + versionToSet + ".  Details:");
+            GriefPrevention.AddLogEntry(e.getMessage());
+        }
+    }
+
     /**
      * Concats an array to a string divided with the ; sign
      *
@@ -702,4 +1069,69 @@ public class DatabaseDataStore extends DataStore
         return output;
     }
 
+    //the values stored for a claim, captured when it is saved
+    private record ClaimRow(
+            long id,
+            String owner,
+            String lesserCorner,
+            String greaterCorner,
+            String builders,
+            String containers,
+            String accessors,
+            String managers,
+            boolean inheritNothing,
+            long parentId) {}
+
+    //the values stored for a player or group
+    private record PlayerRow(String name, String lastLogin, int accruedBlocks, int bonusBlocks) {}
+
+    private static final class WriteBatch
+    {
+        private final List<Long> deletedClaims = new ArrayList<>();
+        private final List<ClaimRow> claims = new ArrayList<>();
+        private final List<PlayerRow> players = new ArrayList<>();
+
+        private int size()
+        {
+            return this.deletedClaims.size() + this.claims.size() + this.players.size();
+        }
+
+        private boolean isEmpty()
+        {
+            return this.size() == 0;
+        }
+
+        private List<WriteBatch> split()
+        {
+            List<WriteBatch> singles = new ArrayList<>(this.size());
+            for (long claimID : this.deletedClaims)
+            {
+                WriteBatch single = new WriteBatch();
+                single.deletedClaims.add(claimID);
+                singles.add(single);
+            }
+            for (ClaimRow row : this.claims)
+            {
+                WriteBatch single = new WriteBatch();
+                single.claims.add(row);
+                singles.add(single);
+            }
+            for (PlayerRow row : this.players)
+            {
+                WriteBatch single = new WriteBatch();
+                single.players.add(row);
+                singles.add(single);
+            }
+            return singles;
+        }
+
+        private String describe()
+        {
+            if (!this.deletedClaims.isEmpty()) return "deletion of claim " + this.deletedClaims.get(0);
+            if (!this.claims.isEmpty()) return "data for claim at " + this.claims.get(0).lesserCorner();
+            if (!this.players.isEmpty()) return "data for " + this.players.get(0).name();
+            return "nothing";
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package me.ryanhamshire.GriefPrevention;
 
+import com.griefprevention.util.EventListeners;
 import me.ryanhamshire.GriefPrevention.events.PreventPvPEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -335,9 +336,7 @@ public class EntityDamageHandler implements Listener
             damagedData.lastClaim = damagedClaim;
             if (instance.claimIsPvPSafeZone(damagedClaim))
             {
-                PreventPvPEvent pvpEvent = new PreventPvPEvent(damagedClaim, attacker, damaged);
-                Bukkit.getPluginManager().callEvent(pvpEvent);
-                if (!pvpEvent.isCancelled())
+                if (!isPvPPreventionCancelled(damagedClaim, attacker, damaged))
                 {
                     event.setCancelled(true);
                 }
@@ -473,7 +472,7 @@ public class EntityDamageHandler implements Listener
         // Wolves are exempt from pet protections in PVP worlds when their target is the attacker
         if (event.damaged().getType() == EntityType.WOLF && pet.getTarget() == attacker) return true;
 
-        Claim claim;
+        Claim claim = null;
         // Note: Internal name is not descriptive. Actual node is "GriefPrevention.PVP.ProtectPetsOutsideLandClaims"
         if (!instance.config_pvp_protectPets)
         {
@@ -485,15 +484,9 @@ public class EntityDamageHandler implements Listener
             }
             attackerData.lastClaim = claim;
         }
-        else
-        {
-            // Create a dummy claim to signify blanket pet protection.
-            claim = new Claim(event.damaged().getLocation(), event.damaged().getLocation(), null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), null);
-        }
 
-        PreventPvPEvent pvpEvent = new PreventPvPEvent(claim, attacker, pet);
-        Bukkit.getPluginManager().callEvent(pvpEvent);
-        if (!pvpEvent.isCancelled())
+        // Without a claim, blanket pet protection applies.
+        if (!isPvPPreventionCancelled(claim, attacker, pet))
         {
             event.setCancelled(true);
             if (sendMessages)
@@ -533,17 +526,42 @@ public class EntityDamageHandler implements Listener
         if (claim == null || !instance.claimIsPvPSafeZone(claim)) return false;
 
         playerData.lastClaim = claim;
-        PreventPvPEvent pvpEvent = new PreventPvPEvent(claim, attacker, defender);
-        Bukkit.getPluginManager().callEvent(pvpEvent);
 
         //if other plugins aren't making an exception to the rule
-        if (!pvpEvent.isCancelled())
+        if (!isPvPPreventionCancelled(claim, attacker, defender))
         {
             cancelHandler.run();
         }
         return true;
     }
 
+    /**
+     * Fire a {@link PreventPvPEvent} to allow addons to make an exception to PVP protection. The event is skipped
+     * entirely if nothing listens to it.
+     *
+     * @param claim the protecting {@link Claim}, or null for blanket pet protection
+     * @param attacker the attacking {@link Player}, if any
+     * @param defender the defending {@link Entity}
+     * @return true if an addon cancelled the protection
+     */
+    private static boolean isPvPPreventionCancelled(
+            @Nullable Claim claim,
+            @Nullable Player attacker,
+            @NotNull Entity defender)
+    {
+        if (!EventListeners.hasListeners(PreventPvPEvent.getHandlerList())) return false;
+
+        if (claim == null)
+        {
+            // Create a dummy claim to signify blanket pet protection.
+            claim = new Claim(defender.getLocation(), defender.getLocation(), null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), null);
+        }
+
+        PreventPvPEvent pvpEvent = new PreventPvPEvent(claim, attacker, defender);
+        Bukkit.getPluginManager().callEvent(pvpEvent);
+        return pvpEvent.isCancelled();
+    }
+
     /**
      * Handle actions requiring build trust.
      *
@@ -259,7 +259,7 @@ public class EntityEventHandler implements Listener
     private void handleProjectileChangeBlock(EntityChangeBlockEvent event, Projectile projectile)
     {
         Block block = event.getBlock();
-        Claim claim = this.dataStore.getClaimAt(block.getLocation(), false, null);
+        Claim claim = this.dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), false, null);
 
         // Wilderness rules
         if (claim == null)
@@ -431,38 +431,48 @@ public class EntityEventHandler implements Listener
             }
         }
 
-        List<Block> removed = new ArrayList<>();
-        Claim cachedClaim = playerData != null ? playerData.lastClaim : null;
+        // Resolve every block against claims in one pass.
+        Claim[] claims = this.dataStore.getClaimsAt(world, blocks, false);
+        List<Block> allowed = new ArrayList<>(blocks.size());
+        Claim cachedClaim = null;
+        boolean cachedDenial = false;
 
-        for (Block block : blocks)
+        for (int i = 0; i < claims.length; i++)
         {
-            // Always ignore air blocks.
-            if (block.getType().isAir()) continue;
-
-            Claim claim = this.dataStore.getClaimAt(block.getLocation(), false, cachedClaim);
-
-            // Is it in a land claim?
-            if (claim == null) continue;
+            Block block = blocks.get(i);
+            Claim claim = claims[i];
 
-            cachedClaim = claim;
-
-            if (player == null)
+            // Always ignore air blocks, and blocks outside land claims.
+            if (claim == null || block.getType().isAir())
             {
-                // If the source is not part of the claim, prevent interaction.
-                if (!isBlockSourceInClaim(source, claim))
-                    removed.add(block);
+                allowed.add(block);
                 continue;
             }
 
-            // If the player is not allowed to interact with blocks, prevent interaction.
-            if (claim.checkPermission(player, ClaimPermission.Access, event) != null)
-                removed.add(block);
+            // The outcome only depends on the claim, and neighboring blocks usually share one.
+            if (claim != cachedClaim)
+            {
+                cachedClaim = claim;
+                if (player == null)
+                    // If the source is not part of the claim, prevent interaction.
+                    cachedDenial = !isBlockSourceInClaim(source, claim);
+                else
+                    // If the player is not allowed to interact with blocks, prevent interaction.
+                    cachedDenial = claim.checkPermission(player, ClaimPermission.Access, event) != null;
+            }
+
+            if (!cachedDenial)
+                allowed.add(block);
         }
 
         if (playerData != null && cachedClaim != null)
             playerData.lastClaim = cachedClaim;
 
-        blocks.removeAll(removed);
+        if (allowed.size() < blocks.size())
+        {
+            blocks.clear();
+            blocks.addAll(allowed);
+        }
     }
 
     void handleExplosion(@NotNull Location location, @Nullable Entity entity, @NotNull List<Block> blocks)
@@ -490,18 +500,18 @@ public class EntityEventHandler implements Listener
 
         //make a list of blocks which were allowed to explode
         List<Block> explodedBlocks = new ArrayList<>();
-        Claim cachedClaim = null;
-        for (Block block : blocks)
+        int surfaceLimit = GriefPrevention.instance.getSeaLevel(world) - 7;
+        //resolve every block against claims in one pass
+        Claim[] claims = this.dataStore.getClaimsAt(world, blocks, false);
+        for (int i = 0; i < claims.length; i++)
         {
+            Block block = blocks.get(i);
+
             //always ignore air blocks
             if (block.getType().isAir()) continue;
 
             //is it in a land claim?
-            Claim claim = this.dataStore.getClaimAt(block.getLocation(), false, cachedClaim);
-            if (claim != null)
-            {
-                cachedClaim = claim;
-            }
+            Claim claim = claims[i];
 
             //if yes, apply claim exemptions if they should apply
             if (claim != null && (claim.areExplosivesAllowed || !GriefPrevention.instance.config_blockClaimExplosions))
@@ -513,7 +523,7 @@ public class EntityEventHandler implements Listener
             //if no, then also consider surface rules
             if (claim == null)
             {
-                if (!applySurfaceRules || block.getLocation().getBlockY() < GriefPrevention.instance.getSeaLevel(world) - 7)
+                if (!applySurfaceRules || block.getY() < surfaceLimit)
                 {
                     explodedBlocks.add(block);
                 }
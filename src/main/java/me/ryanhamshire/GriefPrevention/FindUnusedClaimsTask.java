@@ -18,12 +18,11 @@
 
 package me.ryanhamshire.GriefPrevention;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 //FEATURE: automatically remove claims owned by inactive players which:
 //...aren't protecting much OR
@@ -59,9 +58,8 @@ class FindUnusedClaimsTask implements Runnable
 
     public void refreshUUIDs()
     {
-        // Fetch owner UUIDs from list of claims
-        claimOwnerUUIDs = GriefPrevention.instance.dataStore.claims.stream().map(claim -> claim.ownerID)
-                .distinct().filter(Objects::nonNull).collect(Collectors.toList());
+        // Fetch owner UUIDs from the owner to claims cache
+        claimOwnerUUIDs = new ArrayList<>(GriefPrevention.instance.dataStore.getClaimOwners());
 
         if (!claimOwnerUUIDs.isEmpty())
         {
@@ -69,10 +67,14 @@ class FindUnusedClaimsTask implements Runnable
             Collections.shuffle(claimOwnerUUIDs);
         }
 
-        GriefPrevention.AddLogEntry("The following UUIDs own a claim and will be checked for inactivity in the following order:", CustomLogEntryTypes.Debug, true);
-
-        for (UUID uuid : claimOwnerUUIDs)
-            GriefPrevention.AddLogEntry(uuid.toString(), CustomLogEntryTypes.Debug, true);
+        List<UUID> ownerUUIDs = claimOwnerUUIDs;
+        GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () ->
+        {
+            StringBuilder entry = new StringBuilder("The following UUIDs own a claim and will be checked for inactivity in the following order:");
+            for (UUID uuid : ownerUUIDs)
+                entry.append('\n').append(uuid);
+            return entry.toString();
+        });
 
         claimOwnerIterator = claimOwnerUUIDs.iterator();
     }
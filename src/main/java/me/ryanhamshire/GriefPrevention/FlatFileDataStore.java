@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -41,8 +42,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
+import java.util.stream.IntStream;
 
 //manages data stored in the file system
 public class FlatFileDataStore extends DataStore
@@ -61,7 +64,13 @@ public class FlatFileDataStore extends DataStore
     //initialization!
     FlatFileDataStore() throws Exception
     {
-        this.initialize();
+        this(true);
+    }
+
+    //a data store which hasn't read anything from disk yet
+    FlatFileDataStore(boolean initialize) throws Exception
+    {
+        if (initialize) this.initialize();
     }
 
     @Override
@@ -394,7 +403,82 @@ public class FlatFileDataStore extends DataStore
 
     void loadClaimData(File[] files) throws Exception
     {
-        ConcurrentHashMap<Claim, Long> orphans = new ConcurrentHashMap<>();
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ClaimLoadStats stats = this.loadClaimData(files, Bukkit.getServer().getWorlds(), parallelism);
+
+        GriefPrevention.AddLogEntry(String.format(
+                "Loaded %d claims from %d files in %d ms (listing %d ms, parsing %d ms on %d threads, indexing %d ms).",
+                stats.claims(),
+                stats.files(),
+                TimeUnit.NANOSECONDS.toMillis(stats.listNanos() + stats.parseNanos() + stats.linkNanos()),
+                TimeUnit.NANOSECONDS.toMillis(stats.listNanos()),
+                TimeUnit.NANOSECONDS.toMillis(stats.parseNanos()),
+                stats.parallelism(),
+                TimeUnit.NANOSECONDS.toMillis(stats.linkNanos())));
+    }
+
+    //loads claims in three phases: list the files, parse them in parallel, then add them to the data store in file order
+    ClaimLoadStats loadClaimData(File[] files, List<World> validWorlds, int parallelism) throws Exception
+    {
+        long start = System.nanoTime();
+        List<ClaimFile> claimFiles = this.listClaimFiles(files);
+        long listed = System.nanoTime();
+        ParsedClaim[] parsedClaims = this.parseClaimFiles(claimFiles, validWorlds, parallelism);
+        long parsed = System.nanoTime();
+
+        //add top level claims, then link children to parents, in file order so the result doesn't depend on parse order
+        int loaded = 0;
+        List<ParsedClaim> orphans = new ArrayList<>();
+        for (ParsedClaim parsedClaim : parsedClaims)
+        {
+            //if there's any problem with the file's content, log an error message and skip it
+            if (parsedClaim.failure() != null)
+            {
+                Exception e = parsedClaim.failure();
+                if (e.getMessage() != null && e.getMessage().contains("World not found"))
+                {
+                    GriefPrevention.AddLogEntry("Failed to load a claim (ID:" + parsedClaim.file().claimID() + ") because its world isn't loaded (yet?).  If this is not expected, delete this claim.");
+                }
+                else
+                {
+                    StringWriter errors = new StringWriter();
+                    e.printStackTrace(new PrintWriter(errors));
+                    GriefPrevention.AddLogEntry(parsedClaim.file().file().getName() + " " + errors.toString(), CustomLogEntryTypes.Exception);
+                }
+                continue;
+            }
+
+            if (parsedClaim.parentID() == -1)
+            {
+                this.addClaim(parsedClaim.claim(), false);
+                loaded++;
+            }
+            else
+            {
+                orphans.add(parsedClaim);
+            }
+        }
+
+        //link children to parents
+        for (ParsedClaim child : orphans)
+        {
+            Claim parent = this.getClaim(child.parentID());
+            if (parent != null)
+            {
+                child.claim().parent = parent;
+                this.addClaim(child.claim(), false);
+                loaded++;
+            }
+        }
+        long linked = System.nanoTime();
+
+        return new ClaimLoadStats(claimFiles.size(), loaded, parallelism, listed - start, parsed - listed, linked - parsed);
+    }
+
+    //finds the claim files and their IDs, renaming any which still use an old naming scheme
+    private List<ClaimFile> listClaimFiles(File[] files)
+    {
+        List<ClaimFile> claimFiles = new ArrayList<>(files.length);
         for (int i = 0; i < files.length; i++)
         {
             if (files[i].isFile())  //avoids folders
@@ -428,50 +512,60 @@ public class FlatFileDataStore extends DataStore
                     files[i] = newFile;
                 }
 
-                try
-                {
-                    ArrayList<Long> out_parentID = new ArrayList<>();  //hacky output parameter
-                    Claim claim = this.loadClaim(files[i], out_parentID, claimID);
-                    if (out_parentID.size() == 0 || out_parentID.get(0) == -1)
-                    {
-                        this.addClaim(claim, false);
-                    }
-                    else
-                    {
-                        orphans.put(claim, out_parentID.get(0));
-                    }
-                }
-
-                //if there's any problem with the file's content, log an error message and skip it
-                catch (Exception e)
-                {
-                    if (e.getMessage() != null && e.getMessage().contains("World not found"))
-                    {
-                        GriefPrevention.AddLogEntry("Failed to load a claim (ID:" + claimID + ") because its world isn't loaded (yet?).  If this is not expected, delete this claim.");
-                    }
-                    else
-                    {
-                        StringWriter errors = new StringWriter();
-                        e.printStackTrace(new PrintWriter(errors));
-                        GriefPrevention.AddLogEntry(files[i].getName() + " " + errors.toString(), CustomLogEntryTypes.Exception);
-                    }
-                }
+                claimFiles.add(new ClaimFile(files[i], claimID));
             }
         }
+        return claimFiles;
+    }
 
-        //link children to parents
-        for (Claim child : orphans.keySet())
+    //reads and parses claim files, in parallel if allowed; results are in the same order as the files
+    private ParsedClaim[] parseClaimFiles(List<ClaimFile> claimFiles, List<World> validWorlds, int parallelism) throws Exception
+    {
+        ParsedClaim[] parsedClaims = new ParsedClaim[claimFiles.size()];
+        if (parallelism <= 1)
         {
-            Claim parent = this.getClaim(orphans.get(child));
-            if (parent != null)
+            for (int i = 0; i < parsedClaims.length; i++)
             {
-                child.parent = parent;
-                this.addClaim(child, false);
+                parsedClaims[i] = this.parseClaimFile(claimFiles.get(i), validWorlds);
             }
+            return parsedClaims;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            pool.submit(() -> IntStream.range(0, parsedClaims.length).parallel()
+                    .forEach(i -> parsedClaims[i] = this.parseClaimFile(claimFiles.get(i), validWorlds)))
+                    .get();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return parsedClaims;
+    }
+
+    private ParsedClaim parseClaimFile(ClaimFile claimFile, List<World> validWorlds)
+    {
+        try
+        {
+            ArrayList<Long> out_parentID = new ArrayList<>();  //hacky output parameter
+            Claim claim = this.loadClaim(claimFile.file(), out_parentID, claimFile.claimID(), validWorlds);
+            long parentID = out_parentID.isEmpty() ? -1 : out_parentID.get(0);
+            return new ParsedClaim(claimFile, claim, parentID, null);
+        }
+        catch (Exception e)
+        {
+            return new ParsedClaim(claimFile, null, -1, e);
         }
     }
 
     Claim loadClaim(File file, ArrayList<Long> out_parentID, long claimID) throws IOException, InvalidConfigurationException, Exception
+    {
+        return this.loadClaim(file, out_parentID, claimID, Bukkit.getServer().getWorlds());
+    }
+
+    Claim loadClaim(File file, ArrayList<Long> out_parentID, long claimID, List<World> validWorlds) throws IOException, InvalidConfigurationException, Exception
     {
         List<String> lines = Files.readLines(file, Charset.forName("UTF-8"));
         StringBuilder builder = new StringBuilder();
@@ -480,7 +574,7 @@ public class FlatFileDataStore extends DataStore
             builder.append(line).append('\n');
         }
 
-        return this.loadClaim(builder.toString(), out_parentID, file.lastModified(), claimID, Bukkit.getServer().getWorlds());
+        return this.loadClaim(builder.toString(), out_parentID, file.lastModified(), claimID, validWorlds);
     }
 
     Claim loadClaim(String input, ArrayList<Long> out_parentID, long lastModifiedDate, long claimID, List<World> validWorlds) throws InvalidConfigurationException, Exception
@@ -571,23 +665,27 @@ public class FlatFileDataStore extends DataStore
     {
         String claimID = String.valueOf(claim.id);
 
+        //snapshot the claim now, the write happens later on the storage writer
         String yaml = this.getYamlForClaim(claim);
 
-        try
+        this.queueWrite("claim:" + claimID, () ->
         {
-            //open the claim's file
-            File claimFile = new File(claimDataFolderPath + File.separator + claimID + ".yml");
-            claimFile.createNewFile();
-            Files.write(yaml.getBytes("UTF-8"), claimFile);
-        }
+            try
+            {
+                //open the claim's file
+                File claimFile = new File(claimDataFolderPath + File.separator + claimID + ".yml");
+                claimFile.createNewFile();
+                Files.write(yaml.getBytes("UTF-8"), claimFile);
+            }
 
-        //if any problem, log it
-        catch (Exception e)
-        {
-            StringWriter errors = new StringWriter();
-            e.printStackTrace(new PrintWriter(errors));
-            GriefPrevention.AddLogEntry(claimID + " " + errors.toString(), CustomLogEntryTypes.Exception);
-        }
+            //if any problem, log it
+            catch (Exception e)
+            {
+                StringWriter errors = new StringWriter();
+                e.printStackTrace(new PrintWriter(errors));
+                GriefPrevention.AddLogEntry(claimID + " " + errors.toString(), CustomLogEntryTypes.Exception);
+            }
+        });
     }
 
     //deletes a claim from the file system
@@ -596,16 +694,20 @@ public class FlatFileDataStore extends DataStore
     {
         String claimID = String.valueOf(claim.id);
 
-        //remove from disk
-        File claimFile = new File(claimDataFolderPath + File.separator + claimID + ".yml");
-        if (claimFile.exists() && !claimFile.delete())
+        //queued under the same key as writes, so a pending write for this claim is discarded rather than run after
+        this.queueWrite("claim:" + claimID, () ->
         {
-            GriefPrevention.AddLogEntry("Error: Unable to delete claim file \"" + claimFile.getAbsolutePath() + "\".");
-        }
+            //remove from disk
+            File claimFile = new File(claimDataFolderPath + File.separator + claimID + ".yml");
+            if (claimFile.exists() && !claimFile.delete())
+            {
+                GriefPrevention.AddLogEntry("Error: Unable to delete claim file \"" + claimFile.getAbsolutePath() + "\".");
+            }
+        });
     }
 
     @Override
-    synchronized PlayerData getPlayerDataFromStorage(UUID playerID)
+    PlayerData getPlayerDataFromStorage(UUID playerID)
     {
         File playerFile = new File(playerDataFolderPath + File.separator + playerID.toString());
 
@@ -717,9 +819,19 @@ public class FlatFileDataStore extends DataStore
             //fourth line is blank
             fileContent.append("\n");
 
-            //write data to file
+            //write data to a temporary file and move it into place, so that reads never see a partly written file
             File playerDataFile = new File(playerDataFolderPath + File.separator + playerID.toString());
-            Files.write(fileContent.toString().getBytes("UTF-8"), playerDataFile);
+            File tempFile = File.createTempFile("." + playerID + "-", ".tmp", playerDataFile.getParentFile());
+            try
+            {
+                Files.write(fileContent.toString().getBytes("UTF-8"), tempFile);
+                java.nio.file.Files.move(tempFile.toPath(), playerDataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                //only left behind if the write or move failed
+                tempFile.delete();
+            }
         }
 
         //if any problem, log it
@@ -733,8 +845,14 @@ public class FlatFileDataStore extends DataStore
     @Override
     synchronized void incrementNextClaimID()
     {
-        //increment in memory
-        this.nextClaimID++;
+        this.setNextClaimID(this.nextClaimID + 1);
+    }
+
+    @Override
+    synchronized void setNextClaimID(long nextID)
+    {
+        //update in memory
+        this.nextClaimID = nextID;
 
         BufferedWriter outStream = null;
 
@@ -798,22 +916,26 @@ public class FlatFileDataStore extends DataStore
         catch (IOException exception) {}
     }
 
-    synchronized void migrateData(DatabaseDataStore databaseStore)
+    //copies everything into another data store, then moves the flat files aside so the migration won't run again
+    //returns false if any of it failed to reach the other data store, leaving the flat files in place to migrate again
+    synchronized boolean migrateData(DataStore targetStore)
     {
+        long failedWrites = targetStore.getFailedWrites();
+
         //migrate claims
         for (Claim claim : this.claims)
         {
-            databaseStore.addClaim(claim, true);
+            targetStore.addClaim(claim, true);
             for (Claim child : claim.children)
             {
-                databaseStore.addClaim(child, true);
+                targetStore.addClaim(child, true);
             }
         }
 
         //migrate groups
         for (Map.Entry<String, Integer> groupEntry : this.permissionToBonusBlocksMap.entrySet())
         {
-            databaseStore.saveGroupBonusBlocks(groupEntry.getKey(), groupEntry.getValue());
+            targetStore.saveGroupBonusBlocks(groupEntry.getKey(), groupEntry.getValue());
         }
 
         //migrate players
@@ -830,16 +952,26 @@ public class FlatFileDataStore extends DataStore
             //ignore special files
             if (file.getName().startsWith("_")) continue;
             if (file.getName().endsWith(".ignore")) continue;
+            if (file.getName().endsWith(".tmp")) continue;
 
             UUID playerID = UUID.fromString(file.getName());
-            databaseStore.savePlayerData(playerID, this.getPlayerData(playerID));
+            targetStore.savePlayerData(playerID, this.getPlayerData(playerID));
             this.clearCachedPlayerData(playerID);
         }
 
         //migrate next claim ID
-        if (this.nextClaimID > databaseStore.nextClaimID)
+        if (this.nextClaimID > targetStore.nextClaimID)
+        {
+            targetStore.setNextClaimID(this.nextClaimID);
+        }
+
+        //the migrated data must be stored before the only other copy of it is moved aside
+        targetStore.flushWrites();
+        long failed = targetStore.getFailedWrites() - failedWrites;
+        if (failed > 0)
         {
-            databaseStore.setNextClaimID(this.nextClaimID);
+            GriefPrevention.AddLogEntry("Unable to migrate all data, " + failed + " writes failed.  Your file system data were left in place, the migration will run again on the next start.");
+            return false;
         }
 
         //rename player and claim data folders so the migration won't run again
@@ -867,10 +999,14 @@ public class FlatFileDataStore extends DataStore
         GriefPrevention.AddLogEntry("Backed your file system data up to " + claimsBackupFolder.getName() + " and " + playersBackupFolder.getName() + ".");
         GriefPrevention.AddLogEntry("If your migration encountered any problems, you can restore those data with a quick copy/paste.");
         GriefPrevention.AddLogEntry("When you're satisfied that all your data have been safely migrated, consider deleting those folders.");
+        return true;
     }
 
     @Override
-    synchronized void close() { }
+    void close()
+    {
+        this.closeWriteQueue();
+    }
 
     @Override
     int getSchemaVersionFromStorage()
@@ -936,4 +1072,12 @@ public class FlatFileDataStore extends DataStore
         catch (IOException exception) {}
 
     }
+
+    private record ClaimFile(File file, long claimID) {}
+
+    private record ParsedClaim(ClaimFile file, Claim claim, long parentID, Exception failure) {}
+
+    //the outcome and per-phase timing of loading claim files
+    record ClaimLoadStats(int files, int claims, int parallelism, long listNanos, long parseNanos, long linkNanos) {}
+
 }
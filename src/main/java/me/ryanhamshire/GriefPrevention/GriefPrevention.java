@@ -20,7 +20,10 @@ package me.ryanhamshire.GriefPrevention;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.griefprevention.commands.ClaimAreaAuditCommand;
 import com.griefprevention.commands.ClaimCommand;
+import com.griefprevention.commands.ClaimIndexStatsCommand;
+import com.griefprevention.commands.StorageQueueStatsCommand;
 import com.griefprevention.metrics.MetricsHandler;
 import com.griefprevention.protection.ProtectionHelper;
 import ltd.lemongaming.lgcore.libs.com.tcoded.folialib.FoliaLib;
@@ -234,9 +237,12 @@ public class GriefPrevention extends JavaPlugin
     public boolean config_advanced_fixNegativeClaimblockAmounts;    //whether to attempt to fix negative claim block amounts (some addons cause/assume players can go into negative amounts)
     public int config_advanced_claim_expiration_check_rate;            //How often GP should check for expired claims, amount in seconds
     public int config_advanced_offlineplayer_cache_days;            //Cache players who have logged in within the last x number of days
+    public boolean config_advanced_binaryDataStore;                 //whether to store data in a single binary log file instead of one file per claim and player
 
     //custom log settings
     public int config_logs_daysToKeep;
+    public int config_logs_maxFileSizeMB;
+    public boolean config_logs_compressRolledFiles;
     public boolean config_logs_socialEnabled;
     public boolean config_logs_suspiciousEnabled;
     public boolean config_logs_adminEnabled;
@@ -250,6 +256,7 @@ public class GriefPrevention extends JavaPlugin
     private String databaseUrl;
     private String databaseUserName;
     private String databasePassword;
+    private int databasePoolSize;
 
 
     //how far away to search from a tree trunk for its branch blocks
@@ -259,7 +266,7 @@ public class GriefPrevention extends JavaPlugin
     public static final int NOTIFICATION_SECONDS = 20;
 
     //adds a server log entry
-    public static synchronized void AddLogEntry(String entry, CustomLogEntryTypes customLogType, boolean excludeFromServerLogs)
+    public static void AddLogEntry(String entry, CustomLogEntryTypes customLogType, boolean excludeFromServerLogs)
     {
         if (customLogType != null && GriefPrevention.instance.customLogger != null)
         {
@@ -268,16 +275,113 @@ public class GriefPrevention extends JavaPlugin
         if (!excludeFromServerLogs) Bukkit.getConsoleSender().sendMessage(entry);
     }
 
-    public static synchronized void AddLogEntry(String entry, CustomLogEntryTypes customLogType)
+    public static void AddLogEntry(String entry, CustomLogEntryTypes customLogType)
     {
         AddLogEntry(entry, customLogType, false);
     }
 
-    public static synchronized void AddLogEntry(String entry)
+    public static void AddLogEntry(String entry)
     {
         AddLogEntry(entry, CustomLogEntryTypes.Debug);
     }
 
+    /**
+     * Check whether entries of a type are written to the abridged logs. Use this to skip work that only serves a log
+     * entry which would be discarded anyway.
+     *
+     * @param customLogType the type of entry
+     * @return true if entries of the type are logged
+     */
+    public static boolean isLogEnabled(@NotNull CustomLogEntryTypes customLogType)
+    {
+        CustomLogger customLogger = GriefPrevention.instance.customLogger;
+        return customLogger != null && customLogger.isEnabled(customLogType);
+    }
+
+    /**
+     * Add an entry to the abridged logs only. The entry is only built if entries of its type are logged.
+     *
+     * @param customLogType the type of entry
+     * @param entry the supplier of the entry
+     */
+    public static void AddLogEntry(@NotNull CustomLogEntryTypes customLogType, @NotNull Supplier<String> entry)
+    {
+        if (isLogEnabled(customLogType))
+        {
+            GriefPrevention.instance.customLogger.AddEntry(entry.get(), customLogType);
+        }
+    }
+
+    /**
+     * Add an entry to the abridged logs only. Each {@code {}} in the template is replaced by the argument, and the
+     * entry is only built if entries of its type are logged.
+     *
+     * @param customLogType the type of entry
+     * @param template the template of the entry
+     * @param argument the argument
+     */
+    public static void AddLogEntry(@NotNull CustomLogEntryTypes customLogType, @NotNull String template, @Nullable Object argument)
+    {
+        if (isLogEnabled(customLogType))
+        {
+            GriefPrevention.instance.customLogger.AddEntry(CustomLogger.format(template, argument), customLogType);
+        }
+    }
+
+    /**
+     * Add an entry to the abridged logs only. Each {@code {}} in the template is replaced by the next argument, and
+     * the entry is only built if entries of its type are logged.
+     *
+     * @param customLogType the type of entry
+     * @param template the template of the entry
+     * @param first the first argument
+     * @param second the second argument
+     */
+    public static void AddLogEntry(
+            @NotNull CustomLogEntryTypes customLogType,
+            @NotNull String template,
+            @Nullable Object first,
+            @Nullable Object second)
+    {
+        if (isLogEnabled(customLogType))
+        {
+            GriefPrevention.instance.customLogger.AddEntry(CustomLogger.format(template, first, second), customLogType);
+        }
+    }
+
+    /**
+     * Add an entry to the abridged logs only. Each {@code {}} in the template is replaced by the argument, which is
+     * only boxed if entries of its type are logged.
+     *
+     * @param customLogType the type of entry
+     * @param template the template of the entry
+     * @param argument the argument
+     */
+    public static void AddLogEntry(@NotNull CustomLogEntryTypes customLogType, @NotNull String template, long argument)
+    {
+        if (isLogEnabled(customLogType))
+        {
+            GriefPrevention.instance.customLogger.AddEntry(CustomLogger.format(template, argument), customLogType);
+        }
+    }
+
+    /**
+     * Add an entry to the abridged logs only. Each {@code {}} in the template is replaced by the next argument, and
+     * the arguments are only boxed if entries of its type are logged.
+     *
+     * @param customLogType the type of entry
+     * @param template the template of the entry
+     * @param first the first argument
+     * @param second the second argument
+     */
+    public static void AddLogEntry(@NotNull CustomLogEntryTypes customLogType, @NotNull String template, long first, long second)
+    {
+        if (isLogEnabled(customLogType))
+        {
+            GriefPrevention.instance.customLogger.AddEntry(CustomLogger.format(template, first, second), customLogType);
+        }
+    }
+
     //initializes well...   everything
     public void onEnable()
     {
@@ -297,15 +401,17 @@ public class GriefPrevention extends JavaPlugin
         {
             try
             {
-                DatabaseDataStore databaseStore = new DatabaseDataStore(this.databaseUrl, this.databaseUserName, this.databasePassword);
+                DatabaseDataStore databaseStore = new DatabaseDataStore(this.databaseUrl, this.databaseUserName, this.databasePassword, this.databasePoolSize);
 
                 if (FlatFileDataStore.hasData())
                 {
                     GriefPrevention.AddLogEntry("There appears to be some data on the hard drive.  Migrating those data to the database...");
                     FlatFileDataStore flatFileStore = new FlatFileDataStore();
                     this.dataStore = flatFileStore;
-                    flatFileStore.migrateData(databaseStore);
-                    GriefPrevention.AddLogEntry("Data migration process complete.");
+                    if (flatFileStore.migrateData(databaseStore))
+                    {
+                        GriefPrevention.AddLogEntry("Data migration process complete.");
+                    }
                 }
 
                 this.dataStore = databaseStore;
@@ -319,6 +425,36 @@ public class GriefPrevention extends JavaPlugin
             }
         }
 
+        //a single binary log file, migrating any existing flat file data into it
+        else if (this.config_advanced_binaryDataStore)
+        {
+            try
+            {
+                BinaryLogDataStore binaryStore = new BinaryLogDataStore();
+
+                if (FlatFileDataStore.hasData())
+                {
+                    GriefPrevention.AddLogEntry("There appears to be some data in the old file format.  Migrating those data to the binary data log...");
+                    FlatFileDataStore flatFileStore = new FlatFileDataStore();
+                    this.dataStore = flatFileStore;
+                    if (flatFileStore.migrateData(binaryStore))
+                    {
+                        GriefPrevention.AddLogEntry("Data migration process complete.");
+                    }
+                }
+
+                this.dataStore = binaryStore;
+            }
+            catch (Exception e)
+            {
+                GriefPrevention.AddLogEntry("Unable to initialize the binary data log.  Details:");
+                GriefPrevention.AddLogEntry(e.getMessage());
+                e.printStackTrace();
+                this.getServer().getPluginManager().disablePlugin(this);
+                return;
+            }
+        }
+
         //if not using the database because it's not configured or because there was a problem, use the file system to store data
         //this is the preferred method, as it's simpler than the database scenario
         if (this.dataStore == null)
@@ -347,7 +483,7 @@ public class GriefPrevention extends JavaPlugin
             }
         }
 
-        String dataMode = (this.dataStore instanceof FlatFileDataStore) ? "(File Mode)" : "(Database Mode)";
+        String dataMode = (this.dataStore instanceof FlatFileDataStore) ? "(File Mode)" : (this.dataStore instanceof BinaryLogDataStore) ? "(Binary Log Mode)" : "(Database Mode)";
         AddLogEntry("Finished loading data " + dataMode + ".");
 
         //unless claim block accrual is disabled, start the recurring per 10 minute event to give claim blocks to online players
@@ -394,7 +530,9 @@ public class GriefPrevention extends JavaPlugin
         Collection<Player> players = (Collection<Player>) GriefPrevention.instance.getServer().getOnlinePlayers();
         for (Player player : players)
         {
-            new IgnoreLoaderThread(player.getUniqueId(), this.dataStore.getPlayerData(player.getUniqueId()).ignoredPlayers).start();
+            PlayerData playerData = this.dataStore.getPlayerData(player.getUniqueId());
+            playerData.ignoresLoaded = true;
+            new IgnoreLoaderThread(player.getUniqueId(), playerData.ignoredPlayers).start();
         }
 
         setUpCommands();
@@ -695,9 +833,12 @@ public class GriefPrevention extends JavaPlugin
         this.config_advanced_fixNegativeClaimblockAmounts = config.getBoolean("GriefPrevention.Advanced.fixNegativeClaimblockAmounts", true);
         this.config_advanced_claim_expiration_check_rate = config.getInt("GriefPrevention.Advanced.ClaimExpirationCheckRate", 60);
         this.config_advanced_offlineplayer_cache_days = config.getInt("GriefPrevention.Advanced.OfflinePlayer_cache_days", 90);
+        this.config_advanced_binaryDataStore = config.getBoolean("GriefPrevention.Advanced.BinaryDataStore", false);
 
         //custom logger settings
         this.config_logs_daysToKeep = config.getInt("GriefPrevention.Abridged Logs.Days To Keep", 7);
+        this.config_logs_maxFileSizeMB = config.getInt("GriefPrevention.Abridged Logs.Max File Size MB", 16);
+        this.config_logs_compressRolledFiles = config.getBoolean("GriefPrevention.Abridged Logs.Compress Rolled Files", false);
         this.config_logs_socialEnabled = config.getBoolean("GriefPrevention.Abridged Logs.Included Entry Types.Social Activity", true);
         this.config_logs_suspiciousEnabled = config.getBoolean("GriefPrevention.Abridged Logs.Included Entry Types.Suspicious Activity", true);
         this.config_logs_adminEnabled = config.getBoolean("GriefPrevention.Abridged Logs.Included Entry Types.Administrative Activity", false);
@@ -823,9 +964,12 @@ public class GriefPrevention extends JavaPlugin
         outConfig.set("GriefPrevention.Advanced.fixNegativeClaimblockAmounts", this.config_advanced_fixNegativeClaimblockAmounts);
         outConfig.set("GriefPrevention.Advanced.ClaimExpirationCheckRate", this.config_advanced_claim_expiration_check_rate);
         outConfig.set("GriefPrevention.Advanced.OfflinePlayer_cache_days", this.config_advanced_offlineplayer_cache_days);
+        outConfig.set("GriefPrevention.Advanced.BinaryDataStore", this.config_advanced_binaryDataStore);
 
         //custom logger settings
         outConfig.set("GriefPrevention.Abridged Logs.Days To Keep", this.config_logs_daysToKeep);
+        outConfig.set("GriefPrevention.Abridged Logs.Max File Size MB", this.config_logs_maxFileSizeMB);
+        outConfig.set("GriefPrevention.Abridged Logs.Compress Rolled Files", this.config_logs_compressRolledFiles);
         outConfig.set("GriefPrevention.Abridged Logs.Included Entry Types.Social Activity", this.config_logs_socialEnabled);
         outConfig.set("GriefPrevention.Abridged Logs.Included Entry Types.Suspicious Activity", this.config_logs_suspiciousEnabled);
         outConfig.set("GriefPrevention.Abridged Logs.Included Entry Types.Administrative Activity", this.config_logs_adminEnabled);
@@ -895,6 +1039,7 @@ public class GriefPrevention extends JavaPlugin
                 databaseUrl = databaseProps.getProperty("jdbcUrl", "");
                 databaseUserName = databaseProps.getProperty("username", "");
                 databasePassword = databaseProps.getProperty("password", "");
+                databasePoolSize = parsePoolSize(databaseProps.getProperty("maximumPoolSize"));
             }
             catch (IOException e)
             {
@@ -909,6 +1054,7 @@ public class GriefPrevention extends JavaPlugin
         databaseUrl = legacyConfig.getString("GriefPrevention.Database.URL", "");
         databaseUserName = legacyConfig.getString("GriefPrevention.Database.UserName", "");
         databasePassword = legacyConfig.getString("GriefPrevention.Database.Password", "");
+        databasePoolSize = DatabaseDataStore.DEFAULT_POOL_SIZE;
 
         // If not in use already, database settings are "secret" to discourage adoption until datastore is rewritten.
         if (databaseUrl.isBlank()) {
@@ -919,6 +1065,7 @@ public class GriefPrevention extends JavaPlugin
         databaseProps.setProperty("jdbcUrl", databaseUrl);
         databaseProps.setProperty("username", databaseUserName);
         databaseProps.setProperty("password", databasePassword);
+        databaseProps.setProperty("maximumPoolSize", String.valueOf(databasePoolSize));
 
         // Write properties file for future usage.
         try (FileWriter writer = new FileWriter(databasePropsFile, StandardCharsets.UTF_8))
@@ -931,6 +1078,21 @@ public class GriefPrevention extends JavaPlugin
         }
     }
 
+    private int parsePoolSize(@Nullable String poolSize)
+    {
+        if (poolSize == null || poolSize.isBlank()) return DatabaseDataStore.DEFAULT_POOL_SIZE;
+
+        try
+        {
+            return Math.max(1, Integer.parseInt(poolSize.trim()));
+        }
+        catch (NumberFormatException e)
+        {
+            getLogger().warning("Invalid maximumPoolSize in database.properties: " + poolSize);
+            return DatabaseDataStore.DEFAULT_POOL_SIZE;
+        }
+    }
+
     private ClaimsMode configStringToClaimsMode(String configSetting)
     {
         if (configSetting.equalsIgnoreCase("Survival"))
@@ -958,6 +1120,9 @@ public class GriefPrevention extends JavaPlugin
     private void setUpCommands()
     {
         new ClaimCommand(this);
+        new ClaimIndexStatsCommand(this);
+        new ClaimAreaAuditCommand(this);
+        new StorageQueueStatsCommand(this);
     }
 
     //handles slash commands
@@ -1127,6 +1292,7 @@ public class GriefPrevention extends JavaPlugin
             PlayerData playerData = this.dataStore.getPlayerData(player.getUniqueId());
 
             playerData.ignoreClaims = !playerData.ignoreClaims;
+            this.dataStore.permissionCache.bumpPlayerEpoch(player.getUniqueId());
 
             //toggle ignore claims mode on or off
             if (!playerData.ignoreClaims)
@@ -1418,7 +1584,6 @@ public class GriefPrevention extends JavaPlugin
                     else
                     {
                         claim.dropPermission(idToDrop);
-                        claim.managers.remove(idToDrop);
                     }
 
                     //save changes
@@ -1481,7 +1646,7 @@ public class GriefPrevention extends JavaPlugin
                     {
                         idToDrop = otherPlayer.getUniqueId().toString();
                     }
-                    boolean targetIsManager = claim.managers.contains(idToDrop);
+                    boolean targetIsManager = claim.isManager(idToDrop);
                     if (targetIsManager && claim.checkPermission(player, ClaimPermission.Edit, null) != null)  //only claim owners can untrust managers
                     {
                         GriefPrevention.sendMessage(player, TextMode.Err, Messages.ManagersDontUntrustManagers, claim.getOwnerName());
@@ -2506,9 +2671,9 @@ public class GriefPrevention extends JavaPlugin
         {
             if (permissionLevel == null)
             {
-                if (!currentClaim.managers.contains(identifierToAdd))
+                if (!currentClaim.isManager(identifierToAdd))
                 {
-                    currentClaim.managers.add(identifierToAdd);
+                    currentClaim.setPermission(identifierToAdd, ClaimPermission.Manage);
                 }
             }
             else
@@ -2738,13 +2903,14 @@ public class GriefPrevention extends JavaPlugin
         {
             UUID playerID = player.getUniqueId();
             PlayerData playerData = this.dataStore.getPlayerData(playerID);
-            this.dataStore.savePlayerDataSync(playerID, playerData);
+            this.dataStore.savePlayerData(playerID, playerData);
         }
 
+        //writes everything still queued before releasing storage
         this.dataStore.close();
 
         //dump any remaining unwritten log entries
-        this.customLogger.WriteEntries();
+        this.customLogger.close();
 
         AddLogEntry("GriefPrevention disabled.");
     }
@@ -2894,10 +3060,16 @@ public class GriefPrevention extends JavaPlugin
 
     //determines whether creative anti-grief rules apply at a location
     public boolean creativeRulesApply(@NotNull Location location)
+    {
+        return this.creativeRulesApply(location.getWorld());
+    }
+
+    //determines whether creative anti-grief rules apply in a world
+    public boolean creativeRulesApply(@Nullable World world)
     {
         if (!this.config_creativeWorldsExist) return false;
 
-        return this.config_claims_worldModes.get(location.getWorld()) == ClaimsMode.Creative;
+        return this.config_claims_worldModes.get(world) == ClaimsMode.Creative;
     }
 
     /**
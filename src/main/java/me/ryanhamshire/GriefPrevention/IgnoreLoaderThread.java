@@ -24,7 +24,13 @@ class IgnoreLoaderThread extends Thread
     @Override
     public void run()
     {
-        File ignoreFile = new File(DataStore.playerDataFolderPath + File.separator + this.playerToLoad + ".ignore");
+        loadIgnores(this.playerToLoad, this.destinationMap);
+    }
+
+    //reads a player's ignore list on the calling thread
+    static void loadIgnores(UUID playerToLoad, ConcurrentHashMap<UUID, Boolean> destinationMap)
+    {
+        File ignoreFile = new File(DataStore.playerDataFolderPath + File.separator + playerToLoad + ".ignore");
 
         //if the file doesn't exist, there's nothing to do here
         if (!ignoreFile.exists()) return;
@@ -53,7 +59,7 @@ class IgnoreLoaderThread extends Thread
                     try
                     {
                         UUID ignoredUUID = UUID.fromString(line);
-                        this.destinationMap.put(ignoredUUID, adminIgnore);
+                        destinationMap.put(ignoredUUID, adminIgnore);
                     }
                     catch (IllegalArgumentException e) {}  //if a bad UUID, ignore the line
                 }
@@ -0,0 +1,195 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.PistonMoveReaction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The blocks affected by a piston, packed into a primitive array.
+ *
+ * <p>This holds every moved block and every position a block moves into, along with the bounding box of the moved
+ * blocks extended by one in the direction of movement. Testing them against a claim's bounds never allocates.</p>
+ */
+final class PistonMovement
+{
+
+    // Positions are packed the same way as Minecraft's block positions: 26 bits of X, 26 bits of Z, 12 bits of Y.
+    private static final int HORIZONTAL_BITS = 26;
+    private static final int VERTICAL_BITS = 12;
+
+    private final long[] positions;
+    private final int size;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    /**
+     * Construct a new {@code PistonMovement}.
+     *
+     * @param blocks the blocks moved by the piston, not empty
+     * @param direction the direction of movement
+     */
+    PistonMovement(@NotNull List<Block> blocks, @NotNull BlockFace direction)
+    {
+        int modX = direction.getModX();
+        int modY = direction.getModY();
+        int modZ = direction.getModZ();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        long[] positions = new long[blocks.size() * 2];
+        int size = 0;
+        for (Block block : blocks)
+        {
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+
+            positions[size++] = pack(x, y, z);
+            // Blocks which break don't occupy their destination.
+            if (block.getPistonMoveReaction() != PistonMoveReaction.BREAK)
+                positions[size++] = pack(x + modX, y + modY, z + modZ);
+        }
+
+        // Expand to include the invaded zone.
+        if (modX > 0) maxX += modX; else minX += modX;
+        if (modY > 0) maxY += modY; else minY += modY;
+        if (modZ > 0) maxZ += modZ; else minZ += modZ;
+
+        this.positions = positions;
+        this.size = size;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Check whether the moved blocks form a single vertical column.
+     *
+     * @return true if the affected area is one block wide on both horizontal axes
+     */
+    boolean isVerticalLine()
+    {
+        return this.minX == this.maxX && this.minZ == this.maxZ;
+    }
+
+    /**
+     * Check whether the entire affected area is inside a claim.
+     *
+     * @param bounds the claim's bounds
+     * @return true if the bounds contain the affected area
+     */
+    boolean isWithin(@NotNull Claim.Bounds bounds)
+    {
+        return bounds.minX() <= this.minX && this.maxX <= bounds.maxX()
+                && bounds.minY() <= this.minY && this.maxY <= bounds.maxY()
+                && bounds.minZ() <= this.minZ && this.maxZ <= bounds.maxZ();
+    }
+
+    /**
+     * Check whether a claim overlaps the affected area at all.
+     *
+     * @param bounds the claim's bounds
+     * @return true if the bounds intersect the affected area
+     */
+    boolean intersects(@NotNull Claim.Bounds bounds)
+    {
+        return bounds.minX() <= this.maxX && this.minX <= bounds.maxX()
+                && bounds.minY() <= this.maxY && this.minY <= bounds.maxY()
+                && bounds.minZ() <= this.maxZ && this.minZ <= bounds.maxZ();
+    }
+
+    /**
+     * Check whether a claim contains any moved block or any position a block moves into.
+     *
+     * @param bounds the claim's bounds
+     * @return true if an affected position is inside the bounds
+     */
+    boolean anyWithin(@NotNull Claim.Bounds bounds)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            long position = this.positions[i];
+            int x = unpackX(position);
+            int y = unpackY(position);
+            int z = unpackZ(position);
+            if (bounds.minX() <= x && x <= bounds.maxX()
+                    && bounds.minY() <= y && y <= bounds.maxY()
+                    && bounds.minZ() <= z && z <= bounds.maxZ())
+                return true;
+        }
+
+        return false;
+    }
+
+    int getMinChunkX()
+    {
+        return this.minX >> 4;
+    }
+
+    int getMinChunkZ()
+    {
+        return this.minZ >> 4;
+    }
+
+    int getMaxChunkX()
+    {
+        return this.maxX >> 4;
+    }
+
+    int getMaxChunkZ()
+    {
+        return this.maxZ >> 4;
+    }
+
+    static long pack(int x, int y, int z)
+    {
+        return ((long) x & ((1L << HORIZONTAL_BITS) - 1)) << (HORIZONTAL_BITS + VERTICAL_BITS)
+                | ((long) z & ((1L << HORIZONTAL_BITS) - 1)) << VERTICAL_BITS
+                | ((long) y & ((1L << VERTICAL_BITS) - 1));
+    }
+
+    static int unpackX(long position)
+    {
+        return (int) (position >> (HORIZONTAL_BITS + VERTICAL_BITS));
+    }
+
+    static int unpackY(long position)
+    {
+        return (int) (position << (Long.SIZE - VERTICAL_BITS) >> (Long.SIZE - VERTICAL_BITS));
+    }
+
+    static int unpackZ(long position)
+    {
+        return (int) (position << HORIZONTAL_BITS >> (HORIZONTAL_BITS + VERTICAL_BITS));
+    }
+
+}
@@ -126,6 +126,9 @@ public class PlayerData
     public ConcurrentHashMap<UUID, Boolean> ignoredPlayers = new ConcurrentHashMap<>();
     public boolean ignoreListChanged = false;
 
+    //whether the ignore list has been read from storage, or is being read by a loader thread
+    volatile boolean ignoresLoaded = false;
+
     //profanity warning, once per play session
     boolean profanityWarned = false;
 
@@ -150,14 +153,12 @@ public class PlayerData
     //the number of claim blocks a player has available for claiming land
     public int getRemainingClaimBlocks()
     {
-        int remainingBlocks = this.getAccruedClaimBlocks() + this.getBonusClaimBlocks() + GriefPrevention.instance.dataStore.getGroupBonusBlocks(this.playerID);
-        for (int i = 0; i < this.getClaims().size(); i++)
-        {
-            Claim claim = this.getClaims().get(i);
-            remainingBlocks -= claim.getArea();
-        }
+        //make sure claims are loaded, which may grant blocks to cover claimed land
+        this.getClaims();
 
-        return remainingBlocks;
+        DataStore dataStore = GriefPrevention.instance.dataStore;
+        return this.getAccruedClaimBlocks() + this.getBonusClaimBlocks() + dataStore.getGroupBonusBlocks(this.playerID)
+                - dataStore.getClaimedArea(this.playerID);
     }
 
     //don't load data from secondary storage until it's needed
@@ -204,8 +205,17 @@ public class PlayerData
         this.bonusClaimBlocks = bonusClaimBlocks;
     }
 
-    private void loadDataFromSecondaryStorage()
+    //whether everything read lazily from secondary storage is already in memory
+    boolean isLoadedFromStorage()
     {
+        return this.accruedClaimBlocks != null && this.bonusClaimBlocks != null && this.ignoresLoaded;
+    }
+
+    synchronized void loadDataFromSecondaryStorage()
+    {
+        //another thread may have loaded it while this one waited
+        if (this.accruedClaimBlocks != null && this.bonusClaimBlocks != null) return;
+
         //reach out to secondary storage to get any data there
         PlayerData storageData = GriefPrevention.instance.dataStore.getPlayerDataFromStorage(this.playerID);
 
@@ -248,31 +258,12 @@ public class PlayerData
             this.claims = new Vector<>();
 
             //find all the claims belonging to this player and note them for future reference
-            DataStore dataStore = GriefPrevention.instance.dataStore;
             int totalClaimsArea = 0;
-            for (int i = 0; i < dataStore.claims.size(); i++)
+            for (Claim claim : GriefPrevention.instance.dataStore.getClaimsOwnedBy(this.playerID))
             {
-                Claim claim = dataStore.claims.get(i);
-                if (!claim.inDataStore)
-                {
-                    Claim remove = dataStore.claims.remove(i--);
-                    dataStore.claimIDMap.remove(remove.getID());
-                    for (Claim child : remove.children)
-                    {
-                        dataStore.claimIDMap.remove(child.getID());
-                    }
-                    continue;
-                }
-                if (playerID.equals(claim.ownerID))
-                {
-                    this.claims.add(claim);
-                    dataStore.claimIDMap.put(claim.getID(), claim);
-                    for (Claim child : claim.children)
-                    {
-                        dataStore.claimIDMap.put(child.getID(), child);
-                    }
-                    totalClaimsArea += claim.getArea();
-                }
+                if (!claim.inDataStore) continue;
+                this.claims.add(claim);
+                totalClaimsArea += claim.getArea();
             }
 
             //ensure player has claim blocks for his claims, and at least the minimum accrued
@@ -283,41 +274,44 @@ public class PlayerData
             if (GriefPrevention.instance.config_advanced_fixNegativeClaimblockAmounts && totalBlocks < totalClaimsArea)
             {
                 OfflinePlayer player = GriefPrevention.instance.getServer().getOfflinePlayer(this.playerID);
-                GriefPrevention.AddLogEntry(player.getName() + " has more claimed land than blocks available.  Adding blocks to fix.", CustomLogEntryTypes.Debug, true);
-                GriefPrevention.AddLogEntry(player.getName() + " Accrued blocks: " + this.getAccruedClaimBlocks() + " Bonus blocks: " + this.getBonusClaimBlocks(), CustomLogEntryTypes.Debug, true);
-                GriefPrevention.AddLogEntry("Total blocks: " + totalBlocks + " Total claimed area: " + totalClaimsArea, CustomLogEntryTypes.Debug, true);
-                for (Claim claim : this.claims)
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "{} has more claimed land than blocks available.  Adding blocks to fix.", player.getName());
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () -> player.getName() + " Accrued blocks: " + this.getAccruedClaimBlocks() + " Bonus blocks: " + this.getBonusClaimBlocks());
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Total blocks: {} Total claimed area: {}", totalBlocks, totalClaimsArea);
+                if (GriefPrevention.isLogEnabled(CustomLogEntryTypes.Debug))
                 {
-                    if (!claim.inDataStore) continue;
-                    GriefPrevention.AddLogEntry(
-                            GriefPrevention.getfriendlyLocationString(claim.getLesserBoundaryCorner()) + " // "
-                                    + GriefPrevention.getfriendlyLocationString(claim.getGreaterBoundaryCorner()) + " = "
-                                    + claim.getArea()
-                            , CustomLogEntryTypes.Debug, true);
+                    for (Claim claim : this.claims)
+                    {
+                        if (!claim.inDataStore) continue;
+                        GriefPrevention.AddLogEntry(
+                                GriefPrevention.getfriendlyLocationString(claim.getLesserBoundaryCorner()) + " // "
+                                        + GriefPrevention.getfriendlyLocationString(claim.getGreaterBoundaryCorner()) + " = "
+                                        + claim.getArea()
+                                , CustomLogEntryTypes.Debug, true);
+                    }
                 }
 
                 //try to fix it by adding to accrued blocks
                 this.accruedClaimBlocks = totalClaimsArea; //Set accrued blocks to equal total claims
                 int accruedLimit = this.getAccruedClaimBlocksLimit();
                 this.accruedClaimBlocks = Math.min(accruedLimit, this.accruedClaimBlocks); //set accrued blocks to maximum limit, if it's smaller
-                GriefPrevention.AddLogEntry("New accrued blocks: " + this.accruedClaimBlocks, CustomLogEntryTypes.Debug, true);
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "New accrued blocks: {}", this.accruedClaimBlocks);
 
                 //Recalculate total blocks (accrued + bonus + permission group bonus)
                 totalBlocks = this.accruedClaimBlocks + this.getBonusClaimBlocks() + GriefPrevention.instance.dataStore.getGroupBonusBlocks(this.playerID);
-                GriefPrevention.AddLogEntry("New total blocks: " + totalBlocks, CustomLogEntryTypes.Debug, true);
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "New total blocks: {}", totalBlocks);
 
                 //if that didn't fix it, then make up the difference with bonus blocks
                 if (totalBlocks < totalClaimsArea)
                 {
                     int bonusBlocksToAdd = totalClaimsArea - totalBlocks;
                     this.bonusClaimBlocks += bonusBlocksToAdd;
-                    GriefPrevention.AddLogEntry("Accrued blocks weren't enough. Adding " + bonusBlocksToAdd + " bonus blocks.", CustomLogEntryTypes.Debug, true);
+                    GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Accrued blocks weren't enough. Adding {} bonus blocks.", bonusBlocksToAdd);
                 }
-                GriefPrevention.AddLogEntry(player.getName() + " Accrued blocks: " + this.getAccruedClaimBlocks() + " Bonus blocks: " + this.getBonusClaimBlocks() + " Group Bonus Blocks: " + GriefPrevention.instance.dataStore.getGroupBonusBlocks(this.playerID), CustomLogEntryTypes.Debug, true);
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () -> player.getName() + " Accrued blocks: " + this.getAccruedClaimBlocks() + " Bonus blocks: " + this.getBonusClaimBlocks() + " Group Bonus Blocks: " + GriefPrevention.instance.dataStore.getGroupBonusBlocks(this.playerID));
                 //Recalculate total blocks (accrued + bonus + permission group bonus)
                 totalBlocks = this.accruedClaimBlocks + this.getBonusClaimBlocks() + GriefPrevention.instance.dataStore.getGroupBonusBlocks(this.playerID);
-                GriefPrevention.AddLogEntry("Total blocks: " + totalBlocks + " Total claimed area: " + totalClaimsArea, CustomLogEntryTypes.Debug, true);
-                GriefPrevention.AddLogEntry("Remaining claim blocks to use: " + this.getRemainingClaimBlocks() + " (should be 0)", CustomLogEntryTypes.Debug, true);
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Total blocks: {} Total claimed area: {}", totalBlocks, totalClaimsArea);
+                GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Remaining claim blocks to use: {} (should be 0)", this.getRemainingClaimBlocks());
             }
         }
 
@@ -19,6 +19,7 @@
 package me.ryanhamshire.GriefPrevention;
 
 import com.griefprevention.protection.ProtectionHelper;
+import com.griefprevention.util.command.CommandClassifier;
 import com.griefprevention.util.command.MonitorableCommand;
 import com.griefprevention.util.command.MonitoredCommands;
 import com.griefprevention.visualization.BoundaryVisualization;
@@ -62,6 +63,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerBucketEmptyEvent;
 import org.bukkit.event.player.PlayerBucketFillEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
@@ -105,7 +107,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
@@ -120,18 +124,26 @@ class PlayerEventHandler implements Listener
     //number of milliseconds in a day
     private final long MILLISECONDS_IN_DAY = 1000 * 60 * 60 * 24;
 
+    //longest a login waits for another thread already reading the same player's data
+    private static final long PREFETCH_TIMEOUT_SECONDS = 10;
+    //how long a player may take from pre-login to joining before data loaded for them is dropped again
+    private static final long PENDING_JOIN_TIMEOUT_SECONDS = 120;
+
     //timestamps of login and logout notifications in the last minute
     private final ArrayList<Long> recentLoginLogoutNotifications = new ArrayList<>();
 
     //regex pattern for the "how do i claim land?" scanner
-    private Pattern howToClaimPattern = null;
+    private volatile Pattern howToClaimPattern = null;
 
     //matcher for banned words
-    private WordFinder bannedWordFinder;
-    private MonitoredCommands pvpBlockedCommands;
-    private MonitoredCommands accessTrustCommands;
-    private MonitoredCommands chatCommands;
-    private MonitoredCommands whisperCommands;
+    private volatile WordFinder bannedWordFinder;
+    //monitored commands, checked in a single pass
+    //bits in the order the command lists are passed to the classifier
+    private static final int WHISPER_COMMAND = 1;
+    private static final int CHAT_COMMAND = 1 << 1;
+    private static final int PVP_BLOCKED_COMMAND = 1 << 2;
+    private static final int ACCESS_TRUST_COMMAND = 1 << 3;
+    private volatile CommandClassifier commandClassifier;
 
     //spam tracker
     SpamDetector spamDetector = new SpamDetector();
@@ -146,10 +158,7 @@ class PlayerEventHandler implements Listener
         this.instance = plugin;
         // Initialize empty on load so never null just in case. Reload after plugins enable.
         this.bannedWordFinder = new WordFinder(List.of());
-        this.pvpBlockedCommands = new MonitoredCommands(List.of());
-        this.accessTrustCommands = new MonitoredCommands(List.of());
-        this.chatCommands = new MonitoredCommands(List.of());
-        this.whisperCommands = new MonitoredCommands(List.of());
+        this.commandClassifier = new CommandClassifier(List.of());
 
         spawnEggs = new HashSet<>();
         dyes = new HashSet<>();
@@ -168,15 +177,17 @@ class PlayerEventHandler implements Listener
     {
         this.howToClaimPattern = null;
         this.bannedWordFinder = new WordFinder(instance.dataStore.loadBannedWords());
-        this.pvpBlockedCommands = new MonitoredCommands(instance.config_pvp_blockedCommands);
-        this.accessTrustCommands = new MonitoredCommands(instance.config_claims_commandsRequiringAccessTrust);
-        this.chatCommands = new MonitoredCommands(instance.config_spam_monitorSlashCommands);
-        this.whisperCommands = new MonitoredCommands(instance.config_eavesdrop_whisperCommands);
+        this.commandClassifier = new CommandClassifier(List.of(
+                new MonitoredCommands(instance.config_eavesdrop_whisperCommands),
+                new MonitoredCommands(instance.config_spam_monitorSlashCommands),
+                new MonitoredCommands(instance.config_pvp_blockedCommands),
+                new MonitoredCommands(instance.config_claims_commandsRequiringAccessTrust)));
     }
 
     //when a player chats, monitor for spam
+    //called concurrently from async chat threads, so everything this touches must be thread safe
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    synchronized void onPlayerChat(AsyncPlayerChatEvent event)
+    void onPlayerChat(AsyncPlayerChatEvent event)
     {
         Player player = event.getPlayer();
         if (!player.isOnline())
@@ -298,12 +309,14 @@ class PlayerEventHandler implements Listener
     {
         //FEATURE: automatically educate players about claiming land
         //watching for message format how*claim*, and will send a link to the basics video
-        if (this.howToClaimPattern == null)
+        Pattern howToClaimPattern = this.howToClaimPattern;
+        if (howToClaimPattern == null)
         {
-            this.howToClaimPattern = Pattern.compile(this.dataStore.getMessage(Messages.HowToClaimRegex), Pattern.CASE_INSENSITIVE);
+            howToClaimPattern = Pattern.compile(this.dataStore.getMessage(Messages.HowToClaimRegex), Pattern.CASE_INSENSITIVE);
+            this.howToClaimPattern = howToClaimPattern;
         }
 
-        if (this.howToClaimPattern.matcher(message).matches())
+        if (howToClaimPattern.matcher(message).matches())
         {
             if (instance.creativeRulesApply(player.getLocation()))
             {
@@ -409,14 +422,14 @@ class PlayerEventHandler implements Listener
         {
             //warn and log
             GriefPrevention.sendMessage(player, TextMode.Warn, instance.config_spam_warningMessage, 10L);
-            GriefPrevention.AddLogEntry("Warned " + player.getName() + " about spam penalties.", CustomLogEntryTypes.Debug, true);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Warned {} about spam penalties.", player.getName());
         }
 
         if (result.muteReason != null)
         {
             //mute and log
             GriefPrevention.AddLogEntry("Muted " + result.muteReason + ".");
-            GriefPrevention.AddLogEntry("Muted " + player.getName() + " " + result.muteReason + ":" + message, CustomLogEntryTypes.Debug, true);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () -> "Muted " + player.getName() + " " + result.muteReason + ":" + message);
 
             return true;
         }
@@ -425,18 +438,20 @@ class PlayerEventHandler implements Listener
     }
 
     //when a player uses a slash command...
+    //may be called from several region threads at once, so everything this touches must be thread safe
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    synchronized void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event)
+    void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event)
     {
-        MonitorableCommand command = new MonitorableCommand(event.getMessage());
+        int classification = this.commandClassifier.classify(event.getMessage());
 
-        CommandCategory category = this.getCommandCategory(command);
+        CommandCategory category = getCommandCategory(classification);
 
         Player player = event.getPlayer();
         PlayerData playerData = null;
 
         //if a whisper
-        if (category == CommandCategory.Whisper && command.getArgumentCount() > 1)
+        MonitorableCommand command = category == CommandCategory.Whisper ? new MonitorableCommand(event.getMessage()) : null;
+        if (command != null && command.getArgumentCount() > 1)
         {
             //determine target player, might be NULL
 
@@ -496,7 +511,7 @@ class PlayerEventHandler implements Listener
         //if in pvp, block any pvp-banned slash commands
         if (playerData == null) playerData = this.dataStore.getPlayerData(event.getPlayer().getUniqueId());
 
-        if ((playerData.inPvpCombat()) && pvpBlockedCommands.isMonitoredCommand(command))
+        if ((playerData.inPvpCombat()) && (classification & PVP_BLOCKED_COMMAND) != 0)
         {
             event.setCancelled(true);
             GriefPrevention.sendMessage(event.getPlayer(), TextMode.Err, Messages.CommandBannedInPvP);
@@ -533,7 +548,7 @@ class PlayerEventHandler implements Listener
         }
 
         //if requires access trust, check for permission
-        if (accessTrustCommands.isMonitoredCommand(command))
+        if ((classification & ACCESS_TRUST_COMMAND) != 0)
         {
             Claim claim = this.dataStore.getClaimAt(player.getLocation(), false, playerData.lastClaim);
             if (claim != null)
@@ -549,10 +564,10 @@ class PlayerEventHandler implements Listener
         }
     }
 
-    private CommandCategory getCommandCategory(MonitorableCommand command)
+    private static CommandCategory getCommandCategory(int classification)
     {
-        if (whisperCommands.isMonitoredCommand(command)) return CommandCategory.Whisper;
-        if (chatCommands.isMonitoredCommand(command)) return CommandCategory.Chat;
+        if ((classification & WHISPER_COMMAND) != 0) return CommandCategory.Whisper;
+        if ((classification & CHAT_COMMAND) != 0) return CommandCategory.Chat;
         return CommandCategory.None;
     }
 
@@ -574,6 +589,39 @@ class PlayerEventHandler implements Listener
 
     private final ConcurrentHashMap<UUID, Date> lastLoginThisServerSessionMap = new ConcurrentHashMap<>();
 
+    //players whose data was loaded before login but who haven't joined yet, with the login attempt it was loaded for
+    private final ConcurrentHashMap<UUID, Object> pendingJoins = new ConcurrentHashMap<>();
+
+    //before a player logs in, read his data from storage on the login thread so that joining never waits on storage
+    @EventHandler(priority = EventPriority.MONITOR)
+    void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event)
+    {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        //if the player never joins, drop the data again
+        UUID playerID = event.getUniqueId();
+        Object attempt = new Object();
+        this.pendingJoins.put(playerID, attempt);
+        GriefPrevention.scheduler.getImpl().runLater(() ->
+        {
+            if (this.pendingJoins.remove(playerID, attempt)) this.dropUnusedPlayerData(playerID);
+        }, PENDING_JOIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        try
+        {
+            this.dataStore.prefetchPlayerData(playerID).get(PREFETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException | TimeoutException e)
+        {
+            //anything not loaded yet is read on first use instead
+            GriefPrevention.AddLogEntry("Unable to load data for " + playerID + " before login: " + e, CustomLogEntryTypes.Exception);
+        }
+    }
+
     //when a player attempts to join the server...
     @EventHandler(priority = EventPriority.HIGHEST)
     void onPlayerLogin(PlayerLoginEvent event)
@@ -621,6 +669,25 @@ class PlayerEventHandler implements Listener
         playerData.ipAddress = event.getAddress();
     }
 
+    //after every other plugin has had its say, forget data loaded for a login which was refused
+    @EventHandler(priority = EventPriority.MONITOR)
+    void onPlayerLoginResult(PlayerLoginEvent event)
+    {
+        if (event.getResult() == Result.ALLOWED) return;
+
+        UUID playerID = event.getPlayer().getUniqueId();
+        this.pendingJoins.remove(playerID);
+        this.dropUnusedPlayerData(playerID);
+    }
+
+    //drops cached data for a player who didn't make it onto the server, unless another session of theirs is online
+    private void dropUnusedPlayerData(UUID playerID)
+    {
+        if (instance.getServer().getPlayer(playerID) != null) return;
+
+        this.dataStore.clearCachedPlayerData(playerID);
+    }
+
     //when a player successfully joins the server...
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)
@@ -628,6 +695,7 @@ class PlayerEventHandler implements Listener
     {
         Player player = event.getPlayer();
         UUID playerID = player.getUniqueId();
+        this.pendingJoins.remove(playerID);
 
         //note login time
         Date nowDate = new Date();
@@ -636,6 +704,9 @@ class PlayerEventHandler implements Listener
         playerData.lastSpawn = now;
         this.lastLoginThisServerSessionMap.put(playerID, nowDate);
 
+        //permissions may have changed while the player was away
+        this.dataStore.permissionCache.bumpPlayerEpoch(playerID);
+
         //if newish, prevent chat until he's moved a bit to prove he's not a bot
         if (GriefPrevention.isNewToServer(player) && !player.hasPermission("griefprevention.premovementchat"))
         {
@@ -766,8 +837,12 @@ class PlayerEventHandler implements Listener
             }
         }
 
-        //create a thread to load ignore information
-        new IgnoreLoaderThread(playerID, playerData.ignoredPlayers).start();
+        //create a thread to load ignore information, unless it was already loaded before login
+        if (!playerData.ignoresLoaded)
+        {
+            playerData.ignoresLoaded = true;
+            new IgnoreLoaderThread(playerID, playerData.ignoredPlayers).start();
+        }
 
         //is he stuck in a portal frame?
         if (player.hasMetadata("GP_PORTALRESCUE"))
@@ -868,6 +943,8 @@ class PlayerEventHandler implements Listener
         PlayerData playerData = this.dataStore.getPlayerData(playerID);
         boolean isBanned;
 
+        this.dataStore.permissionCache.forgetPlayer(playerID);
+
         //If player is not trapped in a portal and has a pending rescue task, remove the associated metadata
         //Why 9? No idea why, but this is decremented by 1 when the player disconnects.
         if (player.getPortalCooldown() < 9)
@@ -1367,7 +1444,7 @@ class PlayerEventHandler implements Listener
 
         //if the bucket is being used in a claim, allow for dumping lava closer to other players
         PlayerData playerData = this.dataStore.getPlayerData(player.getUniqueId());
-        Claim claim = this.dataStore.getClaimAt(block.getLocation(), false, playerData.lastClaim);
+        Claim claim = this.dataStore.getClaimAt(block.getWorld(), block.getX(), block.getY(), block.getZ(), false, playerData.lastClaim);
         if (claim != null)
         {
             minLavaDistance = 3;
@@ -1528,7 +1605,7 @@ class PlayerEventHandler implements Listener
             if (clickedBlockType != Material.TURTLE_EGG)
                 return;
             playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 playerData.lastClaim = claim;
@@ -1589,7 +1666,7 @@ class PlayerEventHandler implements Listener
             }
 
             //otherwise check permissions for the claim the player is in
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 playerData.lastClaim = claim;
@@ -1626,7 +1703,7 @@ class PlayerEventHandler implements Listener
                 instance.config_claims_lockFenceGates && Tag.FENCE_GATES.isTagged(clickedBlockType)))
         {
             if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 playerData.lastClaim = claim;
@@ -1645,7 +1722,7 @@ class PlayerEventHandler implements Listener
         else if (clickedBlock != null && instance.config_claims_preventButtonsSwitches && (Tag.BUTTONS.isTagged(clickedBlockType) || clickedBlockType == Material.LEVER))
         {
             if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 playerData.lastClaim = claim;
@@ -1664,7 +1741,7 @@ class PlayerEventHandler implements Listener
         else if (clickedBlock != null && instance.config_claims_preventTheft && (clickedBlockType == Material.CAKE || Tag.CANDLE_CAKES.isTagged(clickedBlockType)))
         {
             if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 playerData.lastClaim = claim;
@@ -1693,7 +1770,7 @@ class PlayerEventHandler implements Listener
                 ))
         {
             if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
             if (claim != null)
             {
                 Supplier<String> noBuildReason = claim.checkPermission(player, ClaimPermission.Build, event);
@@ -1740,7 +1817,7 @@ class PlayerEventHandler implements Listener
             else if (clickedBlock != null && Tag.ITEMS_BOATS.isTagged(materialInHand))
             {
                 if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-                Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+                Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
                 if (claim != null)
                 {
                     Supplier<String> reason = claim.checkPermission(player, ClaimPermission.Inventory, event);
@@ -1764,7 +1841,7 @@ class PlayerEventHandler implements Listener
                     !instance.creativeRulesApply(clickedBlock.getLocation()))
             {
                 if (playerData == null) playerData = this.dataStore.getPlayerData(player.getUniqueId());
-                Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false, playerData.lastClaim);
+                Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false, playerData.lastClaim);
                 if (claim != null)
                 {
                     Supplier<String> reason = claim.checkPermission(player, ClaimPermission.Inventory, event);
@@ -1833,7 +1910,7 @@ class PlayerEventHandler implements Listener
                     return;
                 }
 
-                Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), false /*ignore height*/, playerData.lastClaim);
+                Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), false /*ignore height*/, playerData.lastClaim);
 
                 //no claim case
                 if (claim == null)
@@ -1962,7 +2039,7 @@ class PlayerEventHandler implements Listener
             }
 
             //otherwise, since not currently resizing a claim, must be starting a resize, creating a new claim, or creating a subdivision
-            Claim claim = this.dataStore.getClaimAt(clickedBlock.getLocation(), true /*ignore height*/, playerData.lastClaim);
+            Claim claim = this.dataStore.getClaimAt(clickedBlock.getWorld(), clickedBlock.getX(), clickedBlock.getY(), clickedBlock.getZ(), true /*ignore height*/, playerData.lastClaim);
 
             //if within an existing claim, he's not creating a new one
             if (claim != null)
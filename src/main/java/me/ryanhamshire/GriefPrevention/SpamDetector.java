@@ -3,32 +3,48 @@ package me.ryanhamshire.GriefPrevention;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 class SpamDetector
 {
-    //last chat message shown and its timestamp, regardless of who sent it
-    private String lastChatMessage = "";
-    private long lastChatMessageTimestamp = 0;
-
-    //number of identical chat messages in a row
-    private int duplicateMessageCount = 0;
+    //last chat message shown, its timestamp, and the number of identical chat messages in a row, regardless of who sent it
+    //replaced as a whole so concurrent chatters always see a consistent snapshot
+    private final AtomicReference<LastChatMessage> lastChatMessage = new AtomicReference<>(new LastChatMessage("", 0, 0));
 
     //data for individual chatters
     ConcurrentHashMap<UUID, ChatterData> dataStore = new ConcurrentHashMap<>();
 
     private ChatterData getChatterData(UUID chatterID)
     {
-        ChatterData data = this.dataStore.get(chatterID);
-        if (data == null)
+        return this.dataStore.computeIfAbsent(chatterID, id -> new ChatterData());
+    }
+
+    //may be called from any number of chat threads at once
+    //messages from the same chatter are analyzed one at a time, messages from different chatters in parallel
+    SpamAnalysisResult AnalyzeMessage(UUID chatterID, String message, long timestamp)
+    {
+        ChatterData chatterData = this.getChatterData(chatterID);
+        synchronized (chatterData)
         {
-            data = new ChatterData();
-            this.dataStore.put(chatterID, data);
+            return this.analyzeMessage(chatterData, message, timestamp);
         }
+    }
 
-        return data;
+    //returns how many times in a row the message was repeated within 2 seconds by anyone, or 0 if it's a new message
+    private int recordChatMessage(String message, long timestamp)
+    {
+        while (true)
+        {
+            LastChatMessage last = this.lastChatMessage.get();
+            boolean duplicate = message.equals(last.message()) && timestamp - last.timestamp() < 2000;
+            LastChatMessage next = duplicate
+                    ? new LastChatMessage(last.message(), last.timestamp(), last.duplicateCount() + 1)
+                    : new LastChatMessage(message, timestamp, 0);
+            if (this.lastChatMessage.compareAndSet(last, next)) return next.duplicateCount();
+        }
     }
 
-    SpamAnalysisResult AnalyzeMessage(UUID chatterID, String message, long timestamp)
+    private SpamAnalysisResult analyzeMessage(ChatterData chatterData, String message, long timestamp)
     {
         SpamAnalysisResult result = new SpamAnalysisResult();
         result.finalMessage = message;
@@ -41,7 +57,6 @@ class SpamDetector
         }
 
         boolean spam = false;
-        ChatterData chatterData = this.getChatterData(chatterID);
 
         //mute if total volume of text from this player is too high
         if (message.length() > 50 && chatterData.getTotalRecentLength(timestamp) > 200)
@@ -52,18 +67,13 @@ class SpamDetector
         }
 
         //always mute an exact match to the last chat message
-        if (result.finalMessage.equals(this.lastChatMessage) && timestamp - this.lastChatMessageTimestamp < 2000)
+        int duplicateMessageCount = this.recordChatMessage(result.finalMessage, timestamp);
+        if (duplicateMessageCount > 0)
         {
-            chatterData.spamLevel += ++this.duplicateMessageCount;
+            chatterData.spamLevel += duplicateMessageCount;
             spam = true;
             result.muteReason = "repeat message";
         }
-        else
-        {
-            this.lastChatMessage = message;
-            this.lastChatMessageTimestamp = timestamp;
-            this.duplicateMessageCount = 0;
-        }
 
         //check message content and timing      
         long millisecondsSinceLastMessage = timestamp - chatterData.lastMessageTimestamp;
@@ -212,6 +222,8 @@ class SpamDetector
 
         return false;
     }
+
+    private record LastChatMessage(String message, long timestamp, int duplicateCount) {}
 }
 
 class SpamAnalysisResult
@@ -222,6 +234,7 @@ class SpamAnalysisResult
     String muteReason;
 }
 
+//guarded by its own monitor while a message is analyzed
 class ChatterData
 {
     public String lastMessage = "";                 //the player's last chat message, or slash command complete with parameters 
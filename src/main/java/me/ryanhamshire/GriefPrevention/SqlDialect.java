@@ -0,0 +1,108 @@
+/*
+    GriefPrevention Server Plugin for Minecraft
+    Copyright (C) 2012 Ryan Hamshire
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.ryanhamshire.GriefPrevention;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * The SQL dialects with a known upsert syntax.
+ */
+enum SqlDialect
+{
+
+    /**
+     * MySQL and MariaDB: {@code INSERT ... ON DUPLICATE KEY UPDATE}.
+     */
+    MYSQL
+            {
+                @Override
+                @NotNull String upsert(@NotNull String table, @NotNull String key, @NotNull String... columns)
+                {
+                    return insert(table, columns) + " ON DUPLICATE KEY UPDATE " + Arrays.stream(columns)
+                            .filter(column -> !column.equals(key))
+                            .map(column -> column + " = VALUES(" + column + ")")
+                            .collect(Collectors.joining(", "));
+                }
+            },
+    /**
+     * SQLite and PostgreSQL: {@code INSERT ... ON CONFLICT DO UPDATE}.
+     */
+    SQLITE
+            {
+                @Override
+                @NotNull String upsert(@NotNull String table, @NotNull String key, @NotNull String... columns)
+                {
+                    return insert(table, columns) + " ON CONFLICT (" + key + ") DO UPDATE SET " + Arrays.stream(columns)
+                            .filter(column -> !column.equals(key))
+                            .map(column -> column + " = excluded." + column)
+                            .collect(Collectors.joining(", "));
+                }
+            },
+    /**
+     * H2: {@code MERGE INTO ... KEY}.
+     */
+    H2
+            {
+                @Override
+                @NotNull String upsert(@NotNull String table, @NotNull String key, @NotNull String... columns)
+                {
+                    return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + key + ") VALUES ("
+                            + placeholders(columns.length) + ")";
+                }
+            };
+
+    /**
+     * Get the dialect of a JDBC URL.
+     *
+     * @param url the JDBC URL
+     * @return the dialect, or {@code null} if the database's upsert syntax is unknown
+     */
+    static SqlDialect forUrl(@NotNull String url)
+    {
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) return MYSQL;
+        if (url.startsWith("jdbc:sqlite:") || url.startsWith("jdbc:postgresql:")) return SQLITE;
+        if (url.startsWith("jdbc:h2:")) return H2;
+        return null;
+    }
+
+    /**
+     * Build a statement inserting a row, or updating the existing row with the same key.
+     *
+     * @param table the table
+     * @param key the uniquely indexed column identifying a row
+     * @param columns all columns to set, including the key, in parameter order
+     * @return the SQL
+     */
+    abstract @NotNull String upsert(@NotNull String table, @NotNull String key, @NotNull String... columns);
+
+    private static @NotNull String insert(@NotNull String table, @NotNull String... columns)
+    {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders(columns.length) + ")";
+    }
+
+    private static @NotNull String placeholders(int count)
+    {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+}
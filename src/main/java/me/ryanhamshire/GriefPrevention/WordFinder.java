@@ -1,43 +1,182 @@
 package me.ryanhamshire.GriefPrevention;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+//finds whole words from a list in a message, ignoring case
+//all words are matched in a single pass over the message (Aho-Corasick), so the cost doesn't grow with the number of words
 class WordFinder
 {
-    private Pattern pattern;
+    private static final int ROOT = 0;
+
+    //the trie, one entry per node: sorted outgoing characters and the nodes they lead to
+    private char[][] labels;
+    private int[][] targets;
+    //the node for the longest proper suffix of this node's text which is also in the trie
+    private int[] failures;
+    //lengths of all words ending at this node, including those reached through failure links
+    private int[][] matches;
 
     WordFinder(List<String> wordsToFind)
     {
-        if (wordsToFind.size() == 0) return;
+        List<char[]> labelList = new ArrayList<>();
+        List<int[]> targetList = new ArrayList<>();
+        List<int[]> matchList = new ArrayList<>();
+        labelList.add(new char[0]);
+        targetList.add(new int[0]);
+        matchList.add(new int[0]);
 
-        StringBuilder patternBuilder = new StringBuilder();
+        boolean anyWords = false;
         for (String word : wordsToFind)
         {
-            if (!word.isEmpty() && !word.trim().isEmpty())
+            if (word.isEmpty() || word.trim().isEmpty()) continue;
+            anyWords = true;
+
+            int node = ROOT;
+            for (int i = 0; i < word.length(); i++)
             {
-                patternBuilder.append("|(([^\\w]|^)").append(Pattern.quote(word)).append("([^\\w]|$))");
+                char character = fold(word.charAt(i));
+                char[] nodeLabels = labelList.get(node);
+                int index = Arrays.binarySearch(nodeLabels, character);
+                if (index >= 0)
+                {
+                    node = targetList.get(node)[index];
+                    continue;
+                }
+
+                //insert a new child, keeping the labels sorted
+                int child = labelList.size();
+                labelList.add(new char[0]);
+                targetList.add(new int[0]);
+                matchList.add(new int[0]);
+
+                int insertAt = -index - 1;
+                labelList.set(node, insert(nodeLabels, insertAt, character));
+                targetList.set(node, insert(targetList.get(node), insertAt, child));
+                node = child;
             }
+
+            int[] nodeMatches = matchList.get(node);
+            int[] added = Arrays.copyOf(nodeMatches, nodeMatches.length + 1);
+            added[nodeMatches.length] = word.length();
+            matchList.set(node, added);
         }
 
-        String patternString = patternBuilder.toString();
-        if (patternString.length() > 1)
+        // No words are defined, match nothing.
+        if (!anyWords) return;
+
+        this.labels = labelList.toArray(new char[0][]);
+        this.targets = targetList.toArray(new int[0][]);
+        this.matches = matchList.toArray(new int[0][]);
+        this.failures = new int[this.labels.length];
+
+        //breadth first, so a node's failure link is always resolved before its children's
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : this.targets[ROOT])
         {
-            //trim extraneous leading pipe (|)
-            patternString = patternString.substring(1);
+            this.failures[child] = ROOT;
+            queue.add(child);
         }
-        // No words are defined, match nothing.
-        else return;
+        while (!queue.isEmpty())
+        {
+            int node = queue.poll();
+            for (int i = 0; i < this.labels[node].length; i++)
+            {
+                char character = this.labels[node][i];
+                int child = this.targets[node][i];
+
+                int failure = this.failures[node];
+                while (failure != ROOT && this.next(failure, character) < 0)
+                {
+                    failure = this.failures[failure];
+                }
+                int next = this.next(failure, character);
+                this.failures[child] = next >= 0 ? next : ROOT;
+
+                //anything matching at the failure node also matches here
+                int[] inherited = this.matches[this.failures[child]];
+                if (inherited.length > 0)
+                {
+                    int[] own = this.matches[child];
+                    int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+                    System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+                    this.matches[child] = merged;
+                }
 
-        this.pattern = Pattern.compile(patternString, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+                queue.add(child);
+            }
+        }
     }
 
     boolean hasMatch(String input)
     {
-        if (this.pattern == null) return false;
+        if (this.labels == null) return false;
+
+        int node = ROOT;
+        for (int end = 0; end < input.length(); end++)
+        {
+            char character = fold(input.charAt(end));
+
+            int next;
+            while ((next = this.next(node, character)) < 0 && node != ROOT)
+            {
+                node = this.failures[node];
+            }
+            node = Math.max(next, ROOT);
 
-        Matcher matcher = this.pattern.matcher(input);
-        return matcher.find();
+            for (int length : this.matches[node])
+            {
+                //only whole words count, so the text around the match must not be part of a word
+                int start = end - length + 1;
+                if ((start == 0 || !isWordCharacter(input.charAt(start - 1)))
+                        && (end == input.length() - 1 || !isWordCharacter(input.charAt(end + 1))))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int next(int node, char character)
+    {
+        int index = Arrays.binarySearch(this.labels[node], character);
+        return index >= 0 ? this.targets[node][index] : -1;
+    }
+
+    //case folding one character at a time keeps positions in the folded text the same as in the original
+    private static char fold(char character)
+    {
+        return Character.toLowerCase(Character.toUpperCase(character));
+    }
+
+    //same as \w in a regular expression
+    private static boolean isWordCharacter(char character)
+    {
+        return (character >= 'a' && character <= 'z')
+                || (character >= 'A' && character <= 'Z')
+                || (character >= '0' && character <= '9')
+                || character == '_';
+    }
+
+    private static char[] insert(char[] array, int index, char value)
+    {
+        char[] result = new char[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    private static int[] insert(int[] array, int index, int value)
+    {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
     }
 }
@@ -0,0 +1,88 @@
+package com.griefprevention.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ConcurrentLongMapTest
+{
+
+    @Test
+    void testPutGetRemove()
+    {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        map.put(1, "one");
+        map.put(-1, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+        assertEquals("one", map.get(1));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(2));
+        assertEquals(3, map.size());
+
+        map.put(1, "uno");
+        assertEquals("uno", map.get(1));
+        assertEquals(3, map.size());
+
+        map.remove(1);
+        assertNull(map.get(1));
+        assertEquals(2, map.size());
+
+        // Removing a missing key is a no-op.
+        map.remove(1);
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void testZeroKey()
+    {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        assertNull(map.get(0));
+        map.put(0, "zero");
+        assertEquals("zero", map.get(0));
+        assertEquals(1, map.size());
+        map.remove(0);
+        assertNull(map.get(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testMatchesHashMapUnderChurn()
+    {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Keys are drawn from a small range so that removals and re-insertions of the same keys are frequent.
+        for (int i = 0; i < 200_000; i++)
+        {
+            long key = random.nextInt(5_000) - 2_500;
+            if (random.nextInt(3) == 0)
+            {
+                map.remove(key);
+                expected.remove(key);
+            }
+            else
+            {
+                map.put(key, (long) i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -2_500; key < 2_500; key++)
+        {
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+}
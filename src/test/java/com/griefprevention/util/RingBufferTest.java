@@ -0,0 +1,111 @@
+package com.griefprevention.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferTest
+{
+
+    @Test
+    void testCapacityRoundsUp()
+    {
+        assertEquals(2, new RingBuffer<>(1).capacity());
+        assertEquals(2, new RingBuffer<>(2).capacity());
+        assertEquals(4, new RingBuffer<>(3).capacity());
+        assertEquals(1024, new RingBuffer<>(1000).capacity());
+        assertEquals(1024, new RingBuffer<>(1024).capacity());
+    }
+
+    @Test
+    void testFifoAndFull()
+    {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        assertNull(buffer.poll());
+
+        // Go around the ring several times.
+        for (int lap = 0; lap < 3; lap++)
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                assertTrue(buffer.offer(lap * 10 + i));
+            }
+            assertFalse(buffer.offer(-1));
+            assertEquals(4, buffer.size());
+
+            for (int i = 0; i < 4; i++)
+            {
+                assertEquals(lap * 10 + i, buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException
+    {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++)
+        {
+            int base = producer * perProducer;
+            Thread thread = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!buffer.offer(base + i))
+                    {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        // Every element arrives exactly once, and each producer's elements arrive in order.
+        int[] next = new int[producers];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (int received = 0; received < producers * perProducer; )
+        {
+            Integer element = buffer.poll();
+            if (element == null)
+            {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for producers");
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = element / perProducer;
+            assertEquals(next[producer]++, element % perProducer);
+            received++;
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertNull(buffer.poll());
+    }
+
+}
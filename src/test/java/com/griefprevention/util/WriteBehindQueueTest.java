@@ -0,0 +1,144 @@
+package com.griefprevention.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindQueueTest
+{
+
+    private static WriteBehindQueue<String> newQueue(int capacity, List<Throwable> failures)
+    {
+        return new WriteBehindQueue<>(
+                "test writer",
+                capacity,
+                16,
+                5,
+                5,
+                TimeUnit.MILLISECONDS,
+                batch -> batch.forEach(Runnable::run),
+                failures::add);
+    }
+
+    @Test
+    void testCoalescesToLatestWrite() throws InterruptedException
+    {
+        List<Throwable> failures = new ArrayList<>();
+        Map<String, Integer> storage = new ConcurrentHashMap<>();
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindQueue<String> queue = newQueue(64, failures);
+
+        // Hold the writer so that everything after the first write waits in the queue.
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.enqueue("blocker", () ->
+        {
+            blocked.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100; i++)
+        {
+            int value = i;
+            queue.enqueue("claim:1", () ->
+            {
+                writes.incrementAndGet();
+                storage.put("claim:1", value);
+            });
+        }
+        assertEquals(1, queue.getStats().depth());
+
+        release.countDown();
+        queue.flush();
+
+        assertEquals(99, storage.get("claim:1"));
+        assertEquals(1, writes.get());
+        assertEquals(99, queue.getStats().coalescedWrites());
+        assertTrue(failures.isEmpty());
+        queue.close();
+    }
+
+    @Test
+    void testCloseDrainsEverything() throws InterruptedException
+    {
+        List<Throwable> failures = new ArrayList<>();
+        Map<String, Integer> storage = new ConcurrentHashMap<>();
+        // Deliberately smaller than the number of keys, so producers also exercise the full queue.
+        WriteBehindQueue<String> queue = newQueue(32, failures);
+
+        int threads = 8;
+        int keysPerThread = 500;
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            int thread = t;
+            Thread producer = new Thread(() ->
+            {
+                for (int round = 0; round < 3; round++)
+                {
+                    for (int k = 0; k < keysPerThread; k++)
+                    {
+                        String key = thread + ":" + k;
+                        int value = round;
+                        queue.enqueue(key, () -> storage.put(key, value));
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        // Simulate shutdown: nothing queued before close may be lost.
+        queue.close();
+
+        assertEquals(threads * keysPerThread, storage.size());
+        storage.values().forEach(value -> assertEquals(2, value));
+        assertEquals(0, queue.getStats().depth());
+        assertTrue(failures.isEmpty());
+
+        // Writes after closing are performed immediately.
+        queue.enqueue("late", () -> storage.put("late", 1));
+        assertEquals(1, storage.get("late"));
+    }
+
+    @Test
+    void testFailingBatchDoesNotStopWriter()
+    {
+        List<Throwable> failures = new ArrayList<>();
+        Map<String, Integer> storage = new ConcurrentHashMap<>();
+        WriteBehindQueue<String> queue = newQueue(64, failures);
+
+        queue.enqueue("bad", () ->
+        {
+            throw new IllegalStateException("disk full");
+        });
+        queue.flush();
+        queue.enqueue("good", () -> storage.put("good", 1));
+        queue.close();
+
+        assertEquals(1, failures.size());
+        assertEquals(1, storage.get("good"));
+    }
+
+}
@@ -25,6 +25,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -32,7 +33,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
@@ -277,6 +280,56 @@ class MonitoredCommandsTest
         assertFalse(monitor.isMonitoredCommand(new MonitorableCommand("/invalid:test")));
     }
 
+    @Test
+    void classifierReportsEveryMatchingSet() throws ReflectiveOperationException
+    {
+        setCommandMap(null);
+
+        CommandClassifier classifier = new CommandClassifier(List.of(
+                new MonitoredCommands(List.of("/msg", "/tell")),
+                new MonitoredCommands(List.of("/me", "/msg")),
+                new MonitoredCommands(List.of("/home set"))));
+
+        assertEquals(0b011, classifier.classify("/msg Notch hi"));
+        assertEquals(0b001, classifier.classify("/TELL Notch hi"));
+        assertEquals(0b010, classifier.classify("/bukkit:me waves"));
+        assertEquals(0b100, classifier.classify("/home set base"));
+        assertEquals(0, classifier.classify("/home"));
+        assertEquals(0, classifier.classify("/homeset"));
+        assertEquals(0, classifier.classify("/messages"));
+        assertEquals(0, classifier.classify(""));
+    }
+
+    @Test
+    void lookupThroughput() throws ReflectiveOperationException
+    {
+        setCommandMap(null);
+
+        List<String> monitored = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+        {
+            monitored.add("/command" + i + (i % 3 == 0 ? " sub" + i : ""));
+        }
+        MonitoredCommands monitor = new MonitoredCommands(monitored);
+        String[] executed = {
+                "/command999 some arguments here",
+                "/command3 sub3 with more arguments",
+                "/command3 other arguments",
+                "/unmonitored command with a long list of arguments that goes on and on",
+        };
+        boolean[] expected = { true, true, false, false };
+
+        // Lookups only walk the entered command once, so the size of the monitored list doesn't matter.
+        assertTimeout(Duration.ofSeconds(5), () ->
+        {
+            for (int i = 0; i < 1_000_000; i++)
+            {
+                int index = i & 3;
+                assertEquals(expected[index], monitor.isMonitoredCommand(executed[index]));
+            }
+        });
+    }
+
     private static PluginCommand pluginCommand(Plugin owner) throws ReflectiveOperationException
     {
         Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
@@ -0,0 +1,183 @@
+package com.griefprevention.visualization.impl;
+
+import com.griefprevention.test.ServerMocks;
+import com.griefprevention.util.IntVector;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class FakeBlockVisualizationTest
+{
+
+    private static final int MIN_HEIGHT = -64;
+    private static final int MAX_HEIGHT = 320;
+    private static final Material[] GROUND = { Material.STONE, Material.DIRT, Material.GRASS_BLOCK, Material.SNOW, Material.WATER };
+    private static final Material[] ABOVE_GROUND = { Material.OAK_LEAVES, Material.GLASS, Material.TORCH, Material.STONE, Material.WATER };
+
+    private final Material[][][] terrain = new Material[16][MAX_HEIGHT - MIN_HEIGHT][16];
+    private final Map<Material, BlockData> blockData = new EnumMap<>(Material.class);
+    private final Map<IntVector, Block> blocks = new HashMap<>();
+    private World world;
+    private ChunkSnapshot snapshot;
+
+    @BeforeAll
+    static void beforeAll()
+    {
+        Server server = ServerMocks.newServer();
+        doAnswer(invocation ->
+        {
+            Tag<?> tag = mock();
+            doReturn(Set.of()).when(tag).getValues();
+            return tag;
+        }).when(server).getTag(notNull(), notNull(), notNull());
+        Bukkit.setServer(server);
+    }
+
+    @AfterAll
+    static void afterAll()
+    {
+        ServerMocks.unsetBukkitServer();
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        // Uneven ground with things hanging over it.
+        Random random = new Random(16);
+        for (int x = 0; x < 16; x++)
+        {
+            for (int z = 0; z < 16; z++)
+            {
+                int ground = random.nextInt(MAX_HEIGHT - MIN_HEIGHT);
+                for (int y = 0; y < MAX_HEIGHT - MIN_HEIGHT; y++)
+                {
+                    if (y < ground)
+                        terrain[x][y][z] = GROUND[random.nextInt(GROUND.length)];
+                    else if (random.nextInt(10) == 0)
+                        terrain[x][y][z] = ABOVE_GROUND[random.nextInt(ABOVE_GROUND.length)];
+                    else
+                        terrain[x][y][z] = Material.AIR;
+                }
+            }
+        }
+        // Columns that are solid or open all the way up, so scans reach both height limits.
+        for (int y = 0; y < MAX_HEIGHT - MIN_HEIGHT; y++)
+        {
+            terrain[0][y][0] = Material.STONE;
+            terrain[15][y][15] = Material.AIR;
+        }
+        terrain[1][100 - MIN_HEIGHT][1] = Material.WATER;
+
+        world = mock(World.class, withSettings().stubOnly());
+        when(world.getMinHeight()).thenReturn(MIN_HEIGHT);
+        when(world.getMaxHeight()).thenReturn(MAX_HEIGHT);
+        when(world.getBlockAt(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+                getBlock(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        snapshot = mock(ChunkSnapshot.class, withSettings().stubOnly());
+        when(snapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+                getType(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(snapshot.getBlockData(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+                getBlockData(getType(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2))));
+    }
+
+    @Test
+    void snapshotResolutionMatchesLiveWorld()
+    {
+        // Visualizing from water makes water transparent, so check from both.
+        assertResolvesLikeLiveWorld(new IntVector(1, 100, 1));
+        assertResolvesLikeLiveWorld(new IntVector(15, 100, 15));
+    }
+
+    private void assertResolvesLikeLiveWorld(IntVector visualizeFrom)
+    {
+        FakeBlockVisualization visualization = new FakeBlockVisualization(world, visualizeFrom, 100);
+        BlockData fakeData = mock();
+        BlockData outsideWorld = getBlockData(Material.VOID_AIR);
+        Random random = new Random(20);
+
+        // Scanning the live world is slow with mocks, so check a spread of columns including both special ones.
+        for (int x = 0; x < 16; x += 5)
+        {
+            for (int z = 0; z < 16; z += 5)
+            {
+                for (int y : new int[] { MIN_HEIGHT, MAX_HEIGHT - 1, random.nextInt(MAX_HEIGHT - MIN_HEIGHT) + MIN_HEIGHT })
+                {
+                    IntVector start = new IntVector(x, y, z);
+                    Block expected = visualization.getVisibleLocation(start);
+                    FakeBlockElement resolved = visualization.resolve(
+                            snapshot,
+                            new FakeBlockVisualization.Column(start, fakeData),
+                            MIN_HEIGHT,
+                            MAX_HEIGHT,
+                            outsideWorld);
+
+                    assertEquals(new IntVector(expected), resolved.getCoordinate(), "Column starting at " + start);
+                    assertSame(expected.getBlockData(), resolved.getRealBlock(), "Column starting at " + start);
+                    assertSame(fakeData, resolved.getVisualizedBlock());
+                }
+            }
+        }
+    }
+
+    private Block getBlock(int x, int y, int z)
+    {
+        return blocks.computeIfAbsent(new IntVector(x, y, z), key -> newBlock(x, y, z));
+    }
+
+    private Block newBlock(int x, int y, int z)
+    {
+        Block block = mock(Block.class, withSettings().stubOnly());
+        when(block.getX()).thenReturn(x);
+        when(block.getY()).thenReturn(y);
+        when(block.getZ()).thenReturn(z);
+        when(block.getType()).thenReturn(getType(x, y, z));
+        when(block.getBlockData()).thenAnswer(invocation -> getBlockData(getType(x, y, z)));
+        when(block.getRelative(any(BlockFace.class))).thenAnswer(invocation ->
+        {
+            BlockFace face = invocation.getArgument(0);
+            return getBlock(x + face.getModX(), y + face.getModY(), z + face.getModZ());
+        });
+        return block;
+    }
+
+    // Like the server, blocks outside the height limits are void air.
+    private Material getType(int x, int y, int z)
+    {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT) return Material.VOID_AIR;
+        return terrain[x & 15][y - MIN_HEIGHT][z & 15];
+    }
+
+    private BlockData getBlockData(Material material)
+    {
+        return blockData.computeIfAbsent(material, key -> mock(BlockData.class, withSettings().stubOnly()));
+    }
+
+}
@@ -0,0 +1,155 @@
+package me.ryanhamshire.GriefPrevention;
+
+import com.griefprevention.test.ServerMocks;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class AutoExtendClaimTaskTest
+{
+
+    private static final int WORLD_MIN_Y = -64;
+    // Everything from this height up is air.
+    private static final int SURFACE_Y = 0;
+
+    private World world;
+
+    @BeforeAll
+    static void beforeAll()
+    {
+        Server server = ServerMocks.newServer();
+        doAnswer(invocation ->
+        {
+            Tag<?> tag = mock();
+            doReturn(Set.of()).when(tag).getValues();
+            return tag;
+        }).when(server).getTag(notNull(), notNull(), notNull());
+        Bukkit.setServer(server);
+    }
+
+    @AfterAll
+    static void afterAll()
+    {
+        ServerMocks.unsetBukkitServer();
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        world = mock(World.class);
+        when(world.getMinHeight()).thenReturn(WORLD_MIN_Y);
+        when(world.getMaxHeight()).thenReturn(320);
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.config_claims_maxDepth = Integer.MIN_VALUE;
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+    }
+
+    @Test
+    void findsLowestPlayerBlockInAnyChunk()
+    {
+        List<ChunkSnapshot> chunks = List.of(
+                newSnapshot(Integer.MIN_VALUE),
+                newSnapshot(-20),
+                newSnapshot(-40),
+                newSnapshot(-10));
+
+        assertEquals(-40, newTask(chunks).getLowestBuiltY());
+    }
+
+    @Test
+    void naturalChunksKeepExistingDepth()
+    {
+        List<ChunkSnapshot> chunks = List.of(newSnapshot(Integer.MIN_VALUE), newSnapshot(Integer.MIN_VALUE));
+
+        assertEquals(SURFACE_Y, newTask(chunks).getLowestBuiltY());
+    }
+
+    @Test
+    void searchStopsAtMaximumDepth()
+    {
+        GriefPrevention.instance.config_claims_maxDepth = -30;
+        assertEquals(-20, newTask(List.of(newSnapshot(-50), newSnapshot(-20))).getLowestBuiltY());
+        assertEquals(-30, newTask(List.of(newSnapshot(-50), newSnapshot(-30))).getLowestBuiltY());
+    }
+
+    @Test
+    void largeClaimFindsSingleCellar()
+    {
+        // A 500x500 claim spans 32x32 chunks. One of them has a deep cellar; the rest are natural down to bedrock.
+        List<ChunkSnapshot> chunks = new ArrayList<>();
+        for (int i = 0; i < 32 * 32; i++)
+        {
+            chunks.add(newSnapshot(i == 32 * 16 + 16 ? -48 : Integer.MIN_VALUE));
+        }
+
+        assertEquals(-48, newTask(chunks).getLowestBuiltY());
+    }
+
+    private AutoExtendClaimTask newTask(List<ChunkSnapshot> chunks)
+    {
+        Claim claim = new Claim(
+                new Location(world, 0, SURFACE_Y, 0),
+                new Location(world, 499, 320, 499),
+                null,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                0L);
+        return new AutoExtendClaimTask(claim, chunks, World.Environment.NORMAL, SURFACE_Y);
+    }
+
+    /**
+     * Create a chunk of deepslate below the surface and air above it, optionally with a chest in one column.
+     *
+     * @param chestY the height of the chest
+     * @return the chunk snapshot
+     */
+    private static ChunkSnapshot newSnapshot(int chestY)
+    {
+        // Stub-only mocks don't record invocations, which would otherwise dominate the benchmark.
+        return mock(ChunkSnapshot.class, withSettings().stubOnly().defaultAnswer(invocation ->
+                switch (invocation.getMethod().getName())
+                {
+                    case "isSectionEmpty" -> WORLD_MIN_Y + ((int) invocation.getArgument(0) << 4) >= SURFACE_Y;
+                    case "getBlockType" ->
+                    {
+                        int x = invocation.getArgument(0);
+                        int y = invocation.getArgument(1);
+                        int z = invocation.getArgument(2);
+                        if (y >= SURFACE_Y) yield Material.AIR;
+                        yield x == 7 && z == 9 && y == chestY ? Material.CHEST : Material.DEEPSLATE;
+                    }
+                    default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+                }));
+    }
+
+}
@@ -0,0 +1,235 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BinaryLogDataStoreTest
+{
+
+    @TempDir
+    Path folder;
+
+    private World world;
+    private File logFile;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.world = mock(World.class);
+        when(this.world.getName()).thenReturn("world");
+        when(this.world.getMaxHeight()).thenReturn(320);
+        when(this.world.getMinHeight()).thenReturn(-64);
+        this.logFile = this.folder.resolve("data.gplog").toFile();
+    }
+
+    @Test
+    void testReloadRestoresData() throws Exception
+    {
+        UUID playerID = UUID.randomUUID();
+        BinaryLogDataStore store = this.open();
+        Claim claim = newClaim(this.world, 0, 10L);
+        claim.setPermission(playerID.toString(), ClaimPermission.Build);
+        store.addClaim(claim, true);
+        Claim child = newClaim(this.world, 2, 11L);
+        child.parent = claim;
+        store.addClaim(child, true);
+        store.addClaim(newClaim(this.world, 100, 12L), true);
+        store.deleteClaimFromSecondaryStorage(store.getClaim(12L));
+        store.setNextClaimID(13L);
+        store.saveGroupBonusBlocks("vip", 250);
+        store.overrideSavePlayerData(playerID, playerData(playerID, 40, 5));
+        store.close();
+
+        BinaryLogDataStore reloaded = this.open();
+        assertEquals(1, reloaded.claims.size());
+        Claim reloadedClaim = reloaded.getClaim(10L);
+        assertNotNull(reloadedClaim);
+        assertEquals(claim.getBounds(), reloadedClaim.getBounds());
+        assertEquals(describe(claim), describe(reloadedClaim));
+        assertEquals(1, reloadedClaim.children.size());
+        assertEquals(11L, reloadedClaim.children.get(0).id);
+        assertNull(reloaded.getClaim(12L));
+        assertEquals(13L, reloaded.nextClaimID);
+        assertEquals(250, reloaded.permissionToBonusBlocksMap.get("vip"));
+
+        PlayerData playerData = reloaded.getPlayerDataFromStorage(playerID);
+        assertEquals(40, playerData.getAccruedClaimBlocks());
+        assertEquals(5, playerData.getBonusClaimBlocks());
+        reloaded.close();
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws Exception
+    {
+        BinaryLogDataStore store = this.open();
+        store.addClaim(newClaim(this.world, 0, 1L), true);
+        store.close();
+        long intactLength = this.logFile.length();
+
+        // A record header promising more bytes than were written, as after a crash mid-append.
+        try (RandomAccessFile file = new RandomAccessFile(this.logFile, "rw"))
+        {
+            file.seek(intactLength);
+            file.writeInt(1000);
+            file.writeInt(0);
+            file.writeByte(1);
+            file.write(new byte[10]);
+        }
+
+        BinaryLogDataStore reloaded = new BinaryLogDataStore(this.logFile);
+        BinaryLogDataStore.LoadResult result = reloaded.loadLog(List.of(this.world));
+        assertEquals(19, result.discardedBytes());
+        assertEquals(intactLength, this.logFile.length());
+        assertNotNull(reloaded.getClaim(1L));
+        reloaded.close();
+    }
+
+    @Test
+    void testBadChecksumInLastRecordIsDiscarded() throws Exception
+    {
+        BinaryLogDataStore store = this.open();
+        store.addClaim(newClaim(this.world, 0, 1L), true);
+        store.close();
+        long intactLength = this.logFile.length();
+
+        UUID playerID = UUID.randomUUID();
+        store = this.open();
+        store.overrideSavePlayerData(playerID, playerData(playerID, 40, 5));
+        store.close();
+        flipByte(this.logFile, this.logFile.length() - 1);
+
+        BinaryLogDataStore reloaded = new BinaryLogDataStore(this.logFile);
+        BinaryLogDataStore.LoadResult result = reloaded.loadLog(List.of(this.world));
+        assertTrue(result.discardedBytes() > 0);
+        assertEquals(intactLength, this.logFile.length());
+        assertNotNull(reloaded.getClaim(1L));
+        reloaded.close();
+    }
+
+    @Test
+    void testCorruptionBeforeTheEndIsNotTruncated() throws Exception
+    {
+        BinaryLogDataStore store = this.open();
+        store.addClaim(newClaim(this.world, 0, 1L), true);
+        store.addClaim(newClaim(this.world, 100, 2L), true);
+        store.close();
+
+        // The first record's payload, followed by intact records.
+        flipByte(this.logFile, 17);
+        byte[] damaged = Files.readAllBytes(this.logFile.toPath());
+
+        BinaryLogDataStore reloaded = new BinaryLogDataStore(this.logFile);
+        assertThrows(IOException.class, () -> reloaded.loadLog(List.of(this.world)));
+        assertArrayEquals(damaged, Files.readAllBytes(this.logFile.toPath()));
+
+        try (Stream<Path> files = Files.list(this.folder))
+        {
+            List<Path> copies = files.filter(file -> file.getFileName().toString().startsWith("data.gplog.corrupt-")).toList();
+            assertEquals(1, copies.size());
+            assertArrayEquals(damaged, Files.readAllBytes(copies.get(0)));
+        }
+    }
+
+    @Test
+    void testCompactionKeepsLatestRecords() throws Exception
+    {
+        UUID playerID = UUID.randomUUID();
+        BinaryLogDataStore store = this.open();
+        Claim claim = newClaim(this.world, 0, 1L);
+        store.addClaim(claim, true);
+        for (int i = 0; i < 100; i++)
+        {
+            store.overrideSavePlayerData(playerID, playerData(playerID, i, 0));
+            store.saveClaim(claim);
+            store.flushWrites();
+        }
+
+        long[] before = store.getLogUsage();
+        assertTrue(before[1] > 0);
+        store.compact();
+        long[] after = store.getLogUsage();
+        assertEquals(0, after[1]);
+        assertEquals(before[0] - before[1], after[0]);
+        assertEquals(99, store.getPlayerDataFromStorage(playerID).getAccruedClaimBlocks());
+        store.close();
+
+        BinaryLogDataStore reloaded = this.open();
+        assertEquals(describe(claim), describe(reloaded.getClaim(1L)));
+        assertEquals(99, reloaded.getPlayerDataFromStorage(playerID).getAccruedClaimBlocks());
+        reloaded.close();
+    }
+
+    private BinaryLogDataStore open() throws IOException
+    {
+        BinaryLogDataStore store = new BinaryLogDataStore(this.logFile);
+        assertTrue(store.loadLog(List.of(this.world)).errors().isEmpty());
+        return store;
+    }
+
+    private static void flipByte(File file, long position) throws IOException
+    {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw"))
+        {
+            out.seek(position);
+            int value = out.read();
+            out.seek(position);
+            out.write(value ^ 0xFF);
+        }
+    }
+
+    private static Claim newClaim(World world, int x, long id)
+    {
+        return new Claim(
+                new Location(world, x, 0, 0),
+                new Location(world, x + 10, 0, 10),
+                null,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                id);
+    }
+
+    private static PlayerData playerData(UUID playerID, int accrued, int bonus)
+    {
+        PlayerData playerData = new PlayerData();
+        playerData.playerID = playerID;
+        playerData.setAccruedClaimBlocks(accrued);
+        playerData.setBonusClaimBlocks(bonus);
+        return playerData;
+    }
+
+    private static String describe(Claim claim)
+    {
+        ArrayList<String> builders = new ArrayList<>();
+        ArrayList<String> containers = new ArrayList<>();
+        ArrayList<String> accessors = new ArrayList<>();
+        ArrayList<String> managers = new ArrayList<>();
+        claim.getPermissions(builders, containers, accessors, managers);
+        return claim.id + " " + claim.ownerID + " " + claim.getBounds() + " " + builders + containers + accessors + managers
+                + " " + claim.getSubclaimRestrictions();
+    }
+
+}
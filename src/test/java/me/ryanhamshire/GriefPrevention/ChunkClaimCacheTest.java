@@ -0,0 +1,83 @@
+package me.ryanhamshire.GriefPrevention;
+
+import me.ryanhamshire.GriefPrevention.util.BoundingBox;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChunkClaimCacheTest
+{
+
+    private ClaimGrid grid;
+    private World world;
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        grid = new ClaimGrid();
+        world = grid.world;
+        dataStore = grid.dataStore;
+    }
+
+    @Test
+    void environmentCacheMatchesDirectLookups()
+    {
+        Claim parent = grid.stableClaims.get(0);
+        Claim subdivision = grid.newClaim(2, 2, 3);
+        subdivision.parent = parent;
+        dataStore.addClaim(subdivision, false);
+
+        ChunkClaimCache cache = dataStore.chunkClaimCache;
+        // Twice over, so the second pass is answered from the cache.
+        for (int pass = 0; pass < 2; pass++)
+        {
+            for (int x = -8; x < 80; x += 3)
+            {
+                for (int z = -8; z < 80; z += 3)
+                {
+                    for (boolean ignoreSubclaims : new boolean[] { false, true })
+                    {
+                        assertSame(
+                                dataStore.getClaimAt(world, x, 70, z, false, ignoreSubclaims, null),
+                                cache.getClaimAt(world, x, 70, z, ignoreSubclaims));
+                    }
+                }
+            }
+        }
+        assertSame(subdivision, cache.getClaimAt(world, 3, 70, 3, false));
+        assertSame(parent, cache.getClaimAt(world, 3, 70, 3, true));
+
+        ChunkClaimCache.Stats stats = cache.getStats();
+        assertTrue(stats.hits() > stats.misses());
+        assertTrue(stats.unclaimed() > 0);
+    }
+
+    @Test
+    void environmentCacheFollowsClaimChanges()
+    {
+        ChunkClaimCache cache = dataStore.chunkClaimCache;
+        assertNull(cache.getClaimAt(world, -100, 70, -100, false));
+
+        Claim created = grid.newClaim(-105, -105, 9);
+        dataStore.addClaim(created, false);
+        assertSame(created, cache.getClaimAt(world, -100, 70, -100, false));
+
+        dataStore.deleteClaim(created, false, false);
+        assertNull(cache.getClaimAt(world, -100, 70, -100, false));
+
+        Claim resized = grid.stableClaims.get(0);
+        assertNull(cache.getClaimAt(world, 20, 70, 4, false));
+        BoundingBox oldBounds = new BoundingBox(resized);
+        resized.setBoundaryCorners(resized.lesserBoundaryCorner, new Location(world, 40, 320, 9));
+        dataStore.chunkIndex.add(resized, new BoundingBox(resized));
+        dataStore.chunkIndex.remove(resized, oldBounds, new BoundingBox(resized));
+        assertSame(resized, cache.getClaimAt(world, 20, 70, 4, false));
+    }
+
+}
@@ -0,0 +1,112 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A data store without secondary storage, filled with a grid of claims for the claim lookup tests.
+ */
+class ClaimGrid
+{
+
+    static final int CLAIMS_PER_SIDE = 16;
+
+    final World world;
+    final DataStore dataStore = new InMemoryDataStore();
+    // Each stable claim occupies the first 10 blocks of every other chunk.
+    final List<Claim> stableClaims = new ArrayList<>();
+    // A location inside each stable claim.
+    final List<Location> lookups = new ArrayList<>();
+    private long nextId = 0;
+
+    ClaimGrid()
+    {
+        // Stub-only mocks don't record invocations, which would otherwise serialize the reader threads.
+        world = mock(World.class, withSettings().stubOnly());
+        when(world.getUID()).thenReturn(UUID.randomUUID());
+        when(world.getMaxHeight()).thenReturn(320);
+        when(world.getMinHeight()).thenReturn(-64);
+
+        for (int x = 0; x < CLAIMS_PER_SIDE; x++)
+        {
+            for (int z = 0; z < CLAIMS_PER_SIDE; z++)
+            {
+                Claim claim = newClaim(x * 32, z * 32, 9);
+                dataStore.addClaim(claim, false);
+                stableClaims.add(claim);
+                lookups.add(new Location(world, x * 32 + 4, 70, z * 32 + 4));
+            }
+        }
+    }
+
+    Claim newClaim(int x, int z, int size)
+    {
+        return new Claim(
+                new Location(world, x, 0, z),
+                new Location(world, x + size, 320, z + size),
+                null,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                nextId++);
+    }
+
+    static Block newBlock(int x, int y, int z)
+    {
+        Block block = mock(Block.class, withSettings().stubOnly());
+        when(block.getX()).thenReturn(x);
+        when(block.getY()).thenReturn(y);
+        when(block.getZ()).thenReturn(z);
+        return block;
+    }
+
+    private static class InMemoryDataStore extends DataStore
+    {
+        @Override
+        int getSchemaVersionFromStorage()
+        {
+            return latestSchemaVersion;
+        }
+
+        @Override
+        void updateSchemaVersionInStorage(int versionToSet) {}
+
+        @Override
+        void saveGroupBonusBlocks(String groupName, int amount) {}
+
+        @Override
+        void writeClaimToStorage(Claim claim) {}
+
+        @Override
+        void incrementNextClaimID() {}
+
+        @Override
+        void setNextClaimID(long nextID) {}
+
+        @Override
+        PlayerData getPlayerDataFromStorage(UUID playerID)
+        {
+            return new PlayerData();
+        }
+
+        @Override
+        void deleteClaimFromSecondaryStorage(Claim claim) {}
+
+        @Override
+        void overrideSavePlayerData(UUID playerID, PlayerData playerData) {}
+
+        @Override
+        void close() {}
+    }
+
+}
@@ -0,0 +1,199 @@
+package me.ryanhamshire.GriefPrevention;
+
+import me.ryanhamshire.GriefPrevention.util.BoundingBox;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClaimLookupConcurrencyTest
+{
+
+    private static final long RUN_MILLIS = 250;
+
+    private ClaimGrid grid;
+    private World world;
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        grid = new ClaimGrid();
+        world = grid.world;
+        dataStore = grid.dataStore;
+    }
+
+    @Test
+    void lookupsAreStableWhileClaimsChange() throws InterruptedException
+    {
+        runReaders(4);
+    }
+
+    @Test
+    void resizedBoundaryIsIndexedInNewChunks()
+    {
+        Claim claim = grid.stableClaims.get(0);
+        BoundingBox oldBounds = new BoundingBox(claim);
+        claim.setBoundaryCorners(claim.lesserBoundaryCorner, new Location(world, 40, 320, 9));
+        dataStore.chunkIndex.add(claim, new BoundingBox(claim));
+        dataStore.chunkIndex.remove(claim, oldBounds, new BoundingBox(claim));
+
+        assertSame(claim, dataStore.getClaimAt(new Location(world, 20, 70, 4), false, null));
+        assertNull(dataStore.getClaimAt(new Location(world, 20, 70, 20), false, null));
+    }
+
+    @Test
+    void subdivisionIsPreferredOverParent()
+    {
+        Claim parent = grid.stableClaims.get(0);
+        Claim child = grid.newClaim(2, 2, 2);
+        child.parent = parent;
+        dataStore.addClaim(child, false);
+
+        assertSame(child, dataStore.getClaimAt(new Location(world, 3, 70, 3), false, null));
+        assertSame(parent, dataStore.getClaimAt(new Location(world, 3, 70, 3), false, true, null));
+        assertSame(parent, dataStore.getClaimAt(new Location(world, 8, 70, 8), false, null));
+
+        dataStore.deleteClaim(child, false, false);
+        assertSame(parent, dataStore.getClaimAt(new Location(world, 3, 70, 3), false, null));
+    }
+
+    @Test
+    void areaQueriesMatchLinearScan()
+    {
+        // Large enough to be indexed across several regions.
+        Claim large = grid.newClaim(-2000, -2000, 1500);
+        dataStore.addClaim(large, false);
+
+        // One query small enough to read chunk cells, one large enough to read region cells.
+        List<BoundingBox> areas = List.of(
+                new BoundingBox(30, 0, 30, 70, 320, 70),
+                new BoundingBox(-600, 0, -600, 300, 320, 150));
+        for (BoundingBox area : areas)
+        {
+            // Queries are widened to whole chunks.
+            BoundingBox chunkArea = new BoundingBox(
+                    area.getMinX() & ~15, 0, area.getMinZ() & ~15,
+                    area.getMaxX() | 15, 320, area.getMaxZ() | 15);
+            Set<Claim> expected = new HashSet<>();
+            for (Claim claim : dataStore.claims)
+            {
+                if (new BoundingBox(claim).intersects(chunkArea)) expected.add(claim);
+            }
+
+            assertEquals(expected, dataStore.getChunkClaims(world, area));
+        }
+        assertTrue(dataStore.getChunkClaims(world, areas.get(1)).contains(large));
+
+        dataStore.deleteClaim(large, false, false);
+        assertFalse(dataStore.getChunkClaims(world, areas.get(1)).contains(large));
+    }
+
+    // Readers check every lookup against the stable claims while a writer adds and removes claims in the same chunks,
+    // checking that its own changes are visible immediately.
+    private void runReaders(int threadCount) throws InterruptedException
+    {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong writeCount = new AtomicLong();
+        long[] lookupCounts = new long[threadCount];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        // The writer constantly adds and removes claims sharing chunks with the stable claims,
+        // forcing the index to replace the buckets the readers are using.
+        Thread writer = new Thread(() ->
+        {
+            try
+            {
+                start.await();
+                int i = 0;
+                while (running.get())
+                {
+                    int x = (i % ClaimGrid.CLAIMS_PER_SIDE) * 32 + 10;
+                    int z = ((i / ClaimGrid.CLAIMS_PER_SIDE) % ClaimGrid.CLAIMS_PER_SIDE) * 32 + 10;
+                    Claim transientClaim = grid.newClaim(x, z, 4);
+                    Location inside = new Location(world, x + 2, 70, z + 2);
+                    dataStore.addClaim(transientClaim, false);
+                    Claim found = dataStore.getClaimAt(inside, false, null);
+                    if (found != transientClaim)
+                        throw new AssertionError("Added claim " + transientClaim.id + " but found " + found);
+                    dataStore.deleteClaim(transientClaim, false, false);
+                    found = dataStore.getClaimAt(inside, false, null);
+                    if (found != null)
+                        throw new AssertionError("Deleted claim " + transientClaim.id + " but found " + found);
+                    writeCount.incrementAndGet();
+                    i++;
+                }
+            }
+            catch (Throwable t)
+            {
+                failure.compareAndSet(null, t);
+            }
+        });
+        threads.add(writer);
+
+        for (int t = 0; t < threadCount; t++)
+        {
+            final int offset = t;
+            threads.add(new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                    long count = 0;
+                    int size = grid.lookups.size();
+                    for (int i = offset; running.get(); i++)
+                    {
+                        int index = i % size;
+                        Claim found = dataStore.getClaimAt(grid.lookups.get(index), false, null);
+                        if (found != grid.stableClaims.get(index))
+                            throw new AssertionError("Lookup " + index + " found " + found);
+                        count++;
+                    }
+                    lookupCounts[offset] = count;
+                }
+                catch (Throwable e)
+                {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        for (Thread thread : threads)
+        {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        if (failure.get() != null)
+            throw new AssertionError("Concurrent lookup failed", failure.get());
+
+        assertEquals(ClaimGrid.CLAIMS_PER_SIDE * ClaimGrid.CLAIMS_PER_SIDE, dataStore.claims.size());
+        assertTrue(writeCount.get() > 0, "The writer made no changes");
+        for (int t = 0; t < threadCount; t++)
+        {
+            assertTrue(lookupCounts[t] > 0, "Reader " + t + " made no lookups");
+        }
+    }
+
+}
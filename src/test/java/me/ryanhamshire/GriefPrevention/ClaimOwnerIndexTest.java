@@ -0,0 +1,85 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClaimOwnerIndexTest
+{
+
+    private ClaimGrid grid;
+    private World world;
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        grid = new ClaimGrid();
+        world = grid.world;
+        dataStore = grid.dataStore;
+    }
+
+    @Test
+    void ownedClaimsAreIndexedByOwner()
+    {
+        UUID ownerID = UUID.randomUUID();
+        Claim first = grid.newClaim(-100, -100, 9);
+        first.ownerID = ownerID;
+        Claim second = grid.newClaim(-200, -200, 9);
+        second.ownerID = ownerID;
+        dataStore.addClaim(first, false);
+        dataStore.addClaim(second, false);
+
+        assertEquals(List.of(first, second), dataStore.getClaimsOwnedBy(ownerID));
+        assertEquals(Set.of(ownerID), dataStore.getClaimOwners());
+        assertTrue(dataStore.getClaimsOwnedBy(UUID.randomUUID()).isEmpty());
+
+        // Each claim is 10 by 10 blocks.
+        assertEquals(200, dataStore.getClaimedArea(ownerID));
+        assertTrue(dataStore.auditClaimedAreas().isEmpty());
+    }
+
+    @Test
+    void auditReportsClaimedAreaPerOwner()
+    {
+        UUID firstOwner = UUID.randomUUID();
+        UUID secondOwner = UUID.randomUUID();
+        Claim small = grid.newClaim(-100, -100, 9);
+        small.ownerID = firstOwner;
+        Claim large = grid.newClaim(-200, -200, 19);
+        large.ownerID = firstOwner;
+        Claim other = grid.newClaim(-300, -300, 4);
+        other.ownerID = secondOwner;
+        dataStore.addClaim(small, false);
+        dataStore.addClaim(large, false);
+        dataStore.addClaim(other, false);
+
+        assertEquals(500, dataStore.getClaimedArea(firstOwner));
+        assertEquals(25, dataStore.getClaimedArea(secondOwner));
+        assertTrue(dataStore.auditClaimedAreas().isEmpty());
+
+        dataStore.deleteClaim(large, false, false);
+        assertEquals(100, dataStore.getClaimedArea(firstOwner));
+        assertTrue(dataStore.auditClaimedAreas().isEmpty());
+
+        // Changing a boundary behind the data store's back leaves the cached total stale.
+        other.setBoundaryCorners(other.lesserBoundaryCorner, new Location(world, -291, 320, -291));
+        assertEquals(
+                List.of(new DataStore.ClaimedAreaMismatch(secondOwner, 25, 100)),
+                dataStore.auditClaimedAreas());
+
+        dataStore.deleteClaim(small, false, false);
+        assertEquals(0, dataStore.getClaimedArea(firstOwner));
+        assertFalse(dataStore.getClaimOwners().contains(firstOwner));
+    }
+
+}
@@ -0,0 +1,135 @@
+package me.ryanhamshire.GriefPrevention;
+
+import com.griefprevention.test.ServerMocks;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ClaimPermissionCacheTest
+{
+
+    private static final String NODE = "farm.access";
+
+    private DataStore dataStore;
+    private Player player;
+    private Claim claim;
+
+    @BeforeAll
+    static void beforeAll()
+    {
+        Server server = ServerMocks.newServer();
+        PluginManager pluginManager = mock();
+        doReturn(pluginManager).when(server).getPluginManager();
+        Bukkit.setServer(server);
+    }
+
+    @AfterAll
+    static void afterAll()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+        ServerMocks.unsetBukkitServer();
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        this.dataStore = mock(DataStore.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.dataStore = this.dataStore;
+
+        this.player = mock(Player.class);
+        when(this.player.getUniqueId()).thenReturn(UUID.randomUUID());
+        when(this.player.hasPermission(NODE)).thenReturn(true);
+
+        World world = mock(World.class);
+        when(world.getMinHeight()).thenReturn(-64);
+        when(world.getMaxHeight()).thenReturn(320);
+        this.claim = new Claim(
+                new Location(world, 0, 0, 0),
+                new Location(world, 20, 0, 20),
+                UUID.randomUUID(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                1L);
+        this.claim.setPermission("[" + NODE + "]", ClaimPermission.Access);
+    }
+
+    @Test
+    void repeatedChecksReuseDecision()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+        }
+
+        verify(this.player, times(1)).hasPermission(NODE);
+    }
+
+    @Test
+    void trustChangeInvalidatesDecision()
+    {
+        assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+
+        this.claim.dropPermission("[" + NODE + "]");
+        assertNotNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+
+        this.claim.setPermission("[" + NODE + "]", ClaimPermission.Access);
+        assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+    }
+
+    @Test
+    void subdivisionRestrictionsInvalidateDecision()
+    {
+        Claim child = new Claim(
+                new Location(this.claim.getLesserBoundaryCorner().getWorld(), 2, 0, 2),
+                new Location(this.claim.getLesserBoundaryCorner().getWorld(), 5, 0, 5),
+                null,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                2L);
+        child.parent = this.claim;
+        this.claim.children.add(child);
+
+        assertNull(child.checkPermission(this.player, ClaimPermission.Access, null));
+        child.setSubclaimRestrictions(true);
+        assertNotNull(child.checkPermission(this.player, ClaimPermission.Access, null));
+    }
+
+    @Test
+    void playerEpochInvalidatesDecision()
+    {
+        assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+        assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+
+        this.dataStore.permissionCache.bumpPlayerEpoch(this.player.getUniqueId());
+        assertNull(this.claim.checkPermission(this.player, ClaimPermission.Access, null));
+
+        verify(this.player, times(2)).hasPermission(NODE);
+    }
+
+}
@@ -0,0 +1,195 @@
+package me.ryanhamshire.GriefPrevention;
+
+import com.griefprevention.test.ServerMocks;
+import me.ryanhamshire.GriefPrevention.events.ClaimPermissionCheckEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ClaimPermissionCheckEventTest
+{
+
+    private static PluginManager pluginManager;
+
+    private final Listener listener = new Listener() {};
+    private final List<ClaimPermissionCheckEvent> fired = new ArrayList<>();
+    private Player owner;
+    private Player stranger;
+    private Claim claim;
+
+    @BeforeAll
+    static void beforeAll()
+    {
+        Server server = ServerMocks.newServer();
+        pluginManager = mock();
+        // Dispatch to registered listeners like the real plugin manager.
+        doAnswer(invocation ->
+        {
+            Event event = invocation.getArgument(0);
+            for (RegisteredListener registered : event.getHandlers().getRegisteredListeners())
+            {
+                registered.callEvent(event);
+            }
+            return null;
+        }).when(pluginManager).callEvent(any());
+        doReturn(pluginManager).when(server).getPluginManager();
+        Bukkit.setServer(server);
+    }
+
+    @AfterAll
+    static void afterAll()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+        ServerMocks.unsetBukkitServer();
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        DataStore dataStore = mock(DataStore.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.dataStore = dataStore;
+        clearInvocations(pluginManager);
+
+        this.owner = mock(Player.class);
+        when(this.owner.getUniqueId()).thenReturn(UUID.randomUUID());
+        this.stranger = mock(Player.class);
+        when(this.stranger.getUniqueId()).thenReturn(UUID.randomUUID());
+
+        World world = mock(World.class);
+        when(world.getMinHeight()).thenReturn(-64);
+        when(world.getMaxHeight()).thenReturn(320);
+        this.claim = new Claim(
+                new Location(world, 0, 0, 0),
+                new Location(world, 20, 0, 20),
+                this.owner.getUniqueId(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                1L);
+        this.claim.setPermission("public", ClaimPermission.Access);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        ClaimPermissionCheckEvent.getHandlerList().unregister(this.listener);
+    }
+
+    private void listen(Consumer<ClaimPermissionCheckEvent> handler)
+    {
+        ClaimPermissionCheckEvent.getHandlerList().register(new RegisteredListener(
+                this.listener,
+                (listener, event) ->
+                {
+                    ClaimPermissionCheckEvent checkEvent = (ClaimPermissionCheckEvent) event;
+                    this.fired.add(checkEvent);
+                    handler.accept(checkEvent);
+                },
+                EventPriority.NORMAL,
+                mock(Plugin.class),
+                false));
+    }
+
+    private List<Boolean> checkAll()
+    {
+        List<Boolean> denied = new ArrayList<>();
+        for (ClaimPermission permission : ClaimPermission.values())
+        {
+            denied.add(this.claim.checkPermission(this.owner, permission, null) != null);
+            denied.add(this.claim.checkPermission(this.stranger, permission, null) != null);
+            denied.add(this.claim.checkPermission(this.stranger.getUniqueId(), permission, null) != null);
+        }
+        return denied;
+    }
+
+    @Test
+    void noEventWithoutListeners()
+    {
+        this.checkAll();
+        assertNull(this.claim.allowBuild(this.owner, Material.STONE));
+
+        verify(pluginManager, never()).callEvent(any());
+    }
+
+    @Test
+    void passiveListenerSeesSameDecisions()
+    {
+        List<Boolean> withoutListener = this.checkAll();
+
+        this.listen(event -> {});
+        List<Boolean> withListener = this.checkAll();
+
+        assertEquals(withoutListener, withListener);
+        assertEquals(withListener.size(), this.fired.size());
+        verify(pluginManager, times(withListener.size())).callEvent(any());
+        for (int i = 0; i < this.fired.size(); i++)
+        {
+            assertEquals(withListener.get(i), this.fired.get(i).getDenialReason() != null);
+        }
+    }
+
+    @Test
+    void listenerReceivesCompatibilityEvent()
+    {
+        this.listen(event -> {});
+
+        assertNull(this.claim.allowBuild(this.owner, Material.STONE));
+
+        assertEquals(1, this.fired.size());
+        Claim.CompatBuildBreakEvent trigger = assertInstanceOf(Claim.CompatBuildBreakEvent.class, this.fired.get(0).getTriggeringEvent());
+        assertEquals(Material.STONE, trigger.getMaterial());
+    }
+
+    @Test
+    void listenerOverridesUntilUnregistered()
+    {
+        assertNotNull(this.claim.checkPermission(this.stranger, ClaimPermission.Build, null));
+
+        this.listen(event -> event.setDenialReason(null));
+        assertNull(this.claim.checkPermission(this.stranger, ClaimPermission.Build, null));
+
+        HandlerList.unregisterAll(this.listener);
+        assertNotNull(this.claim.checkPermission(this.stranger, ClaimPermission.Build, null));
+        verify(pluginManager, times(1)).callEvent(any());
+    }
+
+}
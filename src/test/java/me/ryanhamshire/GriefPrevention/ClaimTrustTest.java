@@ -0,0 +1,163 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ClaimTrustTest
+{
+
+    @Test
+    void playersAreFoundByUUIDAndString()
+    {
+        UUID first = UUID.fromString("00000000-0000-0000-8000-000000000000");
+        UUID second = UUID.fromString("7fffffff-ffff-ffff-0000-000000000001");
+        UUID third = UUID.randomUUID();
+
+        ClaimTrust trust = ClaimTrust.EMPTY
+                .withPermission(third.toString(), ClaimPermission.Access)
+                .withPermission(second.toString().toUpperCase(), ClaimPermission.Build)
+                .withManager(first.toString(), true);
+
+        assertEquals(ClaimPermission.Build, trust.getPermission(second));
+        assertEquals(ClaimPermission.Build, trust.getPermission(second.toString()));
+        assertEquals(ClaimPermission.Access, trust.getPermission(third));
+        assertNull(trust.getPermission(first));
+        assertTrue(trust.isManager(first));
+        assertTrue(trust.isManager(first.toString()));
+        assertFalse(trust.isManager(second));
+        assertNull(trust.getPermission(UUID.randomUUID()));
+        assertEquals(0, trust.otherCount());
+    }
+
+    @Test
+    void levelAndManagerAreIndependent()
+    {
+        String id = UUID.randomUUID().toString();
+        ClaimTrust trust = ClaimTrust.EMPTY.withPermission(id, ClaimPermission.Inventory).withManager(id, true);
+
+        assertEquals(ClaimPermission.Inventory, trust.getPermission(id));
+        assertTrue(trust.isManager(id));
+
+        trust = trust.withPermission(id, null);
+        assertNull(trust.getPermission(id));
+        assertTrue(trust.isManager(id));
+
+        assertSame(ClaimTrust.EMPTY, trust.withManager(id, false));
+    }
+
+    @Test
+    void nonPlayerIdentifiersAreKeptSeparately()
+    {
+        ClaimTrust trust = ClaimTrust.EMPTY
+                .withPermission("public", ClaimPermission.Access)
+                .withManager("[Some.Node]", true)
+                .withPermission("not-a-uuid", ClaimPermission.Build);
+
+        assertEquals(3, trust.otherCount());
+        assertEquals(ClaimPermission.Access, trust.getPermission("PUBLIC"));
+        assertTrue(trust.isManager("[some.node]"));
+        assertEquals("[some.node]", trust.getOther(1));
+        assertTrue(trust.isOtherManager(1));
+        assertNull(trust.getOtherPermission(1));
+        assertEquals(ClaimPermission.Build, trust.getPermission("not-a-uuid"));
+
+        trust = trust.withManager("[some.node]", false);
+        assertEquals(2, trust.otherCount());
+        assertEquals("not-a-uuid", trust.getOther(1));
+    }
+
+    @Test
+    void identifiersRoundTrip()
+    {
+        List<String> expected = new ArrayList<>();
+        ClaimTrust trust = ClaimTrust.EMPTY;
+        for (int i = 0; i < 50; i++)
+        {
+            String id = UUID.randomUUID().toString();
+            expected.add(id);
+            trust = trust.withPermission(id, ClaimPermission.Build);
+        }
+        // Not canonical, so must be kept as a plain string rather than reformatted.
+        expected.add("0-0-0-0-0");
+        trust = trust.withPermission("0-0-0-0-0", ClaimPermission.Build);
+
+        List<String> actual = new ArrayList<>();
+        trust.forEach((identifier, level, manager) ->
+        {
+            assertEquals(ClaimPermission.Build, level);
+            assertFalse(manager);
+            actual.add(identifier);
+        });
+
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void removingEverythingSharesEmpty()
+    {
+        String id = UUID.randomUUID().toString();
+        ClaimTrust trust = ClaimTrust.EMPTY.withPermission(id, ClaimPermission.Access).withPermission("public", ClaimPermission.Build);
+
+        assertSame(ClaimTrust.EMPTY, trust.withPermission(id, null).withPermission("public", null));
+        assertTrue(ClaimTrust.EMPTY.isEmpty());
+        assertSame(ClaimTrust.EMPTY, ClaimTrust.EMPTY.withPermission(id, null));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void deprecatedManagerListWritesThrough()
+    {
+        World world = mock(World.class);
+        Claim claim = new Claim(new Location(world, 0, 0, 0), new Location(world, 10, 0, 10), null,
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), 1L);
+        String id = UUID.randomUUID().toString();
+        claim.setPermission(id, ClaimPermission.Build);
+
+        claim.managers.add(id);
+        claim.managers.add("[some.node]");
+        assertTrue(claim.isManager(id));
+        assertTrue(claim.managers.contains("[some.node]"));
+        assertEquals(2, claim.managers.size());
+
+        assertTrue(claim.managers.remove(id));
+        assertFalse(claim.isManager(id));
+        // Only the manager flag is removed.
+        assertEquals(ClaimPermission.Build, claim.getPermission(id));
+
+        // Changes made through the claim show up in the list.
+        claim.setPermission(id, ClaimPermission.Manage);
+        assertEquals(List.of(id), claim.managers);
+        Iterator<String> managers = claim.managers.iterator();
+        managers.next();
+        managers.remove();
+        assertFalse(claim.isManager(id));
+
+        claim.managers.clear();
+        assertTrue(claim.getManagers().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> claim.setPermission(id, ClaimPermission.Edit));
+    }
+
+    @Test
+    void deprecatedManagerListKeepsItsType() throws NoSuchFieldException
+    {
+        // Compiled addons look the field up by its declared type.
+        assertEquals(ArrayList.class, Claim.class.getField("managers").getType());
+    }
+
+}
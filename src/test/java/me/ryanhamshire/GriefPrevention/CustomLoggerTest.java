@@ -0,0 +1,209 @@
+package me.ryanhamshire.GriefPrevention;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+public class CustomLoggerTest
+{
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setUp()
+    {
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.config_logs_daysToKeep = 7;
+        GriefPrevention.instance.config_logs_socialEnabled = true;
+        GriefPrevention.instance.config_logs_debugEnabled = false;
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+    }
+
+    @Test
+    void writesEnabledEntriesWithoutFormatting() throws IOException
+    {
+        CustomLogger logger = newLogger(0, false, 16);
+        logger.AddEntry("§aPlayer §lchatted", CustomLogEntryTypes.SocialActivity);
+        logger.AddEntry("hidden", CustomLogEntryTypes.Debug);
+        logger.AddEntry("ünïcode", CustomLogEntryTypes.Exception);
+        logger.WriteEntries();
+        logger.close();
+
+        List<String> lines = Files.readAllLines(todaysLog(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\d\\d:\\d\\d Player chatted"), lines.get(0));
+        assertTrue(lines.get(1).endsWith(" ünïcode"), lines.get(1));
+    }
+
+    @Test
+    void dropsAreCountedAndReported() throws IOException
+    {
+        CustomLogger logger = newLogger(0, false, 4);
+        for (int i = 0; i < 10; i++)
+        {
+            logger.AddEntry("entry " + i, CustomLogEntryTypes.SocialActivity);
+        }
+        assertEquals(6, logger.getDroppedEntries());
+
+        logger.WriteEntries();
+        // Drops are only reported once.
+        logger.WriteEntries();
+        logger.close();
+
+        List<String> lines = Files.readAllLines(todaysLog(), StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(3).endsWith(" entry 3"));
+        assertTrue(lines.get(4).contains("Dropped 6 log entries"), lines.get(4));
+    }
+
+    @Test
+    void rollsOverAndCompressesLargeFiles() throws IOException
+    {
+        CustomLogger logger = newLogger(100, true, 64);
+        String entry = "x".repeat(60);
+        for (int i = 0; i < 3; i++)
+        {
+            logger.AddEntry(entry, CustomLogEntryTypes.SocialActivity);
+            logger.WriteEntries();
+        }
+        logger.close();
+
+        String prefix = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy_MM_dd"));
+        try (Stream<Path> files = Files.list(folder))
+        {
+            assertEquals(List.of(prefix + "-1.log.gz", prefix + "-2.log.gz", prefix + ".log"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+        assertFalse(Files.exists(folder.resolve(prefix + "-1.log")));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(folder.resolve(prefix + "-1.log.gz"))))
+        {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(content.endsWith(" " + entry + "\n"), content);
+        }
+        assertEquals(1, Files.readAllLines(todaysLog()).size());
+    }
+
+    @Test
+    void writerThreadDrainsOnClose() throws IOException
+    {
+        CustomLogger logger = newLogger(0, false, 1024);
+        logger.start();
+        for (int i = 0; i < 500; i++)
+        {
+            logger.AddEntry("entry " + i, CustomLogEntryTypes.SocialActivity);
+        }
+        logger.close();
+        logger.AddEntry("after close", CustomLogEntryTypes.SocialActivity);
+
+        List<String> lines = Files.readAllLines(todaysLog(), StandardCharsets.UTF_8);
+        assertEquals(500, lines.size());
+        assertEquals(0, logger.getDroppedEntries());
+    }
+
+    @Test
+    void formatsTemplates()
+    {
+        assertEquals("a 1 b null c", CustomLogger.format("a {} b {} c", 1, null));
+        assertEquals("only 1 {}", CustomLogger.format("only {} {}", 1));
+        assertEquals("no placeholders", CustomLogger.format("no placeholders", "unused"));
+    }
+
+    @Test
+    void lazyEntriesAreBuiltOnlyWhenEnabled() throws IOException
+    {
+        CustomLogger logger = newLogger(0, false, 16);
+        GriefPrevention.instance.customLogger = logger;
+        GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () -> fail("Disabled entry was built"));
+        GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "hidden {}", "entry");
+
+        GriefPrevention.instance.config_logs_debugEnabled = true;
+        GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Delivering {} blocks to {}", 5, "Player");
+        logger.WriteEntries();
+        logger.close();
+
+        List<String> lines = Files.readAllLines(todaysLog(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith(" Delivering 5 blocks to Player"), lines.get(0));
+    }
+
+    @Test
+    void disabledEntriesAllocateNothing()
+    {
+        GriefPrevention.instance.customLogger = newLogger(0, false, 16);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        long threadId = Thread.currentThread().getId();
+        UUID ownerID = UUID.randomUUID();
+        String playerName = "Player";
+        // Outside the range of cached boxes, so boxing them would allocate.
+        int claimBlocks = 40_000;
+        long lastPlayed = System.currentTimeMillis();
+
+        // Warm up so that the lambda and any class initialization are already in place.
+        logDisabledEntries(10_000, ownerID, playerName, claimBlocks, lastPlayed);
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        logDisabledEntries(100_000, ownerID, playerName, claimBlocks, lastPlayed);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - start;
+
+        // Reading the counter costs a few hundred bytes regardless of the work measured. Allocating even the smallest
+        // object per entry would cost several megabytes.
+        assertTrue(allocated < 1024, "Disabled debug entries allocated " + allocated + " bytes");
+    }
+
+    private static void logDisabledEntries(int count, UUID ownerID, String playerName, int claimBlocks, long lastPlayed)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Looking for expired claims.  Checking data for {}", ownerID);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "{} claim block delivery was canceled by {}", playerName, ownerID);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, () -> "Never built");
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "New total blocks: {}", claimBlocks + i);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "Total blocks: {} Total claimed area: {}", claimBlocks + i, claimBlocks);
+            GriefPrevention.AddLogEntry(CustomLogEntryTypes.Debug, "ownerInfo#getLastPlayed: {}", lastPlayed + i);
+        }
+    }
+
+    private CustomLogger newLogger(long maxFileBytes, boolean compress, int capacity)
+    {
+        return new CustomLogger(folder.toFile(), maxFileBytes, compress, capacity, Logger.getLogger("CustomLoggerTest"));
+    }
+
+    private Path todaysLog()
+    {
+        return folder.resolve(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy_MM_dd")) + ".log");
+    }
+
+}
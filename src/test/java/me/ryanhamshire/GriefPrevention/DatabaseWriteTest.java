@@ -0,0 +1,215 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatabaseWriteTest
+{
+
+    @Test
+    void testDialectForUrl()
+    {
+        assertEquals(SqlDialect.MYSQL, SqlDialect.forUrl("jdbc:mysql://localhost/gp"));
+        assertEquals(SqlDialect.MYSQL, SqlDialect.forUrl("jdbc:mariadb://localhost/gp"));
+        assertEquals(SqlDialect.SQLITE, SqlDialect.forUrl("jdbc:sqlite:plugins/gp.db"));
+        assertEquals(SqlDialect.SQLITE, SqlDialect.forUrl("jdbc:postgresql://localhost/gp"));
+        assertEquals(SqlDialect.H2, SqlDialect.forUrl("jdbc:h2:mem:gp"));
+        assertNull(SqlDialect.forUrl("jdbc:derby:gp"));
+    }
+
+    @Test
+    void testUpsertSql()
+    {
+        assertEquals(
+                "INSERT INTO t (id, a, b) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE a = VALUES(a), b = VALUES(b)",
+                SqlDialect.MYSQL.upsert("t", "id", "id", "a", "b"));
+        assertEquals(
+                "INSERT INTO t (id, a, b) VALUES (?, ?, ?) ON CONFLICT (id) DO UPDATE SET a = excluded.a, b = excluded.b",
+                SqlDialect.SQLITE.upsert("t", "id", "id", "a", "b"));
+        assertEquals(
+                "MERGE INTO t (id, a, b) KEY (id) VALUES (?, ?, ?)",
+                SqlDialect.H2.upsert("t", "id", "id", "a", "b"));
+    }
+
+    @Test
+    void testPoolReusesConnections() throws SQLException
+    {
+        AtomicInteger opened = new AtomicInteger();
+        Connection connection = mock();
+        when(connection.getAutoCommit()).thenReturn(true);
+        DatabaseConnectionPool pool = new DatabaseConnectionPool(() ->
+        {
+            opened.incrementAndGet();
+            return connection;
+        }, 2, 100);
+
+        for (int i = 0; i < 10; i++)
+        {
+            try (DatabaseConnectionPool.Lease lease = pool.borrow())
+            {
+                assertSame(connection, lease.connection());
+            }
+        }
+
+        assertEquals(1, opened.get());
+        // Recently used connections are not validated again.
+        verify(connection, never()).isValid(3);
+
+        pool.close();
+        verify(connection).close();
+    }
+
+    @Test
+    void testPoolIsBounded() throws SQLException
+    {
+        DatabaseConnectionPool pool = new DatabaseConnectionPool(() -> mock(), 1, 10);
+
+        try (DatabaseConnectionPool.Lease ignored = pool.borrow())
+        {
+            assertThrows(SQLException.class, pool::borrow);
+        }
+
+        // Returned, so available again.
+        pool.borrow().close();
+        pool.close();
+    }
+
+    @Test
+    void testPoolDiscardsInvalidatedConnections() throws SQLException
+    {
+        AtomicInteger opened = new AtomicInteger();
+        DatabaseConnectionPool pool = new DatabaseConnectionPool(() ->
+        {
+            opened.incrementAndGet();
+            return mock();
+        }, 1, 100);
+
+        Connection broken;
+        try (DatabaseConnectionPool.Lease lease = pool.borrow())
+        {
+            broken = lease.connection();
+            lease.invalidate();
+        }
+        verify(broken).close();
+
+        pool.borrow().close();
+        assertEquals(2, opened.get());
+        pool.close();
+    }
+
+    @Test
+    void testUniqueKeyReplacesDuplicateRows() throws SQLException
+    {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:"))
+        {
+            createPlayerTable(connection, 100, 200);
+
+            assertEquals(1, DatabaseDataStore.addUniqueKey(connection, "griefprevention_playerdata", "name", DatabaseDataStore.PLAYER_COLUMNS));
+            assertTrue(DatabaseDataStore.hasUniqueIndex(connection, "griefprevention_playerdata", "name"));
+            // The first row read is the one kept.
+            assertEquals(1, countRows(connection, "player"));
+            assertEquals(100, bonusBlocks(connection, "player"));
+
+            // Already keyed, so nothing more to do.
+            assertEquals(0, DatabaseDataStore.addUniqueKey(connection, "griefprevention_playerdata", "name", DatabaseDataStore.PLAYER_COLUMNS));
+        }
+    }
+
+    @Test
+    void testUpsertAgainstDatabase() throws SQLException
+    {
+        // MySQL's upsert only replaces rows when the key is unique, which is what the migration adds.
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:;MODE=MySQL"))
+        {
+            createPlayerTable(connection, 100);
+            DatabaseDataStore.addUniqueKey(connection, "griefprevention_playerdata", "name", DatabaseDataStore.PLAYER_COLUMNS);
+
+            assertUpserts(connection, SqlDialect.MYSQL);
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:"))
+        {
+            createPlayerTable(connection, 100);
+            DatabaseDataStore.addUniqueKey(connection, "griefprevention_playerdata", "name", DatabaseDataStore.PLAYER_COLUMNS);
+
+            assertUpserts(connection, SqlDialect.H2);
+        }
+    }
+
+    private static void assertUpserts(Connection connection, SqlDialect dialect) throws SQLException
+    {
+        String sql = dialect.upsert("griefprevention_playerdata", "name", DatabaseDataStore.PLAYER_COLUMNS);
+        try (PreparedStatement upsert = connection.prepareStatement(sql))
+        {
+            for (String name : new String[] { "player", "other" })
+            {
+                upsert.setString(1, name);
+                upsert.setString(2, "2024-01-01 00:00:00");
+                upsert.setInt(3, 0);
+                upsert.setInt(4, 300);
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+        }
+
+        assertEquals(1, countRows(connection, "player"), dialect.name());
+        assertEquals(300, bonusBlocks(connection, "player"), dialect.name());
+        assertEquals(1, countRows(connection, "other"), dialect.name());
+    }
+
+    private static void createPlayerTable(Connection connection, int... bonusBlocks) throws SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.execute("CREATE TABLE griefprevention_playerdata (name VARCHAR(50), lastlogin DATETIME, accruedblocks INTEGER, bonusblocks INTEGER)");
+            for (int blocks : bonusBlocks)
+            {
+                statement.execute("INSERT INTO griefprevention_playerdata VALUES ('player', '2020-01-01 00:00:00', 0, " + blocks + ")");
+            }
+        }
+    }
+
+    private static int countRows(Connection connection, String name) throws SQLException
+    {
+        try (PreparedStatement select = connection.prepareStatement("SELECT COUNT(*) FROM griefprevention_playerdata WHERE name = ?"))
+        {
+            select.setString(1, name);
+            try (ResultSet results = select.executeQuery())
+            {
+                results.next();
+                return results.getInt(1);
+            }
+        }
+    }
+
+    private static int bonusBlocks(Connection connection, String name) throws SQLException
+    {
+        try (PreparedStatement select = connection.prepareStatement("SELECT bonusblocks FROM griefprevention_playerdata WHERE name = ?"))
+        {
+            select.setString(1, name);
+            try (ResultSet results = select.executeQuery())
+            {
+                results.next();
+                return results.getInt(1);
+            }
+        }
+    }
+
+}
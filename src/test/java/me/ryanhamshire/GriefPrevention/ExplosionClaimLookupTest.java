@@ -0,0 +1,108 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExplosionClaimLookupTest
+{
+
+    private ClaimGrid grid;
+    private World world;
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        grid = new ClaimGrid();
+        world = grid.world;
+        dataStore = grid.dataStore;
+    }
+
+    @Test
+    void batchLookupMatchesSingleLookups()
+    {
+        Claim parent = grid.stableClaims.get(0);
+        Claim child = grid.newClaim(2, 2, 2);
+        child.parent = parent;
+        dataStore.addClaim(child, false);
+
+        // A cube spanning a claim with a subdivision, unclaimed gaps and parts of neighboring claims.
+        List<Block> blocks = new ArrayList<>();
+        for (int x = -5; x < 40; x += 3)
+            for (int y = 60; y < 80; y += 7)
+                for (int z = -5; z < 40; z += 3)
+                    blocks.add(ClaimGrid.newBlock(x, y, z));
+
+        Claim[] claims = dataStore.getClaimsAt(world, blocks, false);
+
+        assertEquals(blocks.size(), claims.length);
+        for (int i = 0; i < claims.length; i++)
+        {
+            Block block = blocks.get(i);
+            assertSame(dataStore.getClaimAt(world, block.getX(), block.getY(), block.getZ(), false, null), claims[i]);
+        }
+        assertTrue(Arrays.asList(claims).contains(child));
+        assertTrue(Arrays.asList(claims).contains(grid.stableClaims.get(1)));
+        assertTrue(Arrays.asList(claims).contains(null));
+        assertEquals(0, dataStore.getClaimsAt(world, List.of(), false).length);
+    }
+
+    @Test
+    void chainReactionResolvesInOnePass()
+    {
+        // 500 TNT explosions of about 300 blocks each, spread over claimed and unclaimed land.
+        Random random = new Random(500);
+        List<List<Block>> explosions = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            int centerX = random.nextInt(ClaimGrid.CLAIMS_PER_SIDE * 32);
+            int centerZ = random.nextInt(ClaimGrid.CLAIMS_PER_SIDE * 32);
+            List<Block> blocks = new ArrayList<>();
+            for (int x = -4; x <= 4; x++)
+                for (int y = -2; y <= 1; y++)
+                    for (int z = -4; z <= 4; z++)
+                        if (x * x + z * z <= 16 && random.nextInt(4) != 0)
+                            blocks.add(ClaimGrid.newBlock(centerX + x, 64 + y, centerZ + z));
+            explosions.add(blocks);
+        }
+
+        Claim[][] batched = new Claim[explosions.size()][];
+        for (int i = 0; i < explosions.size(); i++)
+            batched[i] = dataStore.getClaimsAt(world, explosions.get(i), false);
+
+        // Every block resolves to the same claim as a lookup of that block alone.
+        int claimedBlocks = 0;
+        for (int i = 0; i < explosions.size(); i++)
+        {
+            Claim cachedClaim = null;
+            List<Block> blocks = explosions.get(i);
+            for (int j = 0; j < blocks.size(); j++)
+            {
+                Block block = blocks.get(j);
+                Claim claim = dataStore.getClaimAt(world, block.getX(), block.getY(), block.getZ(), false, cachedClaim);
+                assertSame(claim, batched[i][j]);
+                if (claim != null)
+                {
+                    cachedClaim = claim;
+                    claimedBlocks++;
+                }
+            }
+        }
+
+        // The explosions cover both claimed and unclaimed land.
+        int totalBlocks = explosions.stream().mapToInt(List::size).sum();
+        assertTrue(claimedBlocks > 0 && claimedBlocks < totalBlocks);
+    }
+
+}
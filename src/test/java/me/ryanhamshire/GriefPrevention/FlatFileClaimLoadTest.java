@@ -0,0 +1,128 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlatFileClaimLoadTest
+{
+
+    private static final int TOP_LEVEL_CLAIMS = 2_000;
+
+    @TempDir
+    Path claimFolder;
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() throws Exception
+    {
+        World world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+        when(world.getUID()).thenReturn(UUID.randomUUID());
+        when(world.getMaxHeight()).thenReturn(320);
+        when(world.getMinHeight()).thenReturn(-64);
+
+        File[] files = this.writeClaimFiles(world);
+
+        FlatFileDataStore sequential = new FlatFileDataStore(false);
+        FlatFileDataStore.ClaimLoadStats sequentialStats = sequential.loadClaimData(files.clone(), List.of(world), 1);
+        FlatFileDataStore parallel = new FlatFileDataStore(false);
+        FlatFileDataStore.ClaimLoadStats parallelStats = parallel.loadClaimData(files.clone(), List.of(world), 8);
+
+        assertEquals(files.length, sequentialStats.files());
+        assertEquals(files.length, sequentialStats.claims());
+        assertEquals(sequentialStats.claims(), parallelStats.claims());
+        assertEquals(TOP_LEVEL_CLAIMS, sequential.claims.size());
+        assertEquals(describe(sequential.claims), describe(parallel.claims));
+    }
+
+    private File[] writeClaimFiles(World world) throws Exception
+    {
+        FlatFileDataStore writer = new FlatFileDataStore(false);
+        Random random = new Random(42);
+        List<File> files = new ArrayList<>();
+        long nextId = 0;
+        for (int i = 0; i < TOP_LEVEL_CLAIMS; i++)
+        {
+            int x = (i % 100) * 64;
+            int z = (i / 100) * 64;
+            Claim claim = newClaim(world, x, z, 40, nextId++);
+            claim.setPermission(UUID.randomUUID().toString(), ClaimPermission.Build);
+            files.add(this.writeClaimFile(writer, claim));
+
+            // Some claims have subdivisions, which are written to their own files.
+            int subdivisions = random.nextInt(3);
+            for (int j = 0; j < subdivisions; j++)
+            {
+                Claim child = newClaim(world, x + j * 10, z, 5, nextId++);
+                child.parent = claim;
+                files.add(this.writeClaimFile(writer, child));
+            }
+        }
+
+        // Shuffle so that children are not always listed after their parents.
+        Collections.shuffle(files, random);
+        return files.toArray(new File[0]);
+    }
+
+    private File writeClaimFile(FlatFileDataStore writer, Claim claim) throws IOException
+    {
+        Path file = this.claimFolder.resolve(claim.id + ".yml");
+        Files.writeString(file, writer.getYamlForClaim(claim), StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+
+    private static Claim newClaim(World world, int x, int z, int size, long id)
+    {
+        return new Claim(
+                new Location(world, x, 0, z),
+                new Location(world, x + size, 0, z + size),
+                UUID.randomUUID(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                id);
+    }
+
+    private static List<String> describe(List<Claim> claims)
+    {
+        List<String> descriptions = new ArrayList<>();
+        for (Claim claim : claims)
+        {
+            descriptions.add(describe(claim));
+            for (Claim child : claim.children)
+            {
+                descriptions.add("  " + describe(child));
+            }
+        }
+        return descriptions;
+    }
+
+    private static String describe(Claim claim)
+    {
+        ArrayList<String> builders = new ArrayList<>();
+        ArrayList<String> containers = new ArrayList<>();
+        ArrayList<String> accessors = new ArrayList<>();
+        ArrayList<String> managers = new ArrayList<>();
+        claim.getPermissions(builders, containers, accessors, managers);
+        return claim.id + " " + claim.ownerID + " " + claim.getBounds() + " " + (claim.parent != null ? claim.parent.id : -1)
+                + " " + builders + containers + accessors + managers;
+    }
+
+}
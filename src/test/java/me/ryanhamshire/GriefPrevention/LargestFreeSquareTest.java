@@ -0,0 +1,88 @@
+package me.ryanhamshire.GriefPrevention;
+
+import me.ryanhamshire.GriefPrevention.util.BoundingBox;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldBorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LargestFreeSquareTest
+{
+
+    private ClaimGrid grid;
+    private World world;
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        grid = new ClaimGrid();
+        world = grid.world;
+        dataStore = grid.dataStore;
+    }
+
+    @Test
+    void largestFreeSquareMatchesLinearScan()
+    {
+        WorldBorder border = mock(WorldBorder.class);
+        when(border.isInside(any())).thenReturn(true);
+        when(world.getWorldBorder()).thenReturn(border);
+
+        for (int x = -20; x < 120; x += 7)
+        {
+            for (int z = -20; z < 120; z += 11)
+            {
+                int expected = -1;
+                for (int radius = 20; radius >= 2 && expected < 0; radius--)
+                {
+                    BoundingBox square = new BoundingBox(x - radius, 0, z - radius, x + radius, 320, z + radius);
+                    boolean free = true;
+                    for (Claim claim : dataStore.claims)
+                    {
+                        if (new BoundingBox(claim).intersects(square)) free = false;
+                    }
+                    if (free) expected = radius;
+                }
+
+                DataStore.SquareClaimFit fit = dataStore.findLargestFreeSquare(world, x, z, 20, 2, Integer.MAX_VALUE);
+                assertEquals(expected, fit.radius());
+                assertEquals(expected < 0, fit.conflict() != null);
+            }
+        }
+    }
+
+    @Test
+    void largestFreeSquareRespectsBlocksAndBorder()
+    {
+        WorldBorder border = mock(WorldBorder.class);
+        when(border.isInside(any())).thenAnswer(invocation ->
+        {
+            Location location = invocation.getArgument(0);
+            return Math.abs(location.getBlockX()) <= 25 && Math.abs(location.getBlockZ()) <= 25;
+        });
+        when(world.getWorldBorder()).thenReturn(border);
+
+        // The nearest claim is 11 blocks away on both axes.
+        assertEquals(10, dataStore.findLargestFreeSquare(world, 20, 20, 15, 3, 10_000).radius());
+        // 100 blocks pay for a 9x9 square.
+        assertEquals(4, dataStore.findLargestFreeSquare(world, 20, 20, 15, 3, 100).radius());
+        assertFalse(dataStore.findLargestFreeSquare(world, 20, 20, 15, 5, 100).fits());
+        // The border ends 5 blocks from the center.
+        assertEquals(5, dataStore.findLargestFreeSquare(world, 20, -20, 15, 3, 10_000).radius());
+        DataStore.SquareClaimFit outside = dataStore.findLargestFreeSquare(world, 20, -20, 15, 6, 10_000);
+        assertFalse(outside.fits());
+        assertNull(outside.conflict());
+        // Inside a claim, nothing fits.
+        assertSame(grid.stableClaims.get(0), dataStore.findLargestFreeSquare(world, 5, 5, 15, 0, 10_000).conflict());
+    }
+
+}
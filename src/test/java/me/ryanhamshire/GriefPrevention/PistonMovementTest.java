@@ -0,0 +1,210 @@
+package me.ryanhamshire.GriefPrevention;
+
+import com.griefprevention.test.ServerMocks;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.PistonMoveReaction;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class PistonMovementTest
+{
+
+    private World world;
+    private DataStore dataStore;
+    private BlockEventHandler handler;
+    private Claim claim;
+    private long nextId = 0;
+
+    @BeforeAll
+    static void beforeAll()
+    {
+        // BlockEventHandler reads tags when it is first loaded.
+        Server server = ServerMocks.newServer();
+        doAnswer(invocation ->
+        {
+            Tag<?> tag = mock();
+            doReturn(Set.of()).when(tag).getValues();
+            return tag;
+        }).when(server).getTag(notNull(), notNull(), notNull());
+        Bukkit.setServer(server);
+    }
+
+    @AfterAll
+    static void afterAll()
+    {
+        ServerMocks.unsetBukkitServer();
+    }
+
+    @BeforeEach
+    void setUp()
+    {
+        world = mock(World.class);
+        when(world.getUID()).thenReturn(UUID.randomUUID());
+        when(world.getMinHeight()).thenReturn(-64);
+        when(world.getMaxHeight()).thenReturn(320);
+
+        dataStore = mock(DataStore.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.dataStore = dataStore;
+        GriefPrevention.instance.config_pistonMovement = PistonMode.EVERYWHERE;
+        when(GriefPrevention.instance.claimsEnabledForWorld(world)).thenReturn(true);
+        handler = new BlockEventHandler(dataStore);
+
+        claim = newClaim(0, 0, 20, UUID.randomUUID());
+        dataStore.addClaim(claim, false);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+    }
+
+    @Test
+    void positionsRoundTrip()
+    {
+        int[][] positions = { { 0, 0, 0 }, { -1, -64, -1 }, { 30_000_000, 319, -30_000_000 }, { -33_554_432, -2048, 33_554_431 } };
+        for (int[] position : positions)
+        {
+            long packed = PistonMovement.pack(position[0], position[1], position[2]);
+            assertEquals(position[0], PistonMovement.unpackX(packed));
+            assertEquals(position[1], PistonMovement.unpackY(packed));
+            assertEquals(position[2], PistonMovement.unpackZ(packed));
+        }
+    }
+
+    @Test
+    void destinationsAreAffectedUnlessBlocksBreak()
+    {
+        Claim.Bounds destination = new Claim.Bounds(world, 12, 64, 5, 12, 64, 5);
+
+        PistonMovement pushed = new PistonMovement(List.of(newBlock(10, 64, 5), newBlock(11, 64, 5)), BlockFace.EAST);
+        assertTrue(pushed.anyWithin(destination));
+        assertTrue(pushed.intersects(destination));
+        assertTrue(pushed.isWithin(new Claim.Bounds(world, 10, 64, 5, 12, 64, 5)));
+        assertFalse(pushed.isWithin(new Claim.Bounds(world, 10, 64, 5, 11, 64, 5)));
+
+        Block breaking = newBlock(11, 64, 5);
+        when(breaking.getPistonMoveReaction()).thenReturn(PistonMoveReaction.BREAK);
+        PistonMovement broken = new PistonMovement(List.of(newBlock(10, 64, 5), breaking), BlockFace.EAST);
+        assertFalse(broken.anyWithin(destination));
+        // The invaded zone is still part of the bounding box.
+        assertTrue(broken.intersects(destination));
+    }
+
+    @Test
+    void containedMovementVerdictIsReusedUntilClaimsChange()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            BlockPistonExtendEvent event = push(5, 64, 5, BlockFace.EAST, 2);
+            handler.onBlockPistonExtend(event);
+            verify(event, never()).setCancelled(true);
+        }
+        verify(dataStore, times(1)).getClaimAt(eq(world), eq(5), eq(64), eq(5), eq(false), anyBoolean(), isNull());
+
+        // Any claim change discards the verdict.
+        dataStore.addClaim(newClaim(100, 100, 10, UUID.randomUUID()), false);
+        handler.onBlockPistonExtend(push(5, 64, 5, BlockFace.EAST, 2));
+        verify(dataStore, times(2)).getClaimAt(eq(world), eq(5), eq(64), eq(5), eq(false), anyBoolean(), isNull());
+
+        // A movement leaving the claim is never answered by the verdict.
+        BlockPistonExtendEvent leaving = push(19, 64, 5, BlockFace.EAST, 1);
+        handler.onBlockPistonExtend(leaving);
+        verify(dataStore, times(1)).getClaimAt(eq(world), eq(19), eq(64), eq(5), eq(false), anyBoolean(), isNull());
+    }
+
+    @Test
+    void preciseModeOnlyConflictsWithAffectedBlocks()
+    {
+        // Another owner's claim overlaps the corner of the moved blocks' bounding box, but no moved block or destination.
+        dataStore.addClaim(newClaim(24, 67, 10, UUID.randomUUID()), false);
+        List<Block> blocks = new ArrayList<>();
+        blocks.add(newBlock(21, 64, 67));
+        blocks.add(newBlock(23, 64, 65));
+        BlockPistonExtendEvent event = push(20, 64, 65, BlockFace.EAST, blocks);
+
+        handler.onBlockPistonExtend(event);
+        verify(event, never()).setCancelled(true);
+
+        GriefPrevention.instance.config_pistonMovement = PistonMode.EVERYWHERE_SIMPLE;
+        event = push(20, 64, 65, BlockFace.EAST, blocks);
+        handler.onBlockPistonExtend(event);
+        verify(event).setCancelled(true);
+    }
+
+    private BlockPistonExtendEvent push(int x, int y, int z, BlockFace direction, int length)
+    {
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 1; i <= length; i++)
+            blocks.add(newBlock(x + direction.getModX() * i, y + direction.getModY() * i, z + direction.getModZ() * i));
+        return push(x, y, z, direction, blocks);
+    }
+
+    private BlockPistonExtendEvent push(int x, int y, int z, BlockFace direction, List<Block> blocks)
+    {
+        Block piston = newBlock(x, y, z);
+        BlockPistonExtendEvent event = mock(BlockPistonExtendEvent.class);
+        when(event.getBlock()).thenReturn(piston);
+        when(event.getDirection()).thenReturn(direction);
+        when(event.getBlocks()).thenReturn(blocks);
+        return event;
+    }
+
+    private Block newBlock(int x, int y, int z)
+    {
+        Block block = mock(Block.class);
+        when(block.getWorld()).thenReturn(world);
+        when(block.getX()).thenReturn(x);
+        when(block.getY()).thenReturn(y);
+        when(block.getZ()).thenReturn(z);
+        return block;
+    }
+
+    private Claim newClaim(int x, int z, int size, UUID ownerID)
+    {
+        return new Claim(
+                new Location(world, x, 0, z),
+                new Location(world, x + size, 320, z + size),
+                ownerID,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                nextId++);
+    }
+
+}
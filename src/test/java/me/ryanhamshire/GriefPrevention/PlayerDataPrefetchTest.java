@@ -0,0 +1,168 @@
+package me.ryanhamshire.GriefPrevention;
+
+import org.bukkit.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class PlayerDataPrefetchTest
+{
+
+    private DataStore dataStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        dataStore = mock(DataStore.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+        doAnswer(invocation ->
+        {
+            PlayerData stored = new PlayerData();
+            stored.playerID = invocation.getArgument(0);
+            stored.setAccruedClaimBlocks(500);
+            stored.setBonusClaimBlocks(25);
+            return stored;
+        }).when(dataStore).getPlayerDataFromStorage(any());
+
+        GriefPrevention.instance = mock(GriefPrevention.class);
+        GriefPrevention.instance.dataStore = dataStore;
+        GriefPrevention.instance.config_claims_initialBlocks = 100;
+        // Group bonus blocks only apply to online players; nobody is online.
+        when(GriefPrevention.instance.getServer()).thenReturn(mock(Server.class));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        //noinspection DataFlowIssue
+        GriefPrevention.instance = null;
+    }
+
+    @Test
+    void prefetchedDataNeedsNoFurtherReads()
+    {
+        UUID playerID = UUID.randomUUID();
+        PlayerData playerData = dataStore.prefetchPlayerData(playerID).join();
+
+        assertSame(playerData, dataStore.getPlayerData(playerID));
+        assertTrue(playerData.isLoadedFromStorage());
+        assertEquals(500, playerData.getAccruedClaimBlocks());
+        assertEquals(25, playerData.getBonusClaimBlocks());
+        assertEquals(525, playerData.getRemainingClaimBlocks());
+
+        // Prefetching again is answered from the cache.
+        assertTrue(dataStore.prefetchPlayerData(playerID).isDone());
+        verify(dataStore, times(1)).getPlayerDataFromStorage(playerID);
+    }
+
+    @Test
+    void concurrentPrefetchesShareOneRead() throws Exception
+    {
+        UUID playerID = UUID.randomUUID();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation ->
+        {
+            reading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            PlayerData stored = new PlayerData();
+            stored.setAccruedClaimBlocks(500);
+            stored.setBonusClaimBlocks(25);
+            return stored;
+        }).when(dataStore).getPlayerDataFromStorage(playerID);
+
+        CompletableFuture<PlayerData> first = CompletableFuture.supplyAsync(() -> dataStore.prefetchPlayerData(playerID).join());
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<PlayerData> second = dataStore.prefetchPlayerData(playerID);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(dataStore, times(1)).getPlayerDataFromStorage(playerID);
+    }
+
+    @Test
+    void unsavedDataIsNotReadAgain()
+    {
+        UUID playerID = UUID.randomUUID();
+        PlayerData playerData = dataStore.getPlayerData(playerID);
+        playerData.setAccruedClaimBlocks(42);
+        playerData.setBonusClaimBlocks(7);
+
+        assertSame(playerData, dataStore.prefetchPlayerData(playerID).join());
+        assertEquals(42, playerData.getAccruedClaimBlocks());
+        verify(dataStore, times(0)).getPlayerDataFromStorage(playerID);
+    }
+
+    @Test
+    void queuedSavesReachStorage()
+    {
+        Map<UUID, Integer> storage = new ConcurrentHashMap<>();
+        doAnswer(invocation ->
+        {
+            PlayerData saved = invocation.getArgument(1);
+            storage.put(invocation.getArgument(0), saved.getAccruedClaimBlocks());
+            return null;
+        }).when(dataStore).overrideSavePlayerData(any(), any());
+
+        // A synchronous save is written before it returns.
+        UUID syncID = UUID.randomUUID();
+        PlayerData syncData = dataStore.getPlayerData(syncID);
+        syncData.setAccruedClaimBlocks(7);
+        syncData.setBonusClaimBlocks(0);
+        dataStore.savePlayerDataSync(syncID, syncData);
+        assertEquals(7, storage.get(syncID));
+
+        // Everything queued before shutdown is written, with each player's latest data.
+        List<UUID> playerIDs = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+        {
+            UUID playerID = UUID.randomUUID();
+            playerIDs.add(playerID);
+            PlayerData playerData = dataStore.getPlayerData(playerID);
+            playerData.setAccruedClaimBlocks(i);
+            playerData.setBonusClaimBlocks(0);
+            dataStore.savePlayerData(playerID, playerData);
+        }
+        dataStore.closeWriteQueue();
+
+        for (int i = 0; i < playerIDs.size(); i++)
+        {
+            assertEquals(i, storage.get(playerIDs.get(i)));
+        }
+        assertEquals(0, dataStore.getWriteQueueStats().depth());
+    }
+
+    @Test
+    void flushingWhileLockedFails()
+    {
+        synchronized (dataStore)
+        {
+            assertThrows(IllegalStateException.class, dataStore::flushWrites);
+        }
+    }
+
+}
@@ -2,9 +2,20 @@ package me.ryanhamshire.GriefPrevention;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -89,6 +100,60 @@ public class Tests
         assertFalse(finder.hasMatch("?asdfa sdfas df"));
     }
 
+    @Test
+    public void testWordFinderOverlappingWords()
+    {
+        WordFinder finder = new WordFinder(Arrays.asList("she", "he", "hers"));
+        assertTrue(finder.hasMatch("is it hers?"));
+        assertTrue(finder.hasMatch("he said"));
+        assertFalse(finder.hasMatch("ushers"));
+        assertFalse(finder.hasMatch("shed"));
+    }
+
+    @Test
+    public void testWordFinderMatchesRegex()
+    {
+        //the finder used to be a regular expression, it must still find exactly the same things
+        Random random = new Random(7);
+        String alphabet = "abcdeABCDE _-!.,1ÄäÉé";
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 4000; i++)
+        {
+            words.add(randomString(random, alphabet, 2 + random.nextInt(5)));
+        }
+        WordFinder finder = new WordFinder(words);
+        Pattern regex = regexFor(words);
+
+        for (int i = 0; i < 2000; i++)
+        {
+            String message = randomString(random, alphabet, random.nextInt(40));
+            assertEquals(regex.matcher(message).find(), finder.hasMatch(message));
+        }
+    }
+
+    private static Pattern regexFor(List<String> words)
+    {
+        StringBuilder patternBuilder = new StringBuilder();
+        for (String word : words)
+        {
+            if (!word.trim().isEmpty())
+            {
+                patternBuilder.append("|(([^\\w]|^)").append(Pattern.quote(word)).append("([^\\w]|$))");
+            }
+        }
+        return Pattern.compile(patternBuilder.substring(1), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    private static String randomString(Random random, String alphabet, int length)
+    {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+        {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
     private final UUID player1 = UUID.fromString("f13c5a98-3777-4659-a111-5617adb7d7fb");
     private final UUID player2 = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
 
@@ -292,4 +357,74 @@ public class Tests
         assertTrue(result.shouldWarnChatter);
         assertFalse(result.shouldBanChatter);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSpamDetectorConcurrentRepeatMutedOnce() throws Exception
+    {
+        SpamDetector detector = new SpamDetector();
+        int chatters = 32;
+        AtomicInteger allowed = new AtomicInteger();
+        runConcurrently(chatters, i ->
+        {
+            //different chatters sending the same message at the same moment, only the first one gets through
+            if (detector.AnalyzeMessage(new UUID(0, i), "Free diamonds at spawn", 1000).muteReason == null)
+            {
+                allowed.incrementAndGet();
+            }
+        });
+        assertEquals(1, allowed.get());
+    }
+
+    @Test
+    public void testSpamDetectorConcurrentChatters() throws Exception
+    {
+        SpamDetector detector = new SpamDetector();
+        int chatters = 32;
+        int messages = 200;
+        AtomicInteger muted = new AtomicInteger();
+        runConcurrently(chatters, i ->
+        {
+            UUID chatterID = new UUID(0, i);
+            for (int j = 0; j < messages; j++)
+            {
+                //well spaced, distinct messages are never spam no matter how many other chatters there are
+                String message = "Chatter " + i + " has something to say about topic number " + j;
+                if (detector.AnalyzeMessage(chatterID, message, j * 60000L).muteReason != null)
+                {
+                    muted.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(0, muted.get());
+        assertEquals(chatters, detector.dataStore.size());
+    }
+
+    private static void runConcurrently(int threads, IntConsumer task) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                int index = i;
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}